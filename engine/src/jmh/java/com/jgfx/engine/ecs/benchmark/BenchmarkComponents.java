@@ -0,0 +1,41 @@
+package com.jgfx.engine.ecs.benchmark;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * The components that are shared by the benchmarks
+ */
+public final class BenchmarkComponents {
+
+    private BenchmarkComponents() {
+    }
+
+    public static final class Position implements Component {
+        public float x, y;
+
+        public Position(float x, float y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static final class Velocity implements Component {
+        public float x, y;
+
+        public Velocity(float x, float y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static final class Health implements Component {
+        public int value;
+
+        public Health(int value) {
+            this.value = value;
+        }
+    }
+
+    public static final class Frozen implements Component {
+    }
+}
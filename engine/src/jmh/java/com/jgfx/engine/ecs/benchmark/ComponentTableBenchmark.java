@@ -0,0 +1,63 @@
+package com.jgfx.engine.ecs.benchmark;
+
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Health;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Position;
+import com.jgfx.engine.ecs.component.ComponentTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures putting components into a table and removing them again, one operation is the whole batch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentTableBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int entities;
+
+    private ComponentTable table;
+    private Position[] positions;
+    private Health[] healths;
+
+    @Setup
+    public void setup() {
+        positions = new Position[entities];
+        healths = new Health[entities];
+        for (var i = 0; i < entities; i++) {
+            positions[i] = new Position(i, i);
+            healths[i] = new Health(i);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createTable() {
+        table = new ComponentTable();
+    }
+
+    @Benchmark
+    public ComponentTable put() {
+        for (var i = 0; i < entities; i++) {
+            table.put(i, positions[i]);
+            table.put(i, healths[i]);
+        }
+        return table;
+    }
+
+    @Benchmark
+    public ComponentTable putAndRemove() {
+        for (var i = 0; i < entities; i++) {
+            table.put(i, positions[i]);
+            table.put(i, healths[i]);
+        }
+        for (var i = 0; i < entities; i++) {
+            table.remove(i, Position.class);
+            table.remove(i, Health.class);
+        }
+        return table;
+    }
+}
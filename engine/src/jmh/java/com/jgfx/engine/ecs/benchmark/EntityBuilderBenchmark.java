@@ -0,0 +1,49 @@
+package com.jgfx.engine.ecs.benchmark;
+
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Frozen;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Health;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Position;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Velocity;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building entities one component at a time into a fresh manager, one operation is the whole batch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBuilderBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int entities;
+    @Param({"HASHED", "ARCHETYPE"})
+    private StorageMode storage;
+
+    private EntityManager manager;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        manager = CoreContext.put(new EntityManager(storage));
+    }
+
+    @Benchmark
+    public EntityManager build() {
+        for (var i = 0; i < entities; i++) {
+            var builder = manager.newBuilder();
+            builder.addComponent(new Position(i, i));
+            builder.addComponent(new Velocity(1, 1));
+            builder.addComponent(new Health(i));
+            if (i % 4 == 0)
+                builder.addComponent(new Frozen());
+            builder.build();
+        }
+        return manager;
+    }
+}
@@ -0,0 +1,52 @@
+package com.jgfx.engine.ecs.benchmark;
+
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Health;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Position;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Velocity;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating and destroying every entity of a fresh manager, one operation is the whole batch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityManagerBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int entities;
+    @Param({"HASHED", "ARCHETYPE"})
+    private StorageMode storage;
+
+    private EntityManager manager;
+    private long[] ids;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        manager = CoreContext.put(new EntityManager(storage));
+        ids = new long[entities];
+    }
+
+    @Benchmark
+    public EntityManager create() {
+        for (var i = 0; i < entities; i++)
+            manager.create(new Position(i, i), new Velocity(1, 1), new Health(i));
+        return manager;
+    }
+
+    @Benchmark
+    public EntityManager createAndDestroy() {
+        for (var i = 0; i < entities; i++)
+            ids[i] = manager.create(new Position(i, i), new Velocity(1, 1), new Health(i)).getId();
+        for (var i = 0; i < entities; i++)
+            manager.destroy(ids[i]);
+        return manager;
+    }
+}
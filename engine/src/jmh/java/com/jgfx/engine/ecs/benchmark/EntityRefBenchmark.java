@@ -0,0 +1,62 @@
+package com.jgfx.engine.ecs.benchmark;
+
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Frozen;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Health;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Position;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Velocity;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading components through refs, one operation visits every ref once
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityRefBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int entities;
+    @Param({"HASHED", "ARCHETYPE"})
+    private StorageMode storage;
+
+    private EntityRef[] refs;
+
+    @Setup
+    public void setup() {
+        var manager = CoreContext.put(new EntityManager(storage));
+        refs = new EntityRef[entities];
+        for (var i = 0; i < entities; i++) {
+            if (i % 2 == 0)
+                refs[i] = manager.create(new Position(i, i), new Velocity(1, 1), new Health(i));
+            else
+                refs[i] = manager.create(new Position(i, i), new Frozen());
+        }
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (var ref : refs)
+            blackhole.consume(ref.get(Position.class).x);
+    }
+
+    @Benchmark
+    public void getMissing(Blackhole blackhole) {
+        for (var ref : refs)
+            blackhole.consume(ref.get(Velocity.class));
+    }
+
+    @Benchmark
+    public void has(Blackhole blackhole) {
+        for (var ref : refs)
+            blackhole.consume(ref.has(Frozen.class));
+    }
+}
@@ -0,0 +1,69 @@
+package com.jgfx.engine.ecs.benchmark;
+
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Frozen;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Health;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Position;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Velocity;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.group.Group;
+import com.jgfx.engine.ecs.group.GroupBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures iterating groups with different filters, one operation iterates the whole group. Every entity has a
+ * position, half of them a velocity, a third of them health and a quarter of them are frozen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int entities;
+    @Param({"HASHED", "ARCHETYPE"})
+    private StorageMode storage;
+    @Param({"ALL", "ALL_ONE", "ALL_EXCLUDE", "ALL_ONE_EXCLUDE"})
+    private String filter;
+
+    private Group group;
+
+    @Setup
+    public void setup() {
+        var manager = CoreContext.put(new EntityManager(storage));
+        for (var i = 0; i < entities; i++) {
+            var builder = manager.newBuilder();
+            builder.addComponent(new Position(i, i));
+            if (i % 2 == 0)
+                builder.addComponent(new Velocity(1, 1));
+            if (i % 3 == 0)
+                builder.addComponent(new Health(i));
+            if (i % 4 == 0)
+                builder.addComponent(new Frozen());
+            builder.build();
+        }
+        var builder = new GroupBuilder().all(Position.class);
+        if (filter.contains("ONE"))
+            builder.one(Velocity.class, Health.class);
+        if (filter.contains("EXCLUDE"))
+            builder.exclude(Frozen.class);
+        group = builder.build();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (var ref : group)
+            blackhole.consume(ref);
+    }
+
+    @Benchmark
+    public void iterateAndGet(Blackhole blackhole) {
+        group.forEach(ref -> blackhole.consume(ref.get(Position.class).x));
+    }
+}
@@ -0,0 +1,63 @@
+package com.jgfx.engine.ecs.benchmark;
+
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Health;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Position;
+import com.jgfx.engine.ecs.benchmark.BenchmarkComponents.Velocity;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.group.Group;
+import com.jgfx.engine.ecs.group.GroupBuilder;
+import com.jgfx.engine.ecs.query.Query;
+import com.jgfx.engine.ecs.query.Query3;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares iterating a group and reading the components through refs with iterating a typed query
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+    @Param({"1000", "100000"})
+    private int entities;
+    @Param({"HASHED", "ARCHETYPE"})
+    private StorageMode storage;
+
+    private Group group;
+    private Query3<Position, Velocity, Health> query;
+
+    @Setup
+    public void setup() {
+        var manager = CoreContext.put(new EntityManager(storage));
+        for (var i = 0; i < entities; i++) {
+            if (i % 4 == 0)
+                manager.create(new Position(i, i), new Velocity(1, 1));
+            else
+                manager.create(new Position(i, i), new Velocity(1, 1), new Health(i));
+        }
+        group = new GroupBuilder().all(Position.class, Velocity.class, Health.class).build();
+        query = Query.of(Position.class, Velocity.class, Health.class);
+    }
+
+    @Benchmark
+    public void groupRefs(Blackhole blackhole) {
+        group.forEach(ref -> {
+            var position = ref.get(Position.class);
+            var velocity = ref.get(Velocity.class);
+            var health = ref.get(Health.class);
+            blackhole.consume(position.x + velocity.x + health.value);
+        });
+    }
+
+    @Benchmark
+    public void query(Blackhole blackhole) {
+        query.forEach((position, velocity, health) -> blackhole.consume(position.x + velocity.x + health.value));
+    }
+}
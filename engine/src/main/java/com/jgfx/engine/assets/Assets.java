@@ -7,6 +7,9 @@ import com.jgfx.assets.context.CoreContext;
 import com.jgfx.assets.data.AssetData;
 import com.jgfx.assets.type.AssetManager;
 import com.jgfx.assets.urn.ResourceUrn;
+import com.jgfx.engine.metrics.Counter;
+import com.jgfx.engine.metrics.Histogram;
+import com.jgfx.engine.metrics.Metrics;
 
 import java.util.Optional;
 import java.util.Set;
@@ -15,6 +18,9 @@ import java.util.Set;
  * This class will allow for static bindings of assets.
  */
 public class Assets {
+    private static final Counter loads = Metrics.counter("asset.loads");
+    private static final Histogram loadTime = Metrics.histogram("asset.load");
+
     /**
      * @return The requested asset, or null if it doesn't exist.
      */
@@ -34,7 +40,11 @@ public class Assets {
      * @return Loads an asset from the given data, and returns the asset
      */
     public static <T extends Asset<U>, U extends AssetData> T generateAsset(ResourceUrn urn, U data, Class<T> assetClass) {
-        return CoreContext.get(AssetManager.class).loadAsset(urn, data, assetClass);
+        var start = System.nanoTime();
+        var asset = CoreContext.get(AssetManager.class).loadAsset(urn, data, assetClass);
+        loadTime.recordSince(start);
+        loads.increment();
+        return asset;
     }
 
     /**
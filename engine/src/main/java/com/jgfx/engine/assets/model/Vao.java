@@ -1,5 +1,7 @@
 package com.jgfx.engine.assets.model;
 
+import com.jgfx.engine.metrics.Counter;
+import com.jgfx.engine.metrics.Metrics;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL20;
@@ -18,6 +20,7 @@ import static org.lwjgl.opengl.GL11.*;
 public class Vao {
     private static final int BYTES_PER_FLOAT = 4;
     private static final int BYTES_PER_INT = 4;
+    private static final Counter drawCalls = Metrics.counter("gl.draw.calls");
     public final int id;
     private List<Vbo> dataVbos = new ArrayList<>();
     private Vbo indexVbo;
@@ -85,6 +88,7 @@ public class Vao {
      * Draw's the vao directly
      */
     public void draw() {
+        drawCalls.increment();
         bind();
         switch (drawType) {
             case ELEMENT_TRIANGLES:
@@ -1,5 +1,7 @@
 package com.jgfx.engine.assets.model;
 
+import com.jgfx.engine.metrics.Counter;
+import com.jgfx.engine.metrics.Metrics;
 import lombok.Getter;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL15;
@@ -8,6 +10,7 @@ import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 
 public class Vbo {
+    private static final Counter uploadedBytes = Metrics.counter("gl.vbo.uploaded.bytes");
     private final int vboId;
     private final int type;
     @Getter
@@ -77,10 +80,12 @@ public class Vbo {
      * @param data the data that is to be put into the vbo
      */
     public void storeData(IntBuffer data) {
+        uploadedBytes.add((long) data.remaining() * Integer.BYTES);
         GL15.glBufferData(type, data, GL15.GL_STATIC_DRAW);
     }
 
     public void storeData(FloatBuffer data) {
+        uploadedBytes.add((long) data.remaining() * Float.BYTES);
         GL15.glBufferData(type, data, GL15.GL_STATIC_DRAW);
     }
 
@@ -2,21 +2,37 @@ package com.jgfx.engine.ecs;
 
 import com.jgfx.assets.context.CoreContext;
 import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.entity.pool.EntityCommandBuffer;
 import com.jgfx.engine.ecs.entity.pool.EntityManager;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
 import com.jgfx.engine.ecs.entity.system.EntitySystemManager;
+import com.jgfx.engine.ecs.snapshot.SnapshotReader;
+import com.jgfx.engine.ecs.snapshot.SnapshotSaver;
 import lombok.Getter;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Combines all of the aspects of the ecs stuff, into one world class
  */
 public class World {
     @Getter private EntityManager entityManager;
     @Getter private EntitySystemManager systemManager;
+    private SnapshotSaver saver;
 
     public World() {
-        this.entityManager = CoreContext.put(new EntityManager());
+        this(StorageMode.HASHED);
+    }
+
+    /**
+     * @param storageMode the component storage used by the entity manager
+     */
+    public World(StorageMode storageMode) {
+        this.entityManager = CoreContext.put(new EntityManager(storageMode));
         this.systemManager = CoreContext.put(new EntitySystemManager());
     }
 
@@ -42,17 +58,19 @@ public class World {
     }
 
     /**
-     * Processes the world
+     * Processes the world, the structural changes recorded by the systems are applied once all of them are done
      */
     public void process() {
         systemManager.process();
+        entityManager.playback();
     }
 
     /**
-     * Processes the world after the update
+     * Processes the world after the update, then applies the structural changes recorded during the post processing
      */
     public void postProcess() {
         systemManager.postProcess();
+        entityManager.playback();
     }
 
     /**
@@ -69,6 +87,13 @@ public class World {
         systemManager.postInitialize();
     }
 
+    /**
+     * @return returns the command buffer of the calling thread, which is played back after processing
+     */
+    public EntityCommandBuffer commands() {
+        return entityManager.commands();
+    }
+
     /**
      * @return returns an entity with no components
      */
@@ -111,10 +136,33 @@ public class World {
         entityManager.destroy(id);
     }
 
+    /**
+     * Saves the entities in the background, this must be called between frames
+     *
+     * @return returns a future that completes once the file is written
+     */
+    public CompletableFuture<Path> save(Path path) {
+        if (saver == null)
+            saver = new SnapshotSaver(entityManager);
+        return saver.save(path);
+    }
+
+    /**
+     * Replaces the entities with the ones of a saved snapshot, this must be called between frames
+     *
+     * @return returns the number of loaded entities
+     */
+    public int load(Path path) throws IOException {
+        return SnapshotReader.load(path, entityManager);
+    }
+
     /**
      * Dispose of the world
      */
     public void dispose() {
+        if (saver != null)
+            saver.close();
         entityManager.clear();
+        systemManager.dispose();
     }
 }
@@ -0,0 +1,242 @@
+package com.jgfx.engine.ecs.component;
+
+import com.google.common.collect.Lists;
+import gnu.trove.impl.Constants;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Records the tick at which each component of an entity was last added and last written. The tick is a global counter
+ * that is increased every time a system starts processing. Writes made while a system processes are stamped with the
+ * system's tick, writes made anywhere else get a new tick.
+ * <p>
+ * The ticks are stored for the exact class of the component. A type's ticks are only changed by the systems that write
+ * the type, which never run at the same time as systems that read it, so each type has it's own unsynchronized map.
+ */
+public final class ChangeTicks {
+    private static final int NO_TICK = 0;
+    private final AtomicInteger tick = new AtomicInteger();
+    //The tick of the system that's being processed on the thread, and the tick of it's previous run
+    private final ThreadLocal<int[]> running = ThreadLocal.withInitial(() -> new int[2]);
+    private volatile TLongIntHashMap[] changed = new TLongIntHashMap[0];
+    private volatile TLongIntHashMap[] added = new TLongIntHashMap[0];
+    //Called with the id of an entity whenever a component of the type (or a sub type) is added or written
+    private volatile List<LongConsumer>[] listeners = new List[0];
+    //The last tick at which a component of the type was added, written or removed on any entity
+    private volatile int[] typeWrites = new int[0];
+    //Every type counts as written at the last clear
+    private volatile int clearedAt;
+
+    /**
+     * Called before a system is processed
+     *
+     * @param lastRun the tick the system was processed at before, or 0 if it's the first time
+     * @return returns the tick of this run, which should be passed to the next call of this method
+     */
+    public int begin(int lastRun) {
+        var ticks = running.get();
+        ticks[0] = tick.incrementAndGet();
+        ticks[1] = lastRun;
+        return ticks[0];
+    }
+
+    /**
+     * Called after a system was processed
+     */
+    public void end() {
+        var ticks = running.get();
+        ticks[0] = NO_TICK;
+        ticks[1] = NO_TICK;
+    }
+
+    /**
+     * @return returns the tick at which the system processing on this thread ran before, or 0 when no system is
+     * processing, in which case every change is newer
+     */
+    public int lastRun() {
+        return running.get()[1];
+    }
+
+    /**
+     * @return returns true if a system is being processed on this thread, it's writes all share the same tick
+     */
+    public boolean isProcessing() {
+        return running.get()[0] != NO_TICK;
+    }
+
+    /**
+     * @return returns the tick that should be used for a write on this thread
+     */
+    private int writeTick() {
+        var current = running.get()[0];
+        return current != NO_TICK ? current : tick.incrementAndGet();
+    }
+
+    /**
+     * Marks the component of the given type as written
+     */
+    public void markChanged(long entityId, ComponentType type) {
+        var now = writeTick();
+        ticks(type.getIndex(), false).put(entityId, now);
+        touch(type.getIndex(), now);
+        notify(entityId, type);
+    }
+
+    /**
+     * Marks the component of the given type as added, which also counts as a write
+     */
+    public void markAdded(long entityId, ComponentType type) {
+        var now = writeTick();
+        ticks(type.getIndex(), true).put(entityId, now);
+        ticks(type.getIndex(), false).put(entityId, now);
+        touch(type.getIndex(), now);
+        notify(entityId, type);
+    }
+
+    /**
+     * @return returns the current tick, without increasing it
+     */
+    public int current() {
+        return tick.get();
+    }
+
+    /**
+     * @return returns the last tick at which a component of the exact type was added, written or removed on any
+     * entity, or the tick of the last clear if that's later
+     */
+    public int lastWritten(int typeIndex) {
+        var writes = typeWrites;
+        var written = typeIndex < writes.length ? writes[typeIndex] : NO_TICK;
+        return Math.max(written, clearedAt);
+    }
+
+    private void touch(int typeIndex, int now) {
+        var writes = typeWrites;
+        if (typeIndex >= writes.length)
+            writes = grow(typeIndex);
+        //Racing writers store ticks that are close enough, the value is only compared against ticks taken between frames
+        if (writes[typeIndex] < now)
+            writes[typeIndex] = now;
+    }
+
+    private synchronized int[] grow(int typeIndex) {
+        if (typeIndex < typeWrites.length)
+            return typeWrites;
+        return typeWrites = Arrays.copyOf(typeWrites, Math.max(typeIndex + 1, ComponentType.count()));
+    }
+
+    /**
+     * Registers a listener that's called whenever a component of the given type or one of it's sub types is added or
+     * written. The listener may be called from any thread
+     */
+    public synchronized void listen(Class<? extends Component> componentClass, LongConsumer listener) {
+        var index = ComponentType.of(componentClass).getIndex();
+        var current = listeners;
+        if (index >= current.length)
+            current = Arrays.copyOf(current, Math.max(index + 1, ComponentType.count()));
+        if (current[index] == null)
+            current[index] = Lists.newCopyOnWriteArrayList();
+        current[index].add(listener);
+        listeners = current;
+    }
+
+    public synchronized void unlisten(Class<? extends Component> componentClass, LongConsumer listener) {
+        var index = ComponentType.of(componentClass).getIndex();
+        if (index < listeners.length && listeners[index] != null)
+            listeners[index].remove(listener);
+    }
+
+    private void notify(long entityId, ComponentType type) {
+        var current = listeners;
+        if (current.length == 0)
+            return;
+        for (var supertype : type.types()) {
+            var index = supertype.getIndex();
+            if (index < current.length && current[index] != null)
+                for (var listener : current[index])
+                    listener.accept(entityId);
+        }
+    }
+
+    /**
+     * @return returns true if the component was written after the given tick
+     */
+    public boolean changedSince(long entityId, int typeIndex, int since) {
+        var ticks = changed;
+        return typeIndex < ticks.length && ticks[typeIndex] != null && ticks[typeIndex].get(entityId) > since;
+    }
+
+    /**
+     * @return returns true if the component was added after the given tick
+     */
+    public boolean addedSince(long entityId, int typeIndex, int since) {
+        var ticks = added;
+        return typeIndex < ticks.length && ticks[typeIndex] != null && ticks[typeIndex].get(entityId) > since;
+    }
+
+    /**
+     * Forgets the ticks of a removed component
+     */
+    public void remove(long entityId, ComponentType type) {
+        var index = type.getIndex();
+        touch(index, tick.incrementAndGet());
+        var changedTicks = changed;
+        var addedTicks = added;
+        if (index < changedTicks.length && changedTicks[index] != null)
+            changedTicks[index].remove(entityId);
+        if (index < addedTicks.length && addedTicks[index] != null)
+            addedTicks[index].remove(entityId);
+    }
+
+    /**
+     * Forgets the ticks of every component of a destroyed entity
+     */
+    public void remove(long entityId) {
+        var changedTicks = changed;
+        for (var index = 0; index < changedTicks.length; index++)
+            //Every present component has a change tick, so a removed tick means the entity had the type
+            if (changedTicks[index] != null && changedTicks[index].remove(entityId) != NO_TICK)
+                touch(index, tick.incrementAndGet());
+        for (var ticks : added)
+            if (ticks != null)
+                ticks.remove(entityId);
+    }
+
+    /**
+     * Forgets all of the ticks, the tick counter itself keeps going
+     */
+    public synchronized void clear() {
+        changed = new TLongIntHashMap[0];
+        added = new TLongIntHashMap[0];
+        clearedAt = tick.incrementAndGet();
+    }
+
+    /**
+     * @return returns the map of the type, creating it if needed
+     */
+    private TLongIntHashMap ticks(int typeIndex, boolean addedTicks) {
+        var ticks = addedTicks ? added : changed;
+        if (typeIndex < ticks.length && ticks[typeIndex] != null)
+            return ticks[typeIndex];
+        return create(typeIndex, addedTicks);
+    }
+
+    private synchronized TLongIntHashMap create(int typeIndex, boolean addedTicks) {
+        var ticks = addedTicks ? added : changed;
+        if (typeIndex >= ticks.length)
+            ticks = Arrays.copyOf(ticks, Math.max(typeIndex + 1, ComponentType.count()));
+        else if (ticks[typeIndex] != null)
+            return ticks[typeIndex];
+        var map = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0, NO_TICK);
+        ticks[typeIndex] = map;
+        if (addedTicks)
+            added = ticks;
+        else
+            changed = ticks;
+        return map;
+    }
+}
@@ -0,0 +1,140 @@
+package com.jgfx.engine.ecs.component;
+
+import java.util.Arrays;
+
+/**
+ * A growable bit set over {@link ComponentType} indices. An entity's signature has a bit set for every component type
+ * it has (including the super types), which lets groups match entities with a few word wide operations.
+ */
+public final class ComponentMask {
+    private static final long[] EMPTY = new long[0];
+    private long[] words = EMPTY;
+
+    public ComponentMask() {
+    }
+
+    /**
+     * @return returns a mask with the bits of all of the given classes and their super types
+     */
+    public static ComponentMask of(Class<? extends Component>[] classes) {
+        var mask = new ComponentMask();
+        for (var componentClass : classes)
+            mask.set(ComponentType.of(componentClass).getIndex());
+        return mask;
+    }
+
+    public void set(int index) {
+        var word = index >>> 6;
+        if (word >= words.length)
+            words = Arrays.copyOf(words, word + 1);
+        words[word] |= 1L << index;
+    }
+
+    public void clear(int index) {
+        var word = index >>> 6;
+        if (word < words.length)
+            words[word] &= ~(1L << index);
+    }
+
+    public boolean get(int index) {
+        var word = index >>> 6;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return returns a new mask with the same bits
+     */
+    public ComponentMask copy() {
+        var copy = new ComponentMask();
+        copy.words = words.clone();
+        return copy;
+    }
+
+    /**
+     * Sets all of the bits of the other mask
+     */
+    public void or(ComponentMask other) {
+        if (other.words.length > words.length)
+            words = Arrays.copyOf(words, other.words.length);
+        for (var i = 0; i < other.words.length; i++)
+            words[i] |= other.words[i];
+    }
+
+    /**
+     * Clears all of the bits of the other mask
+     */
+    public void andNot(ComponentMask other) {
+        var length = Math.min(words.length, other.words.length);
+        for (var i = 0; i < length; i++)
+            words[i] &= ~other.words[i];
+    }
+
+    /**
+     * @return returns true if every bit of the other mask is set in this mask
+     */
+    public boolean containsAll(ComponentMask other) {
+        var otherWords = other.words;
+        for (var i = 0; i < otherWords.length; i++) {
+            var word = i < words.length ? words[i] : 0;
+            if ((otherWords[i] & ~word) != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return returns true if at least one bit is set in both masks
+     */
+    public boolean intersects(ComponentMask other) {
+        var length = Math.min(words.length, other.words.length);
+        for (var i = 0; i < length; i++)
+            if ((words[i] & other.words[i]) != 0)
+                return true;
+        return false;
+    }
+
+    public boolean isEmpty() {
+        for (var word : words)
+            if (word != 0)
+                return false;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ComponentMask))
+            return false;
+        var other = ((ComponentMask) o).words;
+        var length = Math.max(words.length, other.length);
+        for (var i = 0; i < length; i++) {
+            var word = i < words.length ? words[i] : 0;
+            var otherWord = i < other.length ? other[i] : 0;
+            if (word != otherWord)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        var hash = 0L;
+        for (var word : words)
+            hash ^= word;
+        return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder("ComponentMask{");
+        for (var i = 0; i < words.length << 6; i++)
+            if (get(i))
+                builder.append(i).append(' ');
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.jgfx.engine.ecs.component;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.iterator.TLongObjectIterator;
+
+import java.util.List;
+
+/**
+ * The backing storage for the components of every entity inside an entity pool. The layout of the components is up to
+ * the implementation, see {@link StorageMode} for the available implementations.
+ */
+public interface ComponentStore {
+
+    /**
+     * Gets a given component from the specified entity if it exists
+     *
+     * @param entityId
+     * @param componentClass
+     * @param <T>
+     * @return returns the component
+     */
+    <T extends Component> T get(long entityId, Class<T> componentClass);
+
+    /**
+     * Puts a component into the store with the specified entity id
+     *
+     * @param entityId
+     * @param component
+     * @return returns the component that was replaced, or null
+     */
+    Component put(long entityId, Component component);
+
+    /**
+     * Puts the components of a batch of new entities into the store. The default implementation puts them one by one,
+     * stores can override it to look up their storage once for the whole batch
+     *
+     * @param entityIds  the ids of the entities, which must not have any components yet
+     * @param count      the number of entities
+     * @param components the components, indexed by type and then by the position of the entity in the ids. Every
+     *                   component of a type is of the same exact class
+     */
+    default void putBatch(long[] entityIds, int count, Component[][] components) {
+        for (var type : components)
+            for (var entity = 0; entity < count; entity++)
+                put(entityIds[entity], type[entity]);
+    }
+
+    /**
+     * @return removes the component with the specified class from the entity and returns it.
+     * Returns null if no component could be removed.
+     */
+    <T extends Component> Component remove(long entityId, Class<T> componentClass);
+
+    /**
+     * Clears all of the components from a specified entity
+     *
+     * @param entityId
+     * @return returns the total removed
+     */
+    int removeAll(long entityId);
+
+    /**
+     * Removes the entity and all of it's components from the store
+     *
+     * @param entityId
+     */
+    void remove(long entityId);
+
+    /**
+     * Clears all components mappings
+     */
+    void clear();
+
+    /**
+     * Counts the components of the specified component type
+     *
+     * @param componentClass
+     * @return returns the total number of components with the given type
+     */
+    int getComponentCount(Class<? extends Component> componentClass);
+
+    /**
+     * @return an iterable that should be only used for iteration over the components. It can't be used to remove
+     * components. It should not be used after components have been added or removed from the entity.
+     */
+    Iterable<Component> iterateComponents(long entityId);
+
+    /**
+     * @return a new modifable list instance that contains all the components the entity had at the
+     * time this method got called.
+     */
+    List<Component> getComponentsInNewList(long entityId);
+
+    /**
+     * Creates an iterator for the components of the specified type
+     *
+     * @param componentClass the class to iterate
+     * @param <T>
+     * @return collection of iterable component, or null if there are no components of the given type
+     */
+    <T extends Component> TLongObjectIterator<T> componentIterator(Class<T> componentClass);
+
+    /**
+     * Produces an iterator for iterating over all entities
+     * <br><br>
+     * This is not designed to be performant, and in general usage entities should not be iterated over.
+     *
+     * @return An iterator over all entity ids.
+     */
+    TLongIterator entityIdIterator();
+
+    /**
+     * Produces an iterator over the ids of the entities that have all of the all classes, at least one of the one
+     * classes (if there are any) and none of the exclude classes.
+     *
+     * @param allClasses     the required classes
+     * @param oneClasses     the classes of which at least one is required, ignored when empty
+     * @param excludeClasses the classes that can't be present
+     * @return An iterator over the matching entity ids
+     */
+    TLongIterator entityIdIterator(Class<? extends Component>[] allClasses, Class<? extends Component>[] oneClasses, Class<? extends Component>[] excludeClasses);
+
+    /**
+     * Counts the number of entities for the store
+     *
+     * @return
+     */
+    int numEntities();
+}
@@ -3,20 +3,22 @@ package com.jgfx.engine.ecs.component;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import gnu.trove.iterator.TLongIterator;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.iterator.TLongObjectIterator;
 import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.set.TLongSet;
 import gnu.trove.set.hash.TLongHashSet;
-import org.checkerframework.checker.units.qual.C;
 
 import java.util.List;
 import java.util.Map;
 
 /**
- * A table for storing entities and components. Focused on allowing iteration across a components of a given type
+ * A table for storing entities and components. Focused on allowing iteration across a components of a given type.
+ * The store maps every component type (including the super types of a component) to the components, the specific
+ * store only maps the exact class of a component.
  */
-public class ComponentTable {
+public class ComponentTable implements ComponentStore {
     private Map<Class<?>, TLongObjectMap<Component>> store = Maps.newConcurrentMap();
     private Map<Class<?>, TLongObjectMap<Component>> specificStore = Maps.newConcurrentMap();
 
@@ -28,18 +30,23 @@ public class ComponentTable {
      * @param <T>
      * @return returns the component
      */
+    @Override
     public <T extends Component> T get(long entityId, Class<T> componentClass) {
         TLongObjectMap<Component> entityMap = store.get(componentClass);
         if (entityMap != null)
             return componentClass.cast(entityMap.get(entityId));
-        else {
-            TLongObjectMap<Component> specificMap = specificStore.get(componentClass);
-            if (specificMap != null)
-                return componentClass.cast(specificMap.get(entityId));
-        }
         return null;
     }
 
+    /**
+     * The map of a super type contains the components of all of it's sub types
+     *
+     * @return returns the map of entity ids to components for the given type, or null if no entity has the type
+     */
+    public TLongObjectMap<Component> column(Class<? extends Component> componentClass) {
+        return store.get(componentClass);
+    }
+
     /**
      * Puts a component into the map with the specified entity id
      *
@@ -47,50 +54,56 @@ public class ComponentTable {
      * @param component
      * @return returns the component
      */
+    @Override
     public Component put(long entityId, Component component) {
-        var root = getRootClass(component);
-        if (!root.isInstance(component)) {
-            TLongObjectMap<Component> entityMap = store.get(root);
-            if (entityMap == null) {
-                entityMap = new TLongObjectHashMap<>();
-                store.put(root, entityMap);
-                entityMap.put(entityId, component);
-            }
-        }
-        TLongObjectMap<Component> entityMap = specificStore.get(component.getClass());
-        if (entityMap == null) {
-            entityMap = new TLongObjectHashMap<>();
-            specificStore.put(component.getClass(), entityMap);
-        }
-        return entityMap.put(entityId, component);
+        var types = ComponentType.of(component.getClass()).types();
+        for (var type : types)
+            store.computeIfAbsent(type.getType(), key -> new TLongObjectHashMap<>()).put(entityId, component);
+        return specificStore.computeIfAbsent(component.getClass(), key -> new TLongObjectHashMap<>()).put(entityId, component);
     }
 
     /**
-     * @return returns the root class for the given component
+     * Looks up the maps of each type once, and grows them once for the whole batch
      */
-    private Class<? extends Component> getRootClass(Component component) {
-        Class c = component.getClass();
-        if (c.getSuperclass() == null)
-            return c;
-        while (c != null) {
-            if (Component.class.isAssignableFrom(c.getSuperclass()))
-                c = c.getSuperclass();
-            else
-                return c;
+    @Override
+    public void putBatch(long[] entityIds, int count, Component[][] components) {
+        if (count == 0)
+            return;
+        for (var column : components) {
+            var types = ComponentType.of(column[0].getClass()).types();
+            for (var i = 0; i <= types.length; i++) {
+                var map = i < types.length
+                        ? store.computeIfAbsent(types[i].getType(), key -> new TLongObjectHashMap<>())
+                        : specificStore.computeIfAbsent(types[0].getType(), key -> new TLongObjectHashMap<>());
+                ((TLongObjectHashMap<Component>) map).ensureCapacity(map.size() + count);
+                for (var entity = 0; entity < count; entity++)
+                    map.put(entityIds[entity], column[entity]);
+            }
         }
-        return c;
     }
 
     /**
      * @return removes the component with the specified class from the entity and returns it.
      * Returns null if no component could be removed.
      */
+    @Override
     public <T extends Component> Component remove(long entityId, Class<T> componentClass) {
-        TLongObjectMap<Component> entityMap = store.get(componentClass);
-        if (entityMap != null) {
-            return entityMap.remove(entityId);
+        var component = get(entityId, componentClass);
+        if (component == null)
+            return null;
+        var type = ComponentType.of(component.getClass());
+        specificStore.get(type.getType()).remove(entityId);
+        for (var supertype : type.types()) {
+            var entityMap = store.get(supertype.getType());
+            if (entityMap.get(entityId) == component)
+                entityMap.remove(entityId);
         }
-        return null;
+        //Another component of the entity may share a super type with the removed component
+        if (type.types().length > 1)
+            for (var remaining : getComponentsInNewList(entityId))
+                for (var supertype : ComponentType.of(remaining.getClass()).getSupertypes())
+                    store.get(supertype.getType()).putIfAbsent(entityId, remaining);
+        return component;
     }
 
     /**
@@ -99,13 +112,11 @@ public class ComponentTable {
      * @param entityId
      * @return returns the total removed
      */
+    @Override
     public int removeAll(long entityId) {
         int count = 0;
-        for (TLongObjectMap<Component> entityMap : store.values()) {
-            Component component = entityMap.remove(entityId);
-            if (component != null)
-                count++;
-        }
+        for (TLongObjectMap<Component> entityMap : store.values())
+            entityMap.remove(entityId);
         for (TLongObjectMap<Component> entityMap : specificStore.values()) {
             Component component = entityMap.remove(entityId);
             if (component != null)
@@ -117,6 +128,7 @@ public class ComponentTable {
     /**
      * Clears all components mappings
      */
+    @Override
     public void clear() {
         store.clear();
         specificStore.clear();
@@ -128,20 +140,17 @@ public class ComponentTable {
      * @param componentClass
      * @return returns the total number of components with the given type
      */
+    @Override
     public int getComponentCount(Class<? extends Component> componentClass) {
         var map = store.get(componentClass);
-        if (map != null) {
-            return map.size();
-        } else {
-            var mapSpecific = specificStore.get(componentClass);
-            return mapSpecific == null ? 0 : mapSpecific.size();
-        }
+        return map == null ? 0 : map.size();
     }
 
     /**
      * @return an iterable that should be only used for iteration over the components. It can't be used to remove
      * components. It should not be used after components have been added or removed from the entity.
      */
+    @Override
     public Iterable<Component> iterateComponents(long entityId) {
         return getComponentsInNewList(entityId);
     }
@@ -151,13 +160,9 @@ public class ComponentTable {
      * @return a new modifable list instance that contains all the components the entity had at the
      * time this method got called.
      */
+    @Override
     public List<Component> getComponentsInNewList(long entityId) {
         List<Component> components = Lists.newArrayList();
-        for (var componentMap : store.values()) {
-            var comp = componentMap.get(entityId);
-            if (comp != null)
-                components.add(comp);
-        }
         for (var componentMap : specificStore.values()) {
             var comp = componentMap.get(entityId);
             if (comp != null)
@@ -173,15 +178,11 @@ public class ComponentTable {
      * @param <T>
      * @return collection of iterable component
      */
+    @Override
     public <T extends Component> TLongObjectIterator<T> componentIterator(Class<T> componentClass) {
         var entityMap = (TLongObjectMap<T>) store.get(componentClass);
-        if (entityMap != null) {
+        if (entityMap != null)
             return entityMap.iterator();
-        } else {
-            var specificEntityMap = (TLongObjectMap<T>) specificStore.get(componentClass);
-            if (specificEntityMap != null)
-                return specificEntityMap.iterator();
-        }
         return null;
     }
 
@@ -192,15 +193,65 @@ public class ComponentTable {
      *
      * @return An iterator over all entity ids.
      */
+    @Override
     public TLongIterator entityIdIterator() {
-        TLongSet idSet = new TLongHashSet();
-        for (TLongObjectMap<Component> componentMap : store.values()) {
-            idSet.addAll(componentMap.keys());
-        }
-        for (TLongObjectMap<Component> componentMap : specificStore.values()) {
-            idSet.addAll(componentMap.keys());
+        return entityIdSet().iterator();
+    }
+
+    /**
+     * Produces an iterator over the matching entities. The candidates are taken from the first all class (or the one
+     * classes when there are no all classes) so we only ever look at entities that could possibly match.
+     *
+     * @return An iterator over the matching entity ids
+     */
+    @Override
+    public TLongIterator entityIdIterator(Class<? extends Component>[] allClasses, Class<? extends Component>[] oneClasses, Class<? extends Component>[] excludeClasses) {
+        TLongSet candidates = new TLongHashSet();
+        if (allClasses.length > 0) {
+            var entityMap = mapFor(allClasses[0]);
+            if (entityMap != null)
+                candidates.addAll(entityMap.keys());
+        } else if (oneClasses.length > 0) {
+            for (var oneClass : oneClasses) {
+                var entityMap = mapFor(oneClass);
+                if (entityMap != null)
+                    candidates.addAll(entityMap.keys());
+            }
+        } else {
+            candidates = entityIdSet();
         }
-        return idSet.iterator();
+        var matching = new TLongArrayList(candidates.size());
+        candidates.forEach(id -> {
+            if (matches(id, allClasses, oneClasses, excludeClasses))
+                matching.add(id);
+            return true;
+        });
+        return matching.iterator();
+    }
+
+    /**
+     * @return returns true if the entity has all of the all classes, one of the one classes and none of the excluded
+     */
+    private boolean matches(long entityId, Class<? extends Component>[] allClasses, Class<? extends Component>[] oneClasses, Class<? extends Component>[] excludeClasses) {
+        for (var allClass : allClasses)
+            if (get(entityId, allClass) == null)
+                return false;
+        for (var excludeClass : excludeClasses)
+            if (get(entityId, excludeClass) != null)
+                return false;
+        if (oneClasses.length == 0)
+            return true;
+        for (var oneClass : oneClasses)
+            if (get(entityId, oneClass) != null)
+                return true;
+        return false;
+    }
+
+    /**
+     * @return returns the map that would be used to look up the given component class
+     */
+    private TLongObjectMap<Component> mapFor(Class<? extends Component> componentClass) {
+        return store.get(componentClass);
     }
 
     /**
@@ -208,17 +259,23 @@ public class ComponentTable {
      *
      * @return
      */
+    @Override
     public int numEntities() {
+        return entityIdSet().size();
+    }
+
+    /**
+     * @return returns a new set with the ids of every entity that has at least one component
+     */
+    private TLongSet entityIdSet() {
         TLongSet idSet = new TLongHashSet();
-        for (TLongObjectMap<Component> componentMap : store.values()) {
-            idSet.addAll(componentMap.keys());
-        }
         for (TLongObjectMap<Component> componentMap : specificStore.values()) {
             idSet.addAll(componentMap.keys());
         }
-        return idSet.size();
+        return idSet;
     }
 
+    @Override
     public void remove(long entityId) {
         for (TLongObjectMap<Component> entityMap : store.values()) {
             entityMap.remove(entityId);
@@ -0,0 +1,129 @@
+package com.jgfx.engine.ecs.component;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jgfx.engine.ecs.component.packed.PackedLayout;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the precomputed meta data of a component class. Every component class is given a small dense index the first
+ * time it's seen, which is used for the bits of a {@link ComponentMask}.
+ */
+public final class ComponentType {
+    private static final Map<Class<?>, ComponentType> TYPES = Maps.newConcurrentMap();
+    private static final List<ComponentType> INDEXED = Lists.newCopyOnWriteArrayList();
+
+    @Getter private final int index;
+    @Getter private final Class<? extends Component> type;
+    @Getter private final Class<? extends Component> rootClass;
+    @Getter private final boolean single;
+    //True if the data of the component is stored in a packed column
+    @Getter private final boolean packed;
+    //This type followed by every super class and interface that is also a component
+    private final ComponentType[] types;
+    //The bits of this type and all of it's super types
+    @Getter private final ComponentMask mask;
+
+    private ComponentType(int index, Class<? extends Component> type, List<ComponentType> supertypes) {
+        this.index = index;
+        this.type = type;
+        this.single = SingleComponent.class.isAssignableFrom(type);
+        this.packed = PackedLayout.isPacked(type);
+        this.types = new ComponentType[supertypes.size() + 1];
+        this.types[0] = this;
+        this.mask = new ComponentMask();
+        this.mask.set(index);
+        var root = type;
+        for (var i = 0; i < supertypes.size(); i++) {
+            var supertype = supertypes.get(i);
+            types[i + 1] = supertype;
+            mask.set(supertype.index);
+            if (!supertype.type.isInterface())
+                root = supertype.type;
+        }
+        this.rootClass = root;
+    }
+
+    /**
+     * @return returns the type for the given class, registering it if it hasn't been seen yet
+     */
+    public static ComponentType of(Class<? extends Component> componentClass) {
+        var type = TYPES.get(componentClass);
+        if (type != null)
+            return type;
+        return register(componentClass);
+    }
+
+    /**
+     * @return returns the type with the given index
+     */
+    public static ComponentType byIndex(int index) {
+        return INDEXED.get(index);
+    }
+
+    /**
+     * @return returns the number of registered types
+     */
+    public static int count() {
+        return INDEXED.size();
+    }
+
+    /**
+     * Registers the class and it's super types, super types are registered first so they always have a lower index
+     */
+    private static synchronized ComponentType register(Class<? extends Component> componentClass) {
+        var type = TYPES.get(componentClass);
+        if (type != null)
+            return type;
+        List<ComponentType> supertypes = Lists.newArrayList();
+        collectSupertypes(componentClass, supertypes);
+        type = new ComponentType(INDEXED.size(), componentClass, supertypes);
+        INDEXED.add(type);
+        TYPES.put(componentClass, type);
+        return type;
+    }
+
+    /**
+     * Adds the super class chain first, then the interfaces of each class in the chain
+     */
+    private static void collectSupertypes(Class<?> componentClass, List<ComponentType> supertypes) {
+        var superClass = componentClass.getSuperclass();
+        if (superClass != null && Component.class.isAssignableFrom(superClass))
+            add(of((Class<? extends Component>) superClass), supertypes);
+        for (var anInterface : componentClass.getInterfaces())
+            if (anInterface != Component.class && Component.class.isAssignableFrom(anInterface))
+                add(of((Class<? extends Component>) anInterface), supertypes);
+    }
+
+    /**
+     * Adds the type and it's own super types, skipping the ones that are already present
+     */
+    private static void add(ComponentType type, List<ComponentType> supertypes) {
+        for (var supertype : type.types)
+            if (!supertypes.contains(supertype))
+                supertypes.add(supertype);
+    }
+
+    /**
+     * @return returns this type followed by every component super type, the array must not be modified
+     */
+    public ComponentType[] types() {
+        return types;
+    }
+
+    /**
+     * @return returns the classes of this type and it's component super types
+     */
+    public List<ComponentType> getSupertypes() {
+        return Collections.unmodifiableList(List.of(types).subList(1, types.length));
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentType[" + index + ", " + type.getSimpleName() + "]";
+    }
+}
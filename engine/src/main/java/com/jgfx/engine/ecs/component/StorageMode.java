@@ -0,0 +1,33 @@
+package com.jgfx.engine.ecs.component;
+
+import com.jgfx.engine.ecs.component.archetype.ArchetypeTable;
+
+import java.util.function.Supplier;
+
+/**
+ * The different ways an entity pool can lay out it's components
+ */
+public enum StorageMode {
+    /**
+     * One hash map per component type, this is cheap to add and remove components from but every lookup is a hash probe
+     */
+    HASHED(ComponentTable::new),
+    /**
+     * Entities with the same set of components are stored together in dense chunked tables, which makes iteration
+     * over a set of components walk contiguous arrays. Adding or removing a component moves the entity between tables.
+     */
+    ARCHETYPE(ArchetypeTable::new);
+
+    private final Supplier<ComponentStore> factory;
+
+    StorageMode(Supplier<ComponentStore> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return returns a new empty store for this mode
+     */
+    public ComponentStore create() {
+        return factory.get();
+    }
+}
@@ -0,0 +1,195 @@
+package com.jgfx.engine.ecs.component.archetype;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentType;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a unique set of component types. Every entity that has exactly this set of components is stored in the
+ * chunks of this archetype, with one row per entity.
+ */
+public final class Archetype {
+    public static final int CHUNK_SHIFT = 8;
+    public static final int CHUNK_CAPACITY = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_CAPACITY - 1;
+    public static final long NO_ENTITY = -1;
+
+    @Getter private final int id;
+    private final Class<? extends Component>[] types;
+    //Maps a component type index to it's column, super types map to the column of their sub type
+    private final int[] columns;
+    //The bits of every type (and super type) of this archetype
+    @Getter private final ComponentMask mask;
+    private final List<ArchetypeChunk> chunks;
+    //Cached transitions to the archetypes with one component type more, or one less
+    private final Map<Class<?>, Archetype> addEdges, removeEdges;
+    @Getter private int size;
+
+    Archetype(int id, Class<? extends Component>[] types) {
+        this.id = id;
+        this.types = types;
+        this.mask = new ComponentMask();
+        var length = 0;
+        for (var type : types) {
+            var componentType = ComponentType.of(type);
+            mask.or(componentType.getMask());
+            length = Math.max(length, componentType.getIndex() + 1);
+        }
+        this.columns = new int[length];
+        Arrays.fill(columns, -1);
+        for (var i = 0; i < types.length; i++)
+            for (var type : ComponentType.of(types[i]).types())
+                if (columns[type.getIndex()] == -1)
+                    columns[type.getIndex()] = i;
+        this.chunks = Lists.newArrayList();
+        this.addEdges = Maps.newHashMap();
+        this.removeEdges = Maps.newHashMap();
+    }
+
+    /**
+     * @return returns the column of the given type or -1 if this archetype doesn't have the type
+     */
+    public int column(Class<? extends Component> type) {
+        return column(ComponentType.of(type).getIndex());
+    }
+
+    /**
+     * @return returns the column of the type with the given index or -1 if this archetype doesn't have the type
+     */
+    public int column(int typeIndex) {
+        return typeIndex < columns.length ? columns[typeIndex] : -1;
+    }
+
+    /**
+     * @return returns true if the entities of this archetype have a component of the given type
+     */
+    public boolean has(Class<? extends Component> type) {
+        return column(type) >= 0;
+    }
+
+    /**
+     * @return returns the component types of this archetype, in column order
+     */
+    public List<Class<? extends Component>> types() {
+        return Collections.unmodifiableList(Arrays.asList(types));
+    }
+
+    /**
+     * @return returns the chunks of this archetype, some chunks at the end may be empty
+     */
+    public List<ArchetypeChunk> chunks() {
+        return Collections.unmodifiableList(chunks);
+    }
+
+    /**
+     * @return returns the entity id at the given row
+     */
+    public long id(int row) {
+        return chunks.get(row >> CHUNK_SHIFT).ids()[row & CHUNK_MASK];
+    }
+
+    /**
+     * @return returns the component at the given row and column
+     */
+    public Component get(int row, int column) {
+        return chunks.get(row >> CHUNK_SHIFT).column(column)[row & CHUNK_MASK];
+    }
+
+    /**
+     * Sets the component at the given row and column
+     *
+     * @return returns the previous component
+     */
+    public Component set(int row, int column, Component component) {
+        var array = chunks.get(row >> CHUNK_SHIFT).column(column);
+        var previous = array[row & CHUNK_MASK];
+        array[row & CHUNK_MASK] = component;
+        return previous;
+    }
+
+    /**
+     * Appends a new row for the given entity, the components of the row are null until they're set
+     *
+     * @return returns the new row
+     */
+    int append(long entityId) {
+        var chunkIndex = size >> CHUNK_SHIFT;
+        if (chunkIndex == chunks.size())
+            chunks.add(new ArchetypeChunk(types.length, CHUNK_CAPACITY));
+        chunks.get(chunkIndex).append(entityId);
+        return size++;
+    }
+
+    /**
+     * Removes the given row by moving the last row into it, which keeps the rows dense
+     *
+     * @return returns the id of the entity that was moved into the row, or {@link #NO_ENTITY} if nothing was moved
+     */
+    long remove(int row) {
+        var last = size - 1;
+        var lastChunk = chunks.get(last >> CHUNK_SHIFT);
+        var moved = NO_ENTITY;
+        if (row != last) {
+            var chunk = chunks.get(row >> CHUNK_SHIFT);
+            var to = row & CHUNK_MASK;
+            var from = last & CHUNK_MASK;
+            moved = lastChunk.ids()[from];
+            chunk.ids()[to] = moved;
+            for (var column = 0; column < types.length; column++)
+                chunk.column(column)[to] = lastChunk.column(column)[from];
+        }
+        lastChunk.removeLast();
+        size--;
+        return moved;
+    }
+
+    /**
+     * Drops every row of this archetype
+     */
+    void clear() {
+        chunks.clear();
+        size = 0;
+    }
+
+    /**
+     * @return returns the cached archetype with the given type added, or null if it hasn't been resolved yet
+     */
+    Archetype addEdge(Class<?> type) {
+        return addEdges.get(type);
+    }
+
+    /**
+     * @return returns the cached archetype with the given type removed, or null if it hasn't been resolved yet
+     */
+    Archetype removeEdge(Class<?> type) {
+        return removeEdges.get(type);
+    }
+
+    /**
+     * Caches the transitions between this archetype and the archetype that has the extra type
+     */
+    void link(Class<?> type, Archetype with) {
+        addEdges.put(type, with);
+        with.removeEdges.put(type, this);
+    }
+
+    /**
+     * @return returns the raw types, used for building the neighbouring archetypes
+     */
+    Class<? extends Component>[] rawTypes() {
+        return types;
+    }
+
+    @Override
+    public String toString() {
+        return "Archetype" + Arrays.toString(Arrays.stream(types).map(Class::getSimpleName).toArray());
+    }
+}
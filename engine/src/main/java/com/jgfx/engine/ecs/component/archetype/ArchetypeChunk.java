@@ -0,0 +1,65 @@
+package com.jgfx.engine.ecs.component.archetype;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A fixed size block of rows inside an {@link Archetype}. Each column is a dense array holding the components of one
+ * type, and the row at a given index in every column belongs to the entity at the same index of the ids.
+ */
+public final class ArchetypeChunk {
+    private final long[] ids;
+    private final Component[][] columns;
+    private int count;
+
+    ArchetypeChunk(int columnCount, int capacity) {
+        this.ids = new long[capacity];
+        this.columns = new Component[columnCount][capacity];
+    }
+
+    /**
+     * @return returns the ids of the entities in this chunk, only the first {@link #count()} are valid
+     */
+    public long[] ids() {
+        return ids;
+    }
+
+    /**
+     * @return returns the dense component array for the given column, only the first {@link #count()} are valid
+     */
+    public Component[] column(int column) {
+        return columns[column];
+    }
+
+    /**
+     * @return returns the number of rows used in this chunk
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return returns true if there's no room left in this chunk
+     */
+    boolean isFull() {
+        return count == ids.length;
+    }
+
+    /**
+     * Appends an entity to the end of this chunk
+     *
+     * @return returns the row inside this chunk
+     */
+    int append(long entityId) {
+        ids[count] = entityId;
+        return count++;
+    }
+
+    /**
+     * Drops the last row of this chunk, clearing the references so the components can be collected
+     */
+    void removeLast() {
+        count--;
+        for (var column : columns)
+            column[count] = null;
+    }
+}
@@ -0,0 +1,411 @@
+package com.jgfx.engine.ecs.component.archetype;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentStore;
+import gnu.trove.impl.Constants;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongLongMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+
+import java.util.*;
+
+/**
+ * A component store that keeps entities with the same set of components together inside an {@link Archetype}.
+ * The location of an entity is stored as the archetype id in the upper 32 bits and the row in the lower 32 bits.
+ */
+public class ArchetypeTable implements ComponentStore {
+    private static final long NO_LOCATION = -1;
+    private static final Comparator<Class<?>> TYPE_ORDER = Comparator.comparing(Class::getName);
+
+    private final Map<List<Class<? extends Component>>, Archetype> archetypes = Maps.newHashMap();
+    private final List<Archetype> archetypeList = Lists.newArrayList();
+    private final TLongLongMap locations = new TLongLongHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0, NO_LOCATION);
+    //The archetype without any components, entities are never stored in it but it's the root of the archetype graph
+    private final Archetype empty;
+
+    public ArchetypeTable() {
+        this.empty = archetype(new Class[0]);
+    }
+
+    /**
+     * Gets a given component from the specified entity if it exists
+     *
+     * @param entityId
+     * @param componentClass
+     * @param <T>
+     * @return returns the component
+     */
+    @Override
+    public <T extends Component> T get(long entityId, Class<T> componentClass) {
+        var location = locations.get(entityId);
+        if (location == NO_LOCATION)
+            return null;
+        var archetype = archetypeOf(location);
+        var column = archetype.column(componentClass);
+        if (column < 0)
+            return null;
+        return componentClass.cast(archetype.get(rowOf(location), column));
+    }
+
+    /**
+     * Puts a component into the entity's row, moving the entity to a new archetype if it didn't have the type yet
+     *
+     * @param entityId
+     * @param component
+     * @return returns the component that was replaced, or null
+     */
+    @Override
+    public Component put(long entityId, Component component) {
+        var type = component.getClass();
+        var location = locations.get(entityId);
+        if (location == NO_LOCATION) {
+            var target = withType(empty, type);
+            var row = target.append(entityId);
+            target.set(row, target.column(type), component);
+            locations.put(entityId, locationOf(target, row));
+            return null;
+        }
+        var archetype = archetypeOf(location);
+        var row = rowOf(location);
+        var column = archetype.column(type);
+        //The column may belong to a sub type when the type is a super type of another component
+        if (column >= 0 && archetype.rawTypes()[column] == type)
+            return archetype.set(row, column, component);
+        var target = withType(archetype, type);
+        var newRow = move(entityId, archetype, row, target);
+        target.set(newRow, target.column(type), component);
+        return null;
+    }
+
+    /**
+     * The whole batch is appended to the archetype of it's types, instead of moving every entity through an archetype
+     * per component
+     */
+    @Override
+    public void putBatch(long[] entityIds, int count, Component[][] components) {
+        if (count == 0 || components.length == 0)
+            return;
+        var types = new Class[components.length];
+        for (var type = 0; type < components.length; type++)
+            types[type] = components[type][0].getClass();
+        var target = archetype((Class<? extends Component>[]) types.clone());
+        var columns = new int[components.length];
+        for (var type = 0; type < components.length; type++)
+            columns[type] = target.column(types[type]);
+        ((TLongLongHashMap) locations).ensureCapacity(locations.size() + count);
+        for (var entity = 0; entity < count; entity++) {
+            var row = target.append(entityIds[entity]);
+            for (var type = 0; type < components.length; type++)
+                target.set(row, columns[type], components[type][entity]);
+            locations.put(entityIds[entity], locationOf(target, row));
+        }
+    }
+
+    /**
+     * @return removes the component with the specified class from the entity and returns it.
+     * Returns null if no component could be removed.
+     */
+    @Override
+    public <T extends Component> Component remove(long entityId, Class<T> componentClass) {
+        var location = locations.get(entityId);
+        if (location == NO_LOCATION)
+            return null;
+        var archetype = archetypeOf(location);
+        var column = archetype.column(componentClass);
+        if (column < 0)
+            return null;
+        var row = rowOf(location);
+        var component = archetype.get(row, column);
+        var target = withoutType(archetype, archetype.rawTypes()[column]);
+        if (target == empty) {
+            removeRow(archetype, row);
+            locations.remove(entityId);
+        } else
+            move(entityId, archetype, row, target);
+        return component;
+    }
+
+    /**
+     * Clears all of the components from a specified entity
+     *
+     * @param entityId
+     * @return returns the total removed
+     */
+    @Override
+    public int removeAll(long entityId) {
+        var location = locations.remove(entityId);
+        if (location == NO_LOCATION)
+            return 0;
+        var archetype = archetypeOf(location);
+        removeRow(archetype, rowOf(location));
+        return archetype.rawTypes().length;
+    }
+
+    @Override
+    public void remove(long entityId) {
+        removeAll(entityId);
+    }
+
+    /**
+     * Clears all components mappings, the archetypes themselves are kept as they're likely to be reused
+     */
+    @Override
+    public void clear() {
+        for (var archetype : archetypeList)
+            archetype.clear();
+        locations.clear();
+    }
+
+    /**
+     * Counts the components of the specified component type
+     *
+     * @param componentClass
+     * @return returns the total number of components with the given type
+     */
+    @Override
+    public int getComponentCount(Class<? extends Component> componentClass) {
+        var count = 0;
+        for (var archetype : archetypeList)
+            if (archetype.has(componentClass))
+                count += archetype.getSize();
+        return count;
+    }
+
+    @Override
+    public Iterable<Component> iterateComponents(long entityId) {
+        return getComponentsInNewList(entityId);
+    }
+
+    @Override
+    public List<Component> getComponentsInNewList(long entityId) {
+        List<Component> components = Lists.newArrayList();
+        var location = locations.get(entityId);
+        if (location != NO_LOCATION) {
+            var archetype = archetypeOf(location);
+            var row = rowOf(location);
+            for (var column = 0; column < archetype.rawTypes().length; column++)
+                components.add(archetype.get(row, column));
+        }
+        return components;
+    }
+
+    /**
+     * Creates an iterator that walks the columns of every archetype with the given type
+     *
+     * @param componentClass the class to iterate
+     * @param <T>
+     * @return collection of iterable component, or null if no archetype has the given type
+     */
+    @Override
+    public <T extends Component> TLongObjectIterator<T> componentIterator(Class<T> componentClass) {
+        List<Archetype> matching = Lists.newArrayList();
+        for (var archetype : archetypeList)
+            if (archetype.has(componentClass))
+                matching.add(archetype);
+        if (matching.isEmpty())
+            return null;
+        return new ColumnIterator<>(componentClass, matching);
+    }
+
+    @Override
+    public TLongIterator entityIdIterator() {
+        return TLongArrayList.wrap(locations.keys()).iterator();
+    }
+
+    /**
+     * Copies the ids of every matching archetype into a new list, this is a handful of array copies per archetype
+     *
+     * @return An iterator over the matching entity ids
+     */
+    @Override
+    public TLongIterator entityIdIterator(Class<? extends Component>[] allClasses, Class<? extends Component>[] oneClasses, Class<? extends Component>[] excludeClasses) {
+        var ids = new TLongArrayList();
+        for (var archetype : matching(allClasses, oneClasses, excludeClasses))
+            for (var chunk : archetype.chunks())
+                ids.add(chunk.ids(), 0, chunk.count());
+        return ids.iterator();
+    }
+
+    @Override
+    public int numEntities() {
+        return locations.size();
+    }
+
+    /**
+     * Archetypes are never removed, so new archetypes are always appended to the end of the list
+     *
+     * @return returns every archetype, including the empty ones
+     */
+    public List<Archetype> archetypes() {
+        return Collections.unmodifiableList(archetypeList);
+    }
+
+    /**
+     * @return returns every non empty archetype that has all of the all classes, one of the one classes (if there are
+     * any) and none of the exclude classes
+     */
+    public List<Archetype> matching(Class<? extends Component>[] allClasses, Class<? extends Component>[] oneClasses, Class<? extends Component>[] excludeClasses) {
+        var all = ComponentMask.of(allClasses);
+        var one = ComponentMask.of(oneClasses);
+        var exclude = ComponentMask.of(excludeClasses);
+        List<Archetype> matching = Lists.newArrayList();
+        for (var archetype : archetypeList) {
+            if (archetype.getSize() > 0 && matches(archetype, all, one, exclude))
+                matching.add(archetype);
+        }
+        return matching;
+    }
+
+    /**
+     * @return returns true if the archetype matches the given classes
+     */
+    private boolean matches(Archetype archetype, ComponentMask all, ComponentMask one, ComponentMask exclude) {
+        var mask = archetype.getMask();
+        return mask.containsAll(all) && !mask.intersects(exclude) && (one.isEmpty() || mask.intersects(one));
+    }
+
+    /**
+     * Moves the entity's row to the target archetype, copying over every component the two archetypes share
+     *
+     * @return returns the new row of the entity
+     */
+    private int move(long entityId, Archetype from, int row, Archetype to) {
+        var newRow = to.append(entityId);
+        var types = to.rawTypes();
+        for (var column = 0; column < types.length; column++) {
+            var fromColumn = from.column(types[column]);
+            if (fromColumn >= 0)
+                to.set(newRow, column, from.get(row, fromColumn));
+        }
+        removeRow(from, row);
+        locations.put(entityId, locationOf(to, newRow));
+        return newRow;
+    }
+
+    /**
+     * Removes a row from the archetype, updating the location of the entity that filled the hole
+     */
+    private void removeRow(Archetype archetype, int row) {
+        var moved = archetype.remove(row);
+        if (moved != Archetype.NO_ENTITY)
+            locations.put(moved, locationOf(archetype, row));
+    }
+
+    /**
+     * @return returns the archetype with the same types as the given archetype, plus the given type
+     */
+    private Archetype withType(Archetype archetype, Class<? extends Component> type) {
+        var cached = archetype.addEdge(type);
+        if (cached != null)
+            return cached;
+        var current = archetype.rawTypes();
+        var types = Arrays.copyOf(current, current.length + 1);
+        types[current.length] = type;
+        var target = archetype(types);
+        archetype.link(type, target);
+        return target;
+    }
+
+    /**
+     * @return returns the archetype with the same types as the given archetype, minus the given type
+     */
+    private Archetype withoutType(Archetype archetype, Class<? extends Component> type) {
+        var cached = archetype.removeEdge(type);
+        if (cached != null)
+            return cached;
+        var types = Arrays.stream(archetype.rawTypes()).filter(current -> current != type).toArray(Class[]::new);
+        var target = archetype((Class<? extends Component>[]) types);
+        target.link(type, archetype);
+        return target;
+    }
+
+    /**
+     * @return returns the archetype for the given set of types, creating it if needed
+     */
+    private Archetype archetype(Class<? extends Component>[] types) {
+        Arrays.sort(types, TYPE_ORDER);
+        return archetypes.computeIfAbsent(Arrays.asList(types), key -> {
+            var archetype = new Archetype(archetypeList.size(), types);
+            archetypeList.add(archetype);
+            return archetype;
+        });
+    }
+
+    private Archetype archetypeOf(long location) {
+        return archetypeList.get((int) (location >>> 32));
+    }
+
+    private static int rowOf(long location) {
+        return (int) location;
+    }
+
+    private static long locationOf(Archetype archetype, int row) {
+        return ((long) archetype.getId() << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Iterates over a single component type across multiple archetypes
+     */
+    private static final class ColumnIterator<T extends Component> implements TLongObjectIterator<T> {
+        private final Class<T> type;
+        private final List<Archetype> archetypes;
+        private int archetypeIndex = 0;
+        private int row = -1;
+        private Archetype current;
+        private int column;
+
+        ColumnIterator(Class<T> type, List<Archetype> archetypes) {
+            this.type = type;
+            this.archetypes = archetypes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            var index = archetypeIndex;
+            var next = row + 1;
+            while (index < archetypes.size()) {
+                if (next < archetypes.get(index).getSize())
+                    return true;
+                index++;
+                next = 0;
+            }
+            return false;
+        }
+
+        @Override
+        public void advance() {
+            row++;
+            while (row >= archetypes.get(archetypeIndex).getSize()) {
+                archetypeIndex++;
+                row = 0;
+            }
+            current = archetypes.get(archetypeIndex);
+            column = current.column(type);
+        }
+
+        @Override
+        public long key() {
+            return current.id(row);
+        }
+
+        @Override
+        public T value() {
+            return type.cast(current.get(row, column));
+        }
+
+        @Override
+        public T setValue(T value) {
+            return type.cast(current.set(row, column, value));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.jgfx.engine.ecs.component.packed;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link PackedComponent} whose data should be stored off heap. Every instance field of the class must be a
+ * primitive, the fields describe the layout of a row in the component's {@link PackedColumn}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Packed {
+}
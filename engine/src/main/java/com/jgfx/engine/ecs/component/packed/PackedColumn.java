@@ -0,0 +1,185 @@
+package com.jgfx.engine.ecs.component.packed;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Stores the data of every component of a single packed type in one direct buffer, a row per entity. The rows are kept
+ * dense, removing a row moves the last row into it's place.
+ * <p>
+ * Bulk loops can walk the rows directly, for example
+ * <pre>
+ * for (var row = 0; row &lt; column.size(); row++)
+ *     column.putFloat(row, X, column.getFloat(row, X) + column.getFloat(row, VX) * delta);
+ * </pre>
+ */
+public final class PackedColumn {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NO_ROW = -1;
+    @Getter private final PackedLayout layout;
+    private final int stride;
+    private ByteBuffer buffer;
+    private long[] ids;
+    private PackedComponent[] components;
+    private int size;
+    private final TLongIntMap rows = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0, NO_ROW);
+
+    PackedColumn(PackedLayout layout) {
+        this.layout = layout;
+        this.stride = layout.getStride();
+        this.buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY * stride).order(ByteOrder.nativeOrder());
+        this.ids = new long[INITIAL_CAPACITY];
+        this.components = new PackedComponent[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Copies the component into a new row and binds it to the row, replacing the entity's current component
+     */
+    void add(long entityId, PackedComponent component) {
+        var current = rows.get(entityId);
+        if (current != NO_ROW && components[current] == component)
+            return;
+        if (component.isPacked())
+            throw new IllegalStateException("Packed component " + component.getClass().getSimpleName() + " is already added to an entity");
+        remove(entityId);
+        if (size == ids.length)
+            grow();
+        var row = size++;
+        layout.store(component, buffer, row * stride);
+        ids[row] = entityId;
+        components[row] = component;
+        rows.put(entityId, row);
+        component.bind(this, row);
+    }
+
+    /**
+     * Copies the row back into it's component and removes it
+     *
+     * @return returns false if the entity had no row
+     */
+    boolean remove(long entityId) {
+        var row = rows.remove(entityId);
+        if (row == NO_ROW)
+            return false;
+        var component = components[row];
+        layout.load(buffer, row * stride, component);
+        component.unbind();
+        var last = --size;
+        if (row != last) {
+            var moved = components[last];
+            //The stride is always a multiple of 8
+            for (var i = 0; i < stride; i += 8)
+                buffer.putLong(row * stride + i, buffer.getLong(last * stride + i));
+            ids[row] = ids[last];
+            components[row] = moved;
+            rows.put(ids[row], row);
+            moved.bind(this, row);
+        }
+        ids[last] = 0;
+        components[last] = null;
+        return true;
+    }
+
+    /**
+     * Unpacks every component
+     */
+    void clear() {
+        for (var row = 0; row < size; row++) {
+            layout.load(buffer, row * stride, components[row]);
+            components[row].unbind();
+        }
+        Arrays.fill(components, 0, size, null);
+        rows.clear();
+        size = 0;
+    }
+
+    private void grow() {
+        var capacity = ids.length << 1;
+        var grown = ByteBuffer.allocateDirect(capacity * stride).order(ByteOrder.nativeOrder());
+        buffer.position(0).limit(size * stride);
+        grown.put(buffer);
+        buffer.clear();
+        grown.clear();
+        buffer = grown;
+        ids = Arrays.copyOf(ids, capacity);
+        components = Arrays.copyOf(components, capacity);
+    }
+
+    /**
+     * @return returns the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return returns the row of the entity, or -1 if it doesn't have one
+     */
+    public int row(long entityId) {
+        return rows.get(entityId);
+    }
+
+    /**
+     * @return returns the entity that owns the row
+     */
+    public long id(int row) {
+        return ids[row];
+    }
+
+    /**
+     * The buffer is replaced when the column grows, so it shouldn't be kept
+     *
+     * @return returns the buffer holding the rows
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Passes the component of every row to the consumer, in row order
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends PackedComponent> void forEach(Consumer<T> consumer) {
+        for (var row = 0; row < size; row++)
+            consumer.accept((T) components[row]);
+    }
+
+    public int getInt(int row, int offset) {
+        return buffer.getInt(row * stride + offset);
+    }
+
+    public void putInt(int row, int offset, int value) {
+        buffer.putInt(row * stride + offset, value);
+    }
+
+    public long getLong(int row, int offset) {
+        return buffer.getLong(row * stride + offset);
+    }
+
+    public void putLong(int row, int offset, long value) {
+        buffer.putLong(row * stride + offset, value);
+    }
+
+    public float getFloat(int row, int offset) {
+        return buffer.getFloat(row * stride + offset);
+    }
+
+    public void putFloat(int row, int offset, float value) {
+        buffer.putFloat(row * stride + offset, value);
+    }
+
+    public double getDouble(int row, int offset) {
+        return buffer.getDouble(row * stride + offset);
+    }
+
+    public void putDouble(int row, int offset, double value) {
+        buffer.putDouble(row * stride + offset, value);
+    }
+}
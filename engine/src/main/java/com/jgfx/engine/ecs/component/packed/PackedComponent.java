@@ -0,0 +1,109 @@
+package com.jgfx.engine.ecs.component.packed;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * The base of a component that's stored in a {@link PackedColumn}. While the component isn't added to an entity it's
+ * data is kept in it's own fields, once it's added the data is copied into the column and the component becomes a
+ * flyweight over it's row. When it's removed the data is copied back into the fields.
+ * <p>
+ * Because of this the fields must only be accessed through accessors that check {@link #isPacked()}, for example
+ * <pre>
+ * public float getX() {
+ *     return isPacked() ? getFloat(X) : x;
+ * }
+ * </pre>
+ * where X is the offset of the field taken from {@link PackedLayout#offset(String)}.
+ */
+public abstract class PackedComponent implements Component {
+    private transient PackedColumn column;
+    private transient int base;
+
+    /**
+     * @return returns true if the data of this component is stored in a column
+     */
+    public final boolean isPacked() {
+        return column != null;
+    }
+
+    /**
+     * Makes this component a flyweight over the given row
+     */
+    final void bind(PackedColumn column, int row) {
+        this.column = column;
+        this.base = row * column.getLayout().getStride();
+    }
+
+    final void unbind() {
+        this.column = null;
+        this.base = 0;
+    }
+
+    final PackedColumn column() {
+        return column;
+    }
+
+    protected final byte getByte(int offset) {
+        return column.buffer().get(base + offset);
+    }
+
+    protected final void putByte(int offset, byte value) {
+        column.buffer().put(base + offset, value);
+    }
+
+    protected final boolean getBoolean(int offset) {
+        return column.buffer().get(base + offset) != 0;
+    }
+
+    protected final void putBoolean(int offset, boolean value) {
+        column.buffer().put(base + offset, (byte) (value ? 1 : 0));
+    }
+
+    protected final short getShort(int offset) {
+        return column.buffer().getShort(base + offset);
+    }
+
+    protected final void putShort(int offset, short value) {
+        column.buffer().putShort(base + offset, value);
+    }
+
+    protected final char getChar(int offset) {
+        return column.buffer().getChar(base + offset);
+    }
+
+    protected final void putChar(int offset, char value) {
+        column.buffer().putChar(base + offset, value);
+    }
+
+    protected final int getInt(int offset) {
+        return column.buffer().getInt(base + offset);
+    }
+
+    protected final void putInt(int offset, int value) {
+        column.buffer().putInt(base + offset, value);
+    }
+
+    protected final long getLong(int offset) {
+        return column.buffer().getLong(base + offset);
+    }
+
+    protected final void putLong(int offset, long value) {
+        column.buffer().putLong(base + offset, value);
+    }
+
+    protected final float getFloat(int offset) {
+        return column.buffer().getFloat(base + offset);
+    }
+
+    protected final void putFloat(int offset, float value) {
+        column.buffer().putFloat(base + offset, value);
+    }
+
+    protected final double getDouble(int offset) {
+        return column.buffer().getDouble(base + offset);
+    }
+
+    protected final void putDouble(int offset, double value) {
+        column.buffer().putDouble(base + offset, value);
+    }
+}
@@ -0,0 +1,158 @@
+package com.jgfx.engine.ecs.component.packed;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes how the fields of a {@link Packed} component are laid out in a row. The fields are ordered from the
+ * largest to the smallest primitive, so every field is aligned to it's own size as long as the row is.
+ */
+public final class PackedLayout {
+    private static final Map<Class<?>, PackedLayout> LAYOUTS = Maps.newConcurrentMap();
+    @Getter private final Class<? extends PackedComponent> type;
+    //The size of a row in bytes, rounded up to a multiple of 8
+    @Getter private final int stride;
+    private final String[] names;
+    private final Class<?>[] fieldTypes;
+    private final int[] offsets;
+    //Used to copy the fields between a component and it's row
+    private final VarHandle[] handles;
+
+    private PackedLayout(Class<? extends PackedComponent> type) {
+        this.type = type;
+        List<Field> fields = Lists.newArrayList();
+        for (Class<?> cls = type; cls != PackedComponent.class; cls = cls.getSuperclass()) {
+            for (var field : cls.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()))
+                    continue;
+                if (!field.getType().isPrimitive())
+                    throw new IllegalArgumentException("Packed component '" + type.getName() + "' has a non primitive field '" + field.getName() + "'");
+                fields.add(field);
+            }
+        }
+        fields.sort(Comparator.comparingInt((Field field) -> size(field.getType())).reversed());
+        this.names = new String[fields.size()];
+        this.fieldTypes = new Class[fields.size()];
+        this.offsets = new int[fields.size()];
+        this.handles = new VarHandle[fields.size()];
+        var offset = 0;
+        for (var i = 0; i < fields.size(); i++) {
+            var field = fields.get(i);
+            names[i] = field.getName();
+            fieldTypes[i] = field.getType();
+            offsets[i] = offset;
+            offset += size(field.getType());
+            try {
+                var lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+                handles[i] = lookup.unreflectVarHandle(field);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Failed to access field '" + field.getName() + "' of packed component '" + type.getName() + "'", e);
+            }
+        }
+        this.stride = Math.max(8, (offset + 7) & ~7);
+    }
+
+    /**
+     * @return returns the layout of the given packed component class
+     */
+    public static PackedLayout of(Class<? extends PackedComponent> type) {
+        var layout = LAYOUTS.get(type);
+        if (layout != null)
+            return layout;
+        if (!type.isAnnotationPresent(Packed.class))
+            throw new IllegalArgumentException("Component '" + type.getName() + "' isn't annotated with @Packed");
+        return LAYOUTS.computeIfAbsent(type, cls -> new PackedLayout(type));
+    }
+
+    /**
+     * @return returns true if the class is a packed component
+     */
+    public static boolean isPacked(Class<?> type) {
+        return PackedComponent.class.isAssignableFrom(type) && type.isAnnotationPresent(Packed.class);
+    }
+
+    /**
+     * @return returns the offset of the field inside of a row
+     */
+    public int offset(String field) {
+        for (var i = 0; i < names.length; i++)
+            if (names[i].equals(field))
+                return offsets[i];
+        throw new IllegalArgumentException("Packed component '" + type.getName() + "' has no field '" + field + "'");
+    }
+
+    /**
+     * Copies the fields of the component into the row starting at base
+     */
+    void store(PackedComponent component, ByteBuffer buffer, int base) {
+        for (var i = 0; i < handles.length; i++) {
+            var handle = handles[i];
+            var fieldType = fieldTypes[i];
+            var at = base + offsets[i];
+            if (fieldType == float.class)
+                buffer.putFloat(at, (float) handle.get(component));
+            else if (fieldType == int.class)
+                buffer.putInt(at, (int) handle.get(component));
+            else if (fieldType == double.class)
+                buffer.putDouble(at, (double) handle.get(component));
+            else if (fieldType == long.class)
+                buffer.putLong(at, (long) handle.get(component));
+            else if (fieldType == short.class)
+                buffer.putShort(at, (short) handle.get(component));
+            else if (fieldType == char.class)
+                buffer.putChar(at, (char) handle.get(component));
+            else if (fieldType == byte.class)
+                buffer.put(at, (byte) handle.get(component));
+            else
+                buffer.put(at, (byte) ((boolean) handle.get(component) ? 1 : 0));
+        }
+    }
+
+    /**
+     * Copies the row starting at base into the fields of the component, this is also used to restore components from a
+     * snapshot of the column
+     */
+    public void load(ByteBuffer buffer, int base, PackedComponent component) {
+        for (var i = 0; i < handles.length; i++) {
+            var handle = handles[i];
+            var fieldType = fieldTypes[i];
+            var at = base + offsets[i];
+            if (fieldType == float.class)
+                handle.set(component, buffer.getFloat(at));
+            else if (fieldType == int.class)
+                handle.set(component, buffer.getInt(at));
+            else if (fieldType == double.class)
+                handle.set(component, buffer.getDouble(at));
+            else if (fieldType == long.class)
+                handle.set(component, buffer.getLong(at));
+            else if (fieldType == short.class)
+                handle.set(component, buffer.getShort(at));
+            else if (fieldType == char.class)
+                handle.set(component, buffer.getChar(at));
+            else if (fieldType == byte.class)
+                handle.set(component, buffer.get(at));
+            else
+                handle.set(component, buffer.get(at) != 0);
+        }
+    }
+
+    private static int size(Class<?> primitive) {
+        if (primitive == long.class || primitive == double.class)
+            return 8;
+        if (primitive == int.class || primitive == float.class)
+            return 4;
+        if (primitive == short.class || primitive == char.class)
+            return 2;
+        return 1;
+    }
+}
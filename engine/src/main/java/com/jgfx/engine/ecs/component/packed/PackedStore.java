@@ -0,0 +1,73 @@
+package com.jgfx.engine.ecs.component.packed;
+
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentType;
+
+import java.util.Arrays;
+
+/**
+ * Holds the column of every packed component type of an entity pool. The pool keeps the components themselves in it's
+ * component store as usual, so groups, queries and refs work the same way for packed components. This only moves
+ * their data in and out of the columns.
+ */
+public final class PackedStore {
+    private volatile PackedColumn[] columns = new PackedColumn[0];
+
+    /**
+     * @return returns the column of the given packed type, creating it if needed
+     */
+    public PackedColumn column(Class<? extends PackedComponent> type) {
+        var index = ComponentType.of(type).getIndex();
+        var current = columns;
+        if (index < current.length && current[index] != null)
+            return current[index];
+        return create(index, type);
+    }
+
+    private synchronized PackedColumn create(int index, Class<? extends PackedComponent> type) {
+        var current = columns;
+        if (index < current.length && current[index] != null)
+            return current[index];
+        if (index >= current.length)
+            current = Arrays.copyOf(current, Math.max(index + 1, ComponentType.count()));
+        var column = new PackedColumn(PackedLayout.of(type));
+        current[index] = column;
+        columns = current;
+        return column;
+    }
+
+    /**
+     * Moves the data of an added component into it's column, the component that was replaced is unpacked
+     */
+    public void put(long entityId, Component component) {
+        var packed = (PackedComponent) component;
+        column(packed.getClass()).add(entityId, packed);
+    }
+
+    /**
+     * Moves the data of a removed component back into the component
+     */
+    public void remove(long entityId, Component component) {
+        var column = ((PackedComponent) component).column();
+        if (column != null)
+            column.remove(entityId);
+    }
+
+    /**
+     * Unpacks every component of a destroyed entity
+     */
+    public void remove(long entityId) {
+        for (var column : columns)
+            if (column != null)
+                column.remove(entityId);
+    }
+
+    /**
+     * Unpacks every component
+     */
+    public void clear() {
+        for (var column : columns)
+            if (column != null)
+                column.clear();
+    }
+}
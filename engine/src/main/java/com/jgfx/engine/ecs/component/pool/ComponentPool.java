@@ -0,0 +1,132 @@
+package com.jgfx.engine.ecs.component.pool;
+
+import lombok.Getter;
+
+import java.util.function.Supplier;
+
+/**
+ * A bounded stack of reset components of one class. Components are taken with {@link #obtain()}, which falls back to
+ * the factory when the pool is empty, and given back with {@link #free(Recyclable)}. Components that are freed while
+ * the pool is full are dropped. Components can be taken and freed from any thread.
+ * <p>
+ * The pool is also a supplier, so it can be used as the factory of an
+ * {@link com.jgfx.engine.ecs.entity.builder.EntityTemplate}.
+ */
+public final class ComponentPool<T extends Recyclable> implements Supplier<T> {
+    @Getter private final Class<T> type;
+    @Getter private final int capacity;
+    private final Supplier<T> factory;
+    private final Object[] free;
+    private int size;
+    //********Stats
+    private long requests;
+    private long hits;
+    private long recycled;
+    private long dropped;
+
+    public ComponentPool(Class<T> type, Supplier<T> factory, int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Pool capacity must be positive, got " + capacity);
+        this.type = type;
+        this.factory = factory;
+        this.capacity = capacity;
+        this.free = new Object[capacity];
+    }
+
+    /**
+     * @return returns a pooled component, or a new one from the factory if the pool is empty
+     */
+    public T obtain() {
+        synchronized (this) {
+            requests++;
+            if (size > 0) {
+                hits++;
+                var component = free[--size];
+                free[size] = null;
+                return type.cast(component);
+            }
+        }
+        return factory.get();
+    }
+
+    @Override
+    public T get() {
+        return obtain();
+    }
+
+    /**
+     * Resets the component and keeps it for the next {@link #obtain()}. The component must no longer be used by
+     * anything else
+     *
+     * @return returns false if the pool was full and the component was dropped
+     */
+    public boolean free(T component) {
+        component.reset();
+        synchronized (this) {
+            if (size == capacity) {
+                dropped++;
+                return false;
+            }
+            free[size++] = component;
+            recycled++;
+            return true;
+        }
+    }
+
+    /**
+     * Drops every pooled component
+     */
+    public synchronized void clear() {
+        for (var i = 0; i < size; i++)
+            free[i] = null;
+        size = 0;
+    }
+
+    /**
+     * @return returns the number of components that are waiting in the pool
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return returns the number of times a component was obtained
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return returns the number of obtained components that came from the pool instead of the factory
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return returns the share of obtained components that came from the pool, between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /**
+     * @return returns the number of freed components that were kept
+     */
+    public synchronized long getRecycled() {
+        return recycled;
+    }
+
+    /**
+     * @return returns the number of freed components that were dropped because the pool was full
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s pool: %d/%d pooled, %.1f%% hits of %d requests, %d recycled, %d dropped",
+                type.getSimpleName(), size, capacity, getHitRate() * 100, requests, recycled, dropped);
+    }
+}
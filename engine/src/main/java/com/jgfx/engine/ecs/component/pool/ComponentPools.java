@@ -0,0 +1,116 @@
+package com.jgfx.engine.ecs.component.pool;
+
+import com.google.common.collect.Lists;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The recycling pools of an entity manager, by the exact class of their components. Pools are opt in, a class only
+ * gets recycled after it was registered with {@link #register(Class, Supplier, int)}. Once
+ * registered, the components of that class are returned to the pool when their entity is destroyed, so a pooled
+ * component must never be kept after it's entity is destroyed.
+ */
+public final class ComponentPools {
+    //The pools by the index of their component type, copied on write so destroying can look them up without locking
+    private volatile ComponentPool<?>[] pools = new ComponentPool[0];
+    //The index of every pooled type, to skip entities without pooled components quickly
+    private volatile ComponentMask pooled = new ComponentMask();
+
+    /**
+     * Registers a pool for the exact class
+     *
+     * @param factory  creates a new component when the pool is empty
+     * @param capacity the maximum number of components that are kept
+     * @return returns the pool of the class
+     */
+    public synchronized <T extends Recyclable> ComponentPool<T> register(Class<T> componentClass, Supplier<T> factory, int capacity) {
+        var type = ComponentType.of(componentClass);
+        if (type.isSingle() || type.isPacked())
+            throw new IllegalArgumentException("Component '" + componentClass.getSimpleName() + "' can't be pooled, single and packed components are never recycled");
+        var index = type.getIndex();
+        if (index < pools.length && pools[index] != null)
+            throw new IllegalArgumentException("Component '" + componentClass.getSimpleName() + "' already has a pool");
+        var pool = new ComponentPool<>(componentClass, factory, capacity);
+        var copy = Arrays.copyOf(pools, Math.max(pools.length, index + 1));
+        copy[index] = pool;
+        var mask = pooled.copy();
+        mask.set(index);
+        pools = copy;
+        pooled = mask;
+        return pool;
+    }
+
+    /**
+     * @return returns the pool of the exact class, or null if the class wasn't registered
+     */
+    public <T extends Recyclable> ComponentPool<T> pool(Class<T> componentClass) {
+        var index = ComponentType.of(componentClass).getIndex();
+        var pools = this.pools;
+        return index < pools.length ? (ComponentPool<T>) pools[index] : null;
+    }
+
+    /**
+     * @return returns a pooled component of the class, or a new one if the pool is empty
+     */
+    public <T extends Recyclable> T obtain(Class<T> componentClass) {
+        var pool = pool(componentClass);
+        if (pool == null)
+            throw new IllegalArgumentException("Component '" + componentClass.getSimpleName() + "' has no pool");
+        return pool.obtain();
+    }
+
+    /**
+     * Returns the component to the pool of it's class
+     *
+     * @return returns false if the class isn't pooled or the pool was full
+     */
+    public boolean free(Component component) {
+        if (!(component instanceof Recyclable))
+            return false;
+        var index = ComponentType.of(component.getClass()).getIndex();
+        var pools = this.pools;
+        if (index >= pools.length || pools[index] == null)
+            return false;
+        return ((ComponentPool<Recyclable>) pools[index]).free((Recyclable) component);
+    }
+
+    /**
+     * @return returns true if an entity with the signature has a component that's pooled
+     */
+    public boolean isPooled(ComponentMask signature) {
+        return signature != null && signature.intersects(pooled);
+    }
+
+    /**
+     * @return returns true if no pools were registered
+     */
+    public boolean isEmpty() {
+        return pooled.isEmpty();
+    }
+
+    /**
+     * Drops the pooled components of every pool, the pools stay registered
+     */
+    public void clear() {
+        for (var pool : pools)
+            if (pool != null)
+                pool.clear();
+    }
+
+    /**
+     * @return returns every registered pool, for reading their stats
+     */
+    public List<ComponentPool<?>> all() {
+        List<ComponentPool<?>> all = Lists.newArrayList();
+        for (var pool : pools)
+            if (pool != null)
+                all.add(pool);
+        return Collections.unmodifiableList(all);
+    }
+}
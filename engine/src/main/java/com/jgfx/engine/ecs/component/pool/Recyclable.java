@@ -0,0 +1,16 @@
+package com.jgfx.engine.ecs.component.pool;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A component that can be kept in a {@link ComponentPool} and handed out again once it's entity is destroyed, instead
+ * of being left to the garbage collector. This is meant for big components that are created and destroyed often.
+ */
+public interface Recyclable extends Component {
+    /**
+     * Called when the component is returned to it's pool, it should clear any state that belonged to the old entity
+     * and release resources it shouldn't hold on to while it's pooled. Large buffers should be kept, that's the point
+     * of pooling them.
+     */
+    void reset();
+}
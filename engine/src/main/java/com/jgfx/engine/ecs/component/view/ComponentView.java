@@ -0,0 +1,68 @@
+package com.jgfx.engine.ecs.component.view;
+
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentType;
+import gnu.trove.map.TLongObjectMap;
+import lombok.Getter;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A read only view of the component classes it was pinned with, as they were at the tick it was pinned at. The view
+ * never changes, so it can be read from any thread while the entity manager keeps changing. Components that aren't
+ * {@link CopyableComponent copyable} are the live instances, only the set of entities that have them is frozen.
+ * <p>
+ * A view holds on to the versions it was pinned with, they're freed by the garbage collector once it's dropped.
+ */
+public final class ComponentView {
+    private final TLongObjectMap<Component>[] columns;
+    //The type index of the class of every column
+    private final int[] types;
+    @Getter private final int epoch;
+
+    ComponentView(TLongObjectMap<Component>[] columns, int[] types, int epoch) {
+        this.columns = columns;
+        this.types = types;
+        this.epoch = epoch;
+    }
+
+    /**
+     * @return returns the component of the entity, or null if the entity didn't have one when the view was pinned
+     * @throws IllegalArgumentException if the class wasn't pinned
+     */
+    public <T extends Component> T get(long entityId, Class<T> componentClass) {
+        return componentClass.cast(column(componentClass).get(entityId));
+    }
+
+    /**
+     * @return returns true if the entity had the component when the view was pinned
+     */
+    public boolean has(long entityId, Class<? extends Component> componentClass) {
+        return column(componentClass).containsKey(entityId);
+    }
+
+    /**
+     * @return returns the number of entities that had the component when the view was pinned
+     */
+    public int count(Class<? extends Component> componentClass) {
+        return column(componentClass).size();
+    }
+
+    /**
+     * Calls the consumer with every entity id and component of the class
+     */
+    public <T extends Component> void forEach(Class<T> componentClass, BiConsumer<Long, T> consumer) {
+        column(componentClass).forEachEntry((id, component) -> {
+            consumer.accept(id, componentClass.cast(component));
+            return true;
+        });
+    }
+
+    private TLongObjectMap<Component> column(Class<? extends Component> componentClass) {
+        var index = ComponentType.of(componentClass).getIndex();
+        for (var i = 0; i < types.length; i++)
+            if (types[i] == index)
+                return columns[i];
+        throw new IllegalArgumentException("Component '" + componentClass.getSimpleName() + "' wasn't pinned in the view");
+    }
+}
@@ -0,0 +1,111 @@
+package com.jgfx.engine.ecs.component.view;
+
+import com.jgfx.engine.ecs.component.ChangeTicks;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentStore;
+import com.jgfx.engine.ecs.component.ComponentType;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Pins {@link ComponentView read only views} of component classes for worker threads. Every class has a frozen version
+ * of it's components, tagged with the last tick whose writes it contains. Pinning reuses the version as long as no
+ * component of the class was added, written or removed since, so pinning unchanged classes costs nothing. Otherwise a
+ * new version is built from the live components, a copyable component is only copied again if it was written since
+ * the last version, the other rows share the copies of the last version.
+ * <p>
+ * Writes are detected with the {@link ChangeTicks} of the manager, so components must be written through
+ * {@code getMutable} or marked with {@code markChanged}, a write that isn't marked isn't seen by the next version.
+ * <p>
+ * Pinning reads the live components, so it must be done from the main thread or from a system that reads or writes
+ * the pinned classes. Only components of the exact pinned class are part of a view.
+ */
+public final class ComponentViews {
+    private final ComponentStore store;
+    private final ChangeTicks ticks;
+    //The last built version of every type index
+    private Version[] versions = new Version[0];
+    //********Stats
+    @Getter private long builtVersions;
+    @Getter private long copiedRows;
+
+    public ComponentViews(ComponentStore store, ChangeTicks ticks) {
+        this.store = store;
+        this.ticks = ticks;
+    }
+
+    /**
+     * @return returns a view of the current components of the classes
+     */
+    @SafeVarargs
+    public final synchronized ComponentView pin(Class<? extends Component>... componentClasses) {
+        var epoch = ticks.current();
+        //Writes made by a system share it's tick, so writes at the current tick may still come after the view is pinned
+        var validThrough = ticks.isProcessing() ? epoch - 1 : epoch;
+        TLongObjectMap<Component>[] columns = new TLongObjectMap[componentClasses.length];
+        var types = new int[componentClasses.length];
+        for (var i = 0; i < componentClasses.length; i++) {
+            var type = ComponentType.of(componentClasses[i]);
+            if (type.isPacked())
+                throw new IllegalArgumentException("Packed component '" + componentClasses[i].getSimpleName() + "' can't be pinned, it's data lives in it's column");
+            var index = type.getIndex();
+            if (versions.length <= index)
+                versions = Arrays.copyOf(versions, Math.max(index + 1, ComponentType.count()));
+            var version = versions[index];
+            if (version == null || ticks.lastWritten(index) > version.validThrough)
+                version = versions[index] = build(componentClasses[i], index, version, validThrough);
+            columns[i] = version.rows;
+            types[i] = index;
+        }
+        return new ComponentView(columns, types, epoch);
+    }
+
+    /**
+     * Drops every version, views that were already pinned stay valid
+     */
+    public synchronized void clear() {
+        Arrays.fill(versions, null);
+    }
+
+    private Version build(Class<? extends Component> componentClass, int index, Version previous, int validThrough) {
+        var iterator = store.componentIterator(componentClass);
+        var rows = new TLongObjectHashMap<Component>();
+        builtVersions++;
+        if (iterator == null)
+            return new Version(rows, validThrough);
+        while (iterator.hasNext()) {
+            iterator.advance();
+            var component = iterator.value();
+            if (component.getClass() != componentClass)
+                continue;
+            var id = iterator.key();
+            if (component instanceof CopyableComponent) {
+                var copy = previous != null && !ticks.changedSince(id, index, previous.validThrough) ? previous.rows.get(id) : null;
+                if (copy == null) {
+                    copy = ((CopyableComponent<?>) component).copy();
+                    copiedRows++;
+                }
+                component = copy;
+            }
+            rows.put(id, component);
+        }
+        return new Version(rows, validThrough);
+    }
+
+    /**
+     * The components of one class at a tick, the rows are never changed once the version is built
+     */
+    private static final class Version {
+        private final TLongObjectMap<Component> rows;
+        //The last tick whose writes are all part of the version
+        private final int validThrough;
+
+        private Version(TLongObjectMap<Component> rows, int validThrough) {
+            this.rows = rows;
+            this.validThrough = validThrough;
+        }
+    }
+}
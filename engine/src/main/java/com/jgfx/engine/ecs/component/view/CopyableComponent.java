@@ -0,0 +1,14 @@
+package com.jgfx.engine.ecs.component.view;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A component whose value can be copied into a {@link ComponentView}, so readers of the view never see writes that were
+ * made after the view was pinned
+ */
+public interface CopyableComponent<T extends CopyableComponent<T>> extends Component {
+    /**
+     * @return returns a copy that doesn't share any mutable state with this component
+     */
+    T copy();
+}
@@ -3,6 +3,7 @@ package com.jgfx.engine.ecs.entity.builder;
 import com.google.common.collect.Maps;
 import com.jgfx.engine.ecs.component.Component;
 import com.jgfx.engine.ecs.component.ComponentContainer;
+import com.jgfx.engine.ecs.component.pool.Recyclable;
 import com.jgfx.engine.ecs.entity.pool.EntityPool;
 import com.jgfx.engine.ecs.entity.ref.BaseEntityRef;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
@@ -88,6 +89,15 @@ public class EntityBuilder implements ComponentContainer {
         return component;
     }
 
+    /**
+     * Adds a component taken from the recycling pool of the class, it's reset so it must be set up by the caller
+     *
+     * @return returns the added component
+     */
+    public <T extends Recyclable> T addPooled(Class<T> componentClass) {
+        return addComponent(pool.getComponentPools().obtain(componentClass));
+    }
+
     /**
      * Adds all of the specified components to the entity
      *
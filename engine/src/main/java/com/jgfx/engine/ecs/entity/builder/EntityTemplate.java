@@ -0,0 +1,168 @@
+package com.jgfx.engine.ecs.entity.builder;
+
+import com.google.common.collect.Lists;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentType;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Describes a set of components that many entities are spawned with, see
+ * {@link com.jgfx.engine.ecs.entity.pool.EntityPool#spawnBatch}. The types and signature of the entities are worked
+ * out once when the template is built, so spawning only creates the components themselves.
+ * <p>
+ * A template is built with a factory per component class, the factory can be null if the initializer of every batch
+ * sets the component, for example
+ * <pre>
+ * var template = EntityTemplate.builder()
+ *         .with(Velocity.class, Velocity::new)
+ *         .with(Position.class, null)
+ *         .build();
+ * pool.spawnBatch(template, 100, spawned -> spawned.set(new Position(spawned.getIndex(), 0)));
+ * </pre>
+ */
+public final class EntityTemplate {
+    private final Class<? extends Component>[] classes;
+    private final Supplier<? extends Component>[] factories;
+    @Getter private final ComponentType[] types;
+    //The signature every spawned entity starts with, this must be copied before it's stored
+    @Getter private final ComponentMask signature;
+
+    private EntityTemplate(List<Class<? extends Component>> classes, List<Supplier<? extends Component>> factories) {
+        this.classes = classes.toArray(new Class[0]);
+        this.factories = factories.toArray(new Supplier[0]);
+        this.types = new ComponentType[this.classes.length];
+        this.signature = new ComponentMask();
+        for (var i = 0; i < types.length; i++) {
+            types[i] = ComponentType.of(this.classes[i]);
+            signature.or(types[i].getMask());
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return returns the number of components of each entity
+     */
+    public int size() {
+        return classes.length;
+    }
+
+    /**
+     * @return returns the position of the class inside of the template, or -1 if it isn't part of it
+     */
+    public int indexOf(Class<? extends Component> componentClass) {
+        for (var i = 0; i < classes.length; i++)
+            if (componentClass.isAssignableFrom(classes[i]))
+                return i;
+        return -1;
+    }
+
+    /**
+     * Creates the components of every entity of a batch
+     *
+     * @param refs        the refs of the spawned entities, they don't exist until the batch is inserted
+     * @param initializer called for every entity after the factories created it's components, may be null
+     * @return returns the components, indexed by the position of their class in the template and then the entity
+     */
+    public Component[][] create(EntityRef[] refs, int count, SpawnInitializer initializer) {
+        var components = new Component[classes.length][count];
+        var spawned = new Spawned(components);
+        for (var entity = 0; entity < count; entity++) {
+            for (var type = 0; type < classes.length; type++)
+                if (factories[type] != null)
+                    components[type][entity] = factories[type].get();
+            spawned.index = entity;
+            spawned.entity = refs[entity];
+            if (initializer != null)
+                initializer.initialize(spawned);
+            //The signature is shared by the whole batch, so every component must be of the exact class
+            for (var type = 0; type < classes.length; type++)
+                if (components[type][entity] == null || components[type][entity].getClass() != classes[type])
+                    throw new IllegalStateException("Component '" + classes[type].getSimpleName() + "' of spawned entity " + entity + " wasn't set to an instance of exactly that class");
+        }
+        return components;
+    }
+
+    /**
+     * Called for every spawned entity to set up it's components
+     */
+    @FunctionalInterface
+    public interface SpawnInitializer {
+        void initialize(Spawned spawned);
+    }
+
+    /**
+     * A view of the components of the entity that's being initialized, the same view is reused for every entity of a
+     * batch so it must not be kept
+     */
+    public final class Spawned {
+        private final Component[][] components;
+        @Getter private int index;
+        //The ref of the entity, it doesn't exist until the batch is inserted but it can be stored in components
+        @Getter private EntityRef entity;
+
+        private Spawned(Component[][] components) {
+            this.components = components;
+        }
+
+        /**
+         * @return returns the component of the given class
+         */
+        public <T extends Component> T get(Class<T> componentClass) {
+            var type = indexOf(componentClass);
+            if (type < 0)
+                throw new IllegalArgumentException("Template has no component '" + componentClass.getSimpleName() + "'");
+            return componentClass.cast(components[type][index]);
+        }
+
+        /**
+         * Replaces the component of it's class, the class must be part of the template
+         */
+        public <T extends Component> T set(T component) {
+            for (var type = 0; type < classes.length; type++) {
+                if (classes[type] == component.getClass()) {
+                    components[type][index] = component;
+                    return component;
+                }
+            }
+            throw new IllegalArgumentException("Template has no component '" + component.getClass().getSimpleName() + "'");
+        }
+    }
+
+    /**
+     * Collects the classes and factories of a template
+     */
+    public static final class Builder {
+        private final List<Class<? extends Component>> classes = Lists.newArrayList();
+        private final List<Supplier<? extends Component>> factories = Lists.newArrayList();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a component class
+         *
+         * @param factory creates the component of each entity, or null if the initializer sets it
+         */
+        public <T extends Component> Builder with(Class<T> componentClass, Supplier<? extends T> factory) {
+            if (classes.contains(componentClass))
+                throw new IllegalArgumentException("Component '" + componentClass.getSimpleName() + "' was already added to the template");
+            if (ComponentType.of(componentClass).isSingle())
+                throw new IllegalArgumentException("Single component '" + componentClass.getSimpleName() + "' can't be spawned in batches");
+            classes.add(componentClass);
+            factories.add(factory);
+            return this;
+        }
+
+        public EntityTemplate build() {
+            return new EntityTemplate(classes, factories);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.jgfx.engine.ecs.entity.pool;
+
+import com.google.common.collect.Lists;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.entity.builder.EntityTemplate;
+import com.jgfx.engine.ecs.entity.ref.BaseEntityRef;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.List;
+
+/**
+ * Records structural changes (creating and destroying entities, adding and removing components) so they can be applied
+ * later, when no group or query is being iterated. Every thread has it's own buffer, which is returned by
+ * {@link EntityManager#commands()}, and all of the buffers are played back by {@link EntityManager#playback()}.
+ * <p>
+ * The id of a created entity is reserved when the command is recorded, so the returned ref can be stored and used in
+ * later commands straight away. It doesn't exist until the buffer is played back though.
+ */
+public final class EntityCommandBuffer {
+    private static final byte CREATE = 0;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte DESTROY = 3;
+    private static final byte RUN = 4;
+    private static final byte SPAWN = 5;
+
+    private final EntityManager manager;
+    private final TByteArrayList commands = new TByteArrayList();
+    private final TLongArrayList ids = new TLongArrayList();
+    //The component, component class, components of a created entity or action of each command
+    private final List<Object> arguments = Lists.newArrayList();
+    //The entities that had components added or removed during a playback, their groups are updated once at the end
+    private final TLongHashSet changed = new TLongHashSet();
+
+    EntityCommandBuffer(EntityManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Reserves an id and records the creation of an entity with the given components
+     *
+     * @return returns the ref of the entity, which exists after the playback
+     */
+    public EntityRef create(Component... components) {
+        var id = manager.createEntity();
+        var ref = new BaseEntityRef(manager, id);
+        record(CREATE, id, new Pending(ref, Lists.newArrayList(components)));
+        return ref;
+    }
+
+    /**
+     * Reserves the ids of a batch and records spawning it. The components are created and initialized straight away
+     * on the calling thread, the entities exist after the playback
+     *
+     * @return returns the ids of the entities
+     */
+    public long[] spawn(EntityTemplate template, int count, EntityTemplate.SpawnInitializer initializer) {
+        var ids = new long[count];
+        manager.getEntityTable().create(ids, count);
+        var refs = manager.refs(ids, count);
+        record(SPAWN, EntityTable.NULL_ID, new Batch(template, ids.clone(), refs, template.create(refs, count, initializer)));
+        return ids;
+    }
+
+    /**
+     * Records adding (or replacing) a component
+     */
+    public void add(long entityId, Component component) {
+        record(ADD, entityId, component);
+    }
+
+    /**
+     * Records removing the component of the given class
+     */
+    public void remove(long entityId, Class<? extends Component> componentClass) {
+        record(REMOVE, entityId, componentClass);
+    }
+
+    /**
+     * Records destroying an entity
+     */
+    public void destroy(long entityId) {
+        record(DESTROY, entityId, null);
+    }
+
+    /**
+     * Records an action that runs during the playback, after the commands that were recorded before it
+     */
+    public void run(Runnable action) {
+        record(RUN, EntityTable.NULL_ID, action);
+    }
+
+    /**
+     * @return returns the number of recorded commands
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    private void record(byte command, long entityId, Object argument) {
+        commands.add(command);
+        ids.add(entityId);
+        arguments.add(argument);
+    }
+
+    /**
+     * Applies the commands in the order they were recorded. Group membership of entities that gained or lost
+     * components is only updated once per entity, after all of the commands were applied.
+     */
+    void playback() {
+        for (var i = 0; i < commands.size(); i++) {
+            var id = ids.get(i);
+            switch (commands.get(i)) {
+                case CREATE:
+                    var pending = (Pending) arguments.get(i);
+                    if (manager.isIdLoaded(id))
+                        manager.insertRef(pending.ref, pending.components);
+                    break;
+                case ADD:
+                    if (manager.isIdLoaded(id) && manager.putComponent(id, (Component) arguments.get(i)))
+                        changed.add(id);
+                    break;
+                case REMOVE:
+                    if (manager.isIdLoaded(id) && manager.takeComponent(id, (Class<? extends Component>) arguments.get(i)) != null)
+                        changed.add(id);
+                    break;
+                case DESTROY:
+                    manager.destroy(id);
+                    changed.remove(id);
+                    break;
+                case SPAWN:
+                    ((Batch) arguments.get(i)).insert(manager);
+                    break;
+                case RUN:
+                    //The action should see the groups as they are at this point
+                    updateGroups();
+                    ((Runnable) arguments.get(i)).run();
+                    break;
+            }
+        }
+        updateGroups();
+        clear();
+    }
+
+    private void updateGroups() {
+        changed.forEach(id -> {
+            manager.notifyGroups(id);
+            return true;
+        });
+        changed.clear();
+    }
+
+    /**
+     * Drops all of the recorded commands
+     */
+    void clear() {
+        commands.resetQuick();
+        ids.resetQuick();
+        arguments.clear();
+        changed.clear();
+    }
+
+    /**
+     * A batch of entities that was spawned in the buffer
+     */
+    private static final class Batch {
+        private final EntityTemplate template;
+        private final long[] ids;
+        private final BaseEntityRef[] refs;
+        private final Component[][] components;
+
+        private Batch(EntityTemplate template, long[] ids, BaseEntityRef[] refs, Component[][] components) {
+            this.template = template;
+            this.ids = ids;
+            this.refs = refs;
+            this.components = components;
+        }
+
+        /**
+         * Inserts the batch, leaving out the entities that were destroyed before the playback
+         */
+        private void insert(EntityManager manager) {
+            var count = 0;
+            for (var entity = 0; entity < ids.length; entity++) {
+                if (!manager.isIdLoaded(ids[entity]))
+                    continue;
+                ids[count] = ids[entity];
+                refs[count] = refs[entity];
+                for (var column : components)
+                    column[count] = column[entity];
+                count++;
+            }
+            manager.insertBatch(template, ids, refs, count, components);
+        }
+    }
+
+    /**
+     * An entity that was created in the buffer
+     */
+    private static final class Pending {
+        private final BaseEntityRef ref;
+        private final List<Component> components;
+
+        private Pending(BaseEntityRef ref, List<Component> components) {
+            this.ref = ref;
+            this.components = components;
+        }
+    }
+}
@@ -2,46 +2,79 @@ package com.jgfx.engine.ecs.entity.pool;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
-import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.jgfx.assets.urn.ResourceUrn;
+import com.jgfx.engine.ecs.component.ChangeTicks;
 import com.jgfx.engine.ecs.component.Component;
-import com.jgfx.engine.ecs.component.ComponentTable;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentStore;
+import com.jgfx.engine.ecs.component.ComponentType;
 import com.jgfx.engine.ecs.component.SingleComponent;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.component.packed.PackedStore;
+import com.jgfx.engine.ecs.component.pool.ComponentPools;
+import com.jgfx.engine.ecs.component.view.ComponentViews;
 import com.jgfx.engine.ecs.entity.builder.EntityBuilder;
+import com.jgfx.engine.ecs.entity.builder.EntityTemplate;
 import com.jgfx.engine.ecs.entity.ref.BaseEntityRef;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.util.EntityIterator;
+import com.jgfx.engine.ecs.group.Group;
+import com.jgfx.engine.ecs.hierarchy.Hierarchy;
 import gnu.trove.iterator.TLongObjectIterator;
-import gnu.trove.set.TLongSet;
-import gnu.trove.set.hash.TLongHashSet;
 import lombok.Getter;
-import lombok.Setter;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The core entity manager. This will handle all of the entities in the entire game
  */
 public class EntityManager implements EntityPool {
-    //********Data about entities initialization
-    @Setter
-    @Getter
-    private long nextId = 1;
-    private TLongSet loadedIds = new TLongHashSet();
-
-    //********Data about entities and components
-    @Getter private Map<Long, BaseEntityRef> entityStore = new MapMaker().weakValues().concurrencyLevel(4).initialCapacity(1000).makeMap();
-    @Getter private ComponentTable componentStore = new ComponentTable();
+    private static final Class<? extends Component>[] NO_CLASSES = new Class[0];
+    //********Data about entities, the refs and signatures are stored by the index of the entity id
+    @Getter private final EntityTable entityTable = new EntityTable();
+
+    //********Data about components
+    @Getter private final StorageMode storageMode;
+    @Getter private final ComponentStore componentStore;
+    @Getter private final ChangeTicks changeTicks = new ChangeTicks();
+    //The off heap data of the packed components, the components themselves are still kept in the component store
+    @Getter private final PackedStore packedStore = new PackedStore();
+    //The opt in recycling pools, components of pooled classes are returned to them when their entity is destroyed
+    @Getter private final ComponentPools componentPools = new ComponentPools();
+    //The parent/child relations between entities
+    @Getter private final Hierarchy hierarchy = new Hierarchy();
+    //Frozen versions of component classes that worker threads can read while the components keep changing
+    @Getter private final ComponentViews componentViews;
 
     @Getter private final Iterable<EntityRef> allEntities;
     private Map<ResourceUrn, EntityRef> singleEntityStore = Maps.newConcurrentMap();
+    //The groups that are notified whenever the components of an entity change
+    private final List<Group> groups = Lists.newCopyOnWriteArrayList();
+    //Every command buffer that was handed out, so they can all be played back from the main thread
+    private final List<EntityCommandBuffer> commandBuffers = Lists.newCopyOnWriteArrayList();
+    private final ThreadLocal<EntityCommandBuffer> localCommands = ThreadLocal.withInitial(() -> {
+        var buffer = new EntityCommandBuffer(this);
+        commandBuffers.add(buffer);
+        return buffer;
+    });
 
     /**
-     * Creates the all entities iterator
+     * Creates an entity manager with the default hashed component storage
      */
     public EntityManager() {
+        this(StorageMode.HASHED);
+    }
+
+    /**
+     * Creates the all entities iterator
+     *
+     * @param storageMode the way the components should be laid out in memory
+     */
+    public EntityManager(StorageMode storageMode) {
+        this.storageMode = storageMode;
+        this.componentStore = storageMode.create();
+        this.componentViews = new ComponentViews(componentStore, changeTicks);
         allEntities = () -> new EntityIterator(componentStore.entityIdIterator(), this);
     }
 
@@ -50,11 +83,77 @@ public class EntityManager implements EntityPool {
      */
     @Override
     public void clear() {
-        for (EntityRef entity : entityStore.values()) {
-            entity.dispose();
+        for (var index = 1; index < entityTable.getNextIndex(); index++) {
+            var entity = entityTable.getRef(entityTable.idAt(index));
+            if (entity != null)
+                entity.dispose();
         }
         componentStore.clear();
-        entityStore.clear();
+        entityTable.clear();
+        singleEntityStore.clear();
+        groups.forEach(Group::clear);
+        commandBuffers.forEach(EntityCommandBuffer::clear);
+        changeTicks.clear();
+        packedStore.clear();
+        hierarchy.clear();
+        componentViews.clear();
+    }
+
+    /**
+     * Structural changes made while iterating a group or query (or from a worker thread) should be recorded in this
+     * buffer instead of being applied directly
+     *
+     * @return returns the command buffer of the calling thread
+     */
+    public EntityCommandBuffer commands() {
+        return localCommands.get();
+    }
+
+    /**
+     * Applies the commands of every thread's buffer. This must only be called from the main thread while no systems
+     * are being processed
+     */
+    public void playback() {
+        for (var buffer : commandBuffers)
+            if (!buffer.isEmpty())
+                buffer.playback();
+    }
+
+    /**
+     * Registers a group, so it's members will be kept up to date
+     *
+     * @param group the group to register
+     * @return returns the group
+     */
+    public Group addGroup(Group group) {
+        groups.add(group);
+        return group;
+    }
+
+    /**
+     * Stops updating the members of the given group
+     *
+     * @param group the group to remove
+     */
+    public void removeGroup(Group group) {
+        groups.remove(group);
+    }
+
+    /**
+     * @return returns the number of registered groups
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * @return returns the members of every registered group added together, an entity is counted once per group
+     */
+    public int getGroupMemberCount() {
+        var total = 0;
+        for (var group : groups)
+            total += group.count();
+        return total;
     }
 
     /**
@@ -90,13 +189,11 @@ public class EntityManager implements EntityPool {
 
     @Override
     public EntityRef getEntity(long id) {
-        if (id == -1 || !isExistingEntity(id)) {
-            // ID is null or the entity doesn't exist
+        if (id == EntityTable.NULL_ID)
             return EntityRef.NULL;
-        }
-        var existing = entityStore.get(id);
+        var existing = entityTable.getRef(id);
         if (existing != null) {
-            // Entity already has a ref
+            // Entity already has a ref, stale ids never have one as their generation doesn't match
             return existing;
         }
         return EntityRef.NULL;
@@ -113,41 +210,19 @@ public class EntityManager implements EntityPool {
      */
     @Override
     public void putEntity(long entityId, BaseEntityRef ref) {
-        entityStore.put(entityId, ref);
+        entityTable.setRef(entityId, ref);
     }
 
     public Iterable<EntityRef> getEntitiesWithAllAndExclude(Class<? extends Component>[] allClasses, Class<? extends Component>[] excludeClasses) {
-        return () -> entityStore.keySet().stream()
-                //Keep entities which have all of the required components
-                .filter(id -> Arrays.stream(allClasses).allMatch(component -> componentStore.get(id, component) != null))
-                .filter(id -> Arrays.stream(excludeClasses)
-                        .noneMatch(comp -> componentStore.get(id, comp) != null))
-                .map(this::getEntity)
-                .iterator();
+        return query(allClasses, NO_CLASSES, excludeClasses);
     }
 
     public Iterable<EntityRef> getEntitiesWithOneAndExclude(Class<? extends Component>[] oneClasses, Class<? extends Component>[] excludeClasses) {
-        return () -> entityStore.keySet().stream()
-                //Keep entities which have all of the required components
-                .filter(id -> Arrays.stream(oneClasses)
-                        .anyMatch(component -> componentStore.get(id, component) != null))
-                .filter(id -> Arrays.stream(excludeClasses)
-                        .noneMatch(comp -> componentStore.get(id, comp) != null))
-                .map(this::getEntity)
-                .iterator();
+        return query(NO_CLASSES, oneClasses, excludeClasses);
     }
 
     public Iterable<EntityRef> getEntitiesWithOneOrAllAndExclude(Class<? extends Component>[] oneClasses, Class<? extends Component>[] allClasses, Class<? extends Component>[] excludeClasses) {
-        return () -> entityStore.keySet().stream()
-                //Keep entities which have all of the required components
-                .filter(id -> Arrays.stream(oneClasses)
-                        .anyMatch(component -> componentStore.get(id, component) != null))
-                .filter(id -> Arrays.stream(allClasses)
-                        .allMatch(component -> componentStore.get(id, component) != null))
-                .filter(id -> Arrays.stream(excludeClasses)
-                        .noneMatch(comp -> componentStore.get(id, comp) != null))
-                .map(this::getEntity)
-                .iterator();
+        return query(allClasses, oneClasses, excludeClasses);
     }
 
     /**
@@ -156,12 +231,7 @@ public class EntityManager implements EntityPool {
     @SafeVarargs
     @Override
     public final Iterable<EntityRef> getEntitiesWithAll(Class<? extends Component>... componentClasses) {
-        return () -> entityStore.keySet().stream()
-                //Keep entities which have all of the required components
-                .filter(id -> Arrays.stream(componentClasses)
-                        .allMatch(component -> componentStore.get(id, component) != null))
-                .map(this::getEntity)
-                .iterator();
+        return query(componentClasses, NO_CLASSES, NO_CLASSES);
     }
 
     /**
@@ -173,12 +243,7 @@ public class EntityManager implements EntityPool {
     @SafeVarargs
     @Override
     public final Iterable<EntityRef> getEntitiesWithOne(Class<? extends Component>... componentClasses) {
-        return () -> entityStore.keySet().stream()
-                //Keep entities which have all of the required components
-                .filter(id -> Arrays.stream(componentClasses)
-                        .anyMatch(component -> componentStore.get(id, component) != null))
-                .map(this::getEntity)
-                .iterator();
+        return query(NO_CLASSES, componentClasses, NO_CLASSES);
     }
 
     /**
@@ -188,14 +253,17 @@ public class EntityManager implements EntityPool {
      */
     @Override
     public Iterable<EntityRef> getEntitiesWithOneOrAll(Class<? extends Component>[] oneComponentClasses, Class<? extends Component>[] allComponentClasses) {
-        return () -> entityStore.keySet().stream()
-                //Keep entities which have all of the required components
-                .filter(id -> Arrays.stream(oneComponentClasses)
-                        .anyMatch(component -> componentStore.get(id, component) != null))
-                .filter(id -> Arrays.stream(allComponentClasses)
-                        .allMatch(component -> componentStore.get(id, component) != null))
-                .map(this::getEntity)
-                .iterator();
+        return query(allComponentClasses, oneComponentClasses, NO_CLASSES);
+    }
+
+    /**
+     * The matching itself is done by the component store, so it can use it's own layout to find the entities
+     *
+     * @return returns an iterable over the entities with all of the all classes, one of the one classes and none of
+     * the exclude classes
+     */
+    private Iterable<EntityRef> query(Class<? extends Component>[] allClasses, Class<? extends Component>[] oneClasses, Class<? extends Component>[] excludeClasses) {
+        return () -> new EntityIterator(componentStore.entityIdIterator(allClasses, oneClasses, excludeClasses), this);
     }
 
     /**
@@ -214,7 +282,7 @@ public class EntityManager implements EntityPool {
      */
     @Override
     public int getActiveEntityCount() {
-        return entityStore.size();
+        return entityTable.getAliveCount();
     }
 
     /**
@@ -225,7 +293,7 @@ public class EntityManager implements EntityPool {
      */
     @Override
     public boolean contains(long id) {
-        return entityStore.containsKey(id);
+        return entityTable.getRef(id) != null;
     }
 
 
@@ -239,33 +307,48 @@ public class EntityManager implements EntityPool {
         // Don't allow the destruction of unloaded entities.
         if (!isIdLoaded(id))
             return;
-        EntityRef ref = getEntity(id);
-        long entityId = ref.getId();
-        entityStore.remove(entityId);
-        loadedIds.remove(entityId);
-        ref.dispose();
-        componentStore.remove(entityId);
+        var ref = getEntity(id);
+        //The components are collected before they're removed, so the pooled ones can be recycled afterwards
+        List<Component> recycled = null;
+        if (componentPools.isPooled(entityTable.getSignature(id)))
+            recycled = Lists.newArrayList(componentStore.iterateComponents(id));
+        entityTable.release(id);
+        if (ref != null)
+            ref.dispose();
+        componentStore.remove(id);
+        changeTicks.remove(id);
+        packedStore.remove(id);
+        hierarchy.remove(id);
+        for (var group : groups)
+            group.onRemoved(id);
+        if (recycled != null)
+            for (var component : recycled)
+                componentPools.free(component);
     }
 
-    /**
-     * Checks to see if the entity is valid
-     *
-     * @param id
-     * @return returns true if valid
-     */
-    private boolean isExistingEntity(long id) {
-        return nextId > id;
+    @Override
+    public boolean hasComponent(long entityId, Class<? extends Component> componentClass) {
+        var signature = entityTable.getSignature(entityId);
+        return signature != null && signature.get(ComponentType.of(componentClass).getIndex());
     }
 
     @Override
-    public boolean hasComponent(long entityId, Class<? extends Component> componentClass) {
-        return false;
+    public ComponentMask getSignature(long entityId) {
+        return entityTable.getSignature(entityId);
     }
 
     @Override
     public Optional<BaseEntityRef> remove(long id) {
         componentStore.remove(id);
-        return Optional.of(entityStore.remove(id));
+        changeTicks.remove(id);
+        packedStore.remove(id);
+        hierarchy.remove(id);
+        for (var group : groups)
+            group.onRemoved(id);
+        var ref = entityTable.getRef(id);
+        entityTable.setRef(id, null);
+        entityTable.setSignature(id, null);
+        return Optional.ofNullable(ref);
     }
 
     /**
@@ -276,20 +359,76 @@ public class EntityManager implements EntityPool {
      */
     @Override
     public void insertRef(BaseEntityRef ref, Iterable<Component> components) {
-        var insert = new AtomicBoolean(true);
-        components.forEach(comp -> {
-            if (comp instanceof SingleComponent) {
-                var singleEntity = (SingleComponent) comp;
-                if (!singleEntityStore.containsKey(singleEntity.urn))
-                    singleEntityStore.put(singleEntity.urn, ref);
-                else
-                    insert.set(false);
-            }
-        });
-        if (insert.get()) {
-            components.forEach(comp -> componentStore.put(ref.getId(), comp));
-            entityStore.put(ref.getId(), ref);
+        //The entity isn't inserted when one of it's single components is already mapped to another entity
+        for (var component : components)
+            if (component instanceof SingleComponent && singleEntityStore.containsKey(((SingleComponent) component).urn))
+                return;
+        var id = ref.getId();
+        var signature = new ComponentMask();
+        for (var component : components) {
+            var type = ComponentType.of(component.getClass());
+            signature.or(type.getMask());
+            if (type.isSingle())
+                singleEntityStore.put(((SingleComponent) component).urn, ref);
+            componentStore.put(id, component);
+            if (type.isPacked())
+                packedStore.put(id, component);
+            changeTicks.markAdded(id, type);
+        }
+        entityTable.setRef(id, ref);
+        if (!signature.isEmpty())
+            entityTable.setSignature(id, signature);
+        notifyGroups(id);
+    }
+
+    /**
+     * Reserves the ids of the whole batch at once, creates the components from the template and inserts them with a
+     * single store update and a single membership update per group
+     */
+    @Override
+    public long[] spawnBatch(EntityTemplate template, int count, EntityTemplate.SpawnInitializer initializer) {
+        var ids = new long[count];
+        entityTable.create(ids, count);
+        var refs = refs(ids, count);
+        insertBatch(template, ids, refs, count, template.create(refs, count, initializer));
+        return ids;
+    }
+
+    /**
+     * @return returns a new ref for each of the ids
+     */
+    BaseEntityRef[] refs(long[] ids, int count) {
+        var refs = new BaseEntityRef[count];
+        for (var i = 0; i < count; i++)
+            refs[i] = new BaseEntityRef(this, ids[i]);
+        return refs;
+    }
+
+    /**
+     * Inserts a batch of entities that were created from the template, the ids must be alive and have no components
+     *
+     * @param components the components created by {@link EntityTemplate#create}
+     */
+    void insertBatch(EntityTemplate template, long[] ids, BaseEntityRef[] refs, int count, Component[][] components) {
+        if (count == 0)
+            return;
+        componentStore.putBatch(ids, count, components);
+        var types = template.getTypes();
+        for (var type = 0; type < types.length; type++) {
+            if (types[type].isPacked())
+                for (var entity = 0; entity < count; entity++)
+                    packedStore.put(ids[entity], components[type][entity]);
+            for (var entity = 0; entity < count; entity++)
+                changeTicks.markAdded(ids[entity], types[type]);
+        }
+        var signature = template.getSignature();
+        for (var entity = 0; entity < count; entity++) {
+            entityTable.setRef(ids[entity], refs[entity]);
+            if (!signature.isEmpty())
+                entityTable.setSignature(ids[entity], signature.copy());
         }
+        for (var group : groups)
+            group.onSpawned(ids, count, signature);
     }
 
     /**
@@ -309,20 +448,27 @@ public class EntityManager implements EntityPool {
      */
     @Override
     public long createEntity() {
-        if (nextId == -1) {
-            nextId++;
-        }
-        loadedIds.add(nextId);
-        return nextId++;
+        return entityTable.create();
     }
 
     @Override
     public boolean registerId(long id) {
-        if (id >= nextId) {
-            return false;
-        }
-        loadedIds.add(id);
-        return true;
+        return entityTable.register(id);
+    }
+
+    /**
+     * The next id is the next index that has never been used, destroyed indices are reused before it
+     *
+     * @return returns the next fresh index
+     */
+    @Override
+    public long getNextId() {
+        return entityTable.getNextIndex();
+    }
+
+    @Override
+    public void setNextId(long id) {
+        entityTable.setNextIndex(EntityTable.index(id));
     }
 
     /**
@@ -336,10 +482,41 @@ public class EntityManager implements EntityPool {
     @Override
     public <T extends Component> T addComponent(long entityId, T component) {
         Preconditions.checkNotNull(component);
-        componentStore.put(entityId, component);
+        if (putComponent(entityId, component))
+            notifyGroups(entityId);
         return component;
     }
 
+    /**
+     * Stores the component and updates the signature, without updating the groups
+     *
+     * @return returns true if the entity didn't have a component of the type before
+     */
+    boolean putComponent(long entityId, Component component) {
+        var type = ComponentType.of(component.getClass());
+        var replaced = componentStore.put(entityId, component) != null;
+        if (type.isPacked())
+            packedStore.put(entityId, component);
+        if (replaced) {
+            changeTicks.markChanged(entityId, type);
+            return false;
+        }
+        changeTicks.markAdded(entityId, type);
+        var signature = entityTable.getSignature(entityId);
+        if (signature == null)
+            entityTable.setSignature(entityId, signature = new ComponentMask());
+        signature.or(type.getMask());
+        return true;
+    }
+
+    /**
+     * Updates the membership of the entity in every group
+     */
+    void notifyGroups(long entityId) {
+        for (var group : groups)
+            group.onChanged(entityId);
+    }
+
     /**
      * @param id
      * @param componentClass
@@ -350,6 +527,22 @@ public class EntityManager implements EntityPool {
         return componentStore.get(id, componentClass);
     }
 
+    @Override
+    public <T extends Component> T getMutable(long id, Class<T> componentClass) {
+        var component = componentStore.get(id, componentClass);
+        if (component != null)
+            changeTicks.markChanged(id, ComponentType.of(component.getClass()));
+        return component;
+    }
+
+    /**
+     * The ticks are stored for the exact class, so the component is looked up in case the class is a super type
+     */
+    @Override
+    public void markChanged(long id, Class<? extends Component> componentClass) {
+        getMutable(id, componentClass);
+    }
+
     /**
      * Removes a component from an entity
      *
@@ -358,12 +551,45 @@ public class EntityManager implements EntityPool {
      */
     @Override
     public <T extends Component> T removeComponent(long entityId, Class<T> componentClass) {
-        var component = componentStore.get(entityId, componentClass);
+        var component = takeComponent(entityId, componentClass);
         if (component != null)
-            componentStore.remove(entityId, componentClass);
+            notifyGroups(entityId);
+        return component;
+    }
+
+    /**
+     * Removes the component and updates the signature, without updating the groups
+     *
+     * @return returns the removed component or null if the entity didn't have one
+     */
+    <T extends Component> T takeComponent(long entityId, Class<T> componentClass) {
+        var component = componentStore.get(entityId, componentClass);
+        if (component == null || componentStore.remove(entityId, componentClass) == null)
+            return null;
+        var type = ComponentType.of(component.getClass());
+        if (type.isPacked())
+            packedStore.remove(entityId, component);
+        changeTicks.remove(entityId, type);
+        removeFromSignature(entityId, type);
         return component;
     }
 
+    /**
+     * Clears the bits of the removed type, the super type bits are restored from the remaining components as they
+     * could be shared with another component
+     */
+    private void removeFromSignature(long entityId, ComponentType type) {
+        var signature = entityTable.getSignature(entityId);
+        if (signature == null)
+            return;
+        signature.andNot(type.getMask());
+        if (type.types().length > 1)
+            for (var remaining : componentStore.iterateComponents(entityId))
+                signature.or(ComponentType.of(remaining.getClass()).getMask());
+        if (signature.isEmpty())
+            entityTable.setSignature(entityId, null);
+    }
+
     /**
      * Lists the components of a given component type, with a ref to their entity
      *
@@ -390,7 +616,7 @@ public class EntityManager implements EntityPool {
      * @return
      */
     public boolean isIdLoaded(long entityId) {
-        return loadedIds.contains(entityId);
+        return entityTable.isAlive(entityId);
     }
 
 
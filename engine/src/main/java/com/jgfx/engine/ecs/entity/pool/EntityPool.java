@@ -2,11 +2,16 @@ package com.jgfx.engine.ecs.entity.pool;
 
 
 import com.jgfx.assets.urn.ResourceUrn;
+import com.jgfx.engine.ecs.component.ChangeTicks;
 import com.jgfx.engine.ecs.component.Component;
-import com.jgfx.engine.ecs.component.ComponentTable;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentStore;
+import com.jgfx.engine.ecs.component.pool.ComponentPools;
 import com.jgfx.engine.ecs.entity.builder.EntityBuilder;
+import com.jgfx.engine.ecs.entity.builder.EntityTemplate;
 import com.jgfx.engine.ecs.entity.ref.BaseEntityRef;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import com.jgfx.engine.ecs.hierarchy.Hierarchy;
 
 import java.util.Map;
 import java.util.Optional;
@@ -42,6 +47,15 @@ public interface EntityPool {
      */
     EntityRef create(Iterable<Component> components);
 
+    /**
+     * Spawns a batch of entities with the components of the template
+     *
+     * @param count       the number of entities to spawn
+     * @param initializer called for every entity to set up it's components, may be null
+     * @return returns the ids of the spawned entities
+     */
+    long[] spawnBatch(EntityTemplate template, int count, EntityTemplate.SpawnInitializer initializer);
+
     /**
      * Retrieve the entity ref with the given id.
      *
@@ -112,7 +126,27 @@ public interface EntityPool {
      */
     void setNextId(long id);
 
-    ComponentTable getComponentStore();
+    /**
+     * @return returns the storage backing the components of this pool
+     */
+    ComponentStore getComponentStore();
+
+    /**
+     * @return returns the ticks at which the components of this pool were added and written
+     */
+    ChangeTicks getChangeTicks();
+
+    /**
+     * @return returns the recycling pools of this pool, components of pooled classes are returned to them when their
+     * entity is destroyed
+     */
+    ComponentPools getComponentPools();
+
+    /**
+     * @return returns the parent/child relations between the entities of this pool, destroyed entities are removed
+     * from it and their children become roots
+     */
+    Hierarchy getHierarchy();
 
     /**
      * Destroys an entity with the given id
@@ -130,6 +164,14 @@ public interface EntityPool {
      */
     boolean hasComponent(long entityId, Class<? extends Component> componentClass);
 
+    /**
+     * The signature has a bit set for every component type of the entity, including the super types of the components
+     *
+     * @param entityId the entity to get the signature for
+     * @return returns the signature of the entity or null if the entity has no components
+     */
+    ComponentMask getSignature(long entityId);
+
 
     /**
      * Remove the entity from the pool. This does not destroy the entity, it only removes the {@link BaseEntityRef}
@@ -223,4 +265,22 @@ public interface EntityPool {
      */
     <T extends Component> T getComponent(long id, Class<T> componentClass);
 
+    /**
+     * Gets a component that's about to be written, marking it as changed
+     *
+     * @param id             the entity that owns the component
+     * @param componentClass the class of the component
+     * @return The component of that type owned by the given entity, or null if it doesn't have that component
+     */
+    <T extends Component> T getMutable(long id, Class<T> componentClass);
+
+    /**
+     * Marks the component of the given class as changed, this must be called after writing to a component that was
+     * retrieved without {@link #getMutable(long, Class)}
+     *
+     * @param id             the entity that owns the component
+     * @param componentClass the class of the component that was written
+     */
+    void markChanged(long id, Class<? extends Component> componentClass);
+
 }
@@ -0,0 +1,280 @@
+package com.jgfx.engine.ecs.entity.pool;
+
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.entity.ref.BaseEntityRef;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Stores the per entity data of an entity pool in dense arrays. An entity id is a 32 bit index into the arrays in the
+ * lower bits and a 32 bit generation in the upper bits. The generation of an index is increased whenever the entity
+ * at the index is destroyed, so ids of destroyed entities never match a recycled index.
+ * <p>
+ * Index 0 is reserved so a valid id is never 0, and -1 is the null id.
+ * <p>
+ * Ids can be created and released from any thread, so command buffers can reserve ids while systems run in parallel.
+ * Everything that writes takes the table's lock, reads don't. The arrays are replaced as a whole when they grow and
+ * published through a volatile field, so a read sees either the old or the new arrays, and the generation check
+ * rejects an id that doesn't match what's stored.
+ */
+public final class EntityTable {
+    public static final long NULL_ID = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private volatile Slots slots = new Slots(INITIAL_CAPACITY);
+    //Indices of destroyed entities, an index may have been registered again since so they're checked when popped
+    private final TIntArrayList free = new TIntArrayList();
+    //The next index that has never been used
+    private volatile int nextIndex = 1;
+    private volatile int aliveCount;
+
+    /**
+     * @return returns the index of the id
+     */
+    public static int index(long id) {
+        return (int) id;
+    }
+
+    /**
+     * @return returns the generation of the id
+     */
+    public static int generation(long id) {
+        return (int) (id >>> 32);
+    }
+
+    /**
+     * @return returns the id for the given index and generation
+     */
+    public static long id(int index, int generation) {
+        return ((long) generation << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Allocates a new id, reusing the index of a destroyed entity when possible
+     *
+     * @return returns the new id
+     */
+    public synchronized long create() {
+        var index = 0;
+        var slots = this.slots;
+        while (!free.isEmpty()) {
+            var candidate = free.removeAt(free.size() - 1);
+            if (!slots.alive[candidate]) {
+                index = candidate;
+                break;
+            }
+        }
+        if (index == 0) {
+            index = nextIndex;
+            slots = ensureCapacity(index);
+            nextIndex = index + 1;
+        }
+        slots.alive[index] = true;
+        aliveCount++;
+        return id(index, slots.generations[index]);
+    }
+
+    /**
+     * Allocates the given number of ids at once, reusing the indices of destroyed entities first
+     *
+     * @param ids the array the ids are stored into, starting at 0
+     */
+    public synchronized void create(long[] ids, int count) {
+        var created = 0;
+        var slots = this.slots;
+        while (created < count && !free.isEmpty()) {
+            var candidate = free.removeAt(free.size() - 1);
+            if (!slots.alive[candidate]) {
+                slots.alive[candidate] = true;
+                ids[created++] = id(candidate, slots.generations[candidate]);
+            }
+        }
+        var fresh = count - created;
+        if (fresh > 0) {
+            var first = nextIndex;
+            slots = ensureCapacity(first + fresh - 1);
+            for (var index = first; index < first + fresh; index++) {
+                slots.alive[index] = true;
+                ids[created++] = id(index, slots.generations[index]);
+            }
+            nextIndex = first + fresh;
+        }
+        aliveCount += count;
+    }
+
+    /**
+     * Registers a specific id, this is used when restoring entities
+     *
+     * @return returns false if the index is out of range or already in use
+     */
+    public synchronized boolean register(long id) {
+        var index = index(id);
+        var slots = this.slots;
+        if (index <= 0 || index >= nextIndex || slots.alive[index])
+            return false;
+        slots.generations[index] = generation(id);
+        slots.alive[index] = true;
+        aliveCount++;
+        return true;
+    }
+
+    /**
+     * Frees the id, increasing the generation of it's index so any stored copies of the id become stale
+     *
+     * @return returns false if the id wasn't alive
+     */
+    public synchronized boolean release(long id) {
+        if (!isAlive(id))
+            return false;
+        var index = index(id);
+        var slots = this.slots;
+        slots.alive[index] = false;
+        slots.refs[index] = null;
+        slots.signatures[index] = null;
+        slots.generations[index]++;
+        aliveCount--;
+        free.add(index);
+        return true;
+    }
+
+    /**
+     * @return returns true if the id is alive and it's generation matches
+     */
+    public boolean isAlive(long id) {
+        return isAlive(slots, id);
+    }
+
+    /**
+     * @return returns the ref of the id, or null if the id is stale or has no ref
+     */
+    public BaseEntityRef getRef(long id) {
+        var slots = this.slots;
+        return isAlive(slots, id) ? slots.refs[index(id)] : null;
+    }
+
+    /**
+     * Stores the ref for the id, the id must be alive. This takes the lock so the ref isn't lost if the arrays grow
+     */
+    public synchronized void setRef(long id, BaseEntityRef ref) {
+        var slots = this.slots;
+        if (isAlive(slots, id))
+            slots.refs[index(id)] = ref;
+    }
+
+    /**
+     * @return returns the signature of the id, or null if the id is stale or has no components
+     */
+    public ComponentMask getSignature(long id) {
+        var slots = this.slots;
+        return isAlive(slots, id) ? slots.signatures[index(id)] : null;
+    }
+
+    /**
+     * Stores the signature for the id, the id must be alive. This takes the lock so the signature isn't lost if the
+     * arrays grow
+     */
+    public synchronized void setSignature(long id, ComponentMask signature) {
+        var slots = this.slots;
+        if (isAlive(slots, id))
+            slots.signatures[index(id)] = signature;
+    }
+
+    /**
+     * @return returns the id that's currently stored at the index, or {@link #NULL_ID} if it's not alive
+     */
+    public long idAt(int index) {
+        var slots = this.slots;
+        return index > 0 && index < slots.alive.length && slots.alive[index] ? id(index, slots.generations[index]) : NULL_ID;
+    }
+
+    /**
+     * Sets the next fresh index, this is used on a cleared table when restoring the state of a pool. The free indices
+     * are collected again below the new bound, so indices at or above it are only handed out as fresh indices
+     */
+    public synchronized void setNextIndex(int nextIndex) {
+        var slots = ensureCapacity(nextIndex);
+        this.nextIndex = Math.max(1, nextIndex);
+        free.resetQuick();
+        for (var index = this.nextIndex - 1; index > 0; index--)
+            if (!slots.alive[index])
+                free.add(index);
+    }
+
+    /**
+     * Frees every id, the generations are kept so old ids stay stale
+     */
+    public synchronized void clear() {
+        var slots = this.slots;
+        for (var index = 1; index < nextIndex; index++) {
+            if (slots.alive[index]) {
+                slots.alive[index] = false;
+                slots.generations[index]++;
+                free.add(index);
+            }
+        }
+        Arrays.fill(slots.refs, null);
+        Arrays.fill(slots.signatures, null);
+        aliveCount = 0;
+    }
+
+    /**
+     * @return returns the next index that has never been used
+     */
+    public int getNextIndex() {
+        return nextIndex;
+    }
+
+    /**
+     * @return returns the number of alive ids
+     */
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    /**
+     * Indices that were never used aren't alive, so the length of the arrays bounds the index instead of the next index
+     */
+    private static boolean isAlive(Slots slots, long id) {
+        var index = index(id);
+        return index > 0 && index < slots.alive.length && slots.alive[index] && slots.generations[index] == generation(id);
+    }
+
+    /**
+     * Grows the arrays so they hold the index, the grown arrays are published once they're filled
+     *
+     * @return returns the arrays that hold the index
+     */
+    private Slots ensureCapacity(int index) {
+        var slots = this.slots;
+        if (index < slots.alive.length)
+            return slots;
+        var grown = new Slots(slots, Math.max(index + 1, slots.alive.length << 1));
+        this.slots = grown;
+        return grown;
+    }
+
+    /**
+     * The arrays of the table, they're only replaced together
+     */
+    private static final class Slots {
+        private final int[] generations;
+        private final boolean[] alive;
+        private final BaseEntityRef[] refs;
+        private final ComponentMask[] signatures;
+
+        private Slots(int capacity) {
+            this.generations = new int[capacity];
+            this.alive = new boolean[capacity];
+            this.refs = new BaseEntityRef[capacity];
+            this.signatures = new ComponentMask[capacity];
+        }
+
+        private Slots(Slots previous, int capacity) {
+            this.generations = Arrays.copyOf(previous.generations, capacity);
+            this.alive = Arrays.copyOf(previous.alive, capacity);
+            this.refs = Arrays.copyOf(previous.refs, capacity);
+            this.signatures = Arrays.copyOf(previous.signatures, capacity);
+        }
+    }
+}
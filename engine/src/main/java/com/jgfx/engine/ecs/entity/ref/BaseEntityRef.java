@@ -8,7 +8,6 @@ public class BaseEntityRef extends EntityRef {
     private final long id;
     @Getter
     private final EntityPool pool;
-    @Getter
     private boolean exists = true;
     @Getter
     private boolean active = true;
@@ -18,6 +17,14 @@ public class BaseEntityRef extends EntityRef {
         this.id = id;
     }
 
+    /**
+     * @return returns false after the entity was disposed, or when the pool no longer has the entity
+     */
+    @Override
+    public boolean isExists() {
+        return exists && pool.contains(id);
+    }
+
     @Override
     public EntityRef copy() {
         return null;
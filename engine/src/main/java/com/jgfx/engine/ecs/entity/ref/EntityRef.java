@@ -4,7 +4,9 @@ import com.google.common.base.Objects;
 import com.jgfx.assets.context.CoreContext;
 import com.jgfx.engine.ecs.World;
 import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.pool.Recyclable;
 import com.jgfx.engine.ecs.entity.pool.EntityPool;
+import com.jgfx.engine.ecs.hierarchy.Hierarchy;
 
 import java.util.Collections;
 import java.util.function.Consumer;
@@ -70,7 +72,7 @@ public abstract class EntityRef {
 
     /**
      * Gets a component by the given class
-     * by default we'll check the super class and attempt to do some casting
+     * by default a component that is a sub class of the given class will be returned as well
      *
      * @return returns component by type
      */
@@ -87,17 +89,33 @@ public abstract class EntityRef {
      */
     public <T extends Component> T get(Class<T> componentClass, boolean useParent) {
         if (isExists()) {
-            if (!useParent)
-                return getPool().getComponent(getId(), componentClass);
-            var parentComponentClass = getSuperComponent(componentClass);
-            var parentComponent = getPool().getComponent(getId(), parentComponentClass);
-            if (parentComponent != null && parentComponentClass.isAssignableFrom(componentClass)) {
-                return componentClass.cast(parentComponent);
-            }
+            var component = getPool().getComponent(getId(), componentClass);
+            if (useParent || component == null || component.getClass() == componentClass)
+                return component;
         }
         return null;
     }
 
+    /**
+     * Gets a component that's about to be written, so systems filtering on changes of the component will see the
+     * entity again
+     *
+     * @return returns the component or null if the entity doesn't have one
+     */
+    public <T extends Component> T getMutable(Class<T> componentClass) {
+        if (isExists())
+            return getPool().getMutable(getId(), componentClass);
+        return null;
+    }
+
+    /**
+     * Marks the component as changed after it was written
+     */
+    public void markChanged(Class<? extends Component> componentClass) {
+        if (isExists())
+            getPool().markChanged(getId(), componentClass);
+    }
+
     /**
      * Removes a component by the given class type
      *
@@ -133,6 +151,39 @@ public abstract class EntityRef {
         return component;
     }
 
+    /**
+     * Adds a component taken from the recycling pool of the class, it's reset so it must be set up by the caller
+     *
+     * @return returns the added component, or null if the entity isn't active
+     */
+    public <T extends Recyclable> T addPooled(Class<T> componentClass) {
+        if (isActive())
+            return getPool().addComponent(getId(), getPool().getComponentPools().obtain(componentClass));
+        return null;
+    }
+
+    /**
+     * Makes this entity a child of the given entity in the hierarchy of the pool
+     *
+     * @param parent the new parent, or {@link #NULL} to make this entity a root
+     */
+    public void setParent(EntityRef parent) {
+        if (isExists())
+            getPool().getHierarchy().setParent(getId(), parent == null ? Hierarchy.NO_PARENT : parent.getId());
+    }
+
+    /**
+     * @return returns the parent of this entity in the hierarchy of the pool, or {@link #NULL} if it has none
+     */
+    public EntityRef getParent() {
+        if (isExists()) {
+            var parent = getPool().getHierarchy().getParent(getId());
+            if (parent != Hierarchy.NO_PARENT)
+                return getPool().getEntity(parent);
+        }
+        return NULL;
+    }
+
     /**
      * Gets an optional of the component, which is useful for inline checking/consumers etc
      *
@@ -180,36 +231,9 @@ public abstract class EntityRef {
      * @return returns true if component is present
      */
     public boolean has(Class<? extends Component> componentClass, boolean checkSuper) {
-        if (!checkSuper) {
+        if (!checkSuper)
             return get(componentClass, false) != null;
-        } else {
-            if (get(componentClass, false) != null)
-                return true;
-            var superClass = componentClass.getSuperclass();
-            if (superClass != null && Component.class.isAssignableFrom(superClass)) {
-                var superComponent = (Class<? extends Component>) superClass;
-                var component = get(superComponent);
-                if (component != null) {
-                    return component.getClass().isAssignableFrom(componentClass);
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * @return returns the correct component class, will first check
-     */
-    private Class<? extends Component> getSuperComponent(Class<? extends Component> component) {
-        if (has(component, false))
-            return component;
-        if (has(component, true)) {
-            var superClass = component.getSuperclass();
-            if (superClass != null && Component.class.isAssignableFrom(superClass)) {
-                return (Class<? extends Component>) superClass;
-            }
-        }
-        return component;
+        return isExists() && getPool().hasComponent(getId(), componentClass);
     }
 
     /**
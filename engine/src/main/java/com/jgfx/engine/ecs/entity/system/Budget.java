@@ -0,0 +1,20 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how many milliseconds a system may spend processing every frame. A budgeted system checks it's
+ * {@link FrameBudget} between units of work, for example by iterating through a {@link WorkCursor}, and leaves the
+ * remaining work for the next frame once the budget is spent. Systems without a budget are never cut short.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Budget {
+    /**
+     * @return the milliseconds the system may spend every frame
+     */
+    double value();
+}
@@ -2,12 +2,17 @@ package com.jgfx.engine.ecs.entity.system;
 
 import com.jgfx.engine.ecs.World;
 import com.jgfx.engine.injection.anotations.In;
+import com.jgfx.engine.profiler.Profiler;
 import com.jgfx.engine.time.EngineTime;
 import com.jgfx.engine.time.GenericTime;
 import lombok.Getter;
 import lombok.Setter;
 
-public abstract class EntitySystem implements Comparable<EntitySystem> {
+/**
+ * Processes entities every frame. The place of a system in the frame is declared with {@link SystemOrder}, the
+ * {@link EntitySystemManager} orders the systems once they're all added, see {@link SystemOrdering}.
+ */
+public abstract class EntitySystem {
     private int priority;
     private static int nextPriority = 0;
 
@@ -15,7 +20,16 @@ public abstract class EntitySystem implements Comparable<EntitySystem> {
     @In protected World world;
     @Setter private boolean processing = true;
     @Getter private boolean initialized = false;
+    //The change tick of the last time the system was processed, groups filtered by changes are relative to it
+    @Getter private int lastRunTick;
+    //The change tick of the frame the carried work started in, or NO_TICK if no work is carried
+    private int carriedFromTick = NO_TICK;
+    private static final int NO_TICK = -1;
+    @Getter private final FrameBudget budget;
+    //The name of the system's profiler scopes, kept so starting a scope doesn't allocate
+    final String profileName = getClass().getSimpleName();
 
+    //Systems this system is processed after, on top of the ones declared by it's SystemOrder
     @Getter
     @Setter
     private Class[] loadAfter;
@@ -23,6 +37,7 @@ public abstract class EntitySystem implements Comparable<EntitySystem> {
 
     public EntitySystem() {
         this.priority = nextPriority++;
+        this.budget = FrameBudget.of(getClass());
     }
 
     /**
@@ -52,24 +67,52 @@ public abstract class EntitySystem implements Comparable<EntitySystem> {
     }
 
     /**
-     * Updates the entity system if it's processing
+     * Updates the entity system if it's processing. When the system carries work to the next frame the last run tick
+     * isn't moved, so the entities it didn't get to are still changed for it's groups. Once the work is done the tick
+     * of the frame it started in is used, so entities changed again while the work was carried are visited again.
      */
     public void update() {
-        if (processing)
-            process(time);
+        if (!processing)
+            return;
+        try (var scope = Profiler.scope(profileName, Profiler.Category.SYSTEM)) {
+            processWithinBudget();
+        }
     }
 
-    @Override
-    public int compareTo(EntitySystem o) {
-        if (loadAfter == null)
-            return 0;
-        else {
-            for (var after : loadAfter) {
-                if (after.isInstance(o)) {
-                    return -1;
-                }
+    /**
+     * Processes the system, measuring it's budget and moving it's change tick
+     */
+    private void processWithinBudget() {
+        budget.begin();
+        if (world == null) {
+            try {
+                process(time);
+            } finally {
+                budget.end();
             }
+            return;
         }
-        return 1;
+        var ticks = world.getEntityManager().getChangeTicks();
+        var tick = ticks.begin(lastRunTick);
+        try {
+            process(time);
+        } finally {
+            ticks.end();
+            budget.end();
+            if (budget.isUnfinished()) {
+                if (carriedFromTick == NO_TICK)
+                    carriedFromTick = tick;
+            } else {
+                lastRunTick = carriedFromTick == NO_TICK ? tick : carriedFromTick;
+                carriedFromTick = NO_TICK;
+            }
+        }
+    }
+
+    /**
+     * @return returns true if the system has work that it carries to the next frame
+     */
+    public boolean isCarryingWork() {
+        return carriedFromTick != NO_TICK;
     }
 }
@@ -4,31 +4,48 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.jgfx.assets.context.CoreContext;
 import com.jgfx.engine.injection.Injector;
+import com.jgfx.engine.profiler.Profiler;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Contains a group of systems
  */
 public class EntitySystemManager {
+    private static final Logger logger = LogManager.getLogger(EntitySystemManager.class);
+    //Budget overruns are reported at most this often, so a system that overruns every frame doesn't flood the log
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
     private final Map<Class<? extends EntitySystem>, EntitySystem> qualifiedSystems = Maps.newConcurrentMap();
     private final List<EntitySystem> systems = Lists.newArrayList();
+    //The main thread is used as well, so we leave one core for it
+    private final ForkJoinPool workers = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    //Rebuilt whenever a system is added or removed
+    private SystemScheduler scheduler;
+    //When false, all of the systems are processed one after another on the main thread
+    @Getter @Setter private boolean parallel = true;
+    private long lastReport;
+    //False when systems were added since the systems were last ordered
+    private boolean ordered = true;
 
     /**
-     * Adds an entity system
+     * Adds an entity system, the systems are ordered once before they're initialized or processed
      *
      * @param system the system to add
      */
     public void add(EntitySystem system) {
-        if (qualifiedSystems.containsKey(system.getClass())) {
-            qualifiedSystems.remove(system.getClass());
-            systems.remove(system);
-        }
+        if (qualifiedSystems.containsKey(system.getClass()))
+            systems.remove(qualifiedSystems.remove(system.getClass()));
         qualifiedSystems.put(system.getClass(), system);
         systems.add(system);
-        Collections.sort(systems);
+        ordered = false;
+        scheduler = null;
     }
 
     /**
@@ -39,6 +56,7 @@ public class EntitySystemManager {
     public <T extends EntitySystem> T remove(Class<T> systemClass) {
         if (qualifiedSystems.containsKey(systemClass)) {
             var system = systemClass.cast(qualifiedSystems.remove(systemClass));
+            scheduler = null;
             if (systems.remove(system))
                 return system;
         }
@@ -57,23 +75,83 @@ public class EntitySystemManager {
     }
 
     /**
-     * Process all of the systems
+     * Process all of the systems, systems that don't conflict with each other are processed at the same time
      */
     public void process() {
-        systems.forEach(EntitySystem::update);
+        order();
+        if (!parallel) {
+            systems.forEach(EntitySystem::update);
+        } else {
+            if (scheduler == null)
+                scheduler = new SystemScheduler(systems, workers);
+            scheduler.process();
+        }
+        reportOverruns();
+    }
+
+    /**
+     * Orders the systems if any were added since they were last ordered
+     */
+    private void order() {
+        if (ordered)
+            return;
+        var sorted = SystemOrdering.sort(systems);
+        systems.clear();
+        systems.addAll(sorted);
+        ordered = true;
+        scheduler = null;
+    }
+
+    /**
+     * @return returns the systems in the order they're processed in
+     */
+    public List<EntitySystem> getSystems() {
+        order();
+        return Collections.unmodifiableList(systems);
+    }
+
+    /**
+     * Logs the systems that overran their {@link Budget} since the last report
+     */
+    private void reportOverruns() {
+        var now = System.nanoTime();
+        if (now - lastReport < REPORT_INTERVAL_NANOS)
+            return;
+        lastReport = now;
+        for (var system : systems) {
+            var overruns = system.getBudget().drainOverruns(system.getClass().getSimpleName());
+            if (overruns != null)
+                logger.warn(overruns);
+        }
+    }
+
+    /**
+     * @return returns the number of systems that carry work to the next frame
+     */
+    public int carryingCount() {
+        var count = 0;
+        for (var system : systems)
+            if (system.isCarryingWork())
+                count++;
+        return count;
     }
 
     /**
      * Finish processing of all systems
      */
     public void postProcess() {
-        systems.forEach(EntitySystem::postProcess);
+        order();
+        for (var system : systems)
+            try (var scope = Profiler.scope(system.profileName, Profiler.Category.POST_PROCESS)) {
+                system.postProcess();
+            }
     }
 
     /**
      * Initialize all of the systems
      */
     public void initialize() {
+        order();
         systems.forEach(system -> {
             if (!system.isInitialized()) {
                 CoreContext.put(system);
@@ -87,6 +165,14 @@ public class EntitySystemManager {
      * Initialize all of the systems
      */
     public void postInitialize() {
+        order();
         systems.forEach(EntitySystem::postInitialize);
     }
+
+    /**
+     * Stops the worker threads
+     */
+    public void dispose() {
+        workers.shutdown();
+    }
 }
@@ -0,0 +1,149 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import lombok.Getter;
+
+/**
+ * Measures the time a system spends processing against it's {@link Budget}. The budget is only checked between units
+ * of work, so a unit that takes longer than what's left still overruns it, overruns are counted and reported by the
+ * {@link EntitySystemManager}.
+ * <p>
+ * A system that stops early, either because {@link #hasTimeLeft()} returned false or because it called
+ * {@link #carryOver()}, carries it's work to the next frame. While work is carried the system keeps the change tick of
+ * the frame the work started in, so groups filtered by changes still contain the entities it didn't get to.
+ */
+public final class FrameBudget {
+    public static final double UNLIMITED = 0;
+    //The last unit of work always ends a bit after the deadline, so a frame only overruns once it's this much over
+    private static final double OVERRUN_TOLERANCE = 1.1;
+    private long budgetNanos;
+    private long startedAt;
+    private long deadline;
+    @Getter private boolean unfinished;
+    //Every frame gets at least one unit of work done, so a system can't be starved by a pause before it
+    private boolean worked;
+    //********Stats
+    @Getter private long lastNanos;
+    @Getter private long worstNanos;
+    @Getter private long overruns;
+    @Getter private long carriedFrames;
+    //Overruns since the manager last reported them
+    private long unreported;
+    private long unreportedWorstNanos;
+
+    public FrameBudget(double millis) {
+        setMillis(millis);
+    }
+
+    /**
+     * @return returns the budget of a system, taken from it's {@link Budget} annotation
+     */
+    public static FrameBudget of(Class<?> systemClass) {
+        var budget = systemClass.getAnnotation(Budget.class);
+        return new FrameBudget(budget == null ? UNLIMITED : budget.value());
+    }
+
+    /**
+     * Sets the milliseconds the system may spend every frame, {@link #UNLIMITED} removes the budget
+     */
+    public void setMillis(double millis) {
+        if (millis < 0)
+            throw new IllegalArgumentException("Budget can't be negative, got " + millis + "ms");
+        this.budgetNanos = (long) (millis * 1_000_000);
+    }
+
+    /**
+     * @return returns the milliseconds the system may spend every frame, or {@link #UNLIMITED}
+     */
+    public double getMillis() {
+        return budgetNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return returns true if the system has a budget
+     */
+    public boolean isLimited() {
+        return budgetNanos > 0;
+    }
+
+    /**
+     * Starts measuring a frame
+     */
+    void begin() {
+        startedAt = System.nanoTime();
+        deadline = startedAt + budgetNanos;
+        unfinished = false;
+        worked = false;
+    }
+
+    /**
+     * Stops measuring a frame
+     */
+    void end() {
+        lastNanos = System.nanoTime() - startedAt;
+        worstNanos = Math.max(worstNanos, lastNanos);
+        if (unfinished)
+            carriedFrames++;
+        if (isLimited() && lastNanos > budgetNanos * OVERRUN_TOLERANCE) {
+            overruns++;
+            unreported++;
+            unreportedWorstNanos = Math.max(unreportedWorstNanos, lastNanos);
+        }
+    }
+
+    /**
+     * Checks if there's time left for another unit of work, once it returns false the rest of the work is carried to
+     * the next frame. The first check of every frame is always true
+     *
+     * @return returns true if the system may keep working
+     */
+    public boolean hasTimeLeft() {
+        if (budgetNanos <= 0)
+            return true;
+        if (unfinished)
+            return false;
+        if (!worked) {
+            worked = true;
+            return true;
+        }
+        if (System.nanoTime() >= deadline) {
+            unfinished = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Marks the system as having work left that it continues next frame, for systems that keep their own queue of
+     * work
+     */
+    public void carryOver() {
+        unfinished = true;
+    }
+
+    /**
+     * @return returns a cursor that iterates entities within this budget
+     */
+    public WorkCursor cursor() {
+        return new WorkCursor(this);
+    }
+
+    /**
+     * @return returns the overruns since the last call and resets them, with the worst time in the returned summary
+     */
+    String drainOverruns(String systemName) {
+        if (unreported == 0)
+            return null;
+        var summary = String.format("%s overran it's %.2fms budget %d time(s), worst %.2fms",
+                systemName, getMillis(), unreported, unreportedWorstNanos / 1_000_000.0);
+        unreported = 0;
+        unreportedWorstNanos = 0;
+        return summary;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FrameBudget[%s, last=%.2fms, worst=%.2fms, overruns=%d, carried=%d]",
+                isLimited() ? String.format("%.2fms", getMillis()) : "unlimited",
+                lastNanos / 1_000_000.0, worstNanos / 1_000_000.0, overruns, carriedFrames);
+    }
+}
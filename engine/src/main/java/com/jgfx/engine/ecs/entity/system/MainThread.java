@@ -0,0 +1,15 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a system that has to be processed on the main thread, for example because it uses the gl context. Main thread
+ * systems are always processed in the order they were added.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface MainThread {
+}
@@ -0,0 +1,28 @@
+package com.jgfx.engine.ecs.entity.system;
+
+/**
+ * The phases of a frame, every system of a phase is processed before the systems of the next phase. The phase of a
+ * system is declared with {@link SystemOrder}, systems without one are part of {@link #SIMULATION}.
+ */
+public enum Phase {
+    /**
+     * Reads the input and applies it to the entities that are controlled by it
+     */
+    INPUT,
+    /**
+     * Updates the world
+     */
+    SIMULATION,
+    /**
+     * Reacts to the updated world before it's rendered, for example to build meshes or follow the player
+     */
+    LATE_UPDATE,
+    /**
+     * Draws the world
+     */
+    RENDER,
+    /**
+     * Draws on top of the world, for example the gui or debug overlays
+     */
+    POST_RENDER
+}
@@ -0,0 +1,21 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import com.jgfx.engine.ecs.component.Component;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the component types a system reads while it's processing. Systems that declare their access can be
+ * processed at the same time as other systems that don't conflict with them, see {@link SystemScheduler}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Reads {
+    /**
+     * @return the component types the system reads
+     */
+    Class<? extends Component>[] value() default {};
+}
@@ -0,0 +1,31 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares where a system is processed in the frame, see {@link SystemOrdering}. A system is processed in it's
+ * {@link Phase}, after the systems of the classes in {@link #after()} and before the systems of the classes in
+ * {@link #before()}. Constraints on systems of an earlier or later phase than the system itself must agree with the
+ * phases.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface SystemOrder {
+    /**
+     * @return the phase the system is processed in
+     */
+    Phase phase() default Phase.SIMULATION;
+
+    /**
+     * @return the systems that are processed before this system, sub classes included
+     */
+    Class<? extends EntitySystem>[] after() default {};
+
+    /**
+     * @return the systems that are processed after this system, sub classes included
+     */
+    Class<? extends EntitySystem>[] before() default {};
+}
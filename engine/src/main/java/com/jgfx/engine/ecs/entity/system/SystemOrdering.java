@@ -0,0 +1,111 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import com.google.common.collect.Lists;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the order systems are processed in from their {@link SystemOrder}. The systems are ordered by phase, the
+ * after and before constraints are resolved within the phases. When the constraints leave the order of two systems
+ * open, they're ordered by their class name, so the same systems end up in the same order no matter what order they
+ * were discovered in.
+ */
+public final class SystemOrdering {
+
+    private SystemOrdering() {
+    }
+
+    /**
+     * @return returns the phase of the system
+     */
+    public static Phase phaseOf(EntitySystem system) {
+        var order = system.getClass().getAnnotation(SystemOrder.class);
+        return order == null ? Phase.SIMULATION : order.phase();
+    }
+
+    /**
+     * Orders the systems, the list itself isn't changed
+     *
+     * @return returns the systems in the order they're processed in
+     * @throws IllegalStateException if the constraints form a cycle, or if a constraint contradicts the phases
+     */
+    public static List<EntitySystem> sort(List<EntitySystem> systems) {
+        var count = systems.size();
+        var phases = new int[count];
+        var names = new String[count];
+        for (var i = 0; i < count; i++) {
+            phases[i] = phaseOf(systems.get(i)).ordinal();
+            names[i] = systems.get(i).getClass().getName();
+        }
+        var successors = new TIntArrayList[count];
+        var predecessors = new int[count];
+        for (var i = 0; i < count; i++)
+            successors[i] = new TIntArrayList();
+        for (var i = 0; i < count; i++) {
+            var system = systems.get(i);
+            var order = system.getClass().getAnnotation(SystemOrder.class);
+            if (order != null) {
+                for (var after : order.after())
+                    link(systems, phases, after, i, true, successors, predecessors);
+                for (var before : order.before())
+                    link(systems, phases, before, i, false, successors, predecessors);
+            }
+            if (system.getLoadAfter() != null)
+                for (var after : system.getLoadAfter())
+                    link(systems, phases, after, i, true, successors, predecessors);
+        }
+        //Kahn's algorithm, the ready systems are taken by phase, then by class name, and only systems of the same class
+        //by the order they were added in
+        var ready = new PriorityQueue<Integer>((a, b) -> {
+            if (phases[a] != phases[b])
+                return Integer.compare(phases[a], phases[b]);
+            var byName = names[a].compareTo(names[b]);
+            return byName != 0 ? byName : Integer.compare(a, b);
+        });
+        for (var i = 0; i < count; i++)
+            if (predecessors[i] == 0)
+                ready.add(i);
+        List<EntitySystem> sorted = Lists.newArrayListWithCapacity(count);
+        while (!ready.isEmpty()) {
+            var next = ready.poll();
+            sorted.add(systems.get(next));
+            var nextSuccessors = successors[next];
+            for (var i = 0; i < nextSuccessors.size(); i++)
+                if (--predecessors[nextSuccessors.get(i)] == 0)
+                    ready.add(nextSuccessors.get(i));
+        }
+        if (sorted.size() < count) {
+            var cycle = systems.stream().filter(system -> !sorted.contains(system))
+                    .map(system -> system.getClass().getSimpleName()).collect(Collectors.joining(", "));
+            throw new IllegalStateException("Systems can't be ordered, their constraints form a cycle: " + cycle);
+        }
+        return sorted;
+    }
+
+    /**
+     * Adds an edge between the system and every system of the target class
+     *
+     * @param after true if the system comes after the target, false if it comes before it
+     */
+    private static void link(List<EntitySystem> systems, int[] phases, Class<?> target, int system, boolean after,
+                             TIntArrayList[] successors, int[] predecessors) {
+        for (var i = 0; i < systems.size(); i++) {
+            if (i == system || !target.isInstance(systems.get(i)))
+                continue;
+            var from = after ? i : system;
+            var to = after ? system : i;
+            if (phases[from] > phases[to])
+                throw new IllegalStateException("System '" + systems.get(to).getClass().getSimpleName() + "' in phase "
+                        + Phase.values()[phases[to]] + " can't be processed after '" + systems.get(from).getClass().getSimpleName()
+                        + "' in phase " + Phase.values()[phases[from]]);
+            //The phases already order systems of different phases
+            if (phases[from] < phases[to] || successors[from].contains(to))
+                continue;
+            successors[from].add(to);
+            predecessors[to]++;
+        }
+    }
+}
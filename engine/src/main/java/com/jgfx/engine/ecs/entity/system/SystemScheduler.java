@@ -0,0 +1,237 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentType;
+import com.jgfx.engine.ecs.group.Group;
+import com.jgfx.engine.ecs.group.GroupCollector;
+import com.jgfx.engine.injection.anotations.Added;
+import com.jgfx.engine.injection.anotations.All;
+import com.jgfx.engine.injection.anotations.Changed;
+import com.jgfx.engine.injection.anotations.One;
+import gnu.trove.list.array.TIntArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Processes the systems of a frame using a dependency graph built from the component types each system reads and
+ * writes. The access of a system is taken from it's {@link Reads} and {@link Writes} annotations, or when those are
+ * missing, from it's injected {@link All}/{@link One} groups and collectors, which are treated as writes. Systems without any declared
+ * or inferred access are exclusive, they don't run at the same time as any other system.
+ * <p>
+ * Two systems conflict when one writes a type the other reads or writes, a conflicting system always waits for the
+ * systems that come before it in the order of the {@link SystemOrdering}. Systems marked with {@link MainThread} and exclusive systems are processed on the
+ * calling thread, the rest is processed on a fork join pool.
+ */
+public class SystemScheduler {
+    private static final Logger logger = LogManager.getLogger(SystemScheduler.class);
+    private final ForkJoinPool pool;
+    private final Node[] nodes;
+    private final LinkedBlockingQueue<Completion> completions = new LinkedBlockingQueue<>();
+    private final int[] remaining;
+
+    public SystemScheduler(List<EntitySystem> systems, ForkJoinPool pool) {
+        this.pool = pool;
+        this.nodes = new Node[systems.size()];
+        this.remaining = new int[nodes.length];
+        for (var i = 0; i < nodes.length; i++)
+            nodes[i] = new Node(i, systems.get(i));
+        for (var i = 0; i < nodes.length; i++) {
+            var successors = new TIntArrayList();
+            for (var j = i + 1; j < nodes.length; j++) {
+                if (nodes[i].conflicts(nodes[j])) {
+                    successors.add(j);
+                    nodes[j].predecessors++;
+                }
+            }
+            nodes[i].successors = successors.toArray();
+        }
+        if (logger.isDebugEnabled())
+            for (var node : nodes)
+                logger.debug("Scheduled {} [{}], reads {} writes {}", node.system.getClass().getSimpleName(), node.onMainThread ? "main" : "worker", node.reads, node.writes);
+    }
+
+    /**
+     * Processes every system once. This blocks until all of the systems are done, if a system fails the systems that
+     * haven't started yet are skipped and the exception is thrown once the running systems are done.
+     */
+    public void process() {
+        var mainReady = new PriorityQueue<Integer>();
+        var running = 0;
+        var done = 0;
+        Throwable failure = null;
+        for (var node : nodes) {
+            remaining[node.index] = node.predecessors;
+            if (node.predecessors == 0)
+                running += dispatch(node, mainReady);
+        }
+        while (running > 0 || (failure == null && done < nodes.length)) {
+            Completion completion;
+            if (failure == null && !mainReady.isEmpty()) {
+                completion = completions.poll();
+                if (completion == null) {
+                    var node = nodes[mainReady.poll()];
+                    try {
+                        node.system.update();
+                    } catch (Throwable throwable) {
+                        failure = throwable;
+                        continue;
+                    }
+                    done++;
+                    running += release(node, mainReady);
+                    continue;
+                }
+            } else {
+                try {
+                    completion = completions.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while processing systems", e);
+                }
+            }
+            running--;
+            if (completion.failure != null) {
+                if (failure == null)
+                    failure = completion.failure;
+                continue;
+            }
+            done++;
+            if (failure == null)
+                running += release(nodes[completion.index], mainReady);
+        }
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+        if (failure != null)
+            throw new IllegalStateException(failure);
+    }
+
+    /**
+     * Lowers the remaining dependencies of the node's successors, dispatching the ones that are ready
+     *
+     * @return returns the number of systems that were submitted to the pool
+     */
+    private int release(Node node, PriorityQueue<Integer> mainReady) {
+        var submitted = 0;
+        for (var successor : node.successors)
+            if (--remaining[successor] == 0)
+                submitted += dispatch(nodes[successor], mainReady);
+        return submitted;
+    }
+
+    /**
+     * Queues a main thread system, or submits a worker system to the pool
+     *
+     * @return returns 1 if the system was submitted to the pool
+     */
+    private int dispatch(Node node, PriorityQueue<Integer> mainReady) {
+        if (node.onMainThread) {
+            mainReady.add(node.index);
+            return 0;
+        }
+        pool.execute(() -> {
+            Throwable failure = null;
+            try {
+                node.system.update();
+            } catch (Throwable throwable) {
+                failure = throwable;
+            }
+            completions.add(new Completion(node.index, failure));
+        });
+        return 1;
+    }
+
+    /**
+     * @return returns true if any system can be processed off of the main thread
+     */
+    public boolean isParallel() {
+        for (var node : nodes)
+            if (!node.onMainThread)
+                return true;
+        return false;
+    }
+
+    /**
+     * Stores the access of a single system and it's place in the graph
+     */
+    private static final class Node {
+        private final int index;
+        private final EntitySystem system;
+        private final ComponentMask reads = new ComponentMask();
+        private final ComponentMask writes = new ComponentMask();
+        private final boolean exclusive;
+        private final boolean onMainThread;
+        private int predecessors;
+        private int[] successors;
+
+        private Node(int index, EntitySystem system) {
+            this.index = index;
+            this.system = system;
+            var cls = system.getClass();
+            var declared = cls.isAnnotationPresent(Reads.class) || cls.isAnnotationPresent(Writes.class);
+            if (declared) {
+                if (cls.isAnnotationPresent(Reads.class))
+                    add(reads, cls.getAnnotation(Reads.class).value());
+                if (cls.isAnnotationPresent(Writes.class))
+                    add(writes, cls.getAnnotation(Writes.class).value());
+            } else
+                inferFromGroups(cls);
+            this.exclusive = !declared && writes.isEmpty();
+            this.onMainThread = exclusive || cls.isAnnotationPresent(MainThread.class);
+        }
+
+        /**
+         * Treats every injected group as a write to the group's types
+         */
+        private void inferFromGroups(Class<?> cls) {
+            for (var field : cls.getDeclaredFields()) {
+                if (!field.getType().equals(Group.class) && !field.getType().equals(GroupCollector.class))
+                    continue;
+                for (var all : field.getDeclaredAnnotationsByType(All.class))
+                    add(writes, all.value());
+                for (var one : field.getDeclaredAnnotationsByType(One.class))
+                    add(writes, one.value());
+                for (var changed : field.getDeclaredAnnotationsByType(Changed.class))
+                    add(writes, changed.value());
+                for (var added : field.getDeclaredAnnotationsByType(Added.class))
+                    add(writes, added.value());
+            }
+        }
+
+        /**
+         * Adds the types and their super types, so a system writing a super type conflicts with one reading a sub type
+         */
+        private static void add(ComponentMask mask, Class<? extends Component>[] classes) {
+            for (var componentClass : classes)
+                mask.or(ComponentType.of(componentClass).getMask());
+        }
+
+        /**
+         * Main thread systems always keep their order, so they conflict with each other
+         */
+        private boolean conflicts(Node other) {
+            if (exclusive || other.exclusive || (onMainThread && other.onMainThread))
+                return true;
+            return writes.intersects(other.reads) || writes.intersects(other.writes) || other.writes.intersects(reads);
+        }
+    }
+
+    /**
+     * Sent back to the main thread by a worker after it processed a system
+     */
+    private static final class Completion {
+        private final int index;
+        private final Throwable failure;
+
+        private Completion(int index, Throwable failure) {
+            this.index = index;
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.function.Consumer;
+
+/**
+ * Iterates entities within a {@link FrameBudget}, resuming where it stopped on the next frame. A pass over the
+ * entities can take several frames, the entities that were already done in the pass are skipped when the iteration is
+ * repeated, even if the members of the group changed in between. Every call site needs it's own cursor, for example
+ * <pre>
+ * private final WorkCursor meshing = getBudget().cursor();
+ *
+ * protected void process(EngineTime time) {
+ *     meshing.forEach(chunks, this::rebuildMesh);
+ * }
+ * </pre>
+ */
+public final class WorkCursor {
+    private final FrameBudget budget;
+    //The entities that were done by the pass that's being carried over
+    private final TLongSet done = new TLongHashSet();
+    private boolean carried;
+
+    WorkCursor(FrameBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Performs the action for every entity that wasn't done yet in the current pass, until the budget is spent
+     *
+     * @return returns true if the pass is complete, false if it's carried to the next frame
+     */
+    public boolean forEach(Iterable<EntityRef> entities, Consumer<EntityRef> action) {
+        var limited = budget.isLimited();
+        for (var entity : entities) {
+            if (!limited) {
+                action.accept(entity);
+                continue;
+            }
+            if (carried && done.contains(entity.getId()))
+                continue;
+            if (!budget.hasTimeLeft()) {
+                carried = true;
+                return false;
+            }
+            action.accept(entity);
+            done.add(entity.getId());
+        }
+        done.clear();
+        carried = false;
+        return true;
+    }
+
+    /**
+     * @return returns true if a pass was started but not completed
+     */
+    public boolean isCarried() {
+        return carried;
+    }
+
+    /**
+     * @return returns the number of entities done by the pass that's carried over
+     */
+    public int doneCount() {
+        return carried ? done.size() : 0;
+    }
+
+    /**
+     * Drops the pass that's carried over, the next iteration starts a new one
+     */
+    public void reset() {
+        done.clear();
+        carried = false;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jgfx.engine.ecs.group;
+
+import com.google.common.collect.Lists;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A policy made of bands around a point, an entity gets the interval of the first band it's within and is suspended
+ * beyond the last band, for example
+ * <pre>
+ * LodPolicy.distance(entity -> entity.get(Origin.class).distance(player))
+ *         .band(64, 1)
+ *         .band(256, 4)
+ *         .build();
+ * </pre>
+ * updates entities within 64 units every frame, the ones within 256 units every 4th frame and the rest not at all.
+ */
+public final class DistanceLod implements LodPolicy {
+    private final ToDoubleFunction<EntityRef> distance;
+    private final double[] radii;
+    private final int[] intervals;
+
+    private DistanceLod(ToDoubleFunction<EntityRef> distance, double[] radii, int[] intervals) {
+        this.distance = distance;
+        this.radii = radii;
+        this.intervals = intervals;
+    }
+
+    static Builder builder(ToDoubleFunction<EntityRef> distance) {
+        return new Builder(distance);
+    }
+
+    @Override
+    public int interval(EntityRef entity) {
+        var value = distance.applyAsDouble(entity);
+        for (var band = 0; band < radii.length; band++)
+            if (value <= radii[band])
+                return intervals[band];
+        return SUSPENDED;
+    }
+
+    /**
+     * Collects the bands of the policy, the bands must be added from the nearest to the farthest
+     */
+    public static final class Builder {
+        private final ToDoubleFunction<EntityRef> distance;
+        private final List<double[]> bands = Lists.newArrayList();
+
+        private Builder(ToDoubleFunction<EntityRef> distance) {
+            this.distance = distance;
+        }
+
+        /**
+         * Adds a band
+         *
+         * @param radius   the distance up to which the band reaches
+         * @param interval the number of frames between updates of the entities within the band
+         */
+        public Builder band(double radius, int interval) {
+            if (interval < 1)
+                throw new IllegalArgumentException("The interval of a band must be at least 1, got " + interval);
+            if (!bands.isEmpty() && bands.get(bands.size() - 1)[0] >= radius)
+                throw new IllegalArgumentException("Bands must be added from the nearest to the farthest");
+            bands.add(new double[]{radius, interval});
+            return this;
+        }
+
+        public DistanceLod build() {
+            var radii = new double[bands.size()];
+            var intervals = new int[bands.size()];
+            for (var i = 0; i < radii.length; i++) {
+                radii[i] = bands.get(i)[0];
+                intervals[i] = (int) bands.get(i)[1];
+            }
+            return new DistanceLod(distance, radii, intervals);
+        }
+    }
+}
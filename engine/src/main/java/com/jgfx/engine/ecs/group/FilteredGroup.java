@@ -0,0 +1,240 @@
+package com.jgfx.engine.ecs.group;
+
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A view of the members of a group that pass a predicate. Views are created once by {@link Group#where(Predicate)}
+ * and kept, usually in a field of the system, instead of passing the predicate on every iteration.
+ * <p>
+ * When the classes the predicate reads are given to {@link Group#where(Predicate, Class[])} the view is indexed, the
+ * result of the predicate is cached for each member and only evaluated again for entities that entered the group or
+ * had one of the classes added or written (see {@link EntityRef#markChanged(Class)}). Iterating an indexed view only
+ * touches the entities that passed, the change filter of the group is not applied to it. An unindexed view tests every
+ * member of the group each time it's iterated.
+ */
+public final class FilteredGroup implements Iterable<EntityRef> {
+    private static final int NO_INDEX = -1;
+    @Getter private final Group group;
+    private final Predicate<EntityRef> predicate;
+    private final Class<? extends Component>[] dependencies;
+    //The following are only used by indexed views
+    private final GroupCollector membership;
+    private final LongConsumer onWritten;
+    private final TLongSet written = new TLongHashSet(), evaluating = new TLongHashSet();
+    private final TLongArrayList matching = new TLongArrayList();
+    private final TLongIntMap indices = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0, NO_INDEX);
+    private long[] snapshot;
+
+    FilteredGroup(Group group, Predicate<EntityRef> predicate, Class<? extends Component>[] dependencies) {
+        this.group = group;
+        this.predicate = predicate;
+        this.dependencies = dependencies;
+        if (isIndexed()) {
+            this.membership = group.collector();
+            this.onWritten = this::onWritten;
+            for (var dependency : dependencies)
+                group.getPool().getChangeTicks().listen(dependency, onWritten);
+        } else {
+            this.membership = null;
+            this.onWritten = null;
+        }
+    }
+
+    /**
+     * @return returns true if the result of the predicate is cached
+     */
+    public boolean isIndexed() {
+        return dependencies.length > 0;
+    }
+
+    /**
+     * Narrows the view down further, the returned view is unindexed
+     *
+     * @return returns a view of the entities that pass both predicates
+     */
+    public FilteredGroup where(Predicate<EntityRef> predicate) {
+        return new FilteredGroup(group, this.predicate.and(predicate), new Class[0]);
+    }
+
+    private synchronized void onWritten(long entityId) {
+        written.add(entityId);
+    }
+
+    /**
+     * Evaluates the predicate again for the entities that entered the group or had a dependency written
+     */
+    private void refresh() {
+        membership.drain(this::evaluate, this::unmatch);
+        synchronized (this) {
+            if (written.isEmpty())
+                return;
+            evaluating.addAll(written);
+            written.clear();
+        }
+        //The predicate may write a dependency itself, which is then evaluated on the next refresh
+        evaluating.forEach(id -> {
+            evaluate(id);
+            return true;
+        });
+        evaluating.clear();
+    }
+
+    private void evaluate(long entityId) {
+        EntityRef entity;
+        if (group.contains(entityId) && (entity = group.getPool().getEntity(entityId)) != null && predicate.test(entity))
+            match(entityId);
+        else
+            unmatch(entityId);
+    }
+
+    private void match(long entityId) {
+        if (indices.containsKey(entityId))
+            return;
+        indices.put(entityId, matching.size());
+        matching.add(entityId);
+        snapshot = null;
+    }
+
+    private void unmatch(long entityId) {
+        var index = indices.remove(entityId);
+        if (index == NO_INDEX)
+            return;
+        var last = matching.size() - 1;
+        if (index != last) {
+            var moved = matching.get(last);
+            matching.set(index, moved);
+            indices.put(moved, index);
+        }
+        matching.removeAt(last);
+        snapshot = null;
+    }
+
+    @Override
+    public Iterator<EntityRef> iterator() {
+        if (!isIndexed())
+            return new PassingIterator(group.iterator());
+        refresh();
+        if (snapshot == null)
+            snapshot = matching.toArray();
+        return new MatchingIterator(snapshot);
+    }
+
+    /**
+     * Allows for pre and post of the entities in the view, the before and after actions are always run
+     */
+    public void forEach(Runnable before, Consumer<? super EntityRef> action, Runnable after) {
+        before.run();
+        forEach(action);
+        after.run();
+    }
+
+    /**
+     * @return returns the number of entities that currently pass the predicate
+     */
+    public int count() {
+        if (isIndexed()) {
+            refresh();
+            return matching.size();
+        }
+        var count = 0;
+        for (var ignored : this)
+            count++;
+        return count;
+    }
+
+    /**
+     * Stops tracking the group, an indexed view can't be used after this
+     */
+    public void dispose() {
+        if (!isIndexed())
+            return;
+        membership.dispose();
+        for (var dependency : dependencies)
+            group.getPool().getChangeTicks().unlisten(dependency, onWritten);
+    }
+
+    /**
+     * Walks the group and yields the entities that pass the predicate
+     */
+    private final class PassingIterator implements Iterator<EntityRef> {
+        private final Iterator<EntityRef> members;
+        private EntityRef next;
+
+        private PassingIterator(Iterator<EntityRef> members) {
+            this.members = members;
+            seek();
+        }
+
+        private void seek() {
+            next = null;
+            while (members.hasNext()) {
+                var entity = members.next();
+                if (predicate.test(entity)) {
+                    next = entity;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public EntityRef next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            var entity = next;
+            seek();
+            return entity;
+        }
+    }
+
+    /**
+     * Walks a snapshot of the matching ids, skipping the entities that left the group after the snapshot was taken
+     */
+    private final class MatchingIterator implements Iterator<EntityRef> {
+        private final long[] ids;
+        private int index = -1;
+
+        private MatchingIterator(long[] ids) {
+            this.ids = ids;
+            seek();
+        }
+
+        private void seek() {
+            index++;
+            while (index < ids.length && !group.contains(ids[index]))
+                index++;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < ids.length;
+        }
+
+        @Override
+        public EntityRef next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            var entity = group.getPool().getEntity(ids[index]);
+            seek();
+            return entity;
+        }
+    }
+}
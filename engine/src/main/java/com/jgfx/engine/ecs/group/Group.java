@@ -1,100 +1,273 @@
 package com.jgfx.engine.ecs.group;
 
 
-import com.google.common.base.Predicates;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Lists;
 import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentType;
+import com.jgfx.engine.ecs.entity.pool.EntityPool;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
 
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 /**
- * Creates a group of entities based on the given classes
+ * Creates a group of entities based on the given classes. The members of the group are kept up to date by the entity
+ * pool whenever an entity gains or loses a component, so iterating a group only touches the matching entities.
+ * <p>
+ * A group can also be filtered by changes, in which case iterating it only yields the members where one of the
+ * changed classes was written, or one of the added classes was added, since the iterating system last ran. The
+ * membership itself and {@link #count()} are not affected by the filter.
  */
 public class Group implements Iterable<EntityRef> {
-    private final Iterable<EntityRef> parent;
-    private final Map<Long, Iterable<EntityRef>> hashedIterables;
+    private static final int NO_INDEX = -1;
+    private final EntityPool pool;
+    private final ComponentMask all, one, exclude;
+    //The ids are kept dense, the indices map an entity id to it's position inside of the members
+    private final TLongArrayList members;
+    private final TLongIntHashMap indices;
+    //A copy of the members that's handed out to iterators, this is only rebuilt after the members have changed
+    private volatile long[] snapshot;
+    //The type indices of the change filter, empty when the group isn't filtered
+    private int[] changed = new int[0], added = new int[0];
+    private final List<GroupCollector> collectors = Lists.newCopyOnWriteArrayList();
 
-    Group(Iterable<EntityRef> iterable) {
-        this.parent = iterable;
-        this.hashedIterables = Maps.newConcurrentMap();
+    Group(EntityPool pool, Class<? extends Component>[] allClasses, Class<? extends Component>[] oneClasses, Class<? extends Component>[] excludeClasses) {
+        this.pool = pool;
+        this.all = ComponentMask.of(allClasses);
+        this.one = ComponentMask.of(oneClasses);
+        this.exclude = ComponentMask.of(excludeClasses);
+        this.members = new TLongArrayList();
+        this.indices = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0, NO_INDEX);
+        var ids = pool.getComponentStore().entityIdIterator(allClasses, oneClasses, excludeClasses);
+        while (ids.hasNext())
+            add(ids.next());
     }
 
     @Override
     public Iterator<EntityRef> iterator() {
-        return parent.iterator();
+        return new MemberIterator(ids(), pool.getChangeTicks().lastRun());
     }
 
     /**
-     * This method will walk the stack trace and create an iterator for the current hashed call
+     * Creates a collector for the entities that enter and leave this group, the current members are collected as
+     * entered
+     *
+     * @return returns the new collector
      */
-    public final void forEach(Consumer<? super EntityRef> action, Predicate<EntityRef> predicate) {
-        var stackTraceElements = Thread.currentThread().getStackTrace();
-        var hash = hash(stackTraceElements);
-        if (hashedIterables.containsKey(hash))
-            hashedIterables.get(hash).forEach(action);
-        else {
-            var hashedIterable = Iterables.filter(parent, predicate::test);
-            hashedIterables.put(hash, hashedIterable);
-            hashedIterable.forEach(action);
-        }
+    public GroupCollector collector() {
+        var collector = new GroupCollector(this);
+        for (var i = 0; i < members.size(); i++)
+            collector.onEntered(members.get(i));
+        collectors.add(collector);
+        return collector;
+    }
+
+    void removeCollector(GroupCollector collector) {
+        collectors.remove(collector);
     }
 
     /**
-     * This will do the beforeAction before each element, the process action on each element, then the post action on each element
+     * Creates a view of the members that pass the predicate, the view should be created once and kept
+     *
+     * @return returns an unindexed view that tests the predicate while iterating
      */
-    public final void forEach(Consumer<? super EntityRef> beforeAction, Consumer<? super EntityRef> processAction, Consumer<? super EntityRef> postAction) {
-        for (var element : this) {
-            beforeAction.accept(element);
-            processAction.accept(element);
-            postAction.accept(element);
+    public FilteredGroup where(Predicate<EntityRef> predicate) {
+        return new FilteredGroup(this, predicate, new Class[0]);
+    }
+
+    /**
+     * Creates an indexed view of the members that pass the predicate. The predicate should only depend on the given
+     * component classes, since it's only evaluated again when one of them is added or written
+     *
+     * @param dependencies the classes that are read by the predicate
+     * @return returns an indexed view that caches the result of the predicate
+     */
+    @SafeVarargs
+    public final FilteredGroup where(Predicate<EntityRef> predicate, Class<? extends Component>... dependencies) {
+        return new FilteredGroup(this, predicate, dependencies);
+    }
+
+    /**
+     * Creates a view that updates the members at the rate picked by the policy, the view should be created once and
+     * kept
+     *
+     * @return returns a view that evaluates the policy for every member within {@link LodGroup#DEFAULT_REEVALUATE_FRAMES}
+     */
+    public LodGroup withLod(LodPolicy policy) {
+        return withLod(policy, LodGroup.DEFAULT_REEVALUATE_FRAMES);
+    }
+
+    /**
+     * Creates a view that updates the members at the rate picked by the policy
+     *
+     * @param reevaluateFrames the number of frames within which the policy is evaluated again for every member
+     */
+    public LodGroup withLod(LodPolicy policy, int reevaluateFrames) {
+        return new LodGroup(this, policy, reevaluateFrames);
+    }
+
+    EntityPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the change filter of the group
+     *
+     * @param changedClasses the exact classes of the components that are checked for writes
+     * @param addedClasses   the exact classes of the components that are checked for being added
+     */
+    void filter(Class<? extends Component>[] changedClasses, Class<? extends Component>[] addedClasses) {
+        this.changed = indices(changedClasses);
+        this.added = indices(addedClasses);
+    }
+
+    private static int[] indices(Class<? extends Component>[] classes) {
+        var indices = new int[classes.length];
+        for (var i = 0; i < classes.length; i++)
+            indices[i] = ComponentType.of(classes[i]).getIndex();
+        return indices;
+    }
+
+    /**
+     * @return returns true if the group isn't filtered, or the entity passes the change filter
+     */
+    private boolean passes(long entityId, int since) {
+        if (changed.length == 0 && added.length == 0)
+            return true;
+        var ticks = pool.getChangeTicks();
+        for (var type : changed)
+            if (ticks.changedSince(entityId, type, since))
+                return true;
+        for (var type : added)
+            if (ticks.addedSince(entityId, type, since))
+                return true;
+        return false;
+    }
+
+    /**
+     * The array is shared and only replaced after the members change, so it must not be modified
+     *
+     * @return returns the ids of the members at the time of the call
+     */
+    public long[] ids() {
+        var ids = snapshot;
+        if (ids == null)
+            snapshot = ids = members.toArray();
+        return ids;
+    }
+
+    /**
+     * Called by the entity pool after the components of an entity changed, this will add or remove the entity
+     * depending on if it still matches the group
+     *
+     * @param entityId the entity that changed
+     */
+    public void onChanged(long entityId) {
+        if (matches(entityId))
+            add(entityId);
+        else
+            onRemoved(entityId);
+    }
+
+    /**
+     * Called by the entity pool after a batch of entities that share the same signature was spawned, the signature is
+     * only matched once for the whole batch
+     */
+    public void onSpawned(long[] entityIds, int count, ComponentMask signature) {
+        if (!matches(signature))
+            return;
+        indices.ensureCapacity(indices.size() + count);
+        members.ensureCapacity(members.size() + count);
+        for (var i = 0; i < count; i++)
+            add(entityIds[i]);
+    }
+
+    /**
+     * Called by the entity pool when an entity is destroyed or removed from the pool
+     *
+     * @param entityId the entity that was removed
+     */
+    public void onRemoved(long entityId) {
+        var index = indices.remove(entityId);
+        if (index == NO_INDEX)
+            return;
+        var last = members.size() - 1;
+        if (index != last) {
+            var moved = members.get(last);
+            members.set(index, moved);
+            indices.put(moved, index);
         }
+        members.removeAt(last);
+        snapshot = null;
+        for (var collector : collectors)
+            collector.onLeft(entityId);
     }
 
+    /**
+     * Removes every member of the group
+     */
+    public void clear() {
+        for (var collector : collectors)
+            members.forEach(id -> {
+                collector.onLeft(id);
+                return true;
+            });
+        members.clear();
+        indices.clear();
+        snapshot = null;
+    }
 
     /**
-     * This method will walk the stack trace and create an iterator for the current hashed call and will do the runnable before everything
+     * @return returns true if the entity is currently a member of this group
      */
-    public final void forEach(Runnable before, Consumer<? super EntityRef> action, Predicate<EntityRef> predicate) {
-        before.run();
-        forEach(action, predicate);
+    public boolean contains(long entityId) {
+        return indices.containsKey(entityId);
     }
 
     /**
-     * This method will walk the stack trace and create an iterator for the current hashed call and will do the runnable after everything
+     * Adds the entity to the members if it's not a member yet
      */
-    public final void forEach(Consumer<? super EntityRef> action, Predicate<EntityRef> predicate, Runnable after) {
-        forEach(action, predicate);
-        after.run();
+    private void add(long entityId) {
+        if (indices.containsKey(entityId))
+            return;
+        indices.put(entityId, members.size());
+        members.add(entityId);
+        snapshot = null;
+        for (var collector : collectors)
+            collector.onEntered(entityId);
     }
 
     /**
-     * This method will walk the stack trace and create an iterator for the current hashed call and will do the runnable before and after everything
+     * @return returns true if the entity has all of the all classes, one of the one classes and none of the excluded
      */
-    public final void forEach(Runnable before, Consumer<? super EntityRef> action, Predicate<EntityRef> predicate, Runnable after) {
-        before.run();
-        forEach(action, predicate);
-        after.run();
+    private boolean matches(long entityId) {
+        return matches(pool.getSignature(entityId));
+    }
+
+    private boolean matches(ComponentMask signature) {
+        if (signature == null || !signature.containsAll(all) || signature.intersects(exclude))
+            return false;
+        return one.isEmpty() || signature.intersects(one);
     }
 
     /**
-     * @return this will generate a has from the calling location
+     * This will do the beforeAction before each element, the process action on each element, then the post action on each element
      */
-    private long hash(StackTraceElement[] trace) {
-        var hasher = trace[2];
-        var line = hasher.getLineNumber();
-        var className = hasher.getClassName();
-        var methodName = hasher.getMethodName();
-        return line + (long) className.hashCode() + (long) methodName.hashCode();
+    public final void forEach(Consumer<? super EntityRef> beforeAction, Consumer<? super EntityRef> processAction, Consumer<? super EntityRef> postAction) {
+        for (var element : this) {
+            beforeAction.accept(element);
+            processAction.accept(element);
+            postAction.accept(element);
+        }
     }
 
+
     /**
      * Allows for pre and post of a group of elements
      */
@@ -108,7 +281,43 @@ public class Group implements Iterable<EntityRef> {
      * @return returns the number of entities for the group
      */
     public int count() {
-        return Iterables.size(parent);
+        return members.size();
+    }
+
+    /**
+     * Walks a snapshot of the members, skipping the entities that left the group after the snapshot was taken and the
+     * ones that don't pass the change filter
+     */
+    private final class MemberIterator implements Iterator<EntityRef> {
+        private final long[] ids;
+        private final int since;
+        private int index = -1;
+
+        private MemberIterator(long[] ids, int since) {
+            this.ids = ids;
+            this.since = since;
+            seek();
+        }
+
+        private void seek() {
+            index++;
+            while (index < ids.length && (!indices.containsKey(ids[index]) || !passes(ids[index], since)))
+                index++;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < ids.length;
+        }
+
+        @Override
+        public EntityRef next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            var entity = pool.getEntity(ids[index]);
+            seek();
+            return entity;
+        }
     }
 }
 
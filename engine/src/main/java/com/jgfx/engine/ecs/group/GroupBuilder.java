@@ -13,13 +13,15 @@ import java.util.Set;
  */
 public class GroupBuilder {
 
-    protected final Set<Class<? extends Component>> allTypes, oneTypes, excludeTypes;
-    protected Class<? extends Component>[] allClasses, oneClasses, excludeClasses;
+    protected final Set<Class<? extends Component>> allTypes, oneTypes, excludeTypes, changedTypes, addedTypes;
+    protected Class<? extends Component>[] allClasses, oneClasses, excludeClasses, changedClasses, addedClasses;
 
     public GroupBuilder() {
         allTypes = Sets.newHashSet();
         oneTypes = Sets.newHashSet();
         excludeTypes = Sets.newHashSet();
+        changedTypes = Sets.newHashSet();
+        addedTypes = Sets.newHashSet();
     }
 
     public GroupBuilder all(Class<? extends Component>... classes) {
@@ -37,6 +39,22 @@ public class GroupBuilder {
         return this;
     }
 
+    /**
+     * Only yields the entities where one of the given components was written since the iterating system last ran
+     */
+    public GroupBuilder changed(Class<? extends Component>... classes) {
+        changedTypes.addAll(Arrays.asList(classes));
+        return this;
+    }
+
+    /**
+     * Only yields the entities where one of the given components was added since the iterating system last ran
+     */
+    public GroupBuilder added(Class<? extends Component>... classes) {
+        addedTypes.addAll(Arrays.asList(classes));
+        return this;
+    }
+
     /**
      * Checks to see if this is an empty builder
      */
@@ -57,30 +75,28 @@ public class GroupBuilder {
         excludeClasses = new Class[excludeTypes.size()];
         for (var one : excludeTypes)
             excludeClasses[i++] = one;
+        i = 0;
+        changedClasses = new Class[changedTypes.size()];
+        for (var changed : changedTypes)
+            changedClasses[i++] = changed;
+        i = 0;
+        addedClasses = new Class[addedTypes.size()];
+        for (var added : addedTypes)
+            addedClasses[i++] = added;
     }
 
     /**
-     * Builds the group using the manager, and the supplied all/one classes
+     * Builds the group using the manager, and the supplied all/one classes. The group is registered with the manager
+     * so it's members are updated whenever the components of an entity change
      *
-     * @param manager
-     * @return returns the mapped iterator
+     * @return returns the group
      */
     public Group build(/*EntityManager manager*/) {
         var manager = CoreContext.get(EntityManager.class);
         extractClasses();
-        if (!allTypes.isEmpty() && oneTypes.isEmpty() && excludeTypes.isEmpty())
-            return new Group(manager.getEntitiesWithAll(allClasses));
-        else if (allTypes.isEmpty() && !oneTypes.isEmpty() && excludeTypes.isEmpty())
-            return new Group(manager.getEntitiesWithOne(oneClasses));
-        else if (!allTypes.isEmpty() && !excludeTypes.isEmpty() && oneTypes.isEmpty())
-            return new Group(manager.getEntitiesWithAllAndExclude(allClasses, excludeClasses));
-        else if (allTypes.isEmpty() && !oneTypes.isEmpty())
-            return new Group(manager.getEntitiesWithOneAndExclude(oneClasses, excludeClasses));
-        else if (!allTypes.isEmpty() && excludeTypes.isEmpty())
-            return new Group(manager.getEntitiesWithOneOrAll(oneClasses, allClasses));
-        else if (!allTypes.isEmpty()) {
-            return new Group(manager.getEntitiesWithOneOrAllAndExclude(oneClasses, allClasses, excludeClasses));
-        } else
-            return new Group(manager.getAllEntities());
+        var group = new Group(manager, allClasses, oneClasses, excludeClasses);
+        if (changedClasses.length > 0 || addedClasses.length > 0)
+            group.filter(changedClasses, addedClasses);
+        return manager.addGroup(group);
     }
 }
@@ -0,0 +1,81 @@
+package com.jgfx.engine.ecs.group;
+
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import lombok.Getter;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Buffers the ids of the entities that entered and left a group, so a system can react to them in a batch at the start
+ * of it's process instead of scanning the group or listening for events. Collectors are created by
+ * {@link Group#collector()}, or injected into fields of this type using the same annotations as groups.
+ * <p>
+ * An entity that enters and leaves the group between two drains is never collected, an entity that leaves and enters
+ * again is collected as both.
+ */
+public final class GroupCollector {
+    @Getter private final Group group;
+    private final TLongSet entered = new TLongHashSet();
+    private final TLongSet left = new TLongHashSet();
+    //The buffers are copied into these while draining, so entities that change during the drain are kept for the next one
+    private final TLongSet drainingEntered = new TLongHashSet(), drainingLeft = new TLongHashSet();
+
+    GroupCollector(Group group) {
+        this.group = group;
+    }
+
+    synchronized void onEntered(long entityId) {
+        entered.add(entityId);
+    }
+
+    synchronized void onLeft(long entityId) {
+        if (!entered.remove(entityId))
+            left.add(entityId);
+    }
+
+    /**
+     * Passes the collected entities to the consumers and clears them. The left entities are passed first, so an
+     * entity that left and entered again ends up tracked. Left entities may already be destroyed
+     *
+     * @param onEntered called with the id of each entity that entered the group
+     * @param onLeft    called with the id of each entity that left the group
+     */
+    public void drain(LongConsumer onEntered, LongConsumer onLeft) {
+        TLongSet enteredIds, leftIds;
+        synchronized (this) {
+            if (entered.isEmpty() && left.isEmpty())
+                return;
+            drainingEntered.addAll(entered);
+            drainingLeft.addAll(left);
+            entered.clear();
+            left.clear();
+            enteredIds = drainingEntered;
+            leftIds = drainingLeft;
+        }
+        leftIds.forEach(id -> {
+            onLeft.accept(id);
+            return true;
+        });
+        enteredIds.forEach(id -> {
+            onEntered.accept(id);
+            return true;
+        });
+        enteredIds.clear();
+        leftIds.clear();
+    }
+
+    /**
+     * @return returns true if no entity entered or left the group since the last drain
+     */
+    public synchronized boolean isEmpty() {
+        return entered.isEmpty() && left.isEmpty();
+    }
+
+    /**
+     * Stops collecting, the collector can't be used after this
+     */
+    public void dispose() {
+        group.removeCollector(this);
+    }
+}
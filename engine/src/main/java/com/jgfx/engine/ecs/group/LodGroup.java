@@ -0,0 +1,231 @@
+package com.jgfx.engine.ecs.group;
+
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import com.jgfx.engine.time.EngineTime;
+import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongDoubleHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * A view of a group that updates each member at the rate picked by a {@link LodPolicy}, created by
+ * {@link Group#withLod(LodPolicy)} and kept by the system. The members are kept in buckets by their interval and a
+ * phase taken from their id, so the members of an interval are spread over it's frames and every update only touches
+ * the members that are due. Suspended members aren't in any bucket.
+ * <p>
+ * The policy isn't evaluated for every member every frame, instead a slice of the members is evaluated each frame so
+ * every member is evaluated again within the given number of frames. A member's interval can lag behind the policy by
+ * that many frames.
+ * <p>
+ * Each update is passed the game time that passed since the member was last updated, so members that are updated less
+ * often still advance at the same speed. A member that resumes after being suspended gets the whole time it was
+ * suspended.
+ */
+public final class LodGroup {
+    public static final int DEFAULT_REEVALUATE_FRAMES = 16;
+    private static final int UNTRACKED = -1;
+    //Intervals are clamped to this, so the buckets stay small
+    private static final int MAX_INTERVAL = 1024;
+    @Getter private final Group group;
+    private final LodPolicy policy;
+    private final int reevaluateFrames;
+    private final GroupCollector membership;
+    private final TLongIntHashMap intervals = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0, UNTRACKED);
+    //The clock at which each member was last updated
+    private final TLongDoubleHashMap updatedAt = new TLongDoubleHashMap();
+    //The members by interval and phase
+    private TLongHashSet[][] buckets = new TLongHashSet[0][];
+    private final TLongArrayList due = new TLongArrayList();
+    //The members that are evaluated next, a copy of the group that's walked a slice at a time
+    private long[] evaluating = new long[0];
+    private int evaluated;
+    private long frame;
+    //The game time summed over every update of the view
+    private double clock;
+    private float lastDelta;
+    //********Stats
+    @Getter private int updatedLastFrame;
+    @Getter private int suspendedCount;
+
+    LodGroup(Group group, LodPolicy policy, int reevaluateFrames) {
+        if (reevaluateFrames < 1)
+            throw new IllegalArgumentException("Members must be evaluated at least every frame, got " + reevaluateFrames);
+        this.group = group;
+        this.policy = policy;
+        this.reevaluateFrames = reevaluateFrames;
+        this.membership = group.collector();
+    }
+
+    /**
+     * Updates the members that are due this frame, this must be called once per frame by the system
+     *
+     * @param update called for every due member, with the game time since it was last updated
+     */
+    public void forEach(EngineTime time, Update update) {
+        forEach(time.getGameDelta(), update);
+    }
+
+    /**
+     * Updates the members that are due this frame, this must be called once per frame by the system
+     *
+     * @param delta  the game time of this frame
+     * @param update called for every due member, with the game time since it was last updated
+     */
+    public void forEach(float delta, Update update) {
+        frame++;
+        clock += delta;
+        lastDelta = delta;
+        membership.drain(this::track, this::untrack);
+        reevaluate();
+        for (var interval = 1; interval < buckets.length; interval++) {
+            if (buckets[interval] == null)
+                continue;
+            var bucket = buckets[interval][(int) (frame % interval)];
+            if (bucket == null || bucket.isEmpty())
+                continue;
+            bucket.forEach(id -> {
+                due.add(id);
+                return true;
+            });
+        }
+        updatedLastFrame = 0;
+        var pool = group.getPool();
+        //The update may change the group, so the due members are collected before any of them is updated
+        for (var i = 0; i < due.size(); i++) {
+            var id = due.get(i);
+            EntityRef entity;
+            if (!group.contains(id) || (entity = pool.getEntity(id)) == null)
+                continue;
+            var elapsed = clock - updatedAt.put(id, clock);
+            update.update(entity, (float) elapsed);
+            updatedLastFrame++;
+        }
+        due.resetQuick();
+    }
+
+    /**
+     * @return returns the current interval of the member, {@link LodPolicy#SUSPENDED} if it's suspended or not a
+     * member
+     */
+    public int interval(long entityId) {
+        var interval = intervals.get(entityId);
+        return interval == UNTRACKED ? LodPolicy.SUSPENDED : interval;
+    }
+
+    /**
+     * @return returns the number of tracked members
+     */
+    public int count() {
+        return intervals.size();
+    }
+
+    /**
+     * Stops tracking the group, the view can't be used after this
+     */
+    public void dispose() {
+        membership.dispose();
+    }
+
+    private void track(long entityId) {
+        var entity = group.getPool().getEntity(entityId);
+        if (entity == null)
+            return;
+        //A new member is updated as if it was last updated on the previous frame
+        updatedAt.put(entityId, clock - lastDelta);
+        place(entityId, evaluate(entity));
+    }
+
+    private void untrack(long entityId) {
+        var interval = intervals.remove(entityId);
+        if (interval == UNTRACKED)
+            return;
+        bucket(entityId, interval, false);
+        updatedAt.remove(entityId);
+    }
+
+    /**
+     * Evaluates the policy for the next slice of the members
+     */
+    private void reevaluate() {
+        var slice = (intervals.size() + reevaluateFrames - 1) / reevaluateFrames;
+        for (var i = 0; i < slice; i++) {
+            if (evaluated >= evaluating.length) {
+                evaluating = group.ids();
+                evaluated = 0;
+                if (evaluating.length == 0)
+                    return;
+            }
+            var id = evaluating[evaluated++];
+            var current = intervals.get(id);
+            if (current == UNTRACKED)
+                continue;
+            var entity = group.getPool().getEntity(id);
+            if (entity == null)
+                continue;
+            var interval = evaluate(entity);
+            if (interval != current)
+                place(id, interval);
+        }
+    }
+
+    private int evaluate(EntityRef entity) {
+        var interval = policy.interval(entity);
+        return interval <= LodPolicy.SUSPENDED ? LodPolicy.SUSPENDED : Math.min(interval, MAX_INTERVAL);
+    }
+
+    private void place(long entityId, int interval) {
+        var previous = intervals.put(entityId, interval);
+        if (previous == interval)
+            return;
+        if (previous != UNTRACKED)
+            bucket(entityId, previous, false);
+        bucket(entityId, interval, true);
+    }
+
+    /**
+     * Adds the member to or removes it from the bucket of the interval
+     */
+    private void bucket(long entityId, int interval, boolean add) {
+        if (interval == LodPolicy.SUSPENDED) {
+            suspendedCount += add ? 1 : -1;
+            return;
+        }
+        if (interval >= buckets.length) {
+            if (!add)
+                return;
+            buckets = Arrays.copyOf(buckets, interval + 1);
+        }
+        if (buckets[interval] == null) {
+            if (!add)
+                return;
+            buckets[interval] = new TLongHashSet[interval];
+        }
+        //The index of an id is in it's lower bits, they spread the members of an interval over it's frames
+        var phase = (int) Long.remainderUnsigned(entityId, interval);
+        var bucket = buckets[interval][phase];
+        if (bucket == null) {
+            if (!add)
+                return;
+            bucket = buckets[interval][phase] = new TLongHashSet();
+        }
+        if (add)
+            bucket.add(entityId);
+        else
+            bucket.remove(entityId);
+    }
+
+    /**
+     * Updates a due member
+     */
+    @FunctionalInterface
+    public interface Update {
+        /**
+         * @param delta the game time since the member was last updated
+         */
+        void update(EntityRef entity, float delta);
+    }
+}
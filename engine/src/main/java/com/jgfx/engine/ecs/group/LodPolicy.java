@@ -0,0 +1,31 @@
+package com.jgfx.engine.ecs.group;
+
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Decides how often an entity of a {@link LodGroup} is updated, usually from how relevant it is to the player
+ */
+@FunctionalInterface
+public interface LodPolicy {
+    /**
+     * The interval of entities that aren't updated at all
+     */
+    int SUSPENDED = 0;
+
+    /**
+     * @return returns the number of frames between two updates of the entity, 1 to update it every frame or
+     * {@link #SUSPENDED} to stop updating it
+     */
+    int interval(EntityRef entity);
+
+    /**
+     * Starts a policy that picks the interval from the distance of the entity, see {@link DistanceLod}
+     *
+     * @param distance computes the distance of an entity, for example to the local player
+     */
+    static DistanceLod.Builder distance(ToDoubleFunction<EntityRef> distance) {
+        return DistanceLod.builder(distance);
+    }
+}
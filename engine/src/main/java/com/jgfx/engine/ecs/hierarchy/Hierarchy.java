@@ -0,0 +1,334 @@
+package com.jgfx.engine.ecs.hierarchy;
+
+import com.jgfx.engine.ecs.entity.pool.EntityTable;
+import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongConsumer;
+
+/**
+ * Stores parent/child relations between entities. The relations are flattened into arrays in depth first order, so a
+ * parent always comes before it's children and every subtree is a contiguous range of the arrays. This makes walking a
+ * subtree, checking ancestry and propagating data from parents to children a linear pass over the arrays, instead of
+ * following object graphs.
+ * <p>
+ * Entities are part of the hierarchy once they have a parent or a child, entities without a parent are roots. The
+ * arrays are rebuilt lazily the first time they're read after the relations changed.
+ * <p>
+ * The hierarchy must only be changed from the main thread, systems should record changes with
+ * {@link com.jgfx.engine.ecs.entity.pool.EntityCommandBuffer#run(Runnable)}.
+ */
+public final class Hierarchy {
+    public static final long NO_PARENT = EntityTable.NULL_ID;
+    private static final int NO_INDEX = -1;
+
+    //********The relations, these are the source of truth the arrays are built from
+    private final TLongLongHashMap parentOf = new TLongLongHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, NO_PARENT, NO_PARENT);
+    //The children of every entity in the order they were added, the roots are stored under NO_PARENT
+    private final TLongObjectHashMap<TLongArrayList> childrenOf = new TLongObjectHashMap<>();
+
+    //********The flattened hierarchy, by position in depth first order
+    private long[] ids = new long[0];
+    //The position of the parent of every entity, or NO_INDEX for roots
+    private int[] parents = new int[0];
+    private int[] depths = new int[0];
+    //The position after the last descendant of every entity
+    private int[] ends = new int[0];
+    @Getter private int size;
+    private final TLongIntHashMap indices = new TLongIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, NO_PARENT, NO_INDEX);
+    private boolean stale;
+
+    //********Dirty subtrees, by position while the arrays are current and by id while they're stale
+    private final BitSet dirty = new BitSet();
+    private final TLongHashSet pendingDirty = new TLongHashSet();
+
+    /**
+     * Sets the parent of the child, the child is added after the existing children of the parent. Setting the parent
+     * an entity already has does nothing, so it's order among it's siblings is kept
+     *
+     * @param parent the new parent, or {@link #NO_PARENT} to make the child a root
+     * @throws IllegalArgumentException if the child is the parent or an ancestor of it
+     */
+    public void setParent(long child, long parent) {
+        if (child == NO_PARENT)
+            throw new IllegalArgumentException("The null entity can't be part of a hierarchy");
+        var contained = contains(child);
+        if (contained && parentOf.get(child) == parent)
+            return;
+        if (parent != NO_PARENT && isAncestor(child, parent))
+            throw new IllegalArgumentException("Entity " + child + " can't become a child of it's descendant " + parent);
+        if (contained)
+            detach(child);
+        stale = true;
+        if (parent != NO_PARENT && !contains(parent)) {
+            attach(parent, NO_PARENT);
+            markDirty(parent);
+        }
+        attach(child, parent);
+        markDirty(child);
+    }
+
+    /**
+     * Removes the entity from the hierarchy, it's children become roots
+     */
+    public void remove(long id) {
+        if (!contains(id))
+            return;
+        //A mark by position still points at the entity until the arrays are rebuilt
+        var index = indices.get(id);
+        if (index != NO_INDEX)
+            dirty.clear(index);
+        var children = childrenOf.remove(id);
+        if (children != null) {
+            for (var i = 0; i < children.size(); i++) {
+                var child = children.get(i);
+                parentOf.put(child, NO_PARENT);
+                roots().add(child);
+                pendingDirty.add(child);
+            }
+        }
+        detach(id);
+        parentOf.remove(id);
+        pendingDirty.remove(id);
+        stale = true;
+    }
+
+    /**
+     * Removes every relation
+     */
+    public void clear() {
+        parentOf.clear();
+        childrenOf.clear();
+        indices.clear();
+        pendingDirty.clear();
+        dirty.clear();
+        size = 0;
+        stale = false;
+    }
+
+    /**
+     * @return returns true if the entity has a parent or a child
+     */
+    public boolean contains(long id) {
+        return parentOf.containsKey(id);
+    }
+
+    /**
+     * @return returns the parent of the entity, or {@link #NO_PARENT} if it's a root or not part of the hierarchy
+     */
+    public long getParent(long id) {
+        return parentOf.get(id);
+    }
+
+    /**
+     * @return returns the number of ancestors of the entity, roots have a depth of 0
+     */
+    public int depth(long id) {
+        var index = index(id);
+        return index == NO_INDEX ? 0 : depths[index];
+    }
+
+    /**
+     * @return returns the number of children and grand children of the entity
+     */
+    public int descendantCount(long id) {
+        var index = index(id);
+        return index == NO_INDEX ? 0 : ends[index] - index - 1;
+    }
+
+    /**
+     * @return returns true if the entity is a descendant of the ancestor
+     */
+    public boolean isAncestor(long ancestor, long id) {
+        if (stale) {
+            //Walking up is cheaper than rebuilding while the relations are being changed
+            for (var parent = parentOf.get(id); parent != NO_PARENT; parent = parentOf.get(parent))
+                if (parent == ancestor)
+                    return true;
+            return false;
+        }
+        var ancestorIndex = indices.get(ancestor);
+        var index = indices.get(id);
+        return ancestorIndex != NO_INDEX && index != NO_INDEX && index > ancestorIndex && index < ends[ancestorIndex];
+    }
+
+    /**
+     * Calls the consumer with every direct child of the entity, in order
+     */
+    public void forEachChild(long id, LongConsumer consumer) {
+        var index = index(id);
+        if (index == NO_INDEX)
+            return;
+        for (var child = index + 1; child < ends[index]; child = ends[child])
+            consumer.accept(ids[child]);
+    }
+
+    /**
+     * Calls the consumer with every descendant of the entity in depth first order, so every parent is visited before
+     * it's children
+     */
+    public void forEachDescendant(long id, LongConsumer consumer) {
+        var index = index(id);
+        if (index == NO_INDEX)
+            return;
+        for (var descendant = index + 1; descendant < ends[index]; descendant++)
+            consumer.accept(ids[descendant]);
+    }
+
+    /**
+     * Marks the entity as changed, so it's subtree is visited by the next {@link #propagate(Propagator)}
+     */
+    public void markDirty(long id) {
+        if (!contains(id))
+            return;
+        if (stale)
+            pendingDirty.add(id);
+        else
+            dirty.set(indices.get(id));
+    }
+
+    /**
+     * @return returns true if a subtree was marked since the last propagation
+     */
+    public boolean isDirty() {
+        return !dirty.isEmpty() || !pendingDirty.isEmpty();
+    }
+
+    /**
+     * Visits every marked subtree in one pass over the arrays, parents are always visited before their children and
+     * every entity is visited at most once, even if it's ancestors were marked as well. Subtrees that weren't marked
+     * are skipped without visiting them. The marks are cleared afterwards
+     *
+     * @return returns the number of visited entities
+     */
+    public int propagate(Propagator propagator) {
+        build();
+        var visited = 0;
+        for (var start = dirty.nextSetBit(0); start >= 0; start = dirty.nextSetBit(ends[start])) {
+            for (var index = start; index < ends[start]; index++) {
+                var parent = parents[index];
+                propagator.propagate(ids[index], parent == NO_INDEX ? NO_PARENT : ids[parent]);
+            }
+            //Marks inside of the subtree are covered, so the search continues after it
+            visited += ends[start] - start;
+        }
+        dirty.clear();
+        return visited;
+    }
+
+    /**
+     * @return returns the position of the entity in the depth first order
+     */
+    private int index(long id) {
+        build();
+        return indices.get(id);
+    }
+
+    private TLongArrayList roots() {
+        var roots = childrenOf.get(NO_PARENT);
+        if (roots == null)
+            childrenOf.put(NO_PARENT, roots = new TLongArrayList());
+        return roots;
+    }
+
+    private void attach(long child, long parent) {
+        parentOf.put(child, parent);
+        var children = parent == NO_PARENT ? roots() : childrenOf.get(parent);
+        if (children == null)
+            childrenOf.put(parent, children = new TLongArrayList());
+        children.add(child);
+    }
+
+    private void detach(long child) {
+        var parent = parentOf.get(child);
+        var siblings = childrenOf.get(parent);
+        if (siblings != null) {
+            siblings.remove(child);
+            if (siblings.isEmpty() && parent != NO_PARENT)
+                childrenOf.remove(parent);
+        }
+    }
+
+    /**
+     * Flattens the relations into the arrays, if they changed since the last build
+     */
+    private void build() {
+        if (!stale)
+            return;
+        //Marks are kept by id while the positions change
+        for (var index = dirty.nextSetBit(0); index >= 0; index = dirty.nextSetBit(index + 1))
+            pendingDirty.add(ids[index]);
+        dirty.clear();
+        size = parentOf.size();
+        if (ids.length < size) {
+            var capacity = Math.max(size, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        indices.clear();
+        var count = 0;
+        //An explicit walk, so deep hierarchies can't overflow the call stack. The stack holds the positions whose
+        //subtree isn't closed yet and the next child to place for each of them
+        var open = new int[16];
+        var cursor = new int[16];
+        var roots = childrenOf.get(NO_PARENT);
+        for (var root = 0; roots != null && root < roots.size(); root++) {
+            count = place(roots.get(root), NO_INDEX, count);
+            var depth = 0;
+            open[0] = count - 1;
+            cursor[0] = 0;
+            while (depth >= 0) {
+                var index = open[depth];
+                var children = childrenOf.get(ids[index]);
+                if (children != null && cursor[depth] < children.size()) {
+                    count = place(children.get(cursor[depth]++), index, count);
+                    if (++depth == open.length) {
+                        open = Arrays.copyOf(open, depth * 2);
+                        cursor = Arrays.copyOf(cursor, depth * 2);
+                    }
+                    open[depth] = count - 1;
+                    cursor[depth] = 0;
+                } else {
+                    ends[index] = count;
+                    depth--;
+                }
+            }
+        }
+        pendingDirty.forEach(id -> {
+            var index = indices.get(id);
+            if (index != NO_INDEX)
+                dirty.set(index);
+            return true;
+        });
+        pendingDirty.clear();
+        stale = false;
+    }
+
+    private int place(long id, int parent, int index) {
+        ids[index] = id;
+        parents[index] = parent;
+        depths[index] = parent == NO_INDEX ? 0 : depths[parent] + 1;
+        indices.put(id, index);
+        return index + 1;
+    }
+
+    /**
+     * Computes the data of an entity from the data of it's parent
+     */
+    @FunctionalInterface
+    public interface Propagator {
+        /**
+         * @param parent the parent of the entity, or {@link #NO_PARENT} for roots
+         */
+        void propagate(long id, long parent);
+    }
+}
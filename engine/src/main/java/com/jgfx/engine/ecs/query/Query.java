@@ -0,0 +1,210 @@
+package com.jgfx.engine.ecs.query;
+
+import com.google.common.collect.Lists;
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentMask;
+import com.jgfx.engine.ecs.component.ComponentTable;
+import com.jgfx.engine.ecs.component.ComponentType;
+import com.jgfx.engine.ecs.component.archetype.Archetype;
+import com.jgfx.engine.ecs.component.archetype.ArchetypeTable;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.group.Group;
+import com.jgfx.engine.ecs.group.GroupBuilder;
+import gnu.trove.map.TLongObjectMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A typed view over every entity that has all of the query's component types. The components are handed straight from
+ * the component store to the callback, without creating refs, iterators or lambdas per entity.
+ * <p>
+ * With archetype storage the query walks the dense chunk columns of every matching archetype, otherwise it walks the
+ * members of a live group and reads each component with a single probe into the type's map.
+ * <p>
+ * Like a group, a query can be filtered so it only visits the entities where one of the given components was written
+ * or added since the iterating system last ran.
+ * <p>
+ * Components must not be added or removed while a query is iterating, and a query must not be iterated from within
+ * it's own callback.
+ */
+public abstract class Query {
+    protected final EntityManager manager;
+    private final Class<? extends Component>[] types;
+    private final int[] typeIndices;
+    private final ComponentMask mask;
+    //Reused for every row, this is why a query can't be iterated from within it's own callback
+    private final Component[] row;
+    //The type indices of the change filter
+    private int[] changed = new int[0], added = new int[0];
+    private int since;
+    //********Archetype storage
+    private final List<Archetype> archetypes = Lists.newArrayList();
+    private final int[] columns;
+    private int scannedArchetypes;
+    //********Hashed storage
+    private final Group group;
+    private final TLongObjectMap<Component>[] maps;
+
+    protected Query(Class<? extends Component>... types) {
+        this.manager = CoreContext.get(EntityManager.class);
+        this.types = types;
+        this.typeIndices = new int[types.length];
+        for (var i = 0; i < types.length; i++)
+            typeIndices[i] = ComponentType.of(types[i]).getIndex();
+        this.mask = ComponentMask.of(types);
+        this.row = new Component[types.length];
+        this.columns = new int[types.length];
+        this.maps = new TLongObjectMap[types.length];
+        this.group = manager.getComponentStore() instanceof ArchetypeTable ? null : new GroupBuilder().all(types).build();
+    }
+
+    /**
+     * Passes the row to the callback, casting each component to it's type
+     *
+     * @param callback the callback that was given to the query
+     * @param entityId the entity the row belongs to
+     * @param row      the components of the entity, in the order of the query's types
+     */
+    protected abstract void accept(Object callback, long entityId, Component[] row);
+
+    /**
+     * Visits every matching entity
+     */
+    protected final void iterate(Object callback) {
+        since = manager.getChangeTicks().lastRun();
+        var store = manager.getComponentStore();
+        if (store instanceof ArchetypeTable)
+            iterateArchetypes((ArchetypeTable) store, callback);
+        else
+            iterateGroup((ComponentTable) store, callback);
+        Arrays.fill(row, null);
+    }
+
+    /**
+     * Walks the chunks of each matching archetype
+     */
+    private void iterateArchetypes(ArchetypeTable table, Object callback) {
+        var all = table.archetypes();
+        for (; scannedArchetypes < all.size(); scannedArchetypes++) {
+            var archetype = all.get(scannedArchetypes);
+            if (archetype.getMask().containsAll(mask))
+                archetypes.add(archetype);
+        }
+        for (var i = 0; i < archetypes.size(); i++) {
+            var archetype = archetypes.get(i);
+            if (archetype.getSize() == 0)
+                continue;
+            for (var type = 0; type < columns.length; type++)
+                columns[type] = archetype.column(typeIndices[type]);
+            var chunks = archetype.chunks();
+            for (var c = 0; c < chunks.size(); c++) {
+                var chunk = chunks.get(c);
+                var ids = chunk.ids();
+                for (var r = 0; r < chunk.count(); r++) {
+                    if (!passes(ids[r]))
+                        continue;
+                    for (var type = 0; type < columns.length; type++)
+                        row[type] = chunk.column(columns[type])[r];
+                    accept(callback, ids[r], row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks the members of the group, skipping entities that lost a component during the iteration
+     */
+    private void iterateGroup(ComponentTable table, Object callback) {
+        for (var type = 0; type < types.length; type++) {
+            maps[type] = table.column(types[type]);
+            if (maps[type] == null)
+                return;
+        }
+        var ids = group.ids();
+        outer:
+        for (var id : ids) {
+            if (!passes(id))
+                continue;
+            for (var type = 0; type < maps.length; type++) {
+                var component = maps[type].get(id);
+                if (component == null)
+                    continue outer;
+                row[type] = component;
+            }
+            accept(callback, id, row);
+        }
+    }
+
+    /**
+     * Sets the classes of the change filter, they're checked by their exact class
+     */
+    protected final void filter(Class<? extends Component>[] changedClasses, Class<? extends Component>[] addedClasses) {
+        if (changedClasses != null)
+            changed = indices(changedClasses);
+        if (addedClasses != null)
+            added = indices(addedClasses);
+    }
+
+    private static int[] indices(Class<? extends Component>[] classes) {
+        var indices = new int[classes.length];
+        for (var i = 0; i < classes.length; i++)
+            indices[i] = ComponentType.of(classes[i]).getIndex();
+        return indices;
+    }
+
+    /**
+     * @return returns true if there's no change filter, or the entity passes it
+     */
+    private boolean passes(long entityId) {
+        if (changed.length == 0 && added.length == 0)
+            return true;
+        var ticks = manager.getChangeTicks();
+        for (var type : changed)
+            if (ticks.changedSince(entityId, type, since))
+                return true;
+        for (var type : added)
+            if (ticks.addedSince(entityId, type, since))
+                return true;
+        return false;
+    }
+
+    /**
+     * @return returns the number of matching entities, ignoring the change filter
+     */
+    public int count() {
+        if (group != null)
+            return group.count();
+        var count = 0;
+        var store = (ArchetypeTable) manager.getComponentStore();
+        for (var archetype : store.archetypes())
+            if (archetype.getMask().containsAll(mask))
+                count += archetype.getSize();
+        return count;
+    }
+
+    public static <A extends Component> Query1<A> of(Class<A> a) {
+        return new Query1<>(a);
+    }
+
+    public static <A extends Component, B extends Component> Query2<A, B> of(Class<A> a, Class<B> b) {
+        return new Query2<>(a, b);
+    }
+
+    public static <A extends Component, B extends Component, C extends Component> Query3<A, B, C> of(Class<A> a, Class<B> b, Class<C> c) {
+        return new Query3<>(a, b, c);
+    }
+
+    public static <A extends Component, B extends Component, C extends Component, D extends Component> Query4<A, B, C, D> of(Class<A> a, Class<B> b, Class<C> c, Class<D> d) {
+        return new Query4<>(a, b, c, d);
+    }
+
+    public static <A extends Component, B extends Component, C extends Component, D extends Component, E extends Component> Query5<A, B, C, D, E> of(Class<A> a, Class<B> b, Class<C> c, Class<D> d, Class<E> e) {
+        return new Query5<>(a, b, c, d, e);
+    }
+
+    public static <A extends Component, B extends Component, C extends Component, D extends Component, E extends Component, F extends Component> Query6<A, B, C, D, E, F> of(Class<A> a, Class<B> b, Class<C> c, Class<D> d, Class<E> e, Class<F> f) {
+        return new Query6<>(a, b, c, d, e, f);
+    }
+}
@@ -0,0 +1,66 @@
+package com.jgfx.engine.ecs.query;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A query over the entities with a component of type A, see {@link Query}
+ */
+public final class Query1<A extends Component> extends Query {
+
+    Query1(Class<A> a) {
+        super(a);
+    }
+
+    /**
+     * Only visits the entities where one of the given components was written since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query1<A> changed(Class<? extends Component>... classes) {
+        filter(classes, null);
+        return this;
+    }
+
+    /**
+     * Only visits the entities where one of the given components was added since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query1<A> added(Class<? extends Component>... classes) {
+        filter(null, classes);
+        return this;
+    }
+
+    /**
+     * Calls the callback with the components of every matching entity
+     */
+    public void forEach(Each<A> each) {
+        iterate(each);
+    }
+
+    /**
+     * Calls the callback with the id and the components of every matching entity
+     */
+    public void forEachEntity(EntityEach<A> each) {
+        iterate(each);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void accept(Object callback, long entityId, Component[] row) {
+        if (callback instanceof Each)
+            ((Each<A>) callback).accept((A) row[0]);
+        else
+            ((EntityEach<A>) callback).accept(entityId, (A) row[0]);
+    }
+
+    @FunctionalInterface
+    public interface Each<A> {
+        void accept(A a);
+    }
+
+    @FunctionalInterface
+    public interface EntityEach<A> {
+        void accept(long entityId, A a);
+    }
+}
@@ -0,0 +1,66 @@
+package com.jgfx.engine.ecs.query;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A query over the entities with components of types A and B, see {@link Query}
+ */
+public final class Query2<A extends Component, B extends Component> extends Query {
+
+    Query2(Class<A> a, Class<B> b) {
+        super(a, b);
+    }
+
+    /**
+     * Only visits the entities where one of the given components was written since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query2<A, B> changed(Class<? extends Component>... classes) {
+        filter(classes, null);
+        return this;
+    }
+
+    /**
+     * Only visits the entities where one of the given components was added since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query2<A, B> added(Class<? extends Component>... classes) {
+        filter(null, classes);
+        return this;
+    }
+
+    /**
+     * Calls the callback with the components of every matching entity
+     */
+    public void forEach(Each<A, B> each) {
+        iterate(each);
+    }
+
+    /**
+     * Calls the callback with the id and the components of every matching entity
+     */
+    public void forEachEntity(EntityEach<A, B> each) {
+        iterate(each);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void accept(Object callback, long entityId, Component[] row) {
+        if (callback instanceof Each)
+            ((Each<A, B>) callback).accept((A) row[0], (B) row[1]);
+        else
+            ((EntityEach<A, B>) callback).accept(entityId, (A) row[0], (B) row[1]);
+    }
+
+    @FunctionalInterface
+    public interface Each<A, B> {
+        void accept(A a, B b);
+    }
+
+    @FunctionalInterface
+    public interface EntityEach<A, B> {
+        void accept(long entityId, A a, B b);
+    }
+}
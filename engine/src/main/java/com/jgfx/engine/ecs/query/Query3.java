@@ -0,0 +1,66 @@
+package com.jgfx.engine.ecs.query;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A query over the entities with components of types A, B and C, see {@link Query}
+ */
+public final class Query3<A extends Component, B extends Component, C extends Component> extends Query {
+
+    Query3(Class<A> a, Class<B> b, Class<C> c) {
+        super(a, b, c);
+    }
+
+    /**
+     * Only visits the entities where one of the given components was written since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query3<A, B, C> changed(Class<? extends Component>... classes) {
+        filter(classes, null);
+        return this;
+    }
+
+    /**
+     * Only visits the entities where one of the given components was added since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query3<A, B, C> added(Class<? extends Component>... classes) {
+        filter(null, classes);
+        return this;
+    }
+
+    /**
+     * Calls the callback with the components of every matching entity
+     */
+    public void forEach(Each<A, B, C> each) {
+        iterate(each);
+    }
+
+    /**
+     * Calls the callback with the id and the components of every matching entity
+     */
+    public void forEachEntity(EntityEach<A, B, C> each) {
+        iterate(each);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void accept(Object callback, long entityId, Component[] row) {
+        if (callback instanceof Each)
+            ((Each<A, B, C>) callback).accept((A) row[0], (B) row[1], (C) row[2]);
+        else
+            ((EntityEach<A, B, C>) callback).accept(entityId, (A) row[0], (B) row[1], (C) row[2]);
+    }
+
+    @FunctionalInterface
+    public interface Each<A, B, C> {
+        void accept(A a, B b, C c);
+    }
+
+    @FunctionalInterface
+    public interface EntityEach<A, B, C> {
+        void accept(long entityId, A a, B b, C c);
+    }
+}
@@ -0,0 +1,66 @@
+package com.jgfx.engine.ecs.query;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A query over the entities with components of types A, B, C and D, see {@link Query}
+ */
+public final class Query4<A extends Component, B extends Component, C extends Component, D extends Component> extends Query {
+
+    Query4(Class<A> a, Class<B> b, Class<C> c, Class<D> d) {
+        super(a, b, c, d);
+    }
+
+    /**
+     * Only visits the entities where one of the given components was written since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query4<A, B, C, D> changed(Class<? extends Component>... classes) {
+        filter(classes, null);
+        return this;
+    }
+
+    /**
+     * Only visits the entities where one of the given components was added since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query4<A, B, C, D> added(Class<? extends Component>... classes) {
+        filter(null, classes);
+        return this;
+    }
+
+    /**
+     * Calls the callback with the components of every matching entity
+     */
+    public void forEach(Each<A, B, C, D> each) {
+        iterate(each);
+    }
+
+    /**
+     * Calls the callback with the id and the components of every matching entity
+     */
+    public void forEachEntity(EntityEach<A, B, C, D> each) {
+        iterate(each);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void accept(Object callback, long entityId, Component[] row) {
+        if (callback instanceof Each)
+            ((Each<A, B, C, D>) callback).accept((A) row[0], (B) row[1], (C) row[2], (D) row[3]);
+        else
+            ((EntityEach<A, B, C, D>) callback).accept(entityId, (A) row[0], (B) row[1], (C) row[2], (D) row[3]);
+    }
+
+    @FunctionalInterface
+    public interface Each<A, B, C, D> {
+        void accept(A a, B b, C c, D d);
+    }
+
+    @FunctionalInterface
+    public interface EntityEach<A, B, C, D> {
+        void accept(long entityId, A a, B b, C c, D d);
+    }
+}
@@ -0,0 +1,66 @@
+package com.jgfx.engine.ecs.query;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A query over the entities with components of types A, B, C, D and E, see {@link Query}
+ */
+public final class Query5<A extends Component, B extends Component, C extends Component, D extends Component, E extends Component> extends Query {
+
+    Query5(Class<A> a, Class<B> b, Class<C> c, Class<D> d, Class<E> e) {
+        super(a, b, c, d, e);
+    }
+
+    /**
+     * Only visits the entities where one of the given components was written since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query5<A, B, C, D, E> changed(Class<? extends Component>... classes) {
+        filter(classes, null);
+        return this;
+    }
+
+    /**
+     * Only visits the entities where one of the given components was added since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query5<A, B, C, D, E> added(Class<? extends Component>... classes) {
+        filter(null, classes);
+        return this;
+    }
+
+    /**
+     * Calls the callback with the components of every matching entity
+     */
+    public void forEach(Each<A, B, C, D, E> each) {
+        iterate(each);
+    }
+
+    /**
+     * Calls the callback with the id and the components of every matching entity
+     */
+    public void forEachEntity(EntityEach<A, B, C, D, E> each) {
+        iterate(each);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void accept(Object callback, long entityId, Component[] row) {
+        if (callback instanceof Each)
+            ((Each<A, B, C, D, E>) callback).accept((A) row[0], (B) row[1], (C) row[2], (D) row[3], (E) row[4]);
+        else
+            ((EntityEach<A, B, C, D, E>) callback).accept(entityId, (A) row[0], (B) row[1], (C) row[2], (D) row[3], (E) row[4]);
+    }
+
+    @FunctionalInterface
+    public interface Each<A, B, C, D, E> {
+        void accept(A a, B b, C c, D d, E e);
+    }
+
+    @FunctionalInterface
+    public interface EntityEach<A, B, C, D, E> {
+        void accept(long entityId, A a, B b, C c, D d, E e);
+    }
+}
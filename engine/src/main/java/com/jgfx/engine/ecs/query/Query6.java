@@ -0,0 +1,66 @@
+package com.jgfx.engine.ecs.query;
+
+import com.jgfx.engine.ecs.component.Component;
+
+/**
+ * A query over the entities with components of types A, B, C, D, E and F, see {@link Query}
+ */
+public final class Query6<A extends Component, B extends Component, C extends Component, D extends Component, E extends Component, F extends Component> extends Query {
+
+    Query6(Class<A> a, Class<B> b, Class<C> c, Class<D> d, Class<E> e, Class<F> f) {
+        super(a, b, c, d, e, f);
+    }
+
+    /**
+     * Only visits the entities where one of the given components was written since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query6<A, B, C, D, E, F> changed(Class<? extends Component>... classes) {
+        filter(classes, null);
+        return this;
+    }
+
+    /**
+     * Only visits the entities where one of the given components was added since the iterating system last ran
+     *
+     * @return returns this query
+     */
+    public Query6<A, B, C, D, E, F> added(Class<? extends Component>... classes) {
+        filter(null, classes);
+        return this;
+    }
+
+    /**
+     * Calls the callback with the components of every matching entity
+     */
+    public void forEach(Each<A, B, C, D, E, F> each) {
+        iterate(each);
+    }
+
+    /**
+     * Calls the callback with the id and the components of every matching entity
+     */
+    public void forEachEntity(EntityEach<A, B, C, D, E, F> each) {
+        iterate(each);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void accept(Object callback, long entityId, Component[] row) {
+        if (callback instanceof Each)
+            ((Each<A, B, C, D, E, F>) callback).accept((A) row[0], (B) row[1], (C) row[2], (D) row[3], (E) row[4], (F) row[5]);
+        else
+            ((EntityEach<A, B, C, D, E, F>) callback).accept(entityId, (A) row[0], (B) row[1], (C) row[2], (D) row[3], (E) row[4], (F) row[5]);
+    }
+
+    @FunctionalInterface
+    public interface Each<A, B, C, D, E, F> {
+        void accept(A a, B b, C c, D d, E e, F f);
+    }
+
+    @FunctionalInterface
+    public interface EntityEach<A, B, C, D, E, F> {
+        void accept(long entityId, A a, B b, C c, D d, E e, F f);
+    }
+}
@@ -0,0 +1,476 @@
+package com.jgfx.engine.ecs.snapshot;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.jgfx.assets.urn.ResourceUrn;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.entity.pool.EntityTable;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * Encodes the fields of every component of one class into columns, one column per field. Static and transient fields
+ * are skipped. A class without a no argument constructor, or with a field of any other type than the ones in
+ * {@link Kind}, can't be encoded, it's left out of snapshots.
+ * <p>
+ * Each column is written with it's field name and kind, so fields that were added, removed or changed type since the
+ * snapshot was saved are skipped when loading, and keep the value the component was created with.
+ */
+final class ComponentCodec {
+    private static final Logger logger = LogManager.getLogger(ComponentCodec.class);
+    private static final Map<Class<?>, Optional<ComponentCodec>> CODECS = Maps.newConcurrentMap();
+    private final Class<? extends Component> type;
+    private final Constructor<?> constructor;
+    private final Field[] fields;
+    private final Kind[] kinds;
+
+    /**
+     * The supported field types
+     */
+    enum Kind {
+        BOOLEAN, BYTE, SHORT, CHAR, INT, LONG, FLOAT, DOUBLE,
+        BOOLEAN_ARRAY, BYTE_ARRAY, SHORT_ARRAY, CHAR_ARRAY, INT_ARRAY, LONG_ARRAY, FLOAT_ARRAY, DOUBLE_ARRAY,
+        STRING, ENUM, URN, ENTITY, VECTOR2F, VECTOR3F, VECTOR4F, VECTOR2I, VECTOR3I, QUATERNIONF, MATRIX4F;
+
+        private static final Map<Class<?>, Kind> BY_CLASS = Map.ofEntries(
+                Map.entry(boolean.class, BOOLEAN), Map.entry(byte.class, BYTE), Map.entry(short.class, SHORT),
+                Map.entry(char.class, CHAR), Map.entry(int.class, INT), Map.entry(long.class, LONG),
+                Map.entry(float.class, FLOAT), Map.entry(double.class, DOUBLE),
+                Map.entry(boolean[].class, BOOLEAN_ARRAY), Map.entry(byte[].class, BYTE_ARRAY),
+                Map.entry(short[].class, SHORT_ARRAY), Map.entry(char[].class, CHAR_ARRAY),
+                Map.entry(int[].class, INT_ARRAY), Map.entry(long[].class, LONG_ARRAY),
+                Map.entry(float[].class, FLOAT_ARRAY), Map.entry(double[].class, DOUBLE_ARRAY),
+                Map.entry(String.class, STRING), Map.entry(ResourceUrn.class, URN), Map.entry(EntityRef.class, ENTITY),
+                Map.entry(Vector2f.class, VECTOR2F), Map.entry(Vector3f.class, VECTOR3F), Map.entry(Vector4f.class, VECTOR4F),
+                Map.entry(Vector2i.class, VECTOR2I), Map.entry(Vector3i.class, VECTOR3I),
+                Map.entry(Quaternionf.class, QUATERNIONF), Map.entry(Matrix4f.class, MATRIX4F));
+
+        /**
+         * @return returns the kind of the field type, or null if it's not supported
+         */
+        static Kind of(Class<?> fieldType) {
+            if (fieldType.isEnum())
+                return ENUM;
+            return BY_CLASS.get(fieldType);
+        }
+    }
+
+    private ComponentCodec(Class<? extends Component> type, Constructor<?> constructor, List<Field> fields, List<Kind> kinds) {
+        this.type = type;
+        this.constructor = constructor;
+        this.fields = fields.toArray(new Field[0]);
+        this.kinds = kinds.toArray(new Kind[0]);
+    }
+
+    /**
+     * @return returns the codec of the class, or null if the class can't be encoded
+     */
+    static ComponentCodec of(Class<? extends Component> type) {
+        return CODECS.computeIfAbsent(type, ComponentCodec::create).orElse(null);
+    }
+
+    private static Optional<ComponentCodec> create(Class<?> cls) {
+        var type = (Class<? extends Component>) cls;
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+            return Optional.empty();
+        List<Field> fields = Lists.newArrayList();
+        List<Kind> kinds = Lists.newArrayList();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (var field : current.getDeclaredFields()) {
+                var modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers))
+                    continue;
+                var kind = Kind.of(field.getType());
+                if (kind == null) {
+                    logger.warn("Component '{}' is left out of snapshots, field '{}' of type {} can't be encoded", type.getName(), field.getName(), field.getType().getSimpleName());
+                    return Optional.empty();
+                }
+                field.setAccessible(true);
+                fields.add(field);
+                kinds.add(kind);
+            }
+        }
+        //Components are created with their constructor, so the fields that aren't loaded keep their initial value
+        Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            logger.warn("Component '{}' is left out of snapshots, it has no constructor without arguments", type.getName());
+            return Optional.empty();
+        }
+        return Optional.of(new ComponentCodec(type, constructor, fields, kinds));
+    }
+
+    /**
+     * @return returns a new component created with it's no argument constructor
+     */
+    Component instantiate() {
+        try {
+            return (Component) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create component '" + type.getName() + "'", e);
+        }
+    }
+
+    /**
+     * Writes the number of fields followed by a column for each field. A column is the field's name, it's kind, the
+     * length of the data and the value of the field for each component
+     */
+    void encode(Component[] components, int count, SnapshotBuffer out) throws IllegalAccessException {
+        out.putInt(fields.length);
+        for (var i = 0; i < fields.length; i++) {
+            out.putString(fields[i].getName());
+            out.put((byte) kinds[i].ordinal());
+            var lengthAt = out.position();
+            out.putInt(0);
+            encodeColumn(fields[i], kinds[i], components, count, out);
+            out.putInt(lengthAt, out.position() - lengthAt - 4);
+        }
+    }
+
+    /**
+     * Reads the columns written by {@link #encode} into the components, skipping the columns that don't match a field
+     */
+    void decode(ByteBuffer in, Component[] components, int count, LongFunction<EntityRef> entities) throws IllegalAccessException {
+        var columns = in.getInt();
+        for (var column = 0; column < columns; column++) {
+            var name = SnapshotBuffer.getString(in);
+            var kind = Kind.values()[in.get()];
+            var length = in.getInt();
+            SnapshotBuffer.require(in, length);
+            var end = in.position() + length;
+            var field = field(name, kind);
+            if (field != null)
+                decodeColumn(field, kind, in, components, count, entities);
+            in.position(end);
+        }
+    }
+
+    private Field field(String name, Kind kind) {
+        for (var i = 0; i < fields.length; i++)
+            if (kinds[i] == kind && fields[i].getName().equals(name))
+                return fields[i];
+        return null;
+    }
+
+    private static void encodeColumn(Field field, Kind kind, Component[] components, int count, SnapshotBuffer out) throws IllegalAccessException {
+        switch (kind) {
+            case BOOLEAN:
+                for (var i = 0; i < count; i++)
+                    out.put((byte) (field.getBoolean(components[i]) ? 1 : 0));
+                break;
+            case BYTE:
+                for (var i = 0; i < count; i++)
+                    out.put(field.getByte(components[i]));
+                break;
+            case SHORT: {
+                var raw = out.raw(count * 2);
+                for (var i = 0; i < count; i++)
+                    raw.putShort(field.getShort(components[i]));
+                break;
+            }
+            case CHAR: {
+                var raw = out.raw(count * 2);
+                for (var i = 0; i < count; i++)
+                    raw.putChar(field.getChar(components[i]));
+                break;
+            }
+            case INT: {
+                var raw = out.raw(count * 4);
+                for (var i = 0; i < count; i++)
+                    raw.putInt(field.getInt(components[i]));
+                break;
+            }
+            case LONG: {
+                var raw = out.raw(count * 8);
+                for (var i = 0; i < count; i++)
+                    raw.putLong(field.getLong(components[i]));
+                break;
+            }
+            case FLOAT: {
+                var raw = out.raw(count * 4);
+                for (var i = 0; i < count; i++)
+                    raw.putFloat(field.getFloat(components[i]));
+                break;
+            }
+            case DOUBLE: {
+                var raw = out.raw(count * 8);
+                for (var i = 0; i < count; i++)
+                    raw.putDouble(field.getDouble(components[i]));
+                break;
+            }
+            default:
+                for (var i = 0; i < count; i++)
+                    encodeValue(kind, field.get(components[i]), out);
+        }
+    }
+
+    private static void decodeColumn(Field field, Kind kind, ByteBuffer in, Component[] components, int count, LongFunction<EntityRef> entities) throws IllegalAccessException {
+        switch (kind) {
+            case BOOLEAN:
+                for (var i = 0; i < count; i++)
+                    field.setBoolean(components[i], in.get() != 0);
+                break;
+            case BYTE:
+                for (var i = 0; i < count; i++)
+                    field.setByte(components[i], in.get());
+                break;
+            case SHORT:
+                for (var i = 0; i < count; i++)
+                    field.setShort(components[i], in.getShort());
+                break;
+            case CHAR:
+                for (var i = 0; i < count; i++)
+                    field.setChar(components[i], in.getChar());
+                break;
+            case INT:
+                for (var i = 0; i < count; i++)
+                    field.setInt(components[i], in.getInt());
+                break;
+            case LONG:
+                for (var i = 0; i < count; i++)
+                    field.setLong(components[i], in.getLong());
+                break;
+            case FLOAT:
+                for (var i = 0; i < count; i++)
+                    field.setFloat(components[i], in.getFloat());
+                break;
+            case DOUBLE:
+                for (var i = 0; i < count; i++)
+                    field.setDouble(components[i], in.getDouble());
+                break;
+            default:
+                for (var i = 0; i < count; i++)
+                    field.set(components[i], decodeValue(kind, field.getType(), in, entities));
+        }
+    }
+
+    /**
+     * Writes a reference value, the ones that can be null start with a flag or a length of -1
+     */
+    private static void encodeValue(Kind kind, Object value, SnapshotBuffer out) {
+        switch (kind) {
+            case STRING:
+                out.putString((String) value);
+                return;
+            case URN:
+                out.putString(value == null ? null : value.toString());
+                return;
+            case ENUM:
+                out.putInt(value == null ? -1 : ((Enum<?>) value).ordinal());
+                return;
+            case ENTITY:
+                var entity = (EntityRef) value;
+                out.putLong(entity == null || !entity.isExists() ? EntityTable.NULL_ID : entity.getId());
+                return;
+            default:
+                break;
+        }
+        if (value == null) {
+            out.putInt(-1);
+            return;
+        }
+        switch (kind) {
+            case BOOLEAN_ARRAY: {
+                var array = (boolean[]) value;
+                var raw = out.raw(4 + array.length);
+                raw.putInt(array.length);
+                for (var element : array)
+                    raw.put((byte) (element ? 1 : 0));
+                break;
+            }
+            case BYTE_ARRAY: {
+                var array = (byte[]) value;
+                out.raw(4 + array.length).putInt(array.length).put(array);
+                break;
+            }
+            case SHORT_ARRAY: {
+                var array = (short[]) value;
+                var raw = out.raw(4 + array.length * 2).putInt(array.length);
+                raw.asShortBuffer().put(array);
+                raw.position(raw.position() + array.length * 2);
+                break;
+            }
+            case CHAR_ARRAY: {
+                var array = (char[]) value;
+                var raw = out.raw(4 + array.length * 2).putInt(array.length);
+                raw.asCharBuffer().put(array);
+                raw.position(raw.position() + array.length * 2);
+                break;
+            }
+            case INT_ARRAY: {
+                var array = (int[]) value;
+                var raw = out.raw(4 + array.length * 4).putInt(array.length);
+                raw.asIntBuffer().put(array);
+                raw.position(raw.position() + array.length * 4);
+                break;
+            }
+            case LONG_ARRAY: {
+                var array = (long[]) value;
+                var raw = out.raw(4 + array.length * 8).putInt(array.length);
+                raw.asLongBuffer().put(array);
+                raw.position(raw.position() + array.length * 8);
+                break;
+            }
+            case FLOAT_ARRAY: {
+                var array = (float[]) value;
+                var raw = out.raw(4 + array.length * 4).putInt(array.length);
+                raw.asFloatBuffer().put(array);
+                raw.position(raw.position() + array.length * 4);
+                break;
+            }
+            case DOUBLE_ARRAY: {
+                var array = (double[]) value;
+                var raw = out.raw(4 + array.length * 8).putInt(array.length);
+                raw.asDoubleBuffer().put(array);
+                raw.position(raw.position() + array.length * 8);
+                break;
+            }
+            case VECTOR2F: {
+                var vector = (Vector2f) value;
+                out.raw(4 + 8).putInt(2).putFloat(vector.x).putFloat(vector.y);
+                break;
+            }
+            case VECTOR3F: {
+                var vector = (Vector3f) value;
+                out.raw(4 + 12).putInt(3).putFloat(vector.x).putFloat(vector.y).putFloat(vector.z);
+                break;
+            }
+            case VECTOR4F: {
+                var vector = (Vector4f) value;
+                out.raw(4 + 16).putInt(4).putFloat(vector.x).putFloat(vector.y).putFloat(vector.z).putFloat(vector.w);
+                break;
+            }
+            case VECTOR2I: {
+                var vector = (Vector2i) value;
+                out.raw(4 + 8).putInt(2).putInt(vector.x).putInt(vector.y);
+                break;
+            }
+            case VECTOR3I: {
+                var vector = (Vector3i) value;
+                out.raw(4 + 12).putInt(3).putInt(vector.x).putInt(vector.y).putInt(vector.z);
+                break;
+            }
+            case QUATERNIONF: {
+                var quaternion = (Quaternionf) value;
+                out.raw(4 + 16).putInt(4).putFloat(quaternion.x).putFloat(quaternion.y).putFloat(quaternion.z).putFloat(quaternion.w);
+                break;
+            }
+            case MATRIX4F: {
+                //The buffer methods of joml expect a direct buffer
+                var raw = out.raw(4 + 64).putInt(16);
+                raw.asFloatBuffer().put(((Matrix4f) value).get(new float[16]));
+                raw.position(raw.position() + 64);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown kind " + kind);
+        }
+    }
+
+    private static Object decodeValue(Kind kind, Class<?> fieldType, ByteBuffer in, LongFunction<EntityRef> entities) {
+        switch (kind) {
+            case STRING:
+                return SnapshotBuffer.getString(in);
+            case URN: {
+                var urn = SnapshotBuffer.getString(in);
+                return urn == null ? null : new ResourceUrn(urn);
+            }
+            case ENUM: {
+                var ordinal = in.getInt();
+                var constants = fieldType.getEnumConstants();
+                return ordinal < 0 || ordinal >= constants.length ? null : constants[ordinal];
+            }
+            case ENTITY:
+                return entities.apply(in.getLong());
+            default:
+                break;
+        }
+        var length = in.getInt();
+        if (length < 0)
+            return null;
+        //Every element takes at least a byte, so a corrupt length fails before it's allocated
+        SnapshotBuffer.require(in, length);
+        switch (kind) {
+            case BOOLEAN_ARRAY: {
+                var array = new boolean[length];
+                for (var i = 0; i < length; i++)
+                    array[i] = in.get() != 0;
+                return array;
+            }
+            case BYTE_ARRAY: {
+                var array = new byte[length];
+                in.get(array);
+                return array;
+            }
+            case SHORT_ARRAY: {
+                var array = new short[length];
+                in.asShortBuffer().get(array);
+                in.position(in.position() + length * 2);
+                return array;
+            }
+            case CHAR_ARRAY: {
+                var array = new char[length];
+                in.asCharBuffer().get(array);
+                in.position(in.position() + length * 2);
+                return array;
+            }
+            case INT_ARRAY: {
+                var array = new int[length];
+                in.asIntBuffer().get(array);
+                in.position(in.position() + length * 4);
+                return array;
+            }
+            case LONG_ARRAY: {
+                var array = new long[length];
+                in.asLongBuffer().get(array);
+                in.position(in.position() + length * 8);
+                return array;
+            }
+            case FLOAT_ARRAY: {
+                var array = new float[length];
+                in.asFloatBuffer().get(array);
+                in.position(in.position() + length * 4);
+                return array;
+            }
+            case DOUBLE_ARRAY: {
+                var array = new double[length];
+                in.asDoubleBuffer().get(array);
+                in.position(in.position() + length * 8);
+                return array;
+            }
+            case VECTOR2F:
+                return new Vector2f(in.getFloat(), in.getFloat());
+            case VECTOR3F:
+                return new Vector3f(in.getFloat(), in.getFloat(), in.getFloat());
+            case VECTOR4F:
+                return new Vector4f(in.getFloat(), in.getFloat(), in.getFloat(), in.getFloat());
+            case VECTOR2I:
+                return new Vector2i(in.getInt(), in.getInt());
+            case VECTOR3I:
+                return new Vector3i(in.getInt(), in.getInt(), in.getInt());
+            case QUATERNIONF:
+                return new Quaternionf(in.getFloat(), in.getFloat(), in.getFloat(), in.getFloat());
+            case MATRIX4F: {
+                var elements = new float[16];
+                in.asFloatBuffer().get(elements);
+                in.position(in.position() + 64);
+                return new Matrix4f().set(elements);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown kind " + kind);
+        }
+    }
+}
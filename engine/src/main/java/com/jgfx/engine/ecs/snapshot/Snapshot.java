@@ -0,0 +1,67 @@
+package com.jgfx.engine.ecs.snapshot;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The captured state of an entity manager, created by {@link SnapshotWriter#capture()}. A snapshot only holds read only
+ * buffers that are never changed after they were encoded, so it can be written from any thread while the world keeps
+ * running.
+ * <p>
+ * The file starts with a header holding the entity ids, followed by a block per component class. A block holds the
+ * name of the class, the ids of the entities that have the component and the component data, either as a column per
+ * field or as the raw rows of a packed column.
+ */
+public final class Snapshot {
+    static final int MAGIC = 0x52534E50;
+    static final int VERSION = 1;
+    static final byte FIELDS = 0;
+    static final byte PACKED = 1;
+
+    @Getter private final int entityCount;
+    private final ByteBuffer header;
+    private final List<ByteBuffer> blocks;
+
+    Snapshot(int entityCount, ByteBuffer header, List<ByteBuffer> blocks) {
+        this.entityCount = entityCount;
+        this.header = header;
+        this.blocks = blocks;
+    }
+
+    /**
+     * @return returns the size of the snapshot in bytes
+     */
+    public long size() {
+        long size = header.remaining();
+        for (var block : blocks)
+            size += block.remaining();
+        return size;
+    }
+
+    /**
+     * Writes the snapshot into a temporary file next to the path, which then replaces the file at the path. An existing
+     * snapshot is never left half written
+     */
+    public void write(Path path) throws IOException {
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        var buffers = new ByteBuffer[blocks.size() + 1];
+        buffers[0] = header.duplicate();
+        for (var i = 0; i < blocks.size(); i++)
+            buffers[i + 1] = blocks.get(i).duplicate();
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var remaining = size();
+            while (remaining > 0)
+                remaining -= channel.write(buffers);
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
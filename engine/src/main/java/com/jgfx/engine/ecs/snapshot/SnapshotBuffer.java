@@ -0,0 +1,115 @@
+package com.jgfx.engine.ecs.snapshot;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A growable heap buffer that a block of a snapshot is encoded into. Everything is written in the native byte order, so
+ * packed rows can be copied as they are.
+ */
+final class SnapshotBuffer {
+    private ByteBuffer buffer;
+
+    SnapshotBuffer(int capacity) {
+        this.buffer = ByteBuffer.allocate(Math.max(64, capacity)).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Makes sure the given number of bytes can be written
+     */
+    SnapshotBuffer ensure(int bytes) {
+        if (buffer.remaining() >= bytes)
+            return this;
+        var capacity = buffer.capacity();
+        while (capacity - buffer.position() < bytes)
+            capacity <<= 1;
+        var grown = ByteBuffer.allocate(capacity).order(ByteOrder.nativeOrder());
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+        return this;
+    }
+
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * The buffer is replaced when it grows, so it shouldn't be kept
+     *
+     * @return returns the buffer, with room for at least the given number of bytes
+     */
+    ByteBuffer raw(int bytes) {
+        ensure(bytes);
+        return buffer;
+    }
+
+    void put(byte value) {
+        ensure(1).buffer.put(value);
+    }
+
+    void putInt(int value) {
+        ensure(4).buffer.putInt(value);
+    }
+
+    void putInt(int at, int value) {
+        buffer.putInt(at, value);
+    }
+
+    void putLong(long value) {
+        ensure(8).buffer.putLong(value);
+    }
+
+    void putLong(int at, long value) {
+        buffer.putLong(at, value);
+    }
+
+    void putFloat(float value) {
+        ensure(4).buffer.putFloat(value);
+    }
+
+    /**
+     * Writes the length of the string followed by it's utf-8 bytes, a null string has a length of -1
+     */
+    void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensure(bytes.length).buffer.put(bytes);
+    }
+
+    /**
+     * @return returns a read only view of the written bytes
+     */
+    ByteBuffer finish() {
+        return buffer.duplicate().flip().slice().asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Reads a string that was written by {@link #putString(String)}
+     */
+    static String getString(ByteBuffer in) {
+        var length = in.getInt();
+        if (length < 0)
+            return null;
+        require(in, length);
+        var bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks that the given number of bytes can still be read, before a length read from a file is used to allocate
+     *
+     * @throws BufferUnderflowException if there are less bytes left, or the number is negative
+     */
+    static void require(ByteBuffer in, long bytes) {
+        if (bytes < 0 || bytes > in.remaining())
+            throw new BufferUnderflowException();
+    }
+}
@@ -0,0 +1,195 @@
+package com.jgfx.engine.ecs.snapshot;
+
+import com.google.common.collect.Lists;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.packed.PackedComponent;
+import com.jgfx.engine.ecs.component.packed.PackedLayout;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.entity.pool.EntityTable;
+import com.jgfx.engine.ecs.entity.ref.BaseEntityRef;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import gnu.trove.impl.Constants;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Loads a snapshot written by {@link Snapshot#write(Path)}. The file is memory mapped and the entities are restored
+ * with their original ids. Blocks of classes that no longer exist or can't be encoded anymore are skipped.
+ * <p>
+ * The whole file is read and validated before the manager is changed, so a corrupt or truncated snapshot fails with an
+ * {@link IOException} and leaves the current entities untouched.
+ */
+public final class SnapshotReader {
+    private static final Logger logger = LogManager.getLogger(SnapshotReader.class);
+    private static final int NO_ENTITY = -1;
+
+    private SnapshotReader() {
+    }
+
+    /**
+     * Replaces every entity of the manager with the entities of the snapshot. This must be done from the main thread
+     * while no systems are being processed
+     *
+     * @return returns the number of restored entities
+     */
+    public static int load(Path path, EntityManager manager) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.nativeOrder());
+            return load(in, manager, path);
+        }
+    }
+
+    private static int load(ByteBuffer in, EntityManager manager, Path path) throws IOException {
+        if (in.remaining() < 17 || in.getInt() != Snapshot.MAGIC)
+            throw new IOException("'" + path + "' isn't a snapshot");
+        var version = in.getInt();
+        if (version != Snapshot.VERSION)
+            throw new IOException("Snapshot '" + path + "' has an unsupported version " + version);
+        var littleEndian = in.get() == 0;
+        if (littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN))
+            throw new IOException("Snapshot '" + path + "' was written with a different byte order");
+        var nextIndex = in.getInt();
+        var entityCount = in.getInt();
+        Parsed parsed;
+        try {
+            parsed = parse(in, manager, path, nextIndex, entityCount);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Snapshot '" + path + "' is truncated or corrupt", e);
+        }
+        //Only a snapshot that was read completely replaces the entities of the manager
+        manager.clear();
+        manager.setNextId(nextIndex);
+        for (var i = 0; i < entityCount; i++) {
+            var ref = parsed.refs[i];
+            if (!manager.registerId(ref.getId()))
+                throw new IllegalStateException("Id " + ref.getId() + " of snapshot '" + path + "' was validated but couldn't be registered");
+            manager.putEntity(ref.getId(), ref);
+        }
+        for (var i = 0; i < entityCount; i++)
+            manager.insertRef(parsed.refs[i], parsed.components[i] != null ? parsed.components[i] : Collections.emptyList());
+        return entityCount;
+    }
+
+    /**
+     * Reads the ids and every block without changing the manager
+     */
+    private static Parsed parse(ByteBuffer in, EntityManager manager, Path path, int nextIndex, int entityCount) throws IOException {
+        if (nextIndex < 1 || entityCount < 0 || entityCount >= nextIndex)
+            throw new IOException("Snapshot '" + path + "' has an invalid header");
+        SnapshotBuffer.require(in, entityCount * 8L);
+        var refs = new BaseEntityRef[entityCount];
+        var positions = new TLongIntHashMap(entityCount, Constants.DEFAULT_LOAD_FACTOR, 0, NO_ENTITY);
+        var indices = new TIntHashSet(entityCount);
+        for (var i = 0; i < entityCount; i++) {
+            var id = in.getLong();
+            var index = EntityTable.index(id);
+            if (index <= 0 || index >= nextIndex)
+                throw new IOException("Snapshot '" + path + "' contains the id " + id + " which is out of range");
+            if (!indices.add(index))
+                throw new IOException("Snapshot '" + path + "' contains the id " + id + " more than once");
+            //The refs are created before any component is decoded, so components can refer to any entity
+            refs[i] = new BaseEntityRef(manager, id);
+            positions.put(id, i);
+        }
+        LongFunction<EntityRef> entities = id -> {
+            var position = positions.get(id);
+            return position == NO_ENTITY ? EntityRef.NULL : refs[position];
+        };
+        List<Component>[] components = new List[entityCount];
+        var blockCount = in.getInt();
+        for (var block = 0; block < blockCount; block++) {
+            var length = in.getInt();
+            SnapshotBuffer.require(in, length);
+            var end = in.position() + length;
+            readBlock(in.slice().limit(length).order(in.order()), entities, positions, components);
+            in.position(end);
+        }
+        return new Parsed(refs, components);
+    }
+
+    private static void readBlock(ByteBuffer in, LongFunction<EntityRef> entities, TLongIntMap positions, List<Component>[] components) throws IOException {
+        var name = SnapshotBuffer.getString(in);
+        var layout = in.get();
+        var rows = in.getInt();
+        if (rows < 0)
+            throw new IOException("Block of component '" + name + "' has a negative number of rows");
+        SnapshotBuffer.require(in, rows * 8L);
+        var ids = new long[rows];
+        in.asLongBuffer().get(ids);
+        in.position(in.position() + rows * 8);
+        var cls = componentClass(name);
+        if (cls == null)
+            return;
+        var codec = ComponentCodec.of(cls);
+        if (codec == null)
+            return;
+        var decoded = new Component[rows];
+        for (var row = 0; row < rows; row++)
+            decoded[row] = codec.instantiate();
+        if (layout == Snapshot.PACKED) {
+            var stride = in.getInt();
+            var packed = PackedLayout.of((Class<? extends PackedComponent>) cls);
+            if (packed.getStride() != stride) {
+                logger.warn("Skipping packed component '{}', it's layout changed since the snapshot was saved", name);
+                return;
+            }
+            SnapshotBuffer.require(in, (long) rows * stride);
+            for (var row = 0; row < rows; row++)
+                packed.load(in, in.position() + row * stride, (PackedComponent) decoded[row]);
+        } else {
+            try {
+                codec.decode(in, decoded, rows, entities);
+            } catch (IllegalAccessException e) {
+                throw new IOException("Failed to decode component '" + name + "'", e);
+            }
+        }
+        for (var row = 0; row < rows; row++) {
+            var position = positions.get(ids[row]);
+            if (position == NO_ENTITY)
+                continue;
+            if (components[position] == null)
+                components[position] = Lists.newArrayListWithCapacity(4);
+            components[position].add(decoded[row]);
+        }
+    }
+
+    private static Class<? extends Component> componentClass(String name) {
+        try {
+            var loader = Thread.currentThread().getContextClassLoader();
+            var cls = Class.forName(name, false, loader != null ? loader : SnapshotReader.class.getClassLoader());
+            if (Component.class.isAssignableFrom(cls))
+                return (Class<? extends Component>) cls;
+            logger.warn("Skipping '{}' from a snapshot, it's not a component", name);
+        } catch (ClassNotFoundException e) {
+            logger.warn("Skipping component '{}' from a snapshot, the class doesn't exist", name);
+        }
+        return null;
+    }
+
+    /**
+     * The entities and components of a snapshot that was read completely
+     */
+    private static final class Parsed {
+        private final BaseEntityRef[] refs;
+        private final List<Component>[] components;
+
+        private Parsed(BaseEntityRef[] refs, List<Component>[] components) {
+            this.refs = refs;
+            this.components = components;
+        }
+    }
+}
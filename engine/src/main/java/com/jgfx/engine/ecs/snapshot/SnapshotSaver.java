@@ -0,0 +1,54 @@
+package com.jgfx.engine.ecs.snapshot;
+
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Saves snapshots from a background thread. Only capturing the changed component classes is done on the calling
+ * thread, writing the file happens while the world keeps running. Saves are written in the order they were requested.
+ */
+public final class SnapshotSaver implements AutoCloseable {
+    @Getter private final SnapshotWriter writer;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "snapshot-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SnapshotSaver(EntityManager manager) {
+        this.writer = new SnapshotWriter(manager);
+    }
+
+    /**
+     * Captures the manager and writes it in the background. This must be called from the main thread while no systems
+     * are being processed
+     *
+     * @return returns a future that completes with the path once the file is written
+     */
+    public CompletableFuture<Path> save(Path path) {
+        var snapshot = writer.capture();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                snapshot.write(path);
+                return path;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Finishes the pending saves and stops the thread
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,161 @@
+package com.jgfx.engine.ecs.snapshot;
+
+import com.google.common.collect.Lists;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.ComponentType;
+import com.jgfx.engine.ecs.component.packed.PackedComponent;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.entity.pool.EntityTable;
+import gnu.trove.list.array.TLongArrayList;
+
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Captures snapshots of an entity manager. The encoded block of each component class is kept, and the next capture
+ * only encodes the classes that had a component added, written or removed since, using the {@link
+ * com.jgfx.engine.ecs.component.ChangeTicks} of the manager. Writes that aren't marked (by {@code getMutable} or
+ * {@code markChanged}) aren't picked up until the class is encoded again, which {@link #invalidate()} forces. Packed
+ * columns are always copied, as that's a single copy of their rows.
+ * <p>
+ * Capturing must be done from the main thread while no systems are being processed.
+ */
+public final class SnapshotWriter {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private final EntityManager manager;
+    //The last encoded block of each type index, EMPTY if the type had no components
+    private ByteBuffer[] blocks = new ByteBuffer[0];
+    private int encodedAt;
+
+    public SnapshotWriter(EntityManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Makes the next capture encode every component class
+     */
+    public void invalidate() {
+        Arrays.fill(blocks, null);
+    }
+
+    /**
+     * @return returns the current state of the manager
+     */
+    public Snapshot capture() {
+        var ticks = manager.getChangeTicks();
+        var now = ticks.current();
+        var ids = entityIds();
+        var header = new SnapshotBuffer(24 + ids.size() * 8);
+        header.putInt(Snapshot.MAGIC);
+        header.putInt(Snapshot.VERSION);
+        header.put((byte) (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0 : 1));
+        header.putInt(manager.getEntityTable().getNextIndex());
+        header.putInt(ids.size());
+        for (var i = 0; i < ids.size(); i++)
+            header.putLong(ids.get(i));
+        var count = ComponentType.count();
+        if (blocks.length < count)
+            blocks = Arrays.copyOf(blocks, count);
+        List<ByteBuffer> written = Lists.newArrayList();
+        for (var index = 0; index < count; index++) {
+            var type = ComponentType.byIndex(index);
+            var cls = type.getType();
+            if (cls.isInterface() || Modifier.isAbstract(cls.getModifiers()))
+                continue;
+            ByteBuffer block;
+            if (type.isPacked())
+                block = encodePacked((Class<? extends PackedComponent>) cls);
+            else if (blocks[index] != null && ticks.lastWritten(index) <= encodedAt)
+                block = blocks[index];
+            else
+                block = blocks[index] = encode(cls);
+            if (block != EMPTY)
+                written.add(block);
+        }
+        header.putInt(written.size());
+        encodedAt = now;
+        return new Snapshot(ids.size(), header.finish(), written);
+    }
+
+    private TLongArrayList entityIds() {
+        var table = manager.getEntityTable();
+        var ids = new TLongArrayList(table.getAliveCount());
+        for (var index = 1; index < table.getNextIndex(); index++) {
+            var id = table.idAt(index);
+            if (id != EntityTable.NULL_ID)
+                ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Encodes the components of the exact class
+     */
+    private ByteBuffer encode(Class<? extends Component> cls) {
+        var codec = ComponentCodec.of(cls);
+        var iterator = manager.getComponentStore().componentIterator(cls);
+        if (codec == null || iterator == null)
+            return EMPTY;
+        var ids = new TLongArrayList();
+        List<Component> components = Lists.newArrayList();
+        while (iterator.hasNext()) {
+            iterator.advance();
+            //Stores that keep components under their super types as well return sub classes
+            if (iterator.value().getClass() != cls)
+                continue;
+            ids.add(iterator.key());
+            components.add(iterator.value());
+        }
+        if (ids.isEmpty())
+            return EMPTY;
+        var out = new SnapshotBuffer(64 + ids.size() * 16);
+        var lengthAt = begin(out, cls, Snapshot.FIELDS, ids);
+        try {
+            codec.encode(components.toArray(new Component[0]), components.size(), out);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Failed to encode component '" + cls.getName() + "'", e);
+        }
+        out.putInt(lengthAt, out.position() - lengthAt - 4);
+        return out.finish();
+    }
+
+    /**
+     * Copies the rows of the packed column as they are
+     */
+    private ByteBuffer encodePacked(Class<? extends PackedComponent> cls) {
+        var column = manager.getPackedStore().column(cls);
+        var rows = column.size();
+        if (rows == 0)
+            return EMPTY;
+        var stride = column.getLayout().getStride();
+        var ids = new TLongArrayList(rows);
+        for (var row = 0; row < rows; row++)
+            ids.add(column.id(row));
+        var out = new SnapshotBuffer(64 + rows * (8 + stride));
+        var lengthAt = begin(out, cls, Snapshot.PACKED, ids);
+        out.putInt(stride);
+        var data = column.buffer().duplicate();
+        data.position(0).limit(rows * stride);
+        out.raw(rows * stride).put(data);
+        out.putInt(lengthAt, out.position() - lengthAt - 4);
+        return out.finish();
+    }
+
+    /**
+     * Writes the start of a block, the length of the block is written at the returned position once it's known
+     */
+    private static int begin(SnapshotBuffer out, Class<?> cls, byte layout, TLongArrayList ids) {
+        var lengthAt = out.position();
+        out.putInt(0);
+        out.putString(cls.getName());
+        out.put(layout);
+        out.putInt(ids.size());
+        var raw = out.raw(ids.size() * 8);
+        for (var i = 0; i < ids.size(); i++)
+            raw.putLong(ids.get(i));
+        return lengthAt;
+    }
+}
@@ -0,0 +1,20 @@
+package com.jgfx.engine.event;
+
+/**
+ * What a queued {@link EventBus} does with an event that's posted while it's queue is full
+ */
+public enum Backpressure {
+    /**
+     * The posting thread waits until the queue is drained. A post from the thread that drains the queue is delivered
+     * right away instead, it would wait for itself otherwise
+     */
+    BLOCK,
+    /**
+     * The event is dropped and counted
+     */
+    DROP,
+    /**
+     * The event is delivered right away on the posting thread, as if the bus wasn't queued
+     */
+    DELIVER
+}
@@ -1,13 +1,17 @@
 package com.jgfx.engine.event;
 
-import com.google.common.eventbus.EventBus;
-
 /**
- * represents the different types of event buses
+ * represents the different types of event buses, see {@link EventBus} for how events are delivered
  */
 public enum Bus {
-    LOGIC(new EventBus("logic")), NETWORK(new EventBus("networking")), ECS(new EventBus("entities")), ASSET(new EventBus("assets")), GUI(new EventBus("gui"));
-    private EventBus bus;
+    LOGIC(new EventBus("logic")), NETWORK(new EventBus("networking")), ECS(new EventBus("entities")), ASSET(new EventBus("assets")), GUI(new EventBus("gui")),
+    /**
+     * The contact events of the physics world, begin and end contacts are queued until the bus is drained. Contact
+     * events used to be posted on {@link #LOGIC}, listeners must subscribe to this bus with
+     * {@code @EventSubscriber(Bus.PHYSICS)} to keep receiving them
+     */
+    PHYSICS(new EventBus("physics"));
+    private final EventBus bus;
 
     Bus(EventBus bus) {
         this.bus = bus;
@@ -22,6 +26,56 @@ public enum Bus {
         bus.post(event);
     }
 
+    /**
+     * Posts an event to the given bus and delivers it right away, even if the bus is queued
+     *
+     * @param event the event to post
+     */
+    public void postNow(Object event) {
+        bus.postNow(event);
+    }
+
+    /**
+     * Queues the events that are posted to the given bus until it's drained
+     *
+     * @param capacity     the number of events the queue holds
+     * @param backpressure what's done with events that are posted while the queue is full
+     */
+    public void queue(int capacity, Backpressure backpressure) {
+        bus.queue(capacity, backpressure);
+    }
+
+    /**
+     * Delivers the events that are posted to the given bus right away again
+     */
+    public void immediate() {
+        bus.immediate();
+    }
+
+    /**
+     * Delivers the queued events of the given bus
+     *
+     * @return returns the number of delivered events
+     */
+    public int drain() {
+        return bus.drain();
+    }
+
+    /**
+     * @return returns the queue of the given bus, or null if it isn't queued
+     */
+    public EventQueue getQueue() {
+        return bus.getQueue();
+    }
+
+    /**
+     * Delivers the queued events of every bus
+     */
+    public static void drainAll() {
+        for (var bus : values())
+            bus.drain();
+    }
+
     /**
      * Registers an event listener to the given bus
      *
@@ -30,4 +84,13 @@ public enum Bus {
     public void register(Object listener) {
         bus.register(listener);
     }
+
+    /**
+     * Unregisters an event listener from the given bus
+     *
+     * @param listener the listener to unregister
+     */
+    public void unregister(Object listener) {
+        bus.unregister(listener);
+    }
 }
@@ -0,0 +1,289 @@
+package com.jgfx.engine.event;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches events to the subscribers of listeners. The subscriber methods of a listener are found once when it's
+ * registered, every method gets an invoker generated with {@link LambdaMetafactory}, so posting calls the methods
+ * directly instead of through reflection. Methods marked with {@link Subscribe}, or with Guava's subscribe annotation,
+ * are subscribers.
+ * <p>
+ * The subscribers of every event class, including the subscribers of it's super classes and interfaces, are kept in
+ * an array that's resolved on the first post of the class, so posting doesn't allocate. Events are delivered on the
+ * posting thread right away, an event posted by a subscriber is delivered before the post that caused it returns. A
+ * subscriber that throws is logged and the event is still delivered to the other subscribers.
+ * <p>
+ * A bus can be {@link #queue queued} instead, posting then only adds the event to an {@link EventQueue} and the
+ * events are delivered in one batch when the bus is {@link #drain drained}, on the thread that drains it. This lets
+ * events be posted from any thread, or from places where game logic shouldn't run, like the middle of a physics step.
+ */
+public final class EventBus {
+    private static final Logger logger = LogManager.getLogger(EventBus.class);
+    private static final Subscriber[] NONE = new Subscriber[0];
+    private static final long BLOCK_WAIT_NANOS = 50_000;
+    private final String name;
+    //The subscribers by the event type of their method, changed only while registering
+    private final Map<Class<?>, List<Subscriber>> subscribers = Maps.newHashMap();
+    //The subscribers of every event class that was posted, cleared whenever a listener is registered or unregistered
+    private final Map<Class<?>, Subscriber[]> dispatch = new ConcurrentHashMap<>();
+    //The queue of a queued bus, or null if events are delivered right away
+    private volatile EventQueue queue;
+    //The thread that last drained the queue, it must never wait for the queue to be drained
+    private volatile Thread drainThread;
+    private final Consumer<Object> delivery = this::deliver;
+
+    public EventBus(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Registers every subscriber method of the listener, including the methods of it's super classes. Registering
+     * the same listener again does nothing
+     */
+    public synchronized void register(Object listener) {
+        var found = 0;
+        for (var cls = listener.getClass(); cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (var method : cls.getDeclaredMethods()) {
+                if (!isSubscriber(method) || method.isBridge())
+                    continue;
+                if (method.getParameterCount() != 1 || method.getParameterTypes()[0].isPrimitive() || Modifier.isStatic(method.getModifiers()))
+                    throw new IllegalArgumentException("Subscriber '" + cls.getSimpleName() + "#" + method.getName() + "' must be an instance method that takes exactly one event");
+                var eventType = method.getParameterTypes()[0];
+                var list = subscribers.computeIfAbsent(eventType, type -> Lists.newArrayList());
+                //A listener that's registered again, like a subsystem that's injected twice, keeps one subscriber
+                if (isRegistered(list, listener, method))
+                    continue;
+                list.add(new Subscriber(listener, invoker(method), method));
+                found++;
+            }
+        }
+        if (found > 0)
+            dispatch.clear();
+        logger.debug("Registered {} subscriber(s) of {} to the {} bus", found, listener.getClass().getSimpleName(), name);
+    }
+
+    /**
+     * Removes every subscriber of the listener
+     */
+    public synchronized void unregister(Object listener) {
+        var removed = false;
+        for (var list : subscribers.values())
+            removed |= list.removeIf(subscriber -> subscriber.target == listener);
+        if (removed)
+            dispatch.clear();
+    }
+
+    /**
+     * Posts the event, on a queued bus it's delivered when the bus is drained, otherwise right away
+     */
+    public void post(Object event) {
+        var queue = this.queue;
+        if (queue == null) {
+            deliver(event);
+            return;
+        }
+        if (queue.offer(event))
+            return;
+        switch (queue.getBackpressure()) {
+            case DROP:
+                queue.onDropped();
+                break;
+            case DELIVER:
+                queue.onOverflowed();
+                deliver(event);
+                break;
+            case BLOCK:
+                if (Thread.currentThread() == drainThread) {
+                    queue.onOverflowed();
+                    deliver(event);
+                    break;
+                }
+                queue.onBlocked();
+                while (!queue.offer(event))
+                    LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+                break;
+        }
+    }
+
+    /**
+     * Delivers the event right away on the calling thread, even if the bus is queued. This is for events whose
+     * subscribers must run before the poster continues
+     */
+    public void postNow(Object event) {
+        deliver(event);
+    }
+
+    /**
+     * Makes posts add events to a queue instead of delivering them, the events are delivered by {@link #drain}. If
+     * the bus was already queued, the events of the old queue are delivered first
+     *
+     * @param capacity     the number of events the queue holds before the backpressure applies
+     * @param backpressure what's done with events that are posted while the queue is full
+     */
+    public synchronized void queue(int capacity, Backpressure backpressure) {
+        var next = new EventQueue(capacity, backpressure);
+        var previous = queue;
+        queue = next;
+        if (previous != null)
+            previous.drain(delivery);
+    }
+
+    /**
+     * Makes posts deliver events right away again, the events that are still queued are delivered first
+     */
+    public synchronized void immediate() {
+        var previous = queue;
+        queue = null;
+        if (previous != null)
+            previous.drain(delivery);
+    }
+
+    /**
+     * Delivers the events that were queued until now, events posted by the subscribers are left for the next drain.
+     * This does nothing if the bus isn't queued
+     *
+     * @return returns the number of delivered events
+     */
+    public int drain() {
+        var queue = this.queue;
+        if (queue == null)
+            return 0;
+        drainThread = Thread.currentThread();
+        return queue.drain(delivery);
+    }
+
+    /**
+     * @return returns true if posted events are queued
+     */
+    public boolean isQueued() {
+        return queue != null;
+    }
+
+    /**
+     * @return returns the queue of the bus, or null if it isn't queued
+     */
+    public EventQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * Delivers the event to every subscriber of it's class, it's super classes and it's interfaces
+     */
+    private void deliver(Object event) {
+        var eventSubscribers = dispatch.get(event.getClass());
+        if (eventSubscribers == null)
+            eventSubscribers = resolve(event.getClass());
+        for (var subscriber : eventSubscribers) {
+            try {
+                subscriber.invoker.accept(subscriber.target, event);
+            } catch (Throwable throwable) {
+                logger.error("Subscriber '{}#{}' of the {} bus failed to handle {}", subscriber.method.getDeclaringClass().getSimpleName(),
+                        subscriber.method.getName(), name, event.getClass().getSimpleName(), throwable);
+            }
+        }
+    }
+
+    /**
+     * @return returns true if any subscriber receives events of the class
+     */
+    public boolean hasSubscribers(Class<?> eventClass) {
+        var eventSubscribers = dispatch.get(eventClass);
+        return (eventSubscribers == null ? resolve(eventClass) : eventSubscribers).length > 0;
+    }
+
+    /**
+     * Collects the subscribers of the event class and every type it's assignable to
+     */
+    private synchronized Subscriber[] resolve(Class<?> eventClass) {
+        var resolved = dispatch.get(eventClass);
+        if (resolved != null)
+            return resolved;
+        List<Subscriber> found = Lists.newArrayList();
+        for (var entry : subscribers.entrySet())
+            if (entry.getKey().isAssignableFrom(eventClass))
+                found.addAll(entry.getValue());
+        resolved = found.isEmpty() ? NONE : found.toArray(NONE);
+        dispatch.put(eventClass, resolved);
+        return resolved;
+    }
+
+    /**
+     * @return returns true if the list already has a subscriber for the method of the listener
+     */
+    private static boolean isRegistered(List<Subscriber> list, Object listener, Method method) {
+        for (var subscriber : list)
+            if (subscriber.target == listener && subscriber.method.equals(method))
+                return true;
+        return false;
+    }
+
+    /**
+     * @return returns true if the method is marked as a subscriber
+     */
+    private static boolean isSubscriber(Method method) {
+        return method.isAnnotationPresent(Subscribe.class) || method.isAnnotationPresent(com.google.common.eventbus.Subscribe.class);
+    }
+
+    /**
+     * Generates an invoker that calls the method directly, if the method can't be accessed that way it's invoked
+     * through reflection instead
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> invoker(Method method) {
+        var owner = method.getDeclaringClass();
+        try {
+            var lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            var handle = lookup.unreflect(method);
+            var eventType = method.getParameterTypes()[0];
+            var site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, owner, eventType));
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable throwable) {
+            logger.debug("Falling back to reflection for subscriber '{}#{}'", owner.getSimpleName(), method.getName(), throwable);
+            method.setAccessible(true);
+            return (target, event) -> {
+                try {
+                    method.invoke(target, event);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e.getCause() != null ? e.getCause() : e);
+                }
+            };
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EventBus[" + name + "]";
+    }
+
+    /**
+     * A subscriber method of a registered listener
+     */
+    private static final class Subscriber {
+        private final Object target;
+        private final BiConsumer<Object, Object> invoker;
+        private final Method method;
+
+        private Subscriber(Object target, BiConsumer<Object, Object> invoker, Method method) {
+            this.target = target;
+            this.invoker = invoker;
+            this.method = method;
+        }
+    }
+}
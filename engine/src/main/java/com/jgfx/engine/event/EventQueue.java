@@ -0,0 +1,170 @@
+package com.jgfx.engine.event;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A bounded ring buffer that any number of threads post events to without locking, and that a single thread drains.
+ * Every slot has a sequence that tells the producers and the consumer whose turn it is, a producer claims a slot by
+ * moving the tail forward and publishes the event by moving the slot's sequence forward.
+ * <p>
+ * The queue keeps the metrics of it's depth, the depth is the number of events that are waiting to be drained.
+ */
+public final class EventQueue {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    //Only moved by the draining thread, it's volatile so the depth can be read from any thread
+    private volatile long head;
+    @Getter private final Backpressure backpressure;
+    //********Stats
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    @Getter private volatile long drained;
+    @Getter private volatile int lastDrainDepth;
+    @Getter private volatile int maxDrainDepth;
+
+    /**
+     * @param capacity the number of events the queue holds, it's rounded up to a power of two
+     */
+    public EventQueue(int capacity, Backpressure backpressure) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Event queue capacity must be between 1 and 2^30, got " + capacity);
+        var size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.backpressure = backpressure;
+        for (var i = 0; i < size; i++)
+            sequences.set(i, i);
+    }
+
+    /**
+     * Adds the event, this can be called from any thread
+     *
+     * @return returns false if the queue is full
+     */
+    public boolean offer(Object event) {
+        var position = claim();
+        if (position < 0)
+            return false;
+        publish(position, event);
+        return true;
+    }
+
+    /**
+     * Claims the next slot by moving the tail forward, the slot isn't drained until it's {@link #publish published}
+     *
+     * @return returns the position of the claimed slot, or -1 if the queue is full
+     */
+    long claim() {
+        while (true) {
+            var position = tail.get();
+            var difference = sequences.get((int) (position & mask)) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1))
+                    return position;
+            } else if (difference < 0)
+                return -1;
+        }
+    }
+
+    /**
+     * Stores the event in the claimed slot and hands the slot to the draining thread
+     */
+    void publish(long position, Object event) {
+        var index = (int) (position & mask);
+        slots[index] = event;
+        sequences.set(index, position + 1);
+    }
+
+    /**
+     * Delivers the events that are in the queue when the drain starts, events that are posted while draining are left
+     * for the next drain. Only one thread may drain at a time
+     *
+     * @return returns the number of delivered events
+     */
+    synchronized int drain(Consumer<Object> delivery) {
+        var position = head;
+        var depth = (int) Math.min(Integer.MAX_VALUE, tail.get() - position);
+        lastDrainDepth = depth;
+        if (depth > maxDrainDepth)
+            maxDrainDepth = depth;
+        var delivered = 0;
+        while (delivered < depth) {
+            var index = (int) (position & mask);
+            //The slot was claimed but the producer didn't publish it yet, it's picked up by the next drain
+            if (sequences.get(index) != position + 1)
+                break;
+            var event = slots[index];
+            slots[index] = null;
+            sequences.set(index, position + slots.length);
+            head = ++position;
+            delivered++;
+            delivery.accept(event);
+        }
+        drained += delivered;
+        return delivered;
+    }
+
+    /**
+     * @return returns the number of events that are waiting to be drained
+     */
+    public int depth() {
+        return (int) Math.max(0, Math.min(slots.length, tail.get() - head));
+    }
+
+    /**
+     * @return returns the number of events the queue holds
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return returns the number of events that were dropped because the queue was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return returns the number of posts that had to wait because the queue was full
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return returns the number of events that were delivered right away because the queue was full
+     */
+    public long getOverflowed() {
+        return overflowed.sum();
+    }
+
+    void onDropped() {
+        dropped.increment();
+    }
+
+    void onBlocked() {
+        blocked.increment();
+    }
+
+    void onOverflowed() {
+        overflowed.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "EventQueue[" + depth() + "/" + capacity() + ", " + backpressure + ", drained=" + drained + ", maxDepth=" + maxDrainDepth
+                + ", dropped=" + getDropped() + ", blocked=" + getBlocked() + ", overflowed=" + getOverflowed() + "]";
+    }
+}
@@ -0,0 +1,15 @@
+package com.jgfx.engine.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a listener as a subscriber, the method must take exactly one parameter which is the type of event
+ * it receives. Subscribers receive the events of their type and of every sub type, see {@link EventBus}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Subscribe {
+}
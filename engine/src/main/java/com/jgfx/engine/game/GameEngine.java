@@ -12,12 +12,16 @@ import com.jgfx.engine.ecs.entity.system.EntitySystem;
 import com.jgfx.engine.event.Bus;
 import com.jgfx.engine.injection.Injector;
 import com.jgfx.engine.load.LoadProcess;
+import com.jgfx.engine.metrics.Histogram;
+import com.jgfx.engine.metrics.Metrics;
+import com.jgfx.engine.profiler.Profiler;
 import com.jgfx.engine.status.EngineStatus;
 import com.jgfx.engine.status.EngineStatusUpdatedEvent;
 import com.jgfx.engine.status.StandardGameStatus;
 import com.jgfx.engine.time.EngineTime;
 import com.jgfx.engine.time.GenericTime;
 import lombok.Getter;
+import lombok.Setter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -35,10 +39,13 @@ public class GameEngine {
     @Getter private volatile boolean running;
     private volatile boolean shutdownRequested;
     @Getter private World world;
+    //Where in the frame the queued events of the buses are delivered
+    @Getter @Setter private EventDrain eventDrain = EventDrain.BEFORE_SYSTEMS;
     //========================================
     private List<EngineSubsystem> subsystems;
     private Queue<LoadProcess> loadProcesses;
     private final Logger logger = LogManager.getLogger();
+    private final Histogram frameTime = Metrics.histogram("engine.frame");
 
     public GameEngine(Name name, Version version, List<EngineSubsystem> subsystems, List<EntitySystem> entitySystems, List<LoadProcess> loadProcesses) {
         CoreContext.put(GameEngine.class, this);
@@ -54,6 +61,7 @@ public class GameEngine {
         this.loadProcesses.addAll(loadProcesses);
         //Register the entity systems
         entitySystems.forEach(world::addSystem);
+        registerMetrics();
     }
 
     /**
@@ -80,6 +88,9 @@ public class GameEngine {
      * Initialize everything
      */
     private void initialize() {
+        if (!"false".equals(System.getProperty("jgfx.metrics.jmx")))
+            Metrics.publish();
+
         preInitialization();
 
         preInitSubsystems();
@@ -123,8 +134,10 @@ public class GameEngine {
             if (next != null) {
                 Injector.ALL.inject(next, true);
                 changeStatus(() -> "Beginning load process: '" + next.getMessage() + "'.");
-                next.begin();
-                while (!next.step()) {
+                try (var scope = Profiler.scope(next.getClass().getSimpleName(), Profiler.Category.LOAD)) {
+                    next.begin();
+                    while (!next.step()) {
+                    }
                 }
                 loadProcesses.remove();
             }
@@ -201,21 +214,63 @@ public class GameEngine {
      * Updates the engine
      */
     private void update() {
-        var updateCycles = time.tick();
-        for (var subsystem : subsystems)
-            subsystem.preUpdate();
+        var start = System.nanoTime();
+        try (var frame = Profiler.scope("Frame", Profiler.Category.FRAME)) {
+            var updateCycles = time.tick();
+            for (var subsystem : subsystems)
+                try (var scope = Profiler.scope(subsystem.getName(), Profiler.Category.PRE_UPDATE)) {
+                    subsystem.preUpdate();
+                }
+
+            if (eventDrain == EventDrain.BEFORE_SYSTEMS)
+                drainEvents();
+
+            world.process();
+
+            while (updateCycles.hasNext()) {
+                float updateDelta = updateCycles.next(); // gameTime gets updated here!
+                update(updateDelta);
+            }
+
+            world.postProcess();
 
-        world.process();
+            if (eventDrain == EventDrain.AFTER_SYSTEMS)
+                drainEvents();
 
-        while (updateCycles.hasNext()) {
-            float updateDelta = updateCycles.next(); // gameTime gets updated here!
-            update(updateDelta);
+            for (EngineSubsystem subsystem : subsystems)
+                try (var scope = Profiler.scope(subsystem.getName(), Profiler.Category.POST_UPDATE)) {
+                    subsystem.postUpdate();
+                }
+
+            if (eventDrain == EventDrain.END_OF_FRAME)
+                drainEvents();
         }
+        frameTime.recordSince(start);
+        Metrics.endFrame();
+    }
 
-        world.postProcess();
+    /**
+     * Delivers the queued events of every bus
+     */
+    private void drainEvents() {
+        try (var scope = Profiler.scope("Events", Profiler.Category.EVENTS)) {
+            Bus.drainAll();
+        }
+    }
 
-        for (EngineSubsystem subsystem : subsystems)
-            subsystem.postUpdate();
+    /**
+     * Adds the gauges of the world and the event buses, see {@link Metrics}
+     */
+    private void registerMetrics() {
+        var entities = world.getEntityManager();
+        Metrics.gauge("ecs.entities", entities::getActiveEntityCount);
+        Metrics.gauge("ecs.groups", entities::getGroupCount);
+        Metrics.gauge("ecs.group.members", entities::getGroupMemberCount);
+        for (var bus : Bus.values())
+            Metrics.gauge("event." + bus.name().toLowerCase() + ".queue", () -> {
+                var queue = bus.getQueue();
+                return queue == null ? 0 : queue.depth();
+            });
     }
 
     /**
@@ -254,4 +309,22 @@ public class GameEngine {
     public void shutdown() {
         shutdownRequested = true;
     }
+
+    /**
+     * The points of a frame where the queued events of the buses can be delivered
+     */
+    public enum EventDrain {
+        /**
+         * After the subsystems are pre updated, before the systems are processed
+         */
+        BEFORE_SYSTEMS,
+        /**
+         * After the systems are post processed, before the subsystems are post updated
+         */
+        AFTER_SYSTEMS,
+        /**
+         * After the subsystems are post updated
+         */
+        END_OF_FRAME
+    }
 }
\ No newline at end of file
@@ -14,7 +14,7 @@ import org.reflections.Reflections;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -120,14 +120,16 @@ public class GameRunner {
             }
         }
 
-        for (var entitySystem : mappedEntitySystems.keySet()) {
+        //The map is concurrent so it's order changes between runs, the systems are sorted so they're created the same way
+        List<Class<? extends EntitySystem>> entitySystemClasses = Lists.newArrayList(mappedEntitySystems.keySet());
+        entitySystemClasses.sort(Comparator.comparing(Class::getName));
+        for (var entitySystem : entitySystemClasses) {
             try {
                 var constructor = entitySystem.getConstructor();
                 var instance = constructor.newInstance();
                 if (mappedEntitySystemsOrder.containsKey(entitySystem))
                     instance.setLoadAfter(mappedEntitySystemsOrder.get(entitySystem));
                 entitySystems.add(instance);
-                Collections.sort(entitySystems);
                 logger.debug("Successfully instantiated entity system '" + entitySystem.getName() + "'.");
             } catch (NoSuchMethodException | IllegalAccessException | InstantiationException | InvocationTargetException e) {
                 throw new GameRunException("Error while instantiating '" + entitySystem.getName() + "', you must provide a zero argument constructor!");
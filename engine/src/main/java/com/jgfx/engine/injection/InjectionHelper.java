@@ -11,6 +11,7 @@ import com.jgfx.engine.ecs.entity.pool.EntityManager;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.group.Group;
 import com.jgfx.engine.ecs.group.GroupBuilder;
+import com.jgfx.engine.ecs.group.GroupCollector;
 import com.jgfx.engine.event.Bus;
 import com.jgfx.engine.injection.anotations.*;
 import org.apache.logging.log4j.LogManager;
@@ -103,7 +104,7 @@ public class InjectionHelper {
                 var cls = object.getClass();
                 var fields = cls.getDeclaredFields();
                 for (var field : fields) {
-                    if (field.getType().equals(Group.class)) {
+                    if (field.getType().equals(Group.class) || field.getType().equals(GroupCollector.class)) {
                         field.setAccessible(true);
                         var builder = new GroupBuilder();
                         if (field.isAnnotationPresent(All.class)) {
@@ -122,8 +123,19 @@ public class InjectionHelper {
                             for (var oneExclude : excludeTypes)
                                 builder.exclude(oneExclude.value());
                         }
+                        if (field.isAnnotationPresent(Changed.class)) {
+                            var changedTypes = field.getDeclaredAnnotationsByType(Changed.class);
+                            for (var changed : changedTypes)
+                                builder.changed(changed.value());
+                        }
+                        if (field.isAnnotationPresent(Added.class)) {
+                            var addedTypes = field.getDeclaredAnnotationsByType(Added.class);
+                            for (var added : addedTypes)
+                                builder.added(added.value());
+                        }
                         try {
-                            field.set(object, builder.build(/*entityManager*/));
+                            var group = builder.build(/*entityManager*/);
+                            field.set(object, field.getType().equals(Group.class) ? group : group.collector());
                         } catch (IllegalAccessException e) {
                             errorMessage.set(Optional.of("Illegal access, failed to inject to object '" + object.getClass().getName() + "'."));
                             break;
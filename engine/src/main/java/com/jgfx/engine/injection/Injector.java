@@ -1,6 +1,6 @@
 package com.jgfx.engine.injection;
 
-import com.google.common.eventbus.Subscribe;
+import com.jgfx.engine.event.Subscribe;
 import com.jgfx.engine.injection.anotations.In;
 
 
@@ -0,0 +1,26 @@
+package com.jgfx.engine.injection.anotations;
+
+
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.entity.system.EntitySystem;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Filters a group so it only yields the entities where one of the components was written since the system
+ * last ran.
+ *
+ * <p>fields are configured
+ * during{@link EntitySystem#initialize()}</p>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Changed {
+    /**
+     * @return the exact component classes to check
+     */
+    Class<? extends Component>[] value() default {};
+}
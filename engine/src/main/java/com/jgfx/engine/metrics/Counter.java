@@ -0,0 +1,40 @@
+package com.jgfx.engine.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only goes up, it can be increased from any thread without contention. The counter also keeps how much
+ * it was increased during the last frame, see {@link Metrics#endFrame()}.
+ */
+public final class Counter implements CounterMXBean {
+    private final LongAdder count = new LongAdder();
+    private long frameStart;
+    private volatile long lastFrame;
+
+    Counter() {
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getLastFrame() {
+        return lastFrame;
+    }
+
+    void endFrame() {
+        var total = count.sum();
+        lastFrame = total - frameStart;
+        frameStart = total;
+    }
+}
@@ -0,0 +1,16 @@
+package com.jgfx.engine.metrics;
+
+/**
+ * The JMX view of a {@link Counter}
+ */
+public interface CounterMXBean {
+    /**
+     * @return returns the total of the counter
+     */
+    long getCount();
+
+    /**
+     * @return returns how much the counter was increased during the last frame
+     */
+    long getLastFrame();
+}
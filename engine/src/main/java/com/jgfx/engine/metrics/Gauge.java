@@ -0,0 +1,20 @@
+package com.jgfx.engine.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value that's read when the gauge is read. The supplier is called from whatever thread reads the gauge, JMX reads
+ * it from it's own threads, so it must only read values that are safe to read from any thread.
+ */
+public final class Gauge implements GaugeMXBean {
+    private final DoubleSupplier supplier;
+
+    Gauge(DoubleSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public double getValue() {
+        return supplier.getAsDouble();
+    }
+}
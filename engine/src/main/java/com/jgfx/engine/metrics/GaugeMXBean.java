@@ -0,0 +1,11 @@
+package com.jgfx.engine.metrics;
+
+/**
+ * The JMX view of a {@link Gauge}
+ */
+public interface GaugeMXBean {
+    /**
+     * @return returns the current value of the gauge
+     */
+    double getValue();
+}
@@ -0,0 +1,138 @@
+package com.jgfx.engine.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the distribution of values, for example latencies in nanoseconds, with a bounded relative error like an HDR
+ * histogram. Values below {@value #SUB_BUCKETS} get their own bucket, every larger power of two is split into
+ * {@value #SUB_BUCKETS} linear buckets, so a percentile is off by at most 1/{@value #SUB_BUCKETS} of the value.
+ * Recording doesn't lock or allocate and can be done from any thread.
+ */
+public final class Histogram implements HistogramMXBean {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    //One group of sub buckets for the small values and one for every power of two up to 2^62
+    private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+    }
+
+    /**
+     * Records a value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the nanos since the start, where the start was taken from {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Walks the buckets once without copying them, so it can be read every frame without allocating. The total is
+     * taken from the count, a value that's recorded while walking may be counted or not
+     *
+     * @return returns the value below which the percentage of the recorded values falls, it's the highest value of
+     * the bucket the percentile falls into
+     */
+    public long percentile(double percentile) {
+        var total = count.sum();
+        if (total == 0)
+            return 0;
+        var target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        var seen = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target)
+                return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMean() {
+        var recorded = count.sum();
+        return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public long getP50() {
+        return percentile(50);
+    }
+
+    @Override
+    public long getP90() {
+        return percentile(90);
+    }
+
+    @Override
+    public long getP99() {
+        return percentile(99);
+    }
+
+    @Override
+    public long getP999() {
+        return percentile(99.9);
+    }
+
+    /**
+     * Forgets the recorded values, values recorded while resetting may be kept
+     */
+    @Override
+    public void reset() {
+        for (var i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * @return returns the bucket of the value
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        var exponent = 63 - Long.numberOfLeadingZeros(value);
+        var group = exponent - SUB_BITS + 1;
+        var sub = (int) (value >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+        return group * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return returns the highest value of the bucket
+     */
+    static long upperBound(int index) {
+        var group = index >>> SUB_BITS;
+        var sub = index & (SUB_BUCKETS - 1);
+        if (group == 0)
+            return sub;
+        var shift = group - 1;
+        var lower = (long) (SUB_BUCKETS + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
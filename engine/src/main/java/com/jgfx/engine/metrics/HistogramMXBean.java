@@ -0,0 +1,25 @@
+package com.jgfx.engine.metrics;
+
+/**
+ * The JMX view of a {@link Histogram}
+ */
+public interface HistogramMXBean {
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getP999();
+
+    /**
+     * Forgets the recorded values
+     */
+    void reset();
+}
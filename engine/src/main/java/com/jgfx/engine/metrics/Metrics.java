@@ -0,0 +1,180 @@
+package com.jgfx.engine.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The registry of the engine metrics, for example
+ * <pre>
+ * private final Histogram buildTime = Metrics.histogram("chunk.mesh.build");
+ * ...
+ * var start = System.nanoTime();
+ * build();
+ * buildTime.recordSince(start);
+ * </pre>
+ * Metrics are created once by name and kept, so they should be looked up once and stored in a field. Updating a metric
+ * doesn't lock or allocate.
+ * <p>
+ * While the registry is published every metric is registered as an MBean under {@code com.jgfx:type=<type>,name=<name>},
+ * so it can be read with jconsole or any other JMX client. The engine publishes the registry at startup unless the
+ * {@code jgfx.metrics.jmx} system property is false.
+ */
+public final class Metrics {
+    private static final String DOMAIN = "com.jgfx";
+    private static final Logger logger = LogManager.getLogger();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static volatile boolean published;
+    //Moved forward whenever a metric is added or replaced, so readers know when to look the metrics up again
+    private static final AtomicInteger version = new AtomicInteger();
+
+    private Metrics() {
+    }
+
+    /**
+     * @return returns the counter with the given name, it's created if it doesn't exist yet
+     */
+    public static Counter counter(String name) {
+        var counter = counters.get(name);
+        if (counter != null)
+            return counter;
+        counter = counters.computeIfAbsent(name, key -> register("Counter", key, new Counter()));
+        version.incrementAndGet();
+        return counter;
+    }
+
+    /**
+     * Adds a gauge, a gauge that was added before with the same name is replaced
+     *
+     * @param supplier reads the value, it's called from the thread that reads the gauge
+     */
+    public static Gauge gauge(String name, DoubleSupplier supplier) {
+        var gauge = new Gauge(supplier);
+        gauges.compute(name, (key, previous) -> {
+            if (previous != null)
+                unregister("Gauge", key);
+            return register("Gauge", key, gauge);
+        });
+        version.incrementAndGet();
+        return gauge;
+    }
+
+    /**
+     * @return returns the histogram with the given name, it's created if it doesn't exist yet
+     */
+    public static Histogram histogram(String name) {
+        var histogram = histograms.get(name);
+        if (histogram != null)
+            return histogram;
+        histogram = histograms.computeIfAbsent(name, key -> register("Histogram", key, new Histogram()));
+        version.incrementAndGet();
+        return histogram;
+    }
+
+    /**
+     * Ends the frame of every counter, this is called by the engine once at the end of every frame
+     */
+    public static void endFrame() {
+        for (var counter : counters.values())
+            counter.endFrame();
+    }
+
+    /**
+     * @return returns the number of metrics, this only changes when a metric is added
+     */
+    public static int size() {
+        return counters.size() + gauges.size() + histograms.size();
+    }
+
+    /**
+     * @return returns a number that changes whenever a metric is added or a gauge is replaced, unlike the size
+     */
+    public static int version() {
+        return version.get();
+    }
+
+    public static void forEachCounter(BiConsumer<String, Counter> consumer) {
+        counters.forEach(consumer);
+    }
+
+    public static void forEachGauge(BiConsumer<String, Gauge> consumer) {
+        gauges.forEach(consumer);
+    }
+
+    public static void forEachHistogram(BiConsumer<String, Histogram> consumer) {
+        histograms.forEach(consumer);
+    }
+
+    /**
+     * Registers every metric as an MBean, metrics that are created afterwards are registered when they're created
+     */
+    public static synchronized void publish() {
+        if (published)
+            return;
+        published = true;
+        counters.forEach((name, counter) -> register("Counter", name, counter));
+        gauges.forEach((name, gauge) -> register("Gauge", name, gauge));
+        histograms.forEach((name, histogram) -> register("Histogram", name, histogram));
+    }
+
+    /**
+     * Unregisters every metric from the platform MBean server, the metrics themselves are kept
+     */
+    public static synchronized void unpublish() {
+        if (!published)
+            return;
+        counters.keySet().forEach(name -> unregister("Counter", name));
+        gauges.keySet().forEach(name -> unregister("Gauge", name));
+        histograms.keySet().forEach(name -> unregister("Histogram", name));
+        published = false;
+    }
+
+    public static boolean isPublished() {
+        return published;
+    }
+
+    /**
+     * @return returns the name the metric is registered under
+     */
+    public static ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    private static <T> T register(String type, String name, T metric) {
+        if (!published)
+            return metric;
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var objectName = objectName(type, name);
+            if (server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+            server.registerMBean(metric, objectName);
+        } catch (JMException e) {
+            logger.warn("Failed to register the " + type.toLowerCase() + " '" + name + "' over jmx", e);
+        }
+        return metric;
+    }
+
+    private static void unregister(String type, String name) {
+        if (!published)
+            return;
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var objectName = objectName(type, name);
+            if (server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warn("Failed to unregister the " + type.toLowerCase() + " '" + name + "' over jmx", e);
+        }
+    }
+}
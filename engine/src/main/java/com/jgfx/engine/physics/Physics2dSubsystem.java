@@ -4,19 +4,35 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.jgfx.assets.context.CoreContext;
 import com.jgfx.engine.ecs.EngineSubsystem;
+import com.jgfx.engine.event.Backpressure;
 import com.jgfx.engine.event.Bus;
 import com.jgfx.engine.injection.anotations.In;
+import com.jgfx.engine.metrics.Metrics;
 import com.jgfx.engine.physics.events.ContactBeginEvent;
 import com.jgfx.engine.physics.events.ContactEndEvent;
 import com.jgfx.engine.physics.events.PostSolveContactEvent;
 import com.jgfx.engine.physics.events.PreSolveContactEvent;
 import com.jgfx.engine.time.EngineTime;
 import lombok.Getter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.util.Objects;
 
+/**
+ * Steps the physics world. Contact events are posted on the {@link Bus#PHYSICS physics bus}, contacts that begin or
+ * end during the step are queued and delivered when the buses are drained, with a copy of their contact data. Solve
+ * events are delivered during the step so their subscribers can still change the contact.
+ * <p>
+ * Begin and end contacts are never delivered during the step. When more contacts happen between two drains than the
+ * queue holds, the rest are dropped, counted by the {@code physics.contacts.dropped} gauge and logged after the step.
+ */
 public class Physics2dSubsystem implements ContactListener, EngineSubsystem {
+    private static final Logger logger = LogManager.getLogger(Physics2dSubsystem.class);
+    private static final int CONTACT_QUEUE_CAPACITY = 4096;
     private World physicsWorld;
+    //The dropped contacts that were already logged
+    private long droppedContacts;
     @Getter private final String name = "Physics";
     @Getter private boolean loaded = false;
 
@@ -28,6 +44,13 @@ public class Physics2dSubsystem implements ContactListener, EngineSubsystem {
         World.setVelocityThreshold(0f);
         physicsWorld = CoreContext.put(World.class, new World(new Vector2(0, 0), false));
         Objects.requireNonNull(physicsWorld).setContactListener(this);
+        //Contacts are posted from inside the step, so they're delivered later. A full queue must not deliver them during
+        //the step either, so they're dropped instead
+        Bus.PHYSICS.queue(CONTACT_QUEUE_CAPACITY, Backpressure.DROP);
+        Metrics.gauge("physics.contacts.dropped", () -> {
+            var queue = Bus.PHYSICS.getQueue();
+            return queue == null ? 0 : queue.getDropped();
+        });
         loaded = true;
     }
 
@@ -37,6 +60,12 @@ public class Physics2dSubsystem implements ContactListener, EngineSubsystem {
     @Override
     public void postUpdate() {
         physicsWorld.step(1.0f / 60.0f, 6, 6);
+        var queue = Bus.PHYSICS.getQueue();
+        if (queue != null && queue.getDropped() > droppedContacts) {
+            logger.warn("Dropped {} contact event(s) during the step, more than {} contacts happened between two drains of the physics bus",
+                    queue.getDropped() - droppedContacts, queue.capacity());
+            droppedContacts = queue.getDropped();
+        }
     }
 
     /**
@@ -44,7 +73,7 @@ public class Physics2dSubsystem implements ContactListener, EngineSubsystem {
      */
     @Override
     public void beginContact(Contact contact) {
-        Bus.LOGIC.post(new ContactBeginEvent(contact));
+        Bus.PHYSICS.post(new ContactBeginEvent(contact));
     }
 
     /**
@@ -52,7 +81,7 @@ public class Physics2dSubsystem implements ContactListener, EngineSubsystem {
      */
     @Override
     public void endContact(Contact contact) {
-        Bus.LOGIC.post(new ContactEndEvent(contact));
+        Bus.PHYSICS.post(new ContactEndEvent(contact));
     }
 
     /**
@@ -60,7 +89,7 @@ public class Physics2dSubsystem implements ContactListener, EngineSubsystem {
      */
     @Override
     public void preSolve(Contact contact, Manifold oldManifold) {
-        Bus.LOGIC.post(new PreSolveContactEvent(contact, oldManifold));
+        Bus.PHYSICS.postNow(new PreSolveContactEvent(contact, oldManifold));
     }
 
     /**
@@ -68,7 +97,7 @@ public class Physics2dSubsystem implements ContactListener, EngineSubsystem {
      */
     @Override
     public void postSolve(Contact contact, ContactImpulse impulse) {
-        Bus.LOGIC.post(new PostSolveContactEvent(contact, impulse));
+        Bus.PHYSICS.postNow(new PostSolveContactEvent(contact, impulse));
     }
 
 }
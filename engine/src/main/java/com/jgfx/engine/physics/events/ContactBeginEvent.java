@@ -6,18 +6,20 @@ import com.jgfx.engine.physics.exceptions.InvalidContactException;
 import lombok.Getter;
 import lombok.SneakyThrows;
 
+/**
+ * Posted when two fixtures start touching
+ */
 public class ContactBeginEvent implements ContactEvent {
     @Getter private EntityRef entityA;
     @Getter private EntityRef entityB;
-    @Getter private Contact contact;
+    @Getter private final ContactManifold manifold;
 
     @SneakyThrows
     public ContactBeginEvent(Contact contact) {
-        this.contact = contact;
         if (!(contact.getFixtureA().getUserData() instanceof EntityRef) || !(contact.getFixtureB().getUserData() instanceof EntityRef))
             throw new InvalidContactException();
         this.entityA = (EntityRef) contact.getFixtureA().getUserData();
         this.entityB = (EntityRef) contact.getFixtureB().getUserData();
-
+        this.manifold = new ContactManifold(contact);
     }
 }
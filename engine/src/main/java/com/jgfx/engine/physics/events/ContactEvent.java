@@ -1,15 +1,14 @@
 package com.jgfx.engine.physics.events;
 
-import com.badlogic.gdx.physics.box2d.Contact;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 
 /**
- * A generic contact event posted by the pong physics system
+ * A generic contact event posted on the {@link com.jgfx.engine.event.Bus#PHYSICS physics bus}. These events used to be
+ * posted on the logic bus, listeners that use the default {@code @EventSubscriber} no longer receive them and must
+ * subscribe with {@code @EventSubscriber(Bus.PHYSICS)}
  */
 public interface ContactEvent {
     EntityRef getEntityA();
 
     EntityRef getEntityB();
-
-    Contact getContact();
 }
@@ -0,0 +1,30 @@
+package com.jgfx.engine.physics.events;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Contact;
+import lombok.Getter;
+
+/**
+ * A copy of the data of a contact at the time the event was posted. Box2d reuses it's contacts, so events that are
+ * delivered after the step keep this instead of the contact
+ */
+public final class ContactManifold {
+    //The normal in world coordinates, pointing from fixture a to fixture b
+    @Getter private final Vector2 normal;
+    //The contact points in world coordinates
+    @Getter private final Vector2[] points;
+    @Getter private final boolean touching;
+    @Getter private final float friction;
+    @Getter private final float restitution;
+
+    public ContactManifold(Contact contact) {
+        var manifold = contact.getWorldManifold();
+        this.normal = new Vector2(manifold.getNormal());
+        this.points = new Vector2[manifold.getNumberOfContactPoints()];
+        for (var i = 0; i < points.length; i++)
+            points[i] = new Vector2(manifold.getPoints()[i]);
+        this.touching = contact.isTouching();
+        this.friction = contact.getFriction();
+        this.restitution = contact.getRestitution();
+    }
+}
@@ -10,6 +10,7 @@ import lombok.SneakyThrows;
 public class PostSolveContactEvent implements ContactEvent {
     @Getter private EntityRef entityA;
     @Getter private EntityRef entityB;
+    //Box2d reuses the contact, so it's only valid while the event is delivered during the step
     @Getter private Contact contact;
     @Getter private ContactImpulse impulse;
 
@@ -0,0 +1,73 @@
+package com.jgfx.engine.profiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the scopes of thread recorders in the chrome trace_event format, every scope is a complete event and every
+ * thread gets a name event
+ */
+final class ChromeTraceWriter {
+    private static final int PROCESS_ID = 1;
+    private final Writer writer;
+    private boolean first = true;
+
+    ChromeTraceWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    void write(List<ThreadRecorder> recorders) throws IOException {
+        writer.write("{\"traceEvents\":[");
+        for (var recorder : recorders) {
+            next();
+            writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + PROCESS_ID + ",\"tid\":" + recorder.threadId + ",\"args\":{\"name\":");
+            string(recorder.threadName);
+            writer.write("}}");
+            var written = recorder.written;
+            var from = Math.max(recorder.clearedAt, written - ThreadRecorder.CAPACITY);
+            for (var position = from; position < written; position++) {
+                var slot = (int) (position & (ThreadRecorder.CAPACITY - 1));
+                var name = recorder.names[slot];
+                var category = recorder.categories[slot];
+                if (name == null || category == null)
+                    continue;
+                next();
+                writer.write("{\"name\":");
+                string(name);
+                writer.write(",\"cat\":\"" + category.name() + "\",\"ph\":\"X\",\"pid\":" + PROCESS_ID + ",\"tid\":" + recorder.threadId);
+                writer.write(",\"ts\":" + micros(recorder.starts[slot] - Profiler.ORIGIN) + ",\"dur\":" + micros(recorder.durations[slot]) + "}");
+            }
+        }
+        writer.write("],\"displayTimeUnit\":\"ms\"}");
+        writer.flush();
+    }
+
+    private void next() throws IOException {
+        if (!first)
+            writer.write(',');
+        first = false;
+    }
+
+    /**
+     * @return returns the nanos as microseconds, which are the unit of the trace
+     */
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+    }
+
+    private void string(String value) throws IOException {
+        writer.write('"');
+        for (var i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                writer.write('\\');
+            if (c < 0x20)
+                writer.write(String.format("\\u%04x", (int) c));
+            else
+                writer.write(c);
+        }
+        writer.write('"');
+    }
+}
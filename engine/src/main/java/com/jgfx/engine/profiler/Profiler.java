@@ -0,0 +1,115 @@
+package com.jgfx.engine.profiler;
+
+import jdk.jfr.EventType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Times scopes of the frame, for example
+ * <pre>
+ * try (var scope = Profiler.scope("ChunkMesh", Profiler.Category.JOB)) {
+ *     ...
+ * }
+ * </pre>
+ * While the profiler is enabled, every thread records it's scopes into it's own ring buffer which keeps the latest
+ * {@value ThreadRecorder#CAPACITY} scopes, recording doesn't lock or allocate. The buffers can be written as a chrome
+ * trace at any time, see {@link #writeChromeTrace}. When a JFR recording has the {@link ScopeEvent} enabled the scopes
+ * are committed as JFR events as well.
+ * <p>
+ * While the profiler is disabled a scope is a shared instance that does nothing. The profiler is enabled at startup
+ * with the {@code jgfx.profiler} system property.
+ */
+public final class Profiler {
+    private static final Scope NOOP = () -> {
+    };
+    private static final EventType JFR_EVENT = EventType.getEventType(ScopeEvent.class);
+    //Every scope is relative to this, so the trace starts close to zero
+    static final long ORIGIN = System.nanoTime();
+    private static final List<ThreadRecorder> recorders = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<ThreadRecorder> recorder = ThreadLocal.withInitial(() -> {
+        var created = new ThreadRecorder(Thread.currentThread());
+        recorders.add(created);
+        return created;
+    });
+    private static volatile boolean enabled = Boolean.getBoolean("jgfx.profiler");
+
+    private Profiler() {
+    }
+
+    /**
+     * Starts a scope on the calling thread, it ends when the returned scope is closed. Scopes must be closed in the
+     * reverse order they were started in, on the thread that started them
+     *
+     * @param name the name of the scope, this should be a constant so starting the scope doesn't allocate
+     */
+    public static Scope scope(String name, Category category) {
+        if (!enabled)
+            return NOOP;
+        return recorder.get().begin(name, category, JFR_EVENT.isEnabled());
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Stops recording, the recorded scopes are kept until they're cleared
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Forgets the scopes that were recorded until now
+     */
+    public static void clear() {
+        recorders.forEach(ThreadRecorder::clear);
+    }
+
+    /**
+     * Writes the recorded scopes of every thread as chrome trace_event json, the file can be opened with
+     * chrome://tracing or perfetto. Threads that are recording while the trace is written may have their latest scopes
+     * left out
+     */
+    public static void writeChromeTrace(Path path) throws IOException {
+        try (var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeChromeTrace(writer);
+        }
+    }
+
+    /**
+     * Writes the recorded scopes of every thread as chrome trace_event json
+     */
+    public static void writeChromeTrace(Writer writer) throws IOException {
+        new ChromeTraceWriter(writer).write(recorders);
+    }
+
+    /**
+     * A scope that's being timed
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        /**
+         * Ends the scope
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * The kinds of work that are timed, it's the category of the scope in the trace
+     */
+    public enum Category {
+        FRAME, PRE_UPDATE, SYSTEM, POST_PROCESS, POST_UPDATE, EVENTS, LOAD, JOB
+    }
+}
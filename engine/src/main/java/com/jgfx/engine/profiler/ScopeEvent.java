@@ -0,0 +1,26 @@
+package com.jgfx.engine.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JFR event of a profiler scope, it's only created while a recording has it enabled
+ */
+@Name("com.jgfx.ProfilerScope")
+@Label("Profiler Scope")
+@Description("A timed scope of the engine's frame")
+@Category("JGFX")
+@StackTrace(false)
+final class ScopeEvent extends Event {
+    @Label("Name") final String name;
+    @Label("Category") final String category;
+
+    ScopeEvent(String name, String category) {
+        this.name = name;
+        this.category = category;
+    }
+}
@@ -0,0 +1,72 @@
+package com.jgfx.engine.profiler;
+
+/**
+ * Records the scopes of a single thread. Only the thread itself writes to the recorder, the scopes are written into a
+ * ring buffer when they end, and the number of written scopes is published last so other threads can read them.
+ */
+final class ThreadRecorder implements Profiler.Scope {
+    static final int CAPACITY = 1 << 14;
+    //Scopes nested deeper than this are counted but not recorded
+    private static final int MAX_DEPTH = 64;
+    final long threadId;
+    final String threadName;
+    //********The ring buffer of ended scopes
+    final String[] names = new String[CAPACITY];
+    final Profiler.Category[] categories = new Profiler.Category[CAPACITY];
+    final long[] starts = new long[CAPACITY];
+    final long[] durations = new long[CAPACITY];
+    //The number of scopes that were ever written, and the number that was written when the recorder was cleared
+    volatile long written;
+    volatile long clearedAt;
+    //********The scopes that are still open
+    private final String[] openNames = new String[MAX_DEPTH];
+    private final Profiler.Category[] openCategories = new Profiler.Category[MAX_DEPTH];
+    private final long[] openStarts = new long[MAX_DEPTH];
+    private final ScopeEvent[] openEvents = new ScopeEvent[MAX_DEPTH];
+    private int depth;
+
+    ThreadRecorder(Thread thread) {
+        this.threadId = thread.getId();
+        this.threadName = thread.getName();
+    }
+
+    Profiler.Scope begin(String name, Profiler.Category category, boolean jfr) {
+        if (depth < MAX_DEPTH) {
+            openNames[depth] = name;
+            openCategories[depth] = category;
+            if (jfr) {
+                var event = new ScopeEvent(name, category.name());
+                event.begin();
+                openEvents[depth] = event;
+            }
+            openStarts[depth] = System.nanoTime();
+        }
+        depth++;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        var end = System.nanoTime();
+        if (depth == 0)
+            return;
+        if (--depth >= MAX_DEPTH)
+            return;
+        var event = openEvents[depth];
+        if (event != null) {
+            openEvents[depth] = null;
+            event.commit();
+        }
+        var position = written;
+        var slot = (int) (position & (CAPACITY - 1));
+        names[slot] = openNames[depth];
+        categories[slot] = openCategories[depth];
+        starts[slot] = openStarts[depth];
+        durations[slot] = end - openStarts[depth];
+        written = position + 1;
+    }
+
+    void clear() {
+        clearedAt = written;
+    }
+}
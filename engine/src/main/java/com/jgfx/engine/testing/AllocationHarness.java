@@ -0,0 +1,132 @@
+package com.jgfx.engine.testing;
+
+import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import lombok.Getter;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Measures the bytes a block of code allocates on the calling thread, so tests can hold per frame code to an
+ * allocation budget, for example
+ * <pre>
+ * AllocationHarness.measure("ChunkBlocks.getBlock", 10_000, () -> blocks.getBlock(1, 0, 1)).assertWithin(0);
+ * </pre>
+ * The block is run for a number of warmup iterations first, so the jit has compiled it and escape analysis had it's
+ * chance to remove allocations the same way it would in a running game. The measured iterations are repeated a few
+ * times and the lowest result is used, so allocations made by the jit or class loading on the same thread don't fail
+ * a test by accident.
+ * <p>
+ * Only the calling thread is measured, work handed to other threads isn't part of the result.
+ */
+public final class AllocationHarness {
+    private static final int ROUNDS = 3;
+    private static final com.sun.management.ThreadMXBean threads = threads();
+    //The bytes reading the allocated bytes itself allocates, this is subtracted from every measurement
+    private static final long overhead = calibrate();
+
+    private AllocationHarness() {
+    }
+
+    /**
+     * Runs the block for as many warmup iterations as measured iterations, then measures it
+     */
+    public static Result measure(String name, int iterations, Runnable block) {
+        return measure(name, iterations, iterations, block);
+    }
+
+    /**
+     * Runs the block for the warmup iterations, then measures the bytes allocated by the measured iterations
+     */
+    public static Result measure(String name, int warmup, int iterations, Runnable block) {
+        if (iterations <= 0)
+            throw new IllegalArgumentException("The number of iterations must be positive, got " + iterations);
+        for (var i = 0; i < warmup; i++)
+            block.run();
+        var lowest = Long.MAX_VALUE;
+        for (var round = 0; round < ROUNDS; round++)
+            lowest = Math.min(lowest, allocated(iterations, block));
+        return new Result(name, iterations, lowest);
+    }
+
+    /**
+     * Measures the updates of a system, one update is one iteration. The system must already be injected and
+     * initialized, it's updated the same way the system manager updates it
+     */
+    public static Result measure(EntitySystem system, int iterations) {
+        return measure(system.getClass().getSimpleName(), iterations, system::update);
+    }
+
+    /**
+     * @return returns the bytes allocated by the iterations on the calling thread
+     */
+    private static long allocated(int iterations, Runnable block) {
+        var before = threads.getCurrentThreadAllocatedBytes();
+        for (var i = 0; i < iterations; i++)
+            block.run();
+        var after = threads.getCurrentThreadAllocatedBytes();
+        return Math.max(0, after - before - overhead);
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        var bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            throw new UnsupportedOperationException("The jvm can't measure the bytes allocated by a thread");
+        var threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported())
+            throw new UnsupportedOperationException("The jvm can't measure the bytes allocated by a thread");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    private static long calibrate() {
+        var lowest = Long.MAX_VALUE;
+        for (var i = 0; i < 1000; i++) {
+            var before = threads.getCurrentThreadAllocatedBytes();
+            var after = threads.getCurrentThreadAllocatedBytes();
+            lowest = Math.min(lowest, after - before);
+        }
+        return lowest;
+    }
+
+    /**
+     * The bytes allocated by the measured iterations
+     */
+    public static final class Result {
+        @Getter private final String name;
+        @Getter private final int iterations;
+        //The bytes allocated by all of the measured iterations
+        @Getter private final long bytes;
+
+        private Result(String name, int iterations, long bytes) {
+            this.name = name;
+            this.iterations = iterations;
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return returns the bytes allocated by one iteration on average
+         */
+        public double getBytesPerIteration() {
+            return (double) bytes / iterations;
+        }
+
+        /**
+         * Fails if an iteration allocated more than the budget on average
+         *
+         * @param bytesPerIteration the budget, 0 for code that must not allocate at all
+         * @return returns this result
+         * @throws AssertionError if the budget was exceeded
+         */
+        public Result assertWithin(double bytesPerIteration) {
+            if (getBytesPerIteration() > bytesPerIteration)
+                throw new AssertionError(this + " which exceeds it's budget of " + bytesPerIteration + " bytes per iteration");
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "'%s' allocated %.2f bytes per iteration (%d bytes over %d iterations)", name, getBytesPerIteration(), bytes, iterations);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.jgfx.engine.ecs.entity.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the ids of the entity table, and that they can be created while other threads read the table
+ */
+public class EntityTableTest {
+
+    @Test
+    public void releasedIdsBecomeStale() {
+        var table = new EntityTable();
+        var id = table.create();
+        assertTrue(table.isAlive(id));
+        assertTrue(table.release(id));
+        assertFalse(table.isAlive(id));
+        var recycled = table.create();
+        assertEquals(EntityTable.index(id), EntityTable.index(recycled));
+        assertNotEquals(id, recycled);
+        assertFalse(table.isAlive(id));
+        assertEquals(recycled, table.idAt(EntityTable.index(recycled)));
+    }
+
+    @Test
+    public void idsCreatedOnOtherThreadsAreAliveWhileTheTableGrows() throws InterruptedException {
+        var table = new EntityTable();
+        var created = new ConcurrentLinkedQueue<Long>();
+        var threads = 4;
+        var perThread = 20_000;
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(threads);
+        for (var i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (var j = 0; j < perThread; j++)
+                        created.add(table.create());
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        var failures = new AtomicInteger();
+        start.countDown();
+        //Reads race the creations, which keep growing the arrays
+        while (done.getCount() > 0) {
+            Long id;
+            while ((id = created.poll()) != null)
+                if (!table.isAlive(id))
+                    failures.incrementAndGet();
+        }
+        done.await();
+        assertEquals(0, failures.get());
+        assertEquals(threads * perThread, table.getAliveCount());
+        assertEquals(threads * perThread + 1, table.getNextIndex());
+    }
+}
@@ -0,0 +1,99 @@
+package com.jgfx.engine.ecs.entity.system;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the order {@link SystemOrdering} resolves, and that it doesn't depend on the order the systems were added in
+ */
+public class SystemOrderingTest {
+
+    @Test
+    public void unconstrainedSystemsAreOrderedByClassName() {
+        List<EntitySystem> systems = Lists.newArrayList(new Charlie(), new Alpha(), new Bravo());
+        assertEquals(List.of(Alpha.class, Bravo.class, Charlie.class), classes(SystemOrdering.sort(systems)));
+    }
+
+    @Test
+    public void orderIsTheSameForEveryDiscoveryOrder() {
+        List<EntitySystem> systems = Lists.newArrayList(new Alpha(), new Bravo(), new Charlie(), new Late(), new AfterCharlie(),
+                new BeforeAlpha(), new Input());
+        var expected = classes(SystemOrdering.sort(systems));
+        assertEquals(List.of(Input.class, BeforeAlpha.class, Alpha.class, Bravo.class, Charlie.class, AfterCharlie.class, Late.class), expected);
+        var random = new Random(42);
+        for (var i = 0; i < 20; i++) {
+            Collections.shuffle(systems, random);
+            assertEquals(expected, classes(SystemOrdering.sort(systems)));
+        }
+    }
+
+    @Test
+    public void loadAfterIsRespected() {
+        var alpha = new Alpha();
+        alpha.setLoadAfter(new Class[]{Charlie.class});
+        var sorted = classes(SystemOrdering.sort(Lists.newArrayList(alpha, new Bravo(), new Charlie())));
+        assertTrue(sorted.indexOf(Charlie.class) < sorted.indexOf(Alpha.class));
+    }
+
+    @Test
+    public void cyclesAreRejected() {
+        var error = assertThrows(IllegalStateException.class,
+                () -> SystemOrdering.sort(Lists.newArrayList(new Alpha(), new CycleA(), new CycleB())));
+        assertTrue(error.getMessage().contains("CycleA"));
+        assertTrue(error.getMessage().contains("CycleB"));
+        assertFalse(error.getMessage().contains("Alpha"));
+    }
+
+    @Test
+    public void constraintsAgainstThePhasesAreRejected() {
+        assertThrows(IllegalStateException.class, () -> SystemOrdering.sort(Lists.newArrayList(new Input(), new BeforeInput())));
+    }
+
+    private static List<Class<?>> classes(List<EntitySystem> systems) {
+        return systems.stream().map(Object::getClass).collect(Collectors.toList());
+    }
+
+    public static class Alpha extends EntitySystem {
+    }
+
+    public static class Bravo extends EntitySystem {
+    }
+
+    public static class Charlie extends EntitySystem {
+    }
+
+    @SystemOrder(before = Alpha.class)
+    public static class BeforeAlpha extends EntitySystem {
+    }
+
+    @SystemOrder(after = Charlie.class)
+    public static class AfterCharlie extends EntitySystem {
+    }
+
+    @SystemOrder(phase = Phase.INPUT)
+    public static class Input extends EntitySystem {
+    }
+
+    @SystemOrder(phase = Phase.LATE_UPDATE)
+    public static class Late extends EntitySystem {
+    }
+
+    @SystemOrder(phase = Phase.LATE_UPDATE, before = Input.class)
+    public static class BeforeInput extends EntitySystem {
+    }
+
+    @SystemOrder(after = CycleB.class)
+    public static class CycleA extends EntitySystem {
+    }
+
+    @SystemOrder(after = CycleA.class)
+    public static class CycleB extends EntitySystem {
+    }
+}
@@ -0,0 +1,156 @@
+package com.jgfx.engine.ecs.group;
+
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import gnu.trove.map.hash.TLongIntHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the buckets, the suspension and the deltas of a {@link LodGroup} with a {@link DistanceLod} policy
+ */
+public class LodGroupTest {
+    private static final float DELTA = 0.1f;
+    private EntityManager manager;
+
+    @BeforeEach
+    public void setup() {
+        manager = CoreContext.put(new EntityManager(StorageMode.HASHED));
+    }
+
+    @Test
+    public void membersAreUpdatedOncePerInterval() {
+        var near = create(8, 5);
+        var mid = create(8, 15);
+        var far = create(4, 50);
+        var lod = lod(16);
+        var updates = new TLongIntHashMap();
+        //Every member of the 4 frame band is due on exactly one of any 4 frames
+        for (var frame = 0; frame < 8; frame++)
+            lod.forEach(DELTA, (entity, delta) -> updates.adjustOrPutValue(entity.getId(), 1, 1));
+        for (var entity : near) {
+            assertEquals(1, lod.interval(entity.getId()));
+            assertEquals(8, updates.get(entity.getId()));
+        }
+        for (var entity : mid) {
+            assertEquals(4, lod.interval(entity.getId()));
+            assertEquals(2, updates.get(entity.getId()));
+        }
+        for (var entity : far) {
+            assertEquals(LodPolicy.SUSPENDED, lod.interval(entity.getId()));
+            assertFalse(updates.containsKey(entity.getId()));
+        }
+        assertEquals(20, lod.count());
+        assertEquals(4, lod.getSuspendedCount());
+    }
+
+    @Test
+    public void membersAreSpreadOverTheFramesOfTheirInterval() {
+        create(8, 15);
+        var lod = lod(16);
+        for (var frame = 0; frame < 4; frame++) {
+            lod.forEach(DELTA, (entity, delta) -> {
+            });
+            assertEquals(2, lod.getUpdatedLastFrame());
+        }
+    }
+
+    @Test
+    public void lessFrequentMembersGetTheTimeSinceTheirLastUpdate() {
+        var entity = create(1, 15)[0];
+        var lod = lod(16);
+        var deltas = new float[8];
+        var count = new int[1];
+        for (var frame = 0; frame < 16; frame++)
+            lod.forEach(DELTA, (member, delta) -> deltas[count[0]++] = delta);
+        assertEquals(4, count[0]);
+        //The first update covers the frames since the member was tracked, every later one a whole interval
+        assertTrue(deltas[0] > 0 && deltas[0] <= 4 * DELTA + 1e-5f);
+        for (var i = 1; i < count[0]; i++)
+            assertEquals(4 * DELTA, deltas[i], 1e-5f);
+        assertEquals(4, lod.interval(entity.getId()));
+    }
+
+    @Test
+    public void suspendedMembersResumeWithTheTimeTheyMissed() {
+        var entity = create(1, 5)[0];
+        //Every member is evaluated again every frame
+        var lod = lod(1);
+        var updates = new int[1];
+        var last = new float[1];
+        LodGroup.Update update = (member, delta) -> {
+            updates[0]++;
+            last[0] = delta;
+        };
+        lod.forEach(DELTA, update);
+        assertEquals(1, updates[0]);
+
+        entity.get(Distance.class).value = 50;
+        for (var frame = 0; frame < 10; frame++)
+            lod.forEach(DELTA, update);
+        assertEquals(LodPolicy.SUSPENDED, lod.interval(entity.getId()));
+        assertEquals(1, lod.getSuspendedCount());
+        //The frame that evaluates the member still updates it, after that it's left alone
+        var suspendedAt = updates[0];
+        assertTrue(suspendedAt <= 2);
+
+        entity.get(Distance.class).value = 5;
+        for (var frame = 0; frame < 2 && updates[0] == suspendedAt; frame++)
+            lod.forEach(DELTA, update);
+        assertEquals(1, lod.interval(entity.getId()));
+        assertEquals(0, lod.getSuspendedCount());
+        assertEquals(suspendedAt + 1, updates[0]);
+        //The first update after resuming covers the whole time the member was suspended
+        assertTrue(last[0] >= 9 * DELTA, "Resumed with " + last[0]);
+        lod.forEach(DELTA, update);
+        assertEquals(DELTA, last[0], 1e-5f);
+    }
+
+    @Test
+    public void removedMembersAreDropped() {
+        var entities = create(4, 5);
+        var lod = lod(16);
+        lod.forEach(DELTA, (entity, delta) -> {
+        });
+        entities[0].dispose();
+        var updated = new TLongIntHashMap();
+        lod.forEach(DELTA, (entity, delta) -> updated.put(entity.getId(), 1));
+        assertFalse(updated.containsKey(entities[0].getId()));
+        assertEquals(3, updated.size());
+        assertEquals(3, lod.count());
+    }
+
+    @Test
+    public void bandsMustBeAddedFromTheNearest() {
+        assertThrows(IllegalArgumentException.class, () -> LodPolicy.distance(entity -> 0).band(20, 1).band(10, 4));
+        assertThrows(IllegalArgumentException.class, () -> LodPolicy.distance(entity -> 0).band(20, 0));
+    }
+
+    private EntityRef[] create(int count, float distance) {
+        var entities = new EntityRef[count];
+        for (var i = 0; i < count; i++)
+            entities[i] = manager.create(new Distance(distance));
+        return entities;
+    }
+
+    private LodGroup lod(int reevaluateFrames) {
+        var group = new GroupBuilder().all(Distance.class).build();
+        return group.withLod(LodPolicy.distance(entity -> entity.get(Distance.class).value)
+                .band(10, 1)
+                .band(20, 4)
+                .build(), reevaluateFrames);
+    }
+
+    public static class Distance implements Component {
+        private float value;
+
+        public Distance(float value) {
+            this.value = value;
+        }
+    }
+}
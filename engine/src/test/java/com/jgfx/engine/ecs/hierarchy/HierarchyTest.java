@@ -0,0 +1,97 @@
+package com.jgfx.engine.ecs.hierarchy;
+
+import gnu.trove.list.array.TLongArrayList;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the relations, the flattened order and the propagation of the hierarchy
+ */
+public class HierarchyTest {
+
+    @Test
+    public void removingAMarkedEntityDoesntBreakPropagation() {
+        var hierarchy = new Hierarchy();
+        hierarchy.setParent(2, 1);
+        hierarchy.setParent(3, 1);
+        hierarchy.propagate((id, parent) -> {
+        });
+        //The arrays are current, so the mark is stored by position
+        hierarchy.markDirty(3);
+        hierarchy.remove(3);
+        var visited = new TLongArrayList();
+        hierarchy.propagate((id, parent) -> visited.add(id));
+        assertFalse(visited.contains(3));
+        assertFalse(hierarchy.contains(3));
+        assertFalse(hierarchy.isDirty());
+    }
+
+    @Test
+    public void removingAMarkedEntityWhileStaleDoesntBreakPropagation() {
+        var hierarchy = new Hierarchy();
+        hierarchy.setParent(2, 1);
+        hierarchy.markDirty(2);
+        hierarchy.remove(2);
+        var visited = new TLongArrayList();
+        hierarchy.propagate((id, parent) -> visited.add(id));
+        assertFalse(visited.contains(2));
+    }
+
+    @Test
+    public void childrenOfARemovedEntityBecomeRoots() {
+        var hierarchy = new Hierarchy();
+        hierarchy.setParent(2, 1);
+        hierarchy.setParent(3, 2);
+        hierarchy.setParent(4, 2);
+        hierarchy.setParent(5, 3);
+        hierarchy.propagate((id, parent) -> {
+        });
+        hierarchy.remove(2);
+        assertEquals(Hierarchy.NO_PARENT, hierarchy.getParent(3));
+        assertEquals(Hierarchy.NO_PARENT, hierarchy.getParent(4));
+        assertEquals(0, hierarchy.depth(3));
+        assertEquals(1, hierarchy.depth(5));
+        assertFalse(hierarchy.isAncestor(1, 3));
+        assertEquals(0, hierarchy.descendantCount(1));
+        //The new roots are propagated without a parent, and their subtrees with them
+        var visited = new TLongArrayList();
+        hierarchy.propagate((id, parent) -> {
+            visited.add(id);
+            if (id == 3 || id == 4)
+                assertEquals(Hierarchy.NO_PARENT, parent);
+            if (id == 5)
+                assertEquals(3, parent);
+        });
+        assertTrue(visited.contains(3));
+        assertTrue(visited.contains(4));
+        assertTrue(visited.contains(5));
+    }
+
+    @Test
+    public void parentsArePropagatedBeforeChildren() {
+        var hierarchy = new Hierarchy();
+        hierarchy.setParent(3, 2);
+        hierarchy.setParent(2, 1);
+        hierarchy.setParent(4, 1);
+        var visited = new TLongArrayList();
+        assertEquals(4, hierarchy.propagate((id, parent) -> {
+            if (parent != Hierarchy.NO_PARENT)
+                assertTrue(visited.contains(parent));
+            visited.add(id);
+        }));
+        //Only the marked subtree is visited next time
+        hierarchy.markDirty(2);
+        visited.clear();
+        assertEquals(2, hierarchy.propagate((id, parent) -> visited.add(id)));
+        assertEquals(new TLongArrayList(new long[]{2, 3}), visited);
+    }
+
+    @Test
+    public void cyclesAreRejected() {
+        var hierarchy = new Hierarchy();
+        hierarchy.setParent(2, 1);
+        hierarchy.setParent(3, 2);
+        assertThrows(IllegalArgumentException.class, () -> hierarchy.setParent(1, 3));
+    }
+}
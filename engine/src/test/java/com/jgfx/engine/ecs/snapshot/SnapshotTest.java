@@ -0,0 +1,160 @@
+package com.jgfx.engine.ecs.snapshot;
+
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.component.packed.Packed;
+import com.jgfx.engine.ecs.component.packed.PackedComponent;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.entity.pool.EntityTable;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Saves and loads snapshots, and checks that broken files leave the manager as it was
+ */
+public class SnapshotTest {
+    //The ids start after the magic, version, byte order, next index and entity count
+    private static final int IDS_OFFSET = 17;
+    @TempDir Path directory;
+
+    @Test
+    public void roundTripKeepsIdsRefsAndPackedColumns() throws IOException {
+        for (var mode : StorageMode.values()) {
+            var manager = CoreContext.put(new EntityManager(mode));
+            //Destroying an entity and creating another one reuses it's index with the next generation
+            manager.create(new Link()).dispose();
+            var recycled = manager.create(new Link(), new Velocity(1.5f, 3));
+            var other = manager.create(new Link());
+            other.get(Link.class).target = recycled;
+            other.get(Link.class).name = "other";
+            other.get(Link.class).cached = 42;
+            assertTrue(EntityTable.generation(recycled.getId()) > 0);
+
+            var path = directory.resolve(mode + ".snapshot");
+            new SnapshotWriter(manager).capture().write(path);
+            var loaded = CoreContext.put(new EntityManager(mode));
+            assertEquals(2, SnapshotReader.load(path, loaded));
+
+            var loadedRecycled = loaded.getEntity(recycled.getId());
+            var loadedOther = loaded.getEntity(other.getId());
+            assertTrue(loadedRecycled.isExists());
+            assertTrue(loadedOther.isExists());
+            var link = loadedOther.get(Link.class);
+            assertEquals(recycled.getId(), link.target.getId());
+            assertSame(loadedRecycled, link.target);
+            assertEquals("other", link.name);
+            //Transient fields aren't saved, they keep the value the component was created with
+            assertEquals(7, link.cached);
+            var velocity = loadedRecycled.get(Velocity.class);
+            assertTrue(velocity.isPacked());
+            assertEquals(1.5f, velocity.dx());
+            assertEquals(3, velocity.steps());
+            //New entities don't collide with the restored ids
+            var fresh = loaded.create(new Link());
+            assertNotEquals(EntityTable.index(recycled.getId()), EntityTable.index(fresh.getId()));
+            assertNotEquals(EntityTable.index(other.getId()), EntityTable.index(fresh.getId()));
+        }
+    }
+
+    @Test
+    public void loadingIntoABiggerManagerKeepsCreatingEntities() throws IOException {
+        var saved = CoreContext.put(new EntityManager(StorageMode.HASHED));
+        for (var i = 0; i < 5; i++)
+            saved.create(new Link());
+        var path = directory.resolve("small.snapshot");
+        new SnapshotWriter(saved).capture().write(path);
+
+        //Reloading an earlier save, the manager has used far more indices than the snapshot
+        var manager = CoreContext.put(new EntityManager(StorageMode.HASHED));
+        for (var i = 0; i < 100; i++)
+            manager.create(new Link());
+        assertEquals(5, SnapshotReader.load(path, manager));
+        var indices = new TIntHashSet();
+        for (var i = 0; i < 200; i++) {
+            var created = manager.create(new Link());
+            assertTrue(created.isExists());
+            assertTrue(indices.add(EntityTable.index(created.getId())));
+        }
+        assertEquals(205, manager.getActiveEntityCount());
+    }
+
+    @Test
+    public void truncatedSnapshotLeavesTheManagerUntouched() throws IOException {
+        var path = save();
+        var bytes = Files.readAllBytes(path);
+        for (var length : new int[]{IDS_OFFSET + 4, bytes.length / 2, bytes.length - 3}) {
+            var truncated = directory.resolve("truncated-" + length + ".snapshot");
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            assertUntouched(truncated);
+        }
+    }
+
+    @Test
+    public void duplicateIdLeavesTheManagerUntouched() throws IOException {
+        var path = save();
+        var bytes = Files.readAllBytes(path);
+        var buffer = ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+        buffer.putLong(IDS_OFFSET + 8, buffer.getLong(IDS_OFFSET));
+        Files.write(path, bytes);
+        assertUntouched(path);
+    }
+
+    private Path save() throws IOException {
+        var manager = CoreContext.put(new EntityManager(StorageMode.HASHED));
+        var first = manager.create(new Link(), new Velocity(2, 1));
+        manager.create(new Link()).get(Link.class).target = first;
+        var path = directory.resolve("saved.snapshot");
+        new SnapshotWriter(manager).capture().write(path);
+        return path;
+    }
+
+    private void assertUntouched(Path path) {
+        var manager = CoreContext.put(new EntityManager(StorageMode.HASHED));
+        var existing = manager.create(new Link());
+        existing.get(Link.class).name = "existing";
+        assertThrows(IOException.class, () -> SnapshotReader.load(path, manager));
+        assertEquals(1, manager.getActiveEntityCount());
+        assertTrue(existing.isExists());
+        assertEquals("existing", existing.get(Link.class).name);
+    }
+
+    public static class Link implements Component {
+        private EntityRef target;
+        private String name;
+        private transient int cached = 7;
+    }
+
+    @Packed
+    public static class Velocity extends PackedComponent {
+        private float dx;
+        private int steps;
+
+        public Velocity() {
+        }
+
+        public Velocity(float dx, int steps) {
+            this.dx = dx;
+            this.steps = steps;
+        }
+
+        float dx() {
+            return isPacked() ? getFloat(0) : dx;
+        }
+
+        int steps() {
+            return isPacked() ? getInt(4) : steps;
+        }
+    }
+}
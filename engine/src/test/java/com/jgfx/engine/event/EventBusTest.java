@@ -0,0 +1,45 @@
+package com.jgfx.engine.event;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the registration and the delivery of an immediate bus
+ */
+public class EventBusTest {
+
+    @Test
+    public void registeringTwiceDeliversOnce() {
+        var bus = new EventBus("test");
+        var listener = new Counter();
+        bus.register(listener);
+        bus.register(listener);
+        bus.post("event");
+        assertEquals(1, listener.count);
+        bus.unregister(listener);
+        bus.post("event");
+        assertEquals(1, listener.count);
+    }
+
+    @Test
+    public void separateListenersOfTheSameClassBothReceive() {
+        var bus = new EventBus("test");
+        var first = new Counter();
+        var second = new Counter();
+        bus.register(first);
+        bus.register(second);
+        bus.post("event");
+        assertEquals(1, first.count);
+        assertEquals(1, second.count);
+    }
+
+    public static class Counter {
+        private int count;
+
+        @Subscribe
+        public void onEvent(String event) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.jgfx.engine.event;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the ring buffer of the event queue and the backpressure of a queued bus
+ */
+public class EventQueueTest {
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new EventQueue(1, Backpressure.DROP).capacity());
+        assertEquals(8, new EventQueue(5, Backpressure.DROP).capacity());
+        assertEquals(8, new EventQueue(8, Backpressure.DROP).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new EventQueue(0, Backpressure.DROP));
+    }
+
+    @Test
+    public void eventsKeepTheirOrderWhenTheBufferWrapsAround() {
+        var queue = new EventQueue(4, Backpressure.DROP);
+        List<Object> delivered = Lists.newArrayList();
+        var next = 0;
+        //Uneven batches so the head and the tail wrap at different slots
+        for (var round = 0; round < 50; round++) {
+            var batch = 1 + round % 4;
+            for (var i = 0; i < batch; i++)
+                assertTrue(queue.offer(next++));
+            assertEquals(batch, queue.depth());
+            assertEquals(batch, queue.drain(delivered::add));
+            assertEquals(0, queue.depth());
+        }
+        assertEquals(next, delivered.size());
+        for (var i = 0; i < next; i++)
+            assertEquals(i, delivered.get(i));
+        assertEquals(next, queue.getDrained());
+    }
+
+    @Test
+    public void offerFailsWhenFull() {
+        var queue = new EventQueue(2, Backpressure.DROP);
+        assertTrue(queue.offer("a"));
+        assertTrue(queue.offer("b"));
+        assertFalse(queue.offer("c"));
+        List<Object> delivered = Lists.newArrayList();
+        queue.drain(delivered::add);
+        assertEquals(List.of("a", "b"), delivered);
+        assertTrue(queue.offer("c"));
+    }
+
+    @Test
+    public void drainStopsAtAClaimedSlotThatIsntPublished() {
+        var queue = new EventQueue(4, Backpressure.DROP);
+        queue.offer("a");
+        var claimed = queue.claim();
+        queue.offer("c");
+        List<Object> delivered = Lists.newArrayList();
+        //The event after the claimed slot is published, but it must not be delivered before the claimed one
+        assertEquals(1, queue.drain(delivered::add));
+        assertEquals(List.of("a"), delivered);
+        assertEquals(2, queue.depth());
+        assertEquals(0, queue.drain(delivered::add));
+        queue.publish(claimed, "b");
+        assertEquals(2, queue.drain(delivered::add));
+        assertEquals(List.of("a", "b", "c"), delivered);
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    public void drainLeavesEventsPostedWhileDrainingForTheNextDrain() {
+        var bus = new EventBus("test");
+        var listener = new Listener();
+        bus.register(listener);
+        bus.queue(8, Backpressure.DROP);
+        listener.repost = bus;
+        bus.post("a");
+        assertEquals(1, bus.drain());
+        assertEquals(List.of("a"), listener.received);
+        assertEquals(1, bus.getQueue().depth());
+        assertEquals(1, bus.drain());
+        assertEquals(List.of("a", "a!"), listener.received);
+    }
+
+    @Test
+    public void dropDiscardsEventsWhileFull() {
+        var bus = new EventBus("test");
+        var listener = new Listener();
+        bus.register(listener);
+        bus.queue(2, Backpressure.DROP);
+        bus.post("a");
+        bus.post("b");
+        bus.post("c");
+        assertTrue(listener.received.isEmpty());
+        assertEquals(1, bus.getQueue().getDropped());
+        bus.drain();
+        assertEquals(List.of("a", "b"), listener.received);
+    }
+
+    @Test
+    public void deliverHandsEventsOverRightAwayWhileFull() {
+        var bus = new EventBus("test");
+        var listener = new Listener();
+        bus.register(listener);
+        bus.queue(2, Backpressure.DELIVER);
+        bus.post("a");
+        bus.post("b");
+        bus.post("c");
+        assertEquals(List.of("c"), listener.received);
+        assertEquals(1, bus.getQueue().getOverflowed());
+        bus.drain();
+        assertEquals(List.of("c", "a", "b"), listener.received);
+    }
+
+    @Test
+    public void blockWaitsForTheDrainOnOtherThreads() throws InterruptedException {
+        var bus = new EventBus("test");
+        var listener = new Listener();
+        bus.register(listener);
+        bus.queue(2, Backpressure.BLOCK);
+        bus.post("a");
+        bus.post("b");
+        var posted = new CountDownLatch(1);
+        var poster = new Thread(() -> {
+            bus.post("c");
+            posted.countDown();
+        });
+        poster.start();
+        //The poster must stay parked until the queue has room
+        while (bus.getQueue().getBlocked() == 0)
+            LockSupport.parkNanos(1_000_000);
+        assertFalse(posted.await(50, TimeUnit.MILLISECONDS));
+        assertTrue(listener.received.isEmpty());
+        bus.drain();
+        assertTrue(posted.await(5, TimeUnit.SECONDS));
+        poster.join();
+        bus.drain();
+        assertEquals(List.of("a", "b", "c"), listener.received);
+        assertEquals(1, bus.getQueue().getBlocked());
+        assertEquals(0, bus.getQueue().getOverflowed());
+    }
+
+    @Test
+    public void blockDeliversRightAwayOnTheDrainThread() {
+        var bus = new EventBus("test");
+        var listener = new Listener();
+        bus.register(listener);
+        bus.queue(2, Backpressure.BLOCK);
+        bus.drain();
+        bus.post("a");
+        bus.post("b");
+        //Waiting here would wait for this thread's own drain forever
+        bus.post("c");
+        assertEquals(List.of("c"), listener.received);
+        assertEquals(1, bus.getQueue().getOverflowed());
+        assertEquals(0, bus.getQueue().getBlocked());
+    }
+
+    public static class Listener {
+        private final List<Object> received = Lists.newArrayList();
+        private EventBus repost;
+
+        @Subscribe
+        public void onEvent(String event) {
+            received.add(event);
+            if (repost != null && !event.endsWith("!"))
+                repost.post(event + "!");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.jgfx.engine.metrics;
+
+import com.jgfx.engine.testing.AllocationHarness;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the version of the metrics, which tells readers when to look the metrics up again, and reading histograms
+ */
+public class MetricsTest {
+    private static long sink;
+
+    @Test
+    public void replacingAGaugeChangesTheVersionButNotTheSize() {
+        Metrics.gauge("test.version.gauge", () -> 1);
+        var size = Metrics.size();
+        var version = Metrics.version();
+        Metrics.gauge("test.version.gauge", () -> 2);
+        assertEquals(size, Metrics.size());
+        assertNotEquals(version, Metrics.version());
+        Metrics.forEachGauge((name, gauge) -> {
+            if (name.equals("test.version.gauge"))
+                assertEquals(2, gauge.getValue());
+        });
+    }
+
+    @Test
+    public void percentilesAreReadWithoutAllocating() {
+        var histogram = Metrics.histogram("test.percentile");
+        for (var value = 1; value <= 1000; value++)
+            histogram.record(value * 1000L);
+        assertEquals(990_000, histogram.getP99(), 990_000 / 32.0);
+        assertEquals(500_000, histogram.getP50(), 500_000 / 32.0);
+        AllocationHarness.measure("percentile", 10_000, () -> sink = histogram.getP99()).assertWithin(0);
+    }
+
+    @Test
+    public void lookingUpAnExistingMetricKeepsTheVersion() {
+        Metrics.counter("test.version.counter");
+        Metrics.histogram("test.version.histogram");
+        var version = Metrics.version();
+        Metrics.counter("test.version.counter");
+        Metrics.histogram("test.version.histogram");
+        assertEquals(version, Metrics.version());
+        Metrics.counter("test.version.other");
+        assertNotEquals(version, Metrics.version());
+    }
+}
@@ -0,0 +1,79 @@
+package com.jgfx.engine.testing;
+
+import com.jgfx.engine.ecs.World;
+import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.query.Query;
+import com.jgfx.engine.ecs.query.Query1;
+import com.jgfx.engine.injection.Injector;
+import com.jgfx.engine.time.EngineTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the harness catches allocations, and that the per frame paths of systems stay allocation free
+ */
+public class AllocationHarnessTest {
+    //Written by the measured blocks, so the jit can't remove their work
+    private static Object sink;
+    private static long total;
+
+    @Test
+    public void detectsAllocations() {
+        var result = AllocationHarness.measure("allocating", 10_000, () -> sink = new long[16]);
+        assertTrue(result.getBytesPerIteration() >= 16 * Long.BYTES, result.toString());
+        assertThrows(AssertionError.class, () -> result.assertWithin(0));
+    }
+
+    @Test
+    public void passesCodeThatDoesntAllocate() {
+        AllocationHarness.measure("arithmetic", 10_000, () -> total = total * 31 + 7).assertWithin(0);
+    }
+
+    @Test
+    public void systemUpdatesDontAllocate() {
+        var world = new World();
+        for (var i = 0; i < 1000; i++)
+            world.createEntity(new Counted(i));
+        var system = new CountingSystem();
+        Injector.ALL.inject(system, true);
+        system.initialize();
+        AllocationHarness.measure(system, 1000).assertWithin(0);
+        assertTrue(system.sum > 0);
+        world.dispose();
+    }
+
+    public static class Counted implements Component {
+        private final int value;
+
+        public Counted(int value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Adds up the values of every entity, the query and the change ticks are what every system uses per frame
+     */
+    public static class CountingSystem extends EntitySystem {
+        private Query1<Counted> counted;
+        //A method reference to this captures it, so it's created once instead of every frame
+        private final Query1.Each<Counted> adder = this::add;
+        private long sum;
+
+        @Override
+        public void initialize() {
+            counted = Query.of(Counted.class);
+        }
+
+        @Override
+        protected void process(EngineTime time) {
+            counted.forEach(adder);
+        }
+
+        private void add(Counted component) {
+            sum += component.value;
+        }
+    }
+}
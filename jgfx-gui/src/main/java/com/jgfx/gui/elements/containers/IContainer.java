@@ -1,5 +1,6 @@
 package com.jgfx.gui.elements.containers;
 
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.gui.components.common.AlignmentCmp;
 import com.jgfx.gui.components.container.ContainerCmp;
 import com.jgfx.gui.components.display.size.BoundsCmp;
@@ -63,6 +64,33 @@ public interface IContainer<T extends AbstractElement> extends IElement<T> {
      */
     List<IElement> list();
 
+    /**
+     * Makes the entities of the elements children of this container's entity in the entity hierarchy, this is called
+     * once the container and it's elements are built
+     */
+    default void linkChildren() {
+        for (var element : list())
+            link(element);
+    }
+
+    /**
+     * Makes the element's entity a child of this container's entity, this does nothing until both are built. Containers
+     * call this whenever an element is added, so elements added after the build are linked as well
+     */
+    default void link(IElement<?> element) {
+        element.entity().setParent(entity());
+    }
+
+    /**
+     * Makes the element's entity a root again if it's a child of this container's entity, containers call this
+     * whenever an element is removed
+     */
+    default void unlink(IElement<?> element) {
+        var child = element.entity();
+        if (child.isExists() && child.getParent().equals(entity()))
+            child.setParent(EntityRef.NULL);
+    }
+
     /**
      * This will sort the list based on y position
      */
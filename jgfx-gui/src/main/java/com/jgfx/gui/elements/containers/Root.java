@@ -31,27 +31,35 @@ public class Root extends AbstractElement<Root> implements IContainer<Root> {
     @Override
     public void add(IElement element) {
         elements.add(element);
+        link(element);
     }
 
     @Override
     public void add(int index, IElement element) {
         elements.add(index, element);
+        link(element);
     }
 
     @Override
     public void remove(IElement element) {
-        elements.remove(element);
+        if (elements.remove(element))
+            unlink(element);
     }
 
     @SneakyThrows
     @Override
     public void remove(int index) {
-        elements.remove(index);
+        unlink(elements.remove(index));
     }
 
     @Override
     public void removeAll(Class<? extends IElement> elementType) {
-        elements.removeIf(elementType::isInstance);
+        elements.removeIf(element -> {
+            if (!elementType.isInstance(element))
+                return false;
+            unlink(element);
+            return true;
+        });
     }
 
     @Override
@@ -107,6 +115,7 @@ public class Root extends AbstractElement<Root> implements IContainer<Root> {
         for (IElement element : elements)
             element.build();
         super.build();
+        linkChildren();
         Bus.GUI.post(new ElementUpdateEvent(this));
         return this;
     }
@@ -45,6 +45,7 @@ public abstract class AbstractStack<T extends AbstractElement> extends AbstractE
         elements.add(element);
         element.setParent(this);
         element.setChild(true);
+        link(element);
         logger.debug("Added element {} to stack {} at index {}", element.name(), name(), elements.size() - 1);
     }
 
@@ -62,6 +63,7 @@ public abstract class AbstractStack<T extends AbstractElement> extends AbstractE
             elements.add(index, element);
             element.setParent(this);
             element.setChild(true);
+            link(element);
             logger.debug("Added element {} to stack {} at index {}", element.name(), name(), index);
         }
     }
@@ -70,7 +72,8 @@ public abstract class AbstractStack<T extends AbstractElement> extends AbstractE
      * Removes a child from the container
      */
     public void remove(IElement element) {
-        elements.remove(element);
+        if (elements.remove(element))
+            unlink(element);
     }
 
     /**
@@ -78,7 +81,7 @@ public abstract class AbstractStack<T extends AbstractElement> extends AbstractE
      */
     public void remove(int index) {
         if (index >= 0 && index < elements.size())
-            elements.remove(index);
+            unlink(elements.remove(index));
     }
 
     /**
@@ -212,6 +215,8 @@ public abstract class AbstractStack<T extends AbstractElement> extends AbstractE
             add(new SpacingCmp(this));
         if (!has(BoundsCmp.class))
             add(new BoundsCmp(this));
-        return super.build();
+        var built = super.build();
+        linkChildren();
+        return built;
     }
 }
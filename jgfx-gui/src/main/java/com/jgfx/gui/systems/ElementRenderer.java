@@ -3,6 +3,9 @@ package com.jgfx.gui.systems;
 import com.jgfx.engine.assets.shader.Shader;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Phase;
+import com.jgfx.engine.ecs.entity.system.SystemOrder;
 import com.jgfx.engine.ecs.group.Group;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.*;
@@ -20,9 +23,11 @@ import com.jgfx.gui.elements.containers.IContainer;
 import com.jgfx.gui.elements.containers.Root;
 
 /**
- * Renders all elements
+ * Renders all elements, on top of whatever the game rendered
  */
 @AutoRegister
+@SystemOrder(phase = Phase.POST_RENDER)
+@MainThread
 public class ElementRenderer extends EntitySystem {
     @In GLUtils gl;
     @In ShapeUtils shapes;
@@ -38,24 +43,28 @@ public class ElementRenderer extends EntitySystem {
     @In
     Root root;
 
+    /**
+     * The elements are drawn from the element lists of their containers, so every container is drawn before it's
+     * children and elements that are added, removed or sorted after the build are drawn in their current order
+     */
     @Override
     protected void process(EngineTime time) {
         shader.start();
-        root.list().forEach(this::draw);
+        gl.alphaBlending(true);
+        var elements = root.list();
+        for (var i = 0; i < elements.size(); i++)
+            draw(elements.get(i));
+        gl.alphaBlending(false);
         shader.stop();
     }
 
-    private void draw(IElement element) {
-        gl.alphaBlending(true);
+    private void draw(IElement<?> element) {
         drawElement(element.entity());
-        if (element.is(IContainer.class)) {
-            var container = (IContainer) element;
-            for (var object : container.list()) {
-                var child = (IElement) object;
-                draw(child);
-            }
+        if (element instanceof IContainer) {
+            var children = ((IContainer<?>) element).list();
+            for (var i = 0; i < children.size(); i++)
+                draw(children.get(i));
         }
-        gl.alphaBlending(false);
     }
 
     private void drawElement(EntityRef entity) {
@@ -75,13 +84,4 @@ public class ElementRenderer extends EntitySystem {
             renderCmp.getVao().draw();
         }
     }
-
-
-    /**
-     * we want this to be the first component so we can clear the window
-     */
-    @Override
-    public int compareTo(EntitySystem o) {
-        return -1;
-    }
 }
@@ -0,0 +1,147 @@
+package com.jgfx.gui.systems;
+
+import com.google.common.collect.Lists;
+import com.jgfx.engine.assets.shader.Shader;
+import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Phase;
+import com.jgfx.engine.ecs.entity.system.SystemOrder;
+import com.jgfx.engine.game.AutoRegister;
+import com.jgfx.engine.injection.anotations.In;
+import com.jgfx.engine.injection.anotations.Resource;
+import com.jgfx.engine.injection.anotations.Single;
+import com.jgfx.engine.input.Input;
+import com.jgfx.engine.metrics.Metrics;
+import com.jgfx.engine.time.EngineTime;
+import com.jgfx.engine.utils.GLUtils;
+import com.jgfx.engine.utils.ShapeUtils;
+import com.jgfx.gui.components.camera.OrthoCameraCmp;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Matrix4f;
+import org.joml.Vector4f;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Draws the {@link Metrics} on top of everything as a column of bars, one bar per metric sorted by name. Counters show
+ * their last frame, gauges their value and histograms their 99th percentile. Every bar is scaled to the highest value
+ * it's metric has shown, it turns from green to red as it gets closer to it.
+ * <p>
+ * The overlay is hidden by default, it's toggled with F3 or shown at startup with the {@code jgfx.metrics.overlay}
+ * system property. The names of the bars are logged from top to bottom whenever it's shown.
+ */
+@AutoRegister
+@SystemOrder(phase = Phase.POST_RENDER, after = ElementRenderer.class)
+@MainThread
+public class MetricsOverlay extends EntitySystem {
+    private static final Logger logger = LogManager.getLogger(MetricsOverlay.class);
+    private static final float MARGIN = 8, PADDING = 4, BAR_WIDTH = 200, BAR_HEIGHT = 6, BAR_GAP = 2;
+    @In GLUtils gl;
+    @In ShapeUtils shapes;
+    @In Input input;
+    @Resource("engine:shaders#gui")
+    Shader shader;
+    @Single("engine:entities#camera-2d")
+    OrthoCameraCmp camera;
+    @Getter @Setter private boolean visible = Boolean.getBoolean("jgfx.metrics.overlay");
+    private final List<Bar> bars = Lists.newArrayList();
+    //The metrics version the bars were built for, the bars are rebuilt once metrics are added or replaced
+    private int builtFor = -1;
+    private final Matrix4f model = new Matrix4f();
+    private final Vector4f color = new Vector4f();
+
+    @Override
+    public void postInitialize() {
+        if (visible)
+            logBars();
+    }
+
+    @Override
+    protected void process(EngineTime time) {
+        if (input.keyPressed(Input.KEY_F3)) {
+            visible = !visible;
+            if (visible)
+                logBars();
+        }
+        if (!visible)
+            return;
+        if (builtFor != Metrics.version())
+            buildBars();
+        shader.start();
+        gl.alphaBlending(true);
+        shader.loadBool("isTextured", false);
+        shader.loadBool("isColored", true);
+        var height = bars.size() * (BAR_HEIGHT + BAR_GAP) - BAR_GAP + PADDING * 2;
+        drawRect(MARGIN, MARGIN, BAR_WIDTH + PADDING * 2, height, color.set(0, 0, 0, 0.6f));
+        var y = MARGIN + PADDING;
+        for (var bar : bars) {
+            var fill = bar.fill();
+            drawRect(MARGIN + PADDING, y, BAR_WIDTH, BAR_HEIGHT, color.set(1, 1, 1, 0.15f));
+            if (fill > 0)
+                drawRect(MARGIN + PADDING, y, BAR_WIDTH * fill, BAR_HEIGHT, color.set(fill, 1 - fill, 0, 0.9f));
+            y += BAR_HEIGHT + BAR_GAP;
+        }
+        gl.alphaBlending(false);
+        shader.stop();
+    }
+
+    private void buildBars() {
+        var version = Metrics.version();
+        bars.clear();
+        Metrics.forEachCounter((name, counter) -> bars.add(new Bar(name, counter::getLastFrame)));
+        Metrics.forEachGauge((name, gauge) -> bars.add(new Bar(name, gauge::getValue)));
+        Metrics.forEachHistogram((name, histogram) -> bars.add(new Bar(name, histogram::getP99)));
+        bars.sort(Comparator.comparing(bar -> bar.name));
+        builtFor = version;
+    }
+
+    /**
+     * Logs the metric of every bar from top to bottom, the overlay can't draw text so this is how the bars are told apart
+     */
+    private void logBars() {
+        if (builtFor != Metrics.version())
+            buildBars();
+        var order = new StringBuilder();
+        for (var i = 0; i < bars.size(); i++)
+            order.append(System.lineSeparator()).append("  ").append(i + 1).append(". ").append(bars.get(i).name);
+        logger.info("Metrics overlay bars, from the top:{}", order);
+    }
+
+    /**
+     * Draws a rectangle in pixels, the quad spans from -1 to 1 so it's moved to the center and scaled by half the size
+     */
+    private void drawRect(float x, float y, float width, float height, Vector4f color) {
+        model.identity().translate(x + width / 2, y + height / 2, 0).scale(width / 2, height / 2, 1);
+        shader.loadMat4("modelMatrix", camera.apply(model));
+        shader.loadVec4("color", color);
+        shapes.get("engine:shapes#quad").draw();
+    }
+
+    /**
+     * A bar of the overlay, it remembers the highest value of it's metric to scale against
+     */
+    private static final class Bar {
+        private final String name;
+        private final DoubleSupplier value;
+        private double peak;
+
+        private Bar(String name, DoubleSupplier value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        /**
+         * @return returns the value relative to the peak, from 0 to 1
+         */
+        private float fill() {
+            var current = value.getAsDouble();
+            peak = Math.max(peak, current);
+            return peak <= 0 ? 0 : (float) (current / peak);
+        }
+    }
+}
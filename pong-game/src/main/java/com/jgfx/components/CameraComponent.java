@@ -9,6 +9,14 @@ import org.joml.Matrix4f;
 public class CameraComponent implements Component {
     public final Matrix4f projectionMatrix, viewMatrix;
 
+    /**
+     * Creates a camera with identity matrices, the fields are filled in when it's loaded from a snapshot
+     */
+    public CameraComponent() {
+        this.projectionMatrix = new Matrix4f();
+        this.viewMatrix = new Matrix4f();
+    }
+
     public CameraComponent(float fov, float aspect, float near, float far) {
         this.projectionMatrix = new Matrix4f().perspective(fov, aspect, near, far);
         this.viewMatrix = new Matrix4f().translate(0, 0, 0).rotateX(0).rotateY(0);
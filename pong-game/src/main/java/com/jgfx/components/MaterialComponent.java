@@ -7,6 +7,13 @@ public class MaterialComponent implements Component {
     public final ResourceUrn shapeUrn;
     public final ResourceUrn textureUrn;
 
+    /**
+     * Creates a material without a shape or texture, the fields are filled in when it's loaded from a snapshot
+     */
+    public MaterialComponent() {
+        this((ResourceUrn) null, null);
+    }
+
     public MaterialComponent(ResourceUrn shapeUrn, ResourceUrn textureUrn) {
         this.shapeUrn = shapeUrn;
         this.textureUrn = textureUrn;
@@ -8,6 +8,9 @@ import com.jgfx.engine.assets.shader.Shader;
 import com.jgfx.engine.assets.texture.Texture;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Phase;
+import com.jgfx.engine.ecs.entity.system.SystemOrder;
 import com.jgfx.engine.ecs.group.Group;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.All;
@@ -19,6 +22,8 @@ import com.jgfx.engine.utils.GLUtils;
 import com.jgfx.engine.utils.ShapeUtils;
 
 @AutoRegister
+@SystemOrder(phase = Phase.RENDER)
+@MainThread
 public class PongRenderer extends EntitySystem {
     @All({Physics2dComponent.class, MaterialComponent.class}) private Group entities;
     @Resource("engine:shaders#gui") private Shader shader;
@@ -7,6 +7,7 @@ import com.jgfx.engine.injection.anotations.Resource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 
@@ -17,6 +18,8 @@ public class Blocks {
     private static final Map<ResourceUrn, Block> blocks = Maps.newConcurrentMap();
     private static final Map<Long, ResourceUrn> urnIds = Maps.newConcurrentMap();
     private static final Map<Name,Long> namedBlocks = Maps.newConcurrentMap();
+    //The blocks whose id fits in a byte, chunks store their blocks as bytes so they're looked up without boxing
+    private static final Optional<Block>[] byteBlocks = emptyByteBlocks();
     private static final Logger logger = LogManager.getLogger(Blocks.class);
 
     /**
@@ -30,11 +33,7 @@ public class Blocks {
      * @return returns a block by the correct blockId or empty
      */
     public static Optional<Block> getBlock(byte blockId) {
-        if (urnIds.containsKey((long) blockId)) {
-            var urn = urnIds.get((long) blockId);
-            return getBlock(urn);
-        }
-        return Optional.empty();
+        return byteBlocks[blockId & 0xFF];
     }
 
     /**
@@ -84,5 +83,14 @@ public class Blocks {
         }
         blocks.put(block.getUrn(), block);
         urnIds.put(block.getId(), block.getUrn());
+        if (block.getId() == (byte) block.getId())
+            byteBlocks[(byte) block.getId() & 0xFF] = Optional.of(block);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<Block>[] emptyByteBlocks() {
+        var empty = new Optional[256];
+        Arrays.fill(empty, Optional.empty());
+        return empty;
     }
 }
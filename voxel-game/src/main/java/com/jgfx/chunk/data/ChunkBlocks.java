@@ -3,25 +3,30 @@ package com.jgfx.chunk.data;
 import com.jgfx.assets.urn.ResourceUrn;
 import com.jgfx.blocks.Block;
 import com.jgfx.blocks.Blocks;
-import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.pool.Recyclable;
+import com.jgfx.engine.ecs.component.view.CopyableComponent;
 import com.jgfx.chunk.utils.ChunkHelper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joml.Vector3i;
 
+import java.util.Arrays;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 
 /**
  * Stores the data about blocks
  */
-public class ChunkBlocks implements Component {
+public class ChunkBlocks implements Recyclable, CopyableComponent<ChunkBlocks> {
     private final byte[] blocks;
     private static final Logger logger = LogManager.getLogger(ChunkBlocks.class);;
 
     public ChunkBlocks() {
-        this.blocks = new byte[ChunkHelper.CHUNK_SIZE_CUBED];
+        this(new byte[ChunkHelper.CHUNK_SIZE_CUBED]);
+    }
+
+    private ChunkBlocks(byte[] blocks) {
+        this.blocks = blocks;
     }
 
     /**
@@ -38,9 +43,10 @@ public class ChunkBlocks implements Component {
      * @return returns the actual block
      */
     public Optional<Block> getBlock(int x, int y, int z) {
-        var output = new AtomicReference<Optional<Block>>();
-        getBlockId(x, y, z).ifPresentOrElse(id -> output.set(Blocks.getBlock(id)), ()-> output.set(Optional.empty()));
-        return output.get();
+        var index = (int) ChunkHelper.getIndex(x, y, z);
+        if (index < 0 || index >= blocks.length)
+            return Optional.empty();
+        return Blocks.getBlock(blocks[index]);
     }
 
     /**
@@ -70,15 +76,33 @@ public class ChunkBlocks implements Component {
     }
 
     /**
-     * Iterates each block
+     * Iterates each block, the position is reused for every block so it must not be kept by the consumer
      */
     public void foreachBlock(BiConsumer<Vector3i, Block> consumer) {
+        var position = new Vector3i();
         for (var i = 0; i < blocks.length; i++) {
             var blockId = blocks[i];
             if (blockId != 0) {
-                var position = ChunkHelper.getPositionVec(i);
-                Blocks.getBlock(blockId).ifPresent(block -> consumer.accept(position, block));
+                var block = Blocks.getBlock(blockId);
+                if (block.isPresent())
+                    consumer.accept(ChunkHelper.getPositionVec(i, position), block.get());
             }
         }
     }
+
+    /**
+     * @return returns a copy of the blocks, so mesh workers can read them while the chunk keeps changing
+     */
+    @Override
+    public ChunkBlocks copy() {
+        return new ChunkBlocks(blocks.clone());
+    }
+
+    /**
+     * Sets every block to air, the array is kept for the next chunk
+     */
+    @Override
+    public void reset() {
+        Arrays.fill(blocks, (byte) 0);
+    }
 }
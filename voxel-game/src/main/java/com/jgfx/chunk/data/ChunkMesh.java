@@ -1,17 +1,31 @@
 package com.jgfx.chunk.data;
 
 import com.jgfx.engine.assets.model.Vao;
-import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.pool.Recyclable;
 import com.jgfx.utils.MeshData;
 
 /**
  * Represents a chunk's mesh
  */
-public class ChunkMesh implements Component {
-    public final MeshData meshData;
+public class ChunkMesh implements Recyclable {
+    //Replaced by the main thread once a mesh worker built the data of the chunk
+    public MeshData meshData;
     public Vao vao;
 
     public ChunkMesh() {
         this.meshData = new MeshData();
     }
+
+    /**
+     * Clears the mesh data and deletes the vao, chunks are destroyed while the commands are played back on the main
+     * thread so the vao can be deleted here
+     */
+    @Override
+    public void reset() {
+        meshData.clear();
+        if (vao != null) {
+            vao.delete();
+            vao = null;
+        }
+    }
 }
@@ -1,7 +1,7 @@
 package com.jgfx.chunk.data;
 
 import com.google.common.collect.Maps;
-import com.jgfx.engine.ecs.component.Component;
+import com.jgfx.engine.ecs.component.pool.Recyclable;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.chunk.utils.ChunkDirection;
 
@@ -12,12 +12,26 @@ import static com.jgfx.chunk.utils.ChunkHelper.CHUNK_BLOCK_SIZE;
 /**
  * Stores all of the needed data about chunk neighbors
  */
-public class ChunkNeighbors implements Component {
+public class ChunkNeighbors implements Recyclable {
     private final Map<ChunkDirection, EntityRef> neighbors;
-    private final EntityRef parent;
+    private EntityRef parent;
 
-    public ChunkNeighbors(EntityRef parent) {
+    /**
+     * Creates the neighbors without a parent, the parent must be set before any neighbor is added
+     */
+    public ChunkNeighbors() {
         this.neighbors = Maps.newConcurrentMap();
+    }
+
+    public ChunkNeighbors(EntityRef parent) {
+        this();
+        this.parent = parent;
+    }
+
+    /**
+     * Sets the chunk that owns these neighbors
+     */
+    public void setParent(EntityRef parent) {
         this.parent = parent;
     }
 
@@ -181,6 +195,15 @@ public class ChunkNeighbors implements Component {
     }
 
 
+    /**
+     * Forgets the neighbors and the parent, so the pooled component doesn't keep other chunks alive
+     */
+    @Override
+    public void reset() {
+        neighbors.clear();
+        parent = null;
+    }
+
     @Override
     public String toString() {
         var builder = new StringBuilder();
@@ -13,6 +13,13 @@ public class ChunkOrigin implements Component {
     public final long index;
     public final Matrix4f modelMatrix;
 
+    /**
+     * Creates an origin at zero, the fields are filled in when it's loaded from a snapshot
+     */
+    public ChunkOrigin() {
+        this(0, 0, 0);
+    }
+
     public ChunkOrigin(int x, int y, int z) {
         this.x = x;
         this.y = y;
@@ -5,31 +5,51 @@ import com.jgfx.chunk.data.ChunkMesh;
 import com.jgfx.chunk.data.ChunkOrigin;
 import com.jgfx.chunk.data.ChunkState;
 import com.jgfx.chunk.utils.ChunkHelper;
-import com.jgfx.chunk.utils.Groups;
+import com.jgfx.engine.ecs.component.view.ComponentView;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
-import com.jgfx.engine.ecs.group.Group;
+import com.jgfx.engine.ecs.entity.system.Reads;
+import com.jgfx.engine.ecs.entity.system.Writes;
+import com.jgfx.engine.ecs.query.Query;
+import com.jgfx.engine.ecs.query.Query4;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.EventSubscriber;
 import com.jgfx.engine.injection.anotations.In;
+import com.jgfx.engine.metrics.Histogram;
+import com.jgfx.engine.metrics.Metrics;
+import com.jgfx.engine.profiler.Profiler;
 import com.jgfx.engine.time.EngineTime;
 import com.jgfx.tiles.atlas.Atlas;
+import com.jgfx.utils.MeshData;
 import com.jgfx.utils.Side;
 import com.jgfx.utils.State;
+import gnu.trove.list.array.TLongArrayList;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class will generate the blocks for the chunk
  */
 @EventSubscriber
 @AutoRegister
+@Reads(ChunkOrigin.class)
+@Writes({ChunkBlocks.class, ChunkMesh.class, ChunkState.class})
 public class ChunkGenerator extends EntitySystem {
-    private Group chunks;
+    private Query4<ChunkState, ChunkOrigin, ChunkMesh, ChunkBlocks> chunks;
     private final Logger logger;
     private ExecutorService generationExecutor = Executors.newFixedThreadPool(4);
+    //The meshes generated by the executor, they're handed to their chunk the next time the system processes
+    private final Queue<Meshed> meshed = new ConcurrentLinkedQueue<>();
+    //The chunks whose blocks are ready to be meshed, collected while iterating so they share one view
+    private final TLongArrayList toMesh = new TLongArrayList();
+    //The meshes that were submitted but weren't handed to their chunk yet
+    private final AtomicInteger pendingMeshes = new AtomicInteger();
+    private final Histogram meshBuildTime = Metrics.histogram("chunk.mesh.build");
     @In private Atlas atlas;
 
     public ChunkGenerator() {
@@ -37,11 +57,12 @@ public class ChunkGenerator extends EntitySystem {
     }
 
     /**
-     * Here we init our chunk group
+     * Here we init our chunk query, it only visits the chunks whose state changed since the last process
      */
     @Override
     public void initialize() {
-        this.chunks = Groups.CHUNK.group();
+        this.chunks = Query.of(ChunkState.class, ChunkOrigin.class, ChunkMesh.class, ChunkBlocks.class).changed(ChunkState.class);
+        Metrics.gauge("chunk.mesh.queue", pendingMeshes::get);
     }
 
     /**
@@ -49,20 +70,42 @@ public class ChunkGenerator extends EntitySystem {
      */
     @Override
     protected void process(EngineTime time) {
-        chunks.forEach(chunk -> {
-            var state = chunk.get(ChunkState.class);
-            var origin = chunk.get(ChunkOrigin.class);
-            var mesh = chunk.get(ChunkMesh.class);
-            var blocks = chunk.get(ChunkBlocks.class);
-            if (state.state == State.UNLOADED || state.state == State.NEEDS_REBUILD) {
-                generateChunk(blocks, state, origin);
-            }
-            if (state.state == State.BLOCKS_LOADED) {
-                generationExecutor.submit(generateMesh(blocks, mesh, state, origin));
-            }
-        });
+        var entities = world.getEntityManager();
+        Meshed done;
+        while ((done = meshed.poll()) != null) {
+            pendingMeshes.decrementAndGet();
+            var mesh = entities.getMutable(done.chunk, ChunkMesh.class);
+            var state = entities.getMutable(done.chunk, ChunkState.class);
+            if (mesh == null || state == null)
+                continue;
+            mesh.meshData = done.meshData;
+            state.state = State.MESH_LOADED;
+        }
+        chunks.forEachEntity(visitChunk);
+        if (toMesh.isEmpty())
+            return;
+        //The workers read the blocks from a view, so the chunks can keep changing while they're meshed
+        var view = entities.getComponentViews().pin(ChunkBlocks.class, ChunkOrigin.class);
+        pendingMeshes.addAndGet(toMesh.size());
+        for (var i = 0; i < toMesh.size(); i++)
+            generationExecutor.submit(generateMesh(toMesh.get(i), view));
+        toMesh.resetQuick();
     }
 
+    /**
+     * Generates the blocks of the chunk if they aren't generated, and collects the chunk once it's ready to be meshed.
+     * It's kept in a field so processing doesn't allocate a lambda every frame
+     */
+    private final Query4.EntityEach<ChunkState, ChunkOrigin, ChunkMesh, ChunkBlocks> visitChunk = (chunk, state, origin, mesh, blocks) -> {
+        if (state.state == State.UNLOADED || state.state == State.NEEDS_REBUILD) {
+            generateChunk(blocks, state, origin);
+            world.getEntityManager().markChanged(chunk, ChunkBlocks.class);
+            world.getEntityManager().markChanged(chunk, ChunkState.class);
+        }
+        if (state.state == State.BLOCKS_LOADED)
+            toMesh.add(chunk);
+    };
+
     /**
      * This will generate a chunk if the state is unloaded
      */
@@ -79,19 +122,46 @@ public class ChunkGenerator extends EntitySystem {
     }
 
     /**
+     * The executor only reads the view and builds new mesh data, the chunk is queued so the mesh and state are changed
+     * by the system instead
+     *
      * @return returns a runnable that generates the mesh
      */
-    private Runnable generateMesh(ChunkBlocks blocks, ChunkMesh mesh, ChunkState state, ChunkOrigin origin) {
+    private Runnable generateMesh(long chunk, ComponentView view) {
         return () -> {
-            blocks.foreachBlock((position, block) -> {
-                var sideMeta = (byte) 0;
-                for (var side : Side.values()) {
-                    sideMeta = side.addSide(sideMeta);
+            try (var scope = Profiler.scope("ChunkMesh", Profiler.Category.JOB)) {
+                var start = System.nanoTime();
+                var blocks = view.get(chunk, ChunkBlocks.class);
+                var origin = view.get(chunk, ChunkOrigin.class);
+                if (blocks == null || origin == null) {
+                    pendingMeshes.decrementAndGet();
+                    return;
                 }
-                block.addToChunk(position.x, position.y, position.z, sideMeta, atlas, mesh.meshData);
-            });
-            state.state = State.MESH_LOADED;
-            logger.debug("Chunk[{},{},{}] mesh generated!", origin.x, origin.y, origin.z);
+                var meshData = new MeshData();
+                blocks.foreachBlock((position, block) -> {
+                    var sideMeta = (byte) 0;
+                    for (var side : Side.values()) {
+                        sideMeta = side.addSide(sideMeta);
+                    }
+                    block.addToChunk(position.x, position.y, position.z, sideMeta, atlas, meshData);
+                });
+                meshed.add(new Meshed(chunk, meshData));
+                meshBuildTime.recordSince(start);
+                logger.debug("Chunk[{},{},{}] mesh generated!", origin.x, origin.y, origin.z);
+            }
         };
     }
+
+    /**
+     * A mesh that was generated by the executor
+     */
+    private static final class Meshed {
+        private final long chunk;
+        private final MeshData meshData;
+
+        private Meshed(long chunk, MeshData meshData) {
+            this.chunk = chunk;
+            this.meshData = meshData;
+        }
+    }
 }
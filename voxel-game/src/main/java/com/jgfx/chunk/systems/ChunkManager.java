@@ -1,32 +1,43 @@
 package com.jgfx.chunk.systems;
 
-import com.google.common.eventbus.Subscribe;
 import com.jgfx.assets.context.CoreContext;
 import com.jgfx.chunk.data.*;
-import com.jgfx.chunk.events.ChunkDestroyedEvent;
-import com.jgfx.chunk.events.ChunkGeneratedEvent;
 import com.jgfx.chunk.utils.ChunkHelper;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.ref.NullEntityRef;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Reads;
+import com.jgfx.engine.ecs.group.GroupCollector;
 import com.jgfx.engine.game.AutoRegister;
-import com.jgfx.engine.injection.anotations.EventSubscriber;
+import com.jgfx.engine.injection.anotations.All;
+import com.jgfx.engine.time.EngineTime;
 import com.jgfx.utils.State;
+import gnu.trove.map.TLongLongMap;
 import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongLongHashMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.Optional;
+import java.util.function.LongConsumer;
 
 /**
- * This class will handle the chunks by storing their position with the entity ref
+ * This class will handle the chunks by storing their position with the entity ref. The chunks are collected as they
+ * enter and leave the chunk group, and stored or removed at the start of each process
  */
 @AutoRegister
-@EventSubscriber
+@MainThread
+@Reads(ChunkOrigin.class)
 public class ChunkManager extends EntitySystem {
     private final TLongObjectMap<EntityRef> entityMap;
+    //The origin index of every stored chunk by it's entity id, as the origin can't be read after a chunk is destroyed
+    private final TLongLongMap chunkIndices;
     private final Logger logger;
+    @All({ChunkBlocks.class, ChunkMesh.class, ChunkNeighbors.class, ChunkOrigin.class, ChunkState.class}) private GroupCollector chunks;
+    //Kept in fields so processing doesn't allocate them every frame
+    private final LongConsumer onCreated = this::onChunkCreated, onDestroyed = this::onChunkDestroyed;
 
     /**
      * We simply want to store the chunk manager ASAP so we can have it injected into other systems
@@ -34,36 +45,52 @@ public class ChunkManager extends EntitySystem {
     public ChunkManager() {
         CoreContext.put(ChunkManager.class, this);
         this.entityMap = new TLongObjectHashMap<>();
+        this.chunkIndices = new TLongLongHashMap();
         this.logger = LogManager.getLogger(ChunkManager.class);
     }
 
+    /**
+     * Stores the chunks that were created and removes the ones that were destroyed since the last process
+     */
+    @Override
+    protected void process(EngineTime time) {
+        chunks.drain(onCreated, onDestroyed);
+    }
+
     /**
      * This will map the entity with it's position as a long inside the entity map
      */
-    @Subscribe
-    public void onChunkCreated(ChunkGeneratedEvent event) {
-        var origin = event.chunk.get(ChunkOrigin.class);
+    private void onChunkCreated(long entityId) {
+        var chunk = world.getEntity(entityId);
+        if (chunk == EntityRef.NULL)
+            return;
+        var origin = chunk.get(ChunkOrigin.class);
         if (entityMap.containsKey(origin.index)) {
-            event.chunk.dispose();
+            world.commands().destroy(entityId);
             logger.warn("Chunk[{}] at {}, {}, {} was generated twice. Destroying", origin.index, origin.x, origin.y, origin.z);
         } else {
-            entityMap.put(origin.index, event.chunk);
+            entityMap.put(origin.index, chunk);
+            chunkIndices.put(entityId, origin.index);
             logger.debug("Chunk[{}] at {}, {}, {} stored in chunk manager", origin.index, origin.x, origin.y, origin.z);
         }
     }
 
     /**
-     * This will destroy the chunk
+     * Removes a chunk that was destroyed, duplicate chunks were never stored so they're ignored
      */
-    @Subscribe
-    public void onChunkDestroyed(ChunkDestroyedEvent event) {
-        var origin = event.chunk.get(ChunkOrigin.class);
-        if (entityMap.containsKey(origin.index)) {
-            entityMap.remove(origin.index);
-            logger.debug("Chunk[{}] at {}, {}, {} removed from chunk manager", origin.index, origin.x, origin.y, origin.z);
-        } else
-            logger.warn("Chunk[{}] at {}, {}, {} destroyed but wasn't in the chunk manager", origin.index, origin.x, origin.y, origin.z);
-        event.chunk.dispose();
+    private void onChunkDestroyed(long entityId) {
+        if (!chunkIndices.containsKey(entityId))
+            return;
+        var index = chunkIndices.remove(entityId);
+        entityMap.remove(index);
+        logger.debug("Chunk[{}] removed from chunk manager", index);
+    }
+
+    /**
+     * Destroys the chunk, it's removed from the chunk manager in the process after it was destroyed
+     */
+    public void destroyChunk(EntityRef chunk) {
+        world.commands().destroy(chunk.getId());
     }
 
     /**
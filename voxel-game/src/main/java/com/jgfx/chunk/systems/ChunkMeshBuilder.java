@@ -5,49 +5,70 @@ import com.jgfx.chunk.data.ChunkOrigin;
 import com.jgfx.chunk.data.ChunkState;
 import com.jgfx.chunk.utils.Groups;
 import com.jgfx.engine.assets.model.Vao;
+import com.jgfx.engine.ecs.entity.ref.EntityRef;
+import com.jgfx.engine.ecs.entity.system.Budget;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Reads;
+import com.jgfx.engine.ecs.entity.system.WorkCursor;
+import com.jgfx.engine.ecs.entity.system.Writes;
 import com.jgfx.engine.ecs.group.Group;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.In;
 import com.jgfx.engine.time.EngineTime;
 import com.jgfx.tiles.atlas.Atlas;
+import com.jgfx.utils.GroupsBuilder;
 import com.jgfx.utils.State;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.function.Consumer;
+
 /**
- * This class will build the mesh for a given chunk
+ * This class will build the mesh for a given chunk. Uploading meshes is limited to a few milliseconds every frame, when
+ * many chunks are meshed at once the rest are uploaded over the next frames
  */
 @AutoRegister
+@Budget(4)
+@MainThread
+@Reads(ChunkOrigin.class)
+@Writes({ChunkMesh.class, ChunkState.class})
 public class ChunkMeshBuilder extends EntitySystem {
     private Group chunks;
     private static final Logger logger = LogManager.getLogger(ChunkMeshBuilder.class);
     @In private Atlas atlas;
+    private final WorkCursor uploads = getBudget().cursor();
 
     /**
-     * Initialize our chunks
+     * Initialize our chunks, only the chunks whose state changed since the last process are visited
      */
     @Override
     public void initialize() {
-        chunks = Groups.CHUNK.group();
+        chunks = new GroupsBuilder().group(Groups.CHUNK).changed(ChunkState.class).build();
     }
 
     /**
-     * Here we're checking for blocks that have either {@link State.UNLOADED} or {@link State.NEEDS_REBUILD}
+     * Here we're checking for chunks that have just reached {@link State#MESH_LOADED}
      */
     @Override
     protected void process(EngineTime time) {
-        chunks.forEach(chunk -> {
-            var state = chunk.get(ChunkState.class);
-            if (state.state == State.MESH_LOADED ) {
-                var mesh = chunk.get(ChunkMesh.class);
-                var origin = chunk.get(ChunkOrigin.class);
-                rebuildMesh(mesh, state);
-                logger.debug("Chunk[{}, {}, {}] generated model!", origin.x, origin.y, origin.z);
-            }
-        });
+        uploads.forEach(chunks, upload);
     }
 
+    /**
+     * Uploads the mesh of the chunk if it was just meshed
+     */
+    private final Consumer<EntityRef> upload = chunk -> {
+        var state = chunk.get(ChunkState.class);
+        if (state.state == State.MESH_LOADED) {
+            var mesh = chunk.get(ChunkMesh.class);
+            var origin = chunk.get(ChunkOrigin.class);
+            rebuildMesh(mesh, state);
+            chunk.markChanged(ChunkState.class);
+            logger.debug("Chunk[{}, {}, {}] generated model!", origin.x, origin.y, origin.z);
+        }
+    };
+
     /**
      * Rebuilds the mesh for the given chunk
      */
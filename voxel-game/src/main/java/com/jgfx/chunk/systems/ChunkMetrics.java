@@ -0,0 +1,53 @@
+package com.jgfx.chunk.systems;
+
+import com.jgfx.chunk.data.ChunkState;
+import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.Phase;
+import com.jgfx.engine.ecs.entity.system.Reads;
+import com.jgfx.engine.ecs.entity.system.SystemOrder;
+import com.jgfx.engine.ecs.group.Group;
+import com.jgfx.engine.game.AutoRegister;
+import com.jgfx.engine.metrics.Metrics;
+import com.jgfx.engine.time.EngineTime;
+import com.jgfx.utils.State;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static com.jgfx.chunk.utils.Groups.CHUNK;
+
+/**
+ * Counts the chunks in every {@link State} once per frame, the gauges only read the counts so they can be read from
+ * any thread without walking the chunks
+ */
+@AutoRegister
+@Reads(ChunkState.class)
+@SystemOrder(phase = Phase.LATE_UPDATE)
+public class ChunkMetrics extends EntitySystem {
+    private static final State[] STATES = State.values();
+    private final int[] counting = new int[STATES.length];
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(STATES.length);
+    private Group chunks;
+
+    @Override
+    public void initialize() {
+        chunks = CHUNK.group();
+        Metrics.gauge("chunk.count", () -> {
+            var total = 0;
+            for (var i = 0; i < STATES.length; i++)
+                total += counts.get(i);
+            return total;
+        });
+        for (var state : STATES)
+            Metrics.gauge("chunk.state." + state.name().toLowerCase(), () -> counts.get(state.ordinal()));
+    }
+
+    @Override
+    protected void process(EngineTime time) {
+        for (var chunk : chunks)
+            counting[chunk.get(ChunkState.class).state.ordinal()]++;
+        for (var i = 0; i < STATES.length; i++) {
+            counts.set(i, counting[i]);
+            counting[i] = 0;
+        }
+    }
+}
@@ -7,8 +7,13 @@ import com.jgfx.engine.assets.shader.Shader;
 import com.jgfx.engine.assets.texture.Texture;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Phase;
+import com.jgfx.engine.ecs.entity.system.Reads;
+import com.jgfx.engine.ecs.entity.system.SystemOrder;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.All;
+import com.jgfx.engine.injection.anotations.Changed;
 import com.jgfx.engine.injection.anotations.In;
 import com.jgfx.engine.injection.anotations.Resource;
 import com.jgfx.engine.injection.anotations.Single;
@@ -17,29 +22,45 @@ import com.jgfx.engine.utils.GLUtils;
 import com.jgfx.engine.window.IWindow;
 import com.jgfx.player.data.PlayerCamera;
 import com.jgfx.utils.State;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.lwjgl.opengl.GL11;
 
 import java.util.function.Consumer;
-import java.util.function.Predicate;
 
 /**
  * This class will render the renderable chunks
  */
 @AutoRegister
+@SystemOrder(phase = Phase.RENDER)
+@MainThread
+@Reads({ChunkOrigin.class, ChunkMesh.class, ChunkState.class, PlayerCamera.class})
 public class ChunkRenderer extends EntitySystem {
     @Resource("engine:shaders#chunk") Shader shader;
     @Single("engine:entities#local-player") EntityRef localPlayer;
     @In GLUtils gl;
     @In IWindow window;
     @Resource("engine:terrain#0") Texture terrain;
-    @All({ChunkBlocks.class, ChunkMesh.class, ChunkNeighbors.class, ChunkOrigin.class, ChunkState.class}) Group chunks;
+    @All({ChunkBlocks.class, ChunkMesh.class, ChunkNeighbors.class, ChunkOrigin.class, ChunkState.class})
+    @Changed(ChunkState.class) Group chunks;
+    //The chunks that have a model, this is only updated for the chunks whose state changed
+    private final TLongObjectMap<EntityRef> renderable = new TLongObjectHashMap<>();
 
     /**
      * This is test code
      */
     @Override
     protected void process(EngineTime time) {
-        chunks.forEach(beginRender, render, checkState, endRender);
+        chunks.forEach(checkState);
+        beginRender.run();
+        for (var iterator = renderable.valueCollection().iterator(); iterator.hasNext(); ) {
+            var chunk = iterator.next();
+            if (chunk.isExists())
+                render.accept(chunk);
+            else
+                iterator.remove();
+        }
+        endRender.run();
     }
 
     /**
@@ -66,9 +87,14 @@ public class ChunkRenderer extends EntitySystem {
 
 
     /**
-     * this will check the state of the chunk
+     * this will check the state of the chunk, adding it to the renderable chunks once it has a model
      */
-    private Predicate<EntityRef> checkState = chunk -> chunk.get(ChunkState.class).state == State.MODEL_LOADED;
+    private Consumer<EntityRef> checkState = chunk -> {
+        if (chunk.get(ChunkState.class).state == State.MODEL_LOADED)
+            renderable.put(chunk.getId(), chunk);
+        else
+            renderable.remove(chunk.getId());
+    };
 
     /**
      * Called after the render
@@ -80,9 +106,4 @@ public class ChunkRenderer extends EntitySystem {
         shader.stop();
     };
 
-
-    @Override
-    public int compareTo(EntitySystem o) {
-        return -1;
-    }
 }
@@ -4,6 +4,10 @@ import com.jgfx.engine.assets.fbo.Fbo;
 import com.jgfx.engine.assets.model.Vao;
 import com.jgfx.engine.assets.shader.Shader;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Phase;
+import com.jgfx.engine.ecs.entity.system.Reads;
+import com.jgfx.engine.ecs.entity.system.SystemOrder;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.In;
 import com.jgfx.engine.injection.anotations.Resource;
@@ -20,7 +24,10 @@ import java.util.function.Supplier;
 /**
  * This class will render a cube with the fbo output
  */
-@AutoRegister(after = ChunkRenderer.class)
+@AutoRegister
+@SystemOrder(phase = Phase.RENDER, after = ChunkRenderer.class)
+@MainThread
+@Reads(PlayerCamera.class)
 public class ChunkSpecialRenderer extends EntitySystem {
     @Single("engine:entities#local-player") PlayerCamera camera;
     @Resource("engine:shaders#chunk") Shader shader;
@@ -28,6 +35,7 @@ public class ChunkSpecialRenderer extends EntitySystem {
     @In GLUtils gl;
     @In ShapeUtils shapes;
     private Vao testShape;
+    private final Matrix4f modelMatrix = new Matrix4f();
 
     @Override
     public void initialize() {
@@ -42,7 +50,7 @@ public class ChunkSpecialRenderer extends EntitySystem {
         shader.start();
         shader.loadMat4("projectionMatrix", camera.projectionMatrix);
         shader.loadMat4("viewMatrix", camera.viewMatrix);
-        shader.loadMat4("modelMatrix", new Matrix4f().identity().translate(0, 20, -20).scale(10));
+        shader.loadMat4("modelMatrix", modelMatrix.identity().translate(0, 20, -20).scale(10));
         testShape.draw();
         shader.stop();
         gl.depthTest(false);
@@ -1,16 +1,16 @@
 package com.jgfx.chunk.systems;
 
 import com.jgfx.chunk.data.*;
-import com.jgfx.chunk.events.ChunkGeneratedEvent;
 
 import static com.jgfx.chunk.utils.Groups.*;
 
 import com.jgfx.debug.shapes.LineShape;
 import com.jgfx.debug.shapes.MultiShape;
+import com.jgfx.engine.ecs.entity.builder.EntityTemplate;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.Reads;
 import com.jgfx.engine.ecs.group.Group;
-import com.jgfx.engine.event.Bus;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.EventSubscriber;
 import com.jgfx.engine.injection.anotations.In;
@@ -26,10 +26,15 @@ import org.joml.Vector4f;
  */
 @AutoRegister
 @EventSubscriber
+@Reads(PlayerTransform.class)
 public class ChunkSynthesizer extends EntitySystem {
+    //The number of unloaded chunks whose blocks, meshes and neighbors are kept for the next chunks
+    private static final int POOLED_CHUNKS = 64;
     @Single("engine:entities#local-player") private EntityRef localPlayer;
     @In private Input input;
     private Group chunks;
+    //The origin, neighbors and outline depend on the chunk, so they're set when the chunk is spawned
+    private EntityTemplate chunkTemplate;
     //Stores the last time a chunk was generated
     private long lastGenTime;
 
@@ -39,11 +44,16 @@ public class ChunkSynthesizer extends EntitySystem {
     @Override
     public void initialize() {
         this.chunks = CHUNK.group();
-        generateChunk(0, 0, 0);
-        generateChunk(32, 0, 0);
-        generateChunk(-32, 0, 0);
-        generateChunk(0, 0, 32);
-        generateChunk(0, 0, -32);
+        var pools = world.getEntityManager().getComponentPools();
+        this.chunkTemplate = EntityTemplate.builder()
+                .with(ChunkOrigin.class, null)
+                .with(ChunkBlocks.class, pools.register(ChunkBlocks.class, ChunkBlocks::new, POOLED_CHUNKS))
+                .with(ChunkMesh.class, pools.register(ChunkMesh.class, ChunkMesh::new, POOLED_CHUNKS))
+                .with(ChunkState.class, ChunkState::new)
+                .with(ChunkNeighbors.class, pools.register(ChunkNeighbors.class, ChunkNeighbors::new, POOLED_CHUNKS))
+                .with(MultiShape.class, null)
+                .build();
+        generateChunks(new int[][]{{0, 0, 0}, {32, 0, 0}, {-32, 0, 0}, {0, 0, 32}, {0, 0, -32}});
 
 
         //        generateChunk(0, 32, 0);
@@ -66,23 +76,31 @@ public class ChunkSynthesizer extends EntitySystem {
     }
 
     /**
-     * Generates a chunk at the given position, sends out an event and returns the chunk
+     * Records the creation of a batch of chunks at the given positions, the chunks are created when the world's
+     * commands are played back, so they never change the chunk group while another system iterates it. The chunk
+     * manager picks them up once they enter the chunk group
+     *
+     * @return returns the ids of the chunks
      */
-    private EntityRef generateChunk(int x, int y, int z) {
-        var entity = world.createEntity();
-        entity.add(new ChunkOrigin(x, y, z));
-        entity.add(new ChunkBlocks());
-        entity.add(new ChunkMesh());
-        entity.add(new ChunkNeighbors(entity));
-        entity.add(new ChunkState());
-        entity.add(new MultiShape(new Vector3f(x, y, z), new Vector4f(1, 1, 1, 1),
+    private long[] generateChunks(int[][] origins) {
+        return world.commands().spawn(chunkTemplate, origins.length, chunk -> {
+            var origin = origins[chunk.getIndex()];
+            chunk.set(new ChunkOrigin(origin[0], origin[1], origin[2]));
+            chunk.get(ChunkNeighbors.class).setParent(chunk.getEntity());
+            chunk.set(outline(origin[0], origin[1], origin[2]));
+        });
+    }
+
+    /**
+     * @return returns the debug outline of the chunk at the given position
+     */
+    private static MultiShape outline(int x, int y, int z) {
+        return new MultiShape(new Vector3f(x, y, z), new Vector4f(1, 1, 1, 1),
                 new LineShape(new Vector3f(-0.5f, 15.5f, -0.5f), new Vector3f(0, 0, 0), 32, 0.25f),
                 new LineShape(new Vector3f(31.5f, 15.5f, -0.5f), new Vector3f(0, 0, 0), 32, 0.25f),
                 new LineShape(new Vector3f(31.5f, 15.5f, 31.5f), new Vector3f(0, 0, 0), 32, 0.25f),
                 new LineShape(new Vector3f(-0.5f, 15.5f, 31.5f), new Vector3f(0, 0, 0), 32, 0.25f)
-        ));
-        Bus.LOGIC.post(new ChunkGeneratedEvent(entity));
-        return entity;
+        );
     }
 
 
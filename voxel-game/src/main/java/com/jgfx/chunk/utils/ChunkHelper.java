@@ -47,8 +47,18 @@ public class ChunkHelper {
      * @return returns the position from the given index as a {@link org.joml.Vector3f}.
      */
     public static Vector3i getPositionVec(int index) {
-        var pos = getPosition(index);
-        return new Vector3i(pos[0], pos[1], pos[2]);
+        return getPositionVec(index, new Vector3i());
+    }
+
+    /**
+     * Sets the vector to the position of the index, this doesn't allocate so it can be used for every block
+     *
+     * @return returns the given vector
+     */
+    public static Vector3i getPositionVec(int index, Vector3i dest) {
+        final int z = index / (CHUNK_BLOCK_SIZE * CHUNK_BLOCK_SIZE);
+        index -= (z * CHUNK_BLOCK_SIZE * CHUNK_BLOCK_SIZE);
+        return dest.set(index % CHUNK_BLOCK_SIZE, index / CHUNK_BLOCK_SIZE, z);
     }
 
     /**
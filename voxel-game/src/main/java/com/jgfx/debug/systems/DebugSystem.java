@@ -8,6 +8,12 @@ import com.jgfx.engine.assets.fbo.Fbo;
 import com.jgfx.engine.assets.shader.Shader;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Phase;
+import com.jgfx.engine.ecs.entity.system.Reads;
+import com.jgfx.engine.ecs.entity.system.SystemOrder;
+import com.jgfx.engine.ecs.entity.system.Writes;
+import com.jgfx.engine.ecs.group.FilteredGroup;
 import com.jgfx.engine.ecs.group.Group;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.All;
@@ -24,16 +30,28 @@ import org.joml.Vector4f;
 
 import java.util.function.Consumer;
 
-@AutoRegister(after = ChunkRenderer.class)
+@AutoRegister
+@SystemOrder(phase = Phase.RENDER, after = ChunkRenderer.class)
+@MainThread
+@Reads(PlayerCamera.class)
+@Writes(IShape.class)
 public class DebugSystem extends EntitySystem {
 
     @All(IShape.class) private Group shapes;
+    //The shapes are marked as changed when they're built, so both views are indexed on the shape
+    private FilteredGroup unbuilt, built;
     @Single("engine:entities#local-player") PlayerCamera playerCamera;
     @Resource("engine:shaders#chunk") Shader shader;
     @Resource("engine:fbos#effects") Fbo effectsFbo;
     @In IWindow window;
     @In GLUtils glUtils;
 
+    @Override
+    public void initialize() {
+        unbuilt = shapes.where(entity -> !entity.get(IShape.class).isLoaded(), IShape.class);
+        built = shapes.where(entity -> entity.get(IShape.class).isLoaded(), IShape.class);
+    }
+
     /**
      * This will render the shape outlines
      */
@@ -48,22 +66,14 @@ public class DebugSystem extends EntitySystem {
      * This will build all of the un built shapes
      */
     private void build() {
-        shapes.forEach(
-                entity -> entity.get(IShape.class).build(),
-                entity -> !entity.get(IShape.class).isLoaded()
-        );
+        unbuilt.forEach(entity -> entity.getMutable(IShape.class).build());
     }
 
     /**
      * Renders all of the shapes
      */
     private void render() {
-        shapes.forEach(
-                beginRender,
-                render,
-                entity -> entity.get(IShape.class).isLoaded(),
-                endRender
-        );
+        built.forEach(beginRender, render, endRender);
     }
 
     /**
@@ -12,6 +12,17 @@ public class PlayerCamera implements Component {
     public final Matrix4f viewMatrix;
     private final Vector3f forward, right, up;
 
+    /**
+     * Creates a camera with identity matrices, the fields are filled in when it's loaded from a snapshot
+     */
+    public PlayerCamera() {
+        this.projectionMatrix = new Matrix4f();
+        this.viewMatrix = new Matrix4f();
+        this.forward = new Vector3f();
+        this.right = new Vector3f();
+        this.up = new Vector3f();
+    }
+
     public PlayerCamera(float fov, float aspect, float near, float far) {
         this.projectionMatrix = new Matrix4f().perspective(fov, aspect, near, far);
         this.viewMatrix = new Matrix4f().translate(0, 0, 0).rotateX(0).rotateY(0);
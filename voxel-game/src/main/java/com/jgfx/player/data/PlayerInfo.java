@@ -9,6 +9,13 @@ public class PlayerInfo implements Component {
     public final int forwardKey, backwardKey, leftKey, rightKey, upKey, downKey, sprintKey, toggleCameraKey;
     public final double verticalSensitivity, horizontalSensitivity, movementSpeed, strafeSpeed, sprintSpeed;
 
+    /**
+     * Creates empty info, the fields are filled in when it's loaded from a snapshot
+     */
+    public PlayerInfo() {
+        this(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
     public PlayerInfo(int forwardKey, int backwardKey, int leftKey, int rightKey, int upKey, int downKey, int sprintKey, int toggleCameraKey, double verticalSensitivity, double horizontalSensitivity, double movementSpeed, double strafeSpeed, double sprintSpeed) {
         this.forwardKey = forwardKey;
         this.backwardKey = backwardKey;
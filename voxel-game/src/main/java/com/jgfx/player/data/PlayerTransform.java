@@ -1,16 +1,26 @@
 package com.jgfx.player.data;
 
-import com.jgfx.engine.ecs.component.Component;
-import org.joml.Matrix4f;
+import com.jgfx.engine.ecs.component.packed.Packed;
+import com.jgfx.engine.ecs.component.packed.PackedComponent;
+import com.jgfx.engine.ecs.component.packed.PackedLayout;
 import org.joml.Vector3f;
 
 /**
- * Represents a transform in 3d space
+ * Represents a transform in 3d space, the data is stored off heap once the transform is added to an entity
  */
-public class PlayerTransform implements Component {
-    public float x, y, z;
-    public float rx, ry;
+@Packed
+public class PlayerTransform extends PackedComponent {
+    private static final PackedLayout LAYOUT = PackedLayout.of(PlayerTransform.class);
+    private static final int X = LAYOUT.offset("x"), Y = LAYOUT.offset("y"), Z = LAYOUT.offset("z");
+    private static final int RX = LAYOUT.offset("rx"), RY = LAYOUT.offset("ry");
+    private float x, y, z;
+    private float rx, ry;
 
+    /**
+     * Creates a transform at the origin, the fields are filled in when it's loaded from a snapshot
+     */
+    public PlayerTransform() {
+    }
 
     public PlayerTransform(Vector3f position, Vector3f rotation) {
         this.x = position.x;
@@ -20,14 +30,62 @@ public class PlayerTransform implements Component {
         this.ry = rotation.y;
     }
 
+    public float getX() {
+        return isPacked() ? getFloat(X) : x;
+    }
+
+    public float getY() {
+        return isPacked() ? getFloat(Y) : y;
+    }
+
+    public float getZ() {
+        return isPacked() ? getFloat(Z) : z;
+    }
+
+    public float getRx() {
+        return isPacked() ? getFloat(RX) : rx;
+    }
+
+    public float getRy() {
+        return isPacked() ? getFloat(RY) : ry;
+    }
+
+    /**
+     * Moves the transform by the given amount
+     */
+    public void translate(float dx, float dy, float dz) {
+        if (isPacked()) {
+            putFloat(X, getFloat(X) + dx);
+            putFloat(Y, getFloat(Y) + dy);
+            putFloat(Z, getFloat(Z) + dz);
+        } else {
+            x += dx;
+            y += dy;
+            z += dz;
+        }
+    }
+
+    /**
+     * Rotates the transform by the given amount of degrees
+     */
+    public void rotate(float drx, float dry) {
+        if (isPacked()) {
+            putFloat(RX, getFloat(RX) + drx);
+            putFloat(RY, getFloat(RY) + dry);
+        } else {
+            rx += drx;
+            ry += dry;
+        }
+    }
+
     @Override
     public String toString() {
         return "Transform: {" +
-                "x=" + x +
-                ", y=" + y +
-                ", z=" + z +
-                ", rx=" + rx +
-                ", ry=" + ry +
+                "x=" + getX() +
+                ", y=" + getY() +
+                ", z=" + getZ() +
+                ", rx=" + getRx() +
+                ", ry=" + getRy() +
                 '}';
     }
 }
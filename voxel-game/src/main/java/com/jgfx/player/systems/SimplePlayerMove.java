@@ -3,6 +3,11 @@ package com.jgfx.player.systems;
 import com.jgfx.engine.assets.config.Config;
 import com.jgfx.engine.ecs.entity.ref.EntityRef;
 import com.jgfx.engine.ecs.entity.system.EntitySystem;
+import com.jgfx.engine.ecs.entity.system.MainThread;
+import com.jgfx.engine.ecs.entity.system.Phase;
+import com.jgfx.engine.ecs.entity.system.Reads;
+import com.jgfx.engine.ecs.entity.system.SystemOrder;
+import com.jgfx.engine.ecs.entity.system.Writes;
 import com.jgfx.engine.game.AutoRegister;
 import com.jgfx.engine.injection.anotations.In;
 import com.jgfx.engine.injection.anotations.Resource;
@@ -19,6 +24,10 @@ import com.jgfx.player.data.PlayerTransform;
  * TODO: replace this will some physics based movement
  */
 @AutoRegister
+@SystemOrder(phase = Phase.INPUT)
+@MainThread
+@Reads(PlayerInfo.class)
+@Writes({PlayerTransform.class, PlayerCamera.class})
 public class SimplePlayerMove extends EntitySystem {
     @In private Input input;
     @In private IWindow window;
@@ -66,36 +75,20 @@ public class SimplePlayerMove extends EntitySystem {
         var multiplier = 1.0;
         if (input.keyDown(info.sprintKey))
             multiplier = info.sprintSpeed;
-        if (input.keyDown(info.forwardKey)) {
-            transform.x += (forward.x * delta * info.movementSpeed * multiplier);
-            transform.y += (forward.y * delta * info.movementSpeed * multiplier);
-            transform.z += (forward.z * delta * info.movementSpeed * multiplier);
-        }
-        if (input.keyDown(info.backwardKey)) {
-            transform.x -= (forward.x * delta * info.movementSpeed * multiplier);
-            transform.y -= (forward.y * delta * info.movementSpeed * multiplier);
-            transform.z -= (forward.z * delta * info.movementSpeed * multiplier);
-        }
-        if (input.keyDown(info.rightKey)) {
-            transform.x += (right.x * delta * info.strafeSpeed * multiplier);
-            transform.y += (right.y * delta * info.strafeSpeed * multiplier);
-            transform.z += (right.z * delta * info.strafeSpeed * multiplier);
-        }
-        if (input.keyDown(info.leftKey)) {
-            transform.x -= (right.x * delta * info.strafeSpeed * multiplier);
-            transform.y -= (right.y * delta * info.strafeSpeed * multiplier);
-            transform.z -= (right.z * delta * info.strafeSpeed * multiplier);
-        }
-        if (input.keyDown(info.upKey)) {
-//            transform.x += (up.x * delta * info.movementSpeed * multiplier);
-            transform.y += (delta * info.movementSpeed * multiplier);
-//            transform.z += (up.z * delta * info.movementSpeed * multiplier);
-        }
-        if (input.keyDown(info.downKey)) {
-//            transform.x -= (up.x * delta * info.movementSpeed * multiplier);
-            transform.y -= (delta * info.movementSpeed * multiplier);
-//            transform.z -= (up.z * delta * info.movementSpeed * multiplier);
-        }
+        var speed = (float) (delta * info.movementSpeed * multiplier);
+        var strafe = (float) (delta * info.strafeSpeed * multiplier);
+        if (input.keyDown(info.forwardKey))
+            transform.translate(forward.x * speed, forward.y * speed, forward.z * speed);
+        if (input.keyDown(info.backwardKey))
+            transform.translate(-forward.x * speed, -forward.y * speed, -forward.z * speed);
+        if (input.keyDown(info.rightKey))
+            transform.translate(right.x * strafe, right.y * strafe, right.z * strafe);
+        if (input.keyDown(info.leftKey))
+            transform.translate(-right.x * strafe, -right.y * strafe, -right.z * strafe);
+        if (input.keyDown(info.upKey))
+            transform.translate(0, speed, 0);
+        if (input.keyDown(info.downKey))
+            transform.translate(0, -speed, 0);
 
     }
 
@@ -104,8 +97,7 @@ public class SimplePlayerMove extends EntitySystem {
      */
     private void processRotation(PlayerInfo info, PlayerTransform transform) {
         var delta = time.getGameDelta();
-        transform.ry += (input.getDx() * delta * info.horizontalSensitivity);
-        transform.rx += (input.getDy() * delta * info.verticalSensitivity);
+        transform.rotate((float) (input.getDy() * delta * info.verticalSensitivity), (float) (input.getDx() * delta * info.horizontalSensitivity));
     }
 
     /**
@@ -113,9 +105,9 @@ public class SimplePlayerMove extends EntitySystem {
      */
     private void processCamera(PlayerTransform transform, PlayerCamera camera) {
         camera.viewMatrix.identity()
-                .rotateX((float) Math.toRadians(transform.rx))
-                .rotateY((float) Math.toRadians(transform.ry))
-                .translate(-transform.x, -transform.y, -transform.z)
+                .rotateX((float) Math.toRadians(transform.getRx()))
+                .rotateY((float) Math.toRadians(transform.getRy()))
+                .translate(-transform.getX(), -transform.getY(), -transform.getZ())
                 .scale(1.0f);
     }
 }
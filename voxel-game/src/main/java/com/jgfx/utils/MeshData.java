@@ -29,6 +29,7 @@ public class MeshData {
      */
     public void clear() {
         vertices.clear();
+        colors.clear();
         uvs.clear();
         indices.clear();
         normals.clear();
@@ -1,7 +1,7 @@
 package com.jgfx.utils;
 
 import com.google.common.collect.Queues;
-import com.google.common.eventbus.Subscribe;
+import com.jgfx.engine.event.Subscribe;
 import com.jgfx.assets.context.CoreContext;
 import com.jgfx.assets.data.AssetData;
 import com.jgfx.engine.assets.Assets;
@@ -0,0 +1,55 @@
+package com.jgfx.chunk.data;
+
+import com.jgfx.assets.type.AssetType;
+import com.jgfx.assets.urn.ResourceUrn;
+import com.jgfx.blocks.Block;
+import com.jgfx.blocks.data.BlockData;
+import com.jgfx.chunk.utils.ChunkHelper;
+import com.jgfx.engine.testing.AllocationHarness;
+import org.joml.Vector3i;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Holds the block lookups that are done for every block of a chunk to their allocation budget
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ChunkBlocksAllocationTest {
+    private final ChunkBlocks blocks = new ChunkBlocks();
+    private final Vector3i position = new Vector3i();
+    private long visited;
+
+    @BeforeAll
+    public void createBlocks() {
+        var type = new AssetType<>(Block.class, Block::new);
+        var stone = new Block(new ResourceUrn("test", "blocks", "stone"), type, new BlockData(1, "Stone"));
+        for (var x = 0; x < ChunkHelper.CHUNK_BLOCK_SIZE; x++)
+            for (var z = 0; z < ChunkHelper.CHUNK_BLOCK_SIZE; z++)
+                blocks.setBlock(x, 0, z, (byte) stone.getId());
+    }
+
+    @Test
+    public void getBlockDoesntAllocate() {
+        assertTrue(blocks.getBlock(1, 0, 1).isPresent());
+        AllocationHarness.measure("ChunkBlocks.getBlock", 10_000, () -> visited += blocks.getBlock(1, 0, 1).get().getId()).assertWithin(0);
+        AllocationHarness.measure("ChunkBlocks.getBlock(empty)", 10_000, () -> visited += blocks.getBlock(1, 5, 1).isPresent() ? 1 : 0).assertWithin(0);
+    }
+
+    @Test
+    public void getPositionVecDoesntAllocate() {
+        assertEquals(new Vector3i(3, 2, 1), ChunkHelper.getPositionVec((int) ChunkHelper.getIndex(3, 2, 1), position));
+        AllocationHarness.measure("ChunkHelper.getPositionVec", 10_000, () -> visited += ChunkHelper.getPositionVec(1234, position).x).assertWithin(0);
+    }
+
+    /**
+     * The position is shared by every block of one pass, so a whole chunk costs about one vector
+     */
+    @Test
+    public void foreachBlockAllocatesOncePerChunk() {
+        AllocationHarness.measure("ChunkBlocks.foreachBlock", 200, () -> blocks.foreachBlock((position, block) -> visited += position.x)).assertWithin(64);
+    }
+}
@@ -0,0 +1,65 @@
+package com.jgfx.snapshot;
+
+import com.jgfx.assets.context.CoreContext;
+import com.jgfx.chunk.data.ChunkOrigin;
+import com.jgfx.engine.ecs.component.StorageMode;
+import com.jgfx.engine.ecs.entity.pool.EntityManager;
+import com.jgfx.engine.ecs.snapshot.SnapshotReader;
+import com.jgfx.engine.ecs.snapshot.SnapshotWriter;
+import com.jgfx.player.data.PlayerCamera;
+import com.jgfx.player.data.PlayerInfo;
+import com.jgfx.player.data.PlayerTransform;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Saves and loads the components of the game, so a saved world comes back with it's chunks and player
+ */
+public class GameSnapshotTest {
+    @TempDir Path directory;
+
+    @Test
+    public void chunksAndThePlayerSurviveARoundTrip() throws IOException {
+        for (var mode : StorageMode.values()) {
+            var manager = CoreContext.put(new EntityManager(mode));
+            var chunk = manager.create(new ChunkOrigin(16, -32, 48));
+            var player = manager.create(new PlayerTransform(new Vector3f(1, 2, 3), new Vector3f(10, 20, 0)),
+                    new PlayerInfo(1, 2, 3, 4, 5, 6, 7, 8, 0.5, 0.25, 3, 2, 6),
+                    new PlayerCamera((float) Math.toRadians(70), 1.5f, 0.1f, 500));
+            var path = directory.resolve(mode + ".snapshot");
+            new SnapshotWriter(manager).capture().write(path);
+
+            var loaded = CoreContext.put(new EntityManager(mode));
+            assertEquals(2, SnapshotReader.load(path, loaded));
+            var origin = loaded.getEntity(chunk.getId()).get(ChunkOrigin.class);
+            assertNotNull(origin);
+            assertEquals(16, origin.x);
+            assertEquals(-32, origin.y);
+            assertEquals(48, origin.z);
+            assertEquals(chunk.get(ChunkOrigin.class).index, origin.index);
+            assertEquals(chunk.get(ChunkOrigin.class).modelMatrix, origin.modelMatrix);
+
+            var loadedPlayer = loaded.getEntity(player.getId());
+            var transform = loadedPlayer.get(PlayerTransform.class);
+            assertNotNull(transform);
+            assertTrue(transform.isPacked());
+            assertEquals(1, transform.getX());
+            assertEquals(2, transform.getY());
+            assertEquals(3, transform.getZ());
+            assertEquals(10, transform.getRx());
+            assertEquals(20, transform.getRy());
+            var info = loadedPlayer.get(PlayerInfo.class);
+            assertEquals(8, info.toggleCameraKey);
+            assertEquals(0.25, info.horizontalSensitivity);
+            assertEquals(6, info.sprintSpeed);
+            var camera = loadedPlayer.get(PlayerCamera.class);
+            assertEquals(player.get(PlayerCamera.class).projectionMatrix, camera.projectionMatrix);
+        }
+    }
+}